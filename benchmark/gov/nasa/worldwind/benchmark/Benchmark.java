@@ -0,0 +1,87 @@
+/*
+Copyright (C) 2001, 2010 United States Government
+as represented by the Administrator of the
+National Aeronautics and Space Administration.
+All Rights Reserved.
+*/
+package gov.nasa.worldwind.benchmark;
+
+/**
+ * A single timed operation run by {@link BenchmarkRunner}. The runner calls {@link #setUp()} once, then calls {@link
+ * #run()} repeatedly for the warmup and measurement iterations, then calls {@link #tearDown()}.
+ * <p/>
+ * Each call to <code>run</code> must return a value computed from the work it performed. The runner accumulates these
+ * values so that the just-in-time compiler cannot eliminate the work being measured.
+ *
+ * @version $Id$
+ */
+public abstract class Benchmark
+{
+    protected final String name;
+    protected final int operationsPerInvocation;
+
+    /**
+     * Creates a benchmark performing one operation per invocation.
+     *
+     * @param name the benchmark name, conventionally the measured class and method separated by a period.
+     */
+    public Benchmark(String name)
+    {
+        this(name, 1);
+    }
+
+    /**
+     * Creates a benchmark performing several operations per invocation. The runner reports the time per operation.
+     *
+     * @param name                    the benchmark name.
+     * @param operationsPerInvocation the number of operations performed by each call to {@link #run()}.
+     */
+    public Benchmark(String name, int operationsPerInvocation)
+    {
+        this.name = name;
+        this.operationsPerInvocation = operationsPerInvocation;
+    }
+
+    public String getName()
+    {
+        return this.name;
+    }
+
+    public int getOperationsPerInvocation()
+    {
+        return this.operationsPerInvocation;
+    }
+
+    /**
+     * Prepares the benchmark's data. Not included in the measured time.
+     *
+     * @throws Exception if the data cannot be prepared.
+     */
+    public void setUp() throws Exception
+    {
+    }
+
+    /**
+     * Performs the measured work once.
+     *
+     * @return a value computed from the work performed.
+     *
+     * @throws Exception if the work fails.
+     */
+    public abstract long run() throws Exception;
+
+    /**
+     * Releases the benchmark's data. Not included in the measured time.
+     *
+     * @throws Exception if the data cannot be released.
+     */
+    public void tearDown() throws Exception
+    {
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.name;
+    }
+}
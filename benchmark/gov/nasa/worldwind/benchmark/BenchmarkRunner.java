@@ -0,0 +1,375 @@
+/*
+Copyright (C) 2001, 2010 United States Government
+as represented by the Administrator of the
+National Aeronautics and Space Administration.
+All Rights Reserved.
+*/
+package gov.nasa.worldwind.benchmark;
+
+import gov.nasa.worldwind.layers.rpf.RPFBenchmarks;
+
+import java.io.*;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Runs the World Wind benchmark suite from the command line and reports the mean time per operation of each benchmark.
+ * Each benchmark is run for a number of warmup iterations, whose timings are discarded, then for a number of measured
+ * iterations of fixed duration. Results can be written to a file and compared with the results of a previous run to
+ * detect regressions. Run with <code>-h</code> for the list of options.
+ * <p/>
+ * The runner exits with status 1 if a benchmark fails, and with status 2 if a benchmark is slower than its baseline by
+ * more than the regression threshold.
+ *
+ * @version $Id$
+ */
+public class BenchmarkRunner
+{
+    protected static final String USAGE = "Usage: BenchmarkRunner [options]\n"
+        + "  -f <regex>    run only the benchmarks which name contains a match of the expression\n"
+        + "  -wi <n>       number of warmup iterations (default 3)\n"
+        + "  -i <n>        number of measured iterations (default 5)\n"
+        + "  -t <millis>   duration of each iteration in milliseconds (default 500)\n"
+        + "  -o <file>     write the results to a file\n"
+        + "  -b <file>     compare the results with a file written by a previous run\n"
+        + "  -r <percent>  slowdown relative to the baseline reported as a regression (default 10)\n"
+        + "  -l            list the benchmarks and exit\n"
+        + "  -h            print this message and exit";
+
+    /** The result of one benchmark. Times are in nanoseconds per operation. */
+    public static class Result
+    {
+        protected final String name;
+        protected final double mean;
+        protected final double stdDev;
+        protected final double min;
+
+        public Result(String name, double mean, double stdDev, double min)
+        {
+            this.name = name;
+            this.mean = mean;
+            this.stdDev = stdDev;
+            this.min = min;
+        }
+
+        public String getName()
+        {
+            return this.name;
+        }
+
+        public double getMean()
+        {
+            return this.mean;
+        }
+
+        public double getStdDev()
+        {
+            return this.stdDev;
+        }
+
+        public double getMin()
+        {
+            return this.min;
+        }
+    }
+
+    protected int warmupIterations = 3;
+    protected int iterations = 5;
+    protected long iterationMillis = 500;
+    protected double regressionPercent = 10;
+    protected PrintStream out = System.out;
+    // Accumulates the values returned by the benchmarks so that their work cannot be eliminated.
+    protected long sink;
+
+    public static void main(String[] args)
+    {
+        BenchmarkRunner runner = new BenchmarkRunner();
+        Pattern filter = null;
+        File outputFile = null;
+        File baselineFile = null;
+        boolean list = false;
+
+        try
+        {
+            for (int i = 0; i < args.length; i++)
+            {
+                String arg = args[i];
+                if (arg.equals("-h"))
+                {
+                    System.out.println(USAGE);
+                    return;
+                }
+                else if (arg.equals("-l"))
+                    list = true;
+                else if (arg.equals("-f"))
+                    filter = Pattern.compile(args[++i]);
+                else if (arg.equals("-wi"))
+                    runner.warmupIterations = Integer.parseInt(args[++i]);
+                else if (arg.equals("-i"))
+                    runner.iterations = Math.max(Integer.parseInt(args[++i]), 1);
+                else if (arg.equals("-t"))
+                    runner.iterationMillis = Math.max(Long.parseLong(args[++i]), 1);
+                else if (arg.equals("-o"))
+                    outputFile = new File(args[++i]);
+                else if (arg.equals("-b"))
+                    baselineFile = new File(args[++i]);
+                else if (arg.equals("-r"))
+                    runner.regressionPercent = Double.parseDouble(args[++i]);
+                else
+                    throw new IllegalArgumentException(arg);
+            }
+        }
+        catch (RuntimeException e)
+        {
+            System.err.println("Invalid arguments " + Arrays.toString(args));
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+
+        List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+        for (Benchmark benchmark : createBenchmarks())
+        {
+            if (filter == null || filter.matcher(benchmark.getName()).find())
+                benchmarks.add(benchmark);
+        }
+
+        if (list)
+        {
+            for (Benchmark benchmark : benchmarks)
+            {
+                System.out.println(benchmark.getName());
+            }
+            return;
+        }
+
+        try
+        {
+            Map<String, Result> baseline = baselineFile != null ? readResults(baselineFile) : null;
+            List<Result> results = runner.run(benchmarks, baseline);
+
+            if (outputFile != null)
+                writeResults(outputFile, results);
+
+            if (results.size() < benchmarks.size())
+                System.exit(1);
+            if (baseline != null && runner.countRegressions(results, baseline) > 0)
+                System.exit(2);
+        }
+        catch (IOException e)
+        {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Creates the benchmarks of the suite.
+     *
+     * @return the benchmarks, in the order they run.
+     */
+    public static List<Benchmark> createBenchmarks()
+    {
+        List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+        GeometryBenchmarks.addBenchmarks(benchmarks);
+        GlobeBenchmarks.addBenchmarks(benchmarks);
+        CoordConverterBenchmarks.addBenchmarks(benchmarks);
+        MemoryCacheBenchmarks.addBenchmarks(benchmarks);
+        TerrainBenchmarks.addBenchmarks(benchmarks);
+        FormatBenchmarks.addBenchmarks(benchmarks);
+        RPFBenchmarks.addBenchmarks(benchmarks);
+        return benchmarks;
+    }
+
+    /**
+     * Runs benchmarks and prints their results.
+     *
+     * @param benchmarks the benchmarks to run.
+     * @param baseline   results of a previous run to compare with, keyed by benchmark name. May be null.
+     *
+     * @return the results of the benchmarks that completed.
+     */
+    public List<Result> run(List<Benchmark> benchmarks, Map<String, Result> baseline)
+    {
+        this.out.printf("%d warmup and %d measured iterations of %d ms%n", this.warmupIterations, this.iterations,
+            this.iterationMillis);
+        this.out.printf("%-50s %14s %12s %14s%s%n", "Benchmark", "ns/op", "+/-", "min ns/op",
+            baseline != null ? String.format(" %14s %8s", "baseline", "change") : "");
+
+        List<Result> results = new ArrayList<Result>();
+        for (Benchmark benchmark : benchmarks)
+        {
+            Result result;
+            try
+            {
+                result = this.run(benchmark);
+            }
+            catch (Throwable t)
+            {
+                this.out.printf("%-50s FAILED: %s%n", benchmark.getName(), t);
+                continue;
+            }
+
+            results.add(result);
+            this.out.printf("%-50s %14.1f %12.1f %14.1f", result.getName(), result.getMean(), result.getStdDev(),
+                result.getMin());
+            Result previous = baseline != null ? baseline.get(result.getName()) : null;
+            if (previous != null)
+            {
+                double change = 100 * (result.getMean() - previous.getMean()) / previous.getMean();
+                this.out.printf(" %14.1f %+7.1f%%%s", previous.getMean(), change,
+                    change > this.regressionPercent ? " REGRESSION" : "");
+            }
+            this.out.println();
+        }
+
+        if (baseline != null)
+            this.out.printf("%d regressions above %.1f%%%n", this.countRegressions(results, baseline),
+                this.regressionPercent);
+
+        return results;
+    }
+
+    /**
+     * Runs one benchmark.
+     *
+     * @param benchmark the benchmark to run.
+     *
+     * @return the benchmark's result.
+     *
+     * @throws Exception if the benchmark fails.
+     */
+    public Result run(Benchmark benchmark) throws Exception
+    {
+        benchmark.setUp();
+        try
+        {
+            for (int i = 0; i < this.warmupIterations; i++)
+            {
+                this.runIteration(benchmark);
+            }
+
+            double[] times = new double[this.iterations];
+            for (int i = 0; i < this.iterations; i++)
+            {
+                times[i] = this.runIteration(benchmark);
+            }
+
+            double sum = 0;
+            double min = Double.MAX_VALUE;
+            for (double time : times)
+            {
+                sum += time;
+                min = Math.min(min, time);
+            }
+            double mean = sum / times.length;
+
+            double variance = 0;
+            for (double time : times)
+            {
+                variance += (time - mean) * (time - mean);
+            }
+            double stdDev = times.length > 1 ? Math.sqrt(variance / (times.length - 1)) : 0;
+
+            return new Result(benchmark.getName(), mean, stdDev, min);
+        }
+        finally
+        {
+            benchmark.tearDown();
+            // Start the next benchmark with a clean heap.
+            System.gc();
+        }
+    }
+
+    // Runs a benchmark repeatedly for the iteration duration, and returns the mean time per operation in nanoseconds.
+    protected double runIteration(Benchmark benchmark) throws Exception
+    {
+        long duration = this.iterationMillis * 1000000L;
+        long invocations = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do
+        {
+            this.sink += benchmark.run();
+            invocations++;
+            elapsed = System.nanoTime() - start;
+        }
+        while (elapsed < duration);
+
+        return (double) elapsed / (invocations * benchmark.getOperationsPerInvocation());
+    }
+
+    protected int countRegressions(List<Result> results, Map<String, Result> baseline)
+    {
+        int count = 0;
+        for (Result result : results)
+        {
+            Result previous = baseline.get(result.getName());
+            if (previous != null && result.getMean() > previous.getMean() * (1 + this.regressionPercent / 100))
+                count++;
+        }
+        return count;
+    }
+
+    /**
+     * Writes results to a file, one benchmark per line, as comma separated name, mean, standard deviation and minimum
+     * time per operation in nanoseconds.
+     *
+     * @param file    the file to write.
+     * @param results the results to write.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    public static void writeResults(File file, List<Result> results) throws IOException
+    {
+        PrintWriter writer = new PrintWriter(new FileWriter(file));
+        try
+        {
+            writer.println("# benchmark,ns/op,stddev,min ns/op");
+            for (Result result : results)
+            {
+                writer.printf(Locale.US, "%s,%.3f,%.3f,%.3f%n", result.getName(), result.getMean(),
+                    result.getStdDev(), result.getMin());
+            }
+        }
+        finally
+        {
+            writer.close();
+        }
+    }
+
+    /**
+     * Reads results written by {@link #writeResults(java.io.File, java.util.List)}.
+     *
+     * @param file the file to read.
+     *
+     * @return the results keyed by benchmark name.
+     *
+     * @throws IOException if the file cannot be read.
+     */
+    public static Map<String, Result> readResults(File file) throws IOException
+    {
+        Map<String, Result> results = new HashMap<String, Result>();
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        try
+        {
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                if (line.startsWith("#") || line.trim().length() == 0)
+                    continue;
+
+                String[] fields = line.split(",");
+                if (fields.length < 4)
+                    throw new IOException("Invalid result line in " + file + ": " + line);
+
+                results.put(fields[0], new Result(fields[0], Double.parseDouble(fields[1]),
+                    Double.parseDouble(fields[2]), Double.parseDouble(fields[3])));
+            }
+        }
+        finally
+        {
+            reader.close();
+        }
+        return results;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+Copyright (C) 2001, 2010 United States Government
+as represented by the Administrator of the
+National Aeronautics and Space Administration.
+All Rights Reserved.
+*/
+package gov.nasa.worldwind.benchmark;
+
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.geom.coords.*;
+
+import java.util.List;
+
+/**
+ * Benchmarks of UTM and MGRS conversions, comparing the per coordinate {@link UTMCoord} and {@link MGRSCoord}
+ * conversions with the array conversions of {@link BatchCoordConverter}.
+ *
+ * @version $Id$
+ */
+public class CoordConverterBenchmarks
+{
+    protected static final int COUNT = 1024;
+
+    public static void addBenchmarks(List<Benchmark> benchmarks)
+    {
+        benchmarks.add(new ConverterBenchmark("UTMCoord.fromLatLon")
+        {
+            public long run()
+            {
+                double sum = 0;
+                for (LatLon ll : this.locations)
+                {
+                    sum += UTMCoord.fromLatLon(ll.getLatitude(), ll.getLongitude()).getEasting();
+                }
+                return (long) sum;
+            }
+        });
+
+        benchmarks.add(new ConverterBenchmark("BatchCoordConverter.convertGeodeticToUTM")
+        {
+            public long run()
+            {
+                this.converter.convertGeodeticToUTM(this.latitudes, this.longitudes, 0, COUNT, this.zones,
+                    this.hemispheres, this.eastings, this.northings);
+                return (long) this.eastings[COUNT - 1];
+            }
+        });
+
+        benchmarks.add(new ConverterBenchmark("MGRSCoord.fromLatLon")
+        {
+            public long run()
+            {
+                long sum = 0;
+                for (LatLon ll : this.locations)
+                {
+                    sum += MGRSCoord.fromLatLon(ll.getLatitude(), ll.getLongitude()).toString().length();
+                }
+                return sum;
+            }
+        });
+
+        benchmarks.add(new ConverterBenchmark("BatchCoordConverter.convertGeodeticToMGRS")
+        {
+            public long run()
+            {
+                this.converter.convertGeodeticToMGRS(this.latitudes, this.longitudes, 0, COUNT, 5, this.mgrs);
+                return this.mgrs[COUNT - 1].length();
+            }
+        });
+    }
+
+    protected abstract static class ConverterBenchmark extends Benchmark
+    {
+        protected List<LatLon> locations;
+        protected BatchCoordConverter converter;
+        protected double[] latitudes = new double[COUNT];
+        protected double[] longitudes = new double[COUNT];
+        protected int[] zones = new int[COUNT];
+        protected String[] hemispheres = new String[COUNT];
+        protected double[] eastings = new double[COUNT];
+        protected double[] northings = new double[COUNT];
+        protected String[] mgrs = new String[COUNT];
+
+        public ConverterBenchmark(String name)
+        {
+            super(name, COUNT);
+        }
+
+        @Override
+        public void setUp()
+        {
+            // UTM covers latitudes 80 degrees south to 84 degrees north.
+            this.locations = SyntheticData.createLocations(6, Sector.fromDegrees(-80, 84, -180, 180), COUNT);
+            this.converter = new BatchCoordConverter();
+            for (int i = 0; i < COUNT; i++)
+            {
+                this.latitudes[i] = this.locations.get(i).getLatitude().degrees;
+                this.longitudes[i] = this.locations.get(i).getLongitude().degrees;
+            }
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/*
+Copyright (C) 2001, 2010 United States Government
+as represented by the Administrator of the
+National Aeronautics and Space Administration.
+All Rights Reserved.
+*/
+package gov.nasa.worldwind.benchmark;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.formats.dds.*;
+import gov.nasa.worldwind.formats.shapefile.*;
+import gov.nasa.worldwind.ogc.kml.*;
+
+import java.awt.image.*;
+import java.io.*;
+import java.util.List;
+
+/**
+ * Benchmarks of data format readers and writers: {@link Shapefile} and KML parsing, and DXT compression with {@link
+ * DDSCompressor}. DXT compression is also measured along the sequential path the concurrent compressors replaced, see
+ * {@link SequentialDDSCompressor}. The documents are generated in memory, see {@link SyntheticData}.
+ *
+ * @version $Id$
+ */
+public class FormatBenchmarks
+{
+    protected static final int NUM_SHAPEFILE_RECORDS = 1000;
+    protected static final int NUM_SHAPEFILE_POINTS = 100;
+    protected static final int NUM_PLACEMARKS = 1000;
+    protected static final int NUM_PLACEMARK_POINTS = 20;
+    protected static final int IMAGE_SIZE = 512;
+
+    public static void addBenchmarks(List<Benchmark> benchmarks)
+    {
+        benchmarks.add(new Benchmark("Shapefile.readPolylines", NUM_SHAPEFILE_RECORDS)
+        {
+            protected byte[] shp;
+            protected AVList params;
+
+            @Override
+            public void setUp()
+            {
+                this.shp = SyntheticData.createPolylineShapefile(8, SyntheticData.REGION, NUM_SHAPEFILE_RECORDS,
+                    NUM_SHAPEFILE_POINTS);
+                // The synthetic shapefile has no projection file; declare its coordinates geographic.
+                this.params = new AVListImpl();
+                this.params.setValue(AVKey.COORDINATE_SYSTEM, AVKey.COORDINATE_SYSTEM_GEOGRAPHIC);
+            }
+
+            public long run()
+            {
+                Shapefile shapefile = new Shapefile(new ByteArrayInputStream(this.shp), null, null, this.params);
+                try
+                {
+                    long count = 0;
+                    while (shapefile.hasNext())
+                    {
+                        count += shapefile.nextRecord().getNumberOfPoints();
+                    }
+                    return count;
+                }
+                finally
+                {
+                    shapefile.close();
+                }
+            }
+        });
+
+        benchmarks.add(new Benchmark("KMLRoot.parse", NUM_PLACEMARKS)
+        {
+            protected byte[] kml;
+
+            @Override
+            public void setUp()
+            {
+                this.kml = SyntheticData.createKMLDocument(9, SyntheticData.REGION, NUM_PLACEMARKS,
+                    NUM_PLACEMARK_POINTS);
+            }
+
+            public long run() throws Exception
+            {
+                KMLRoot root = new KMLRoot(new ByteArrayInputStream(this.kml), KMLConstants.KML_MIME_TYPE);
+                root.parse();
+                return ((KMLAbstractContainer) root.getFeature()).getFeatures().size();
+            }
+        });
+
+        benchmarks.add(new Benchmark("DDSCompressor.compressImage")
+        {
+            protected BufferedImage image;
+
+            @Override
+            public void setUp()
+            {
+                this.image = SyntheticData.createImage(10, IMAGE_SIZE, IMAGE_SIZE);
+            }
+
+            public long run()
+            {
+                return DDSCompressor.compressImage(this.image).remaining();
+            }
+        });
+
+        benchmarks.add(new Benchmark("DDSCompressor.compressImage.sequential")
+        {
+            protected BufferedImage image;
+
+            @Override
+            public void setUp()
+            {
+                this.image = SyntheticData.createImage(10, IMAGE_SIZE, IMAGE_SIZE);
+            }
+
+            public long run()
+            {
+                return new SequentialDDSCompressor().compressImage(this.image,
+                    DDSCompressor.getDefaultCompressionAttributes()).remaining();
+            }
+        });
+    }
+
+    /**
+     * A DDS compressor following the path which preceded the concurrent DXT compressors: each image is compressed on
+     * the calling thread, and the pixels of each 4x4 block are fetched with their own call to <code>getRGB()</code>.
+     * Its output is identical to that of {@link DDSCompressor}.
+     */
+    protected static class SequentialDDSCompressor extends DDSCompressor
+    {
+        @Override
+        protected DXTCompressor getDXTCompressor(BufferedImage image, DXTCompressionAttributes attributes)
+        {
+            DXTCompressor compressor = super.getDXTCompressor(image, attributes);
+            return compressor instanceof DXT1Compressor ? new SequentialDXT1Compressor()
+                : new SequentialDXT3Compressor();
+        }
+    }
+
+    protected static class SequentialDXT1Compressor extends DXT1Compressor
+    {
+        @Override
+        public void compressImage(BufferedImage image, DXTCompressionAttributes attributes, java.nio.ByteBuffer buffer)
+        {
+            this.doCompressBlockRows(image, attributes, 0, (image.getHeight() + 3) / 4, buffer);
+        }
+
+        @Override
+        protected ColorBlockExtractor getColorBlockExtractor(BufferedImage image)
+        {
+            return new BlockColorBlockExtractor(image);
+        }
+    }
+
+    protected static class SequentialDXT3Compressor extends DXT3Compressor
+    {
+        @Override
+        public void compressImage(BufferedImage image, DXTCompressionAttributes attributes, java.nio.ByteBuffer buffer)
+        {
+            this.doCompressBlockRows(image, attributes, 0, (image.getHeight() + 3) / 4, buffer);
+        }
+
+        @Override
+        protected ColorBlockExtractor getColorBlockExtractor(BufferedImage image)
+        {
+            return new BlockColorBlockExtractor(image);
+        }
+    }
+
+    /** A color block extractor which fetches the pixels of each 4x4 block separately. */
+    protected static class BlockColorBlockExtractor extends BasicColorBlockExtractor
+    {
+        protected final int[] buffer = new int[16];
+
+        public BlockColorBlockExtractor(BufferedImage image)
+        {
+            super(image);
+        }
+
+        @Override
+        public void extractColorBlock4x4(DXTCompressionAttributes attributes, int x, int y, ColorBlock4x4 colorBlock)
+        {
+            int bw = Math.min(this.width - x, 4);
+            int bh = Math.min(this.height - y, 4);
+            int bxOffset = 4 * (bw - 1);
+            int byOffset = 4 * (bh - 1);
+            int blockPos = 0;
+
+            this.image.getRGB(x, y, bw, bh, this.buffer, 0, 4);
+
+            for (int j = 0; j < 4; j++)
+            {
+                int by = remainder[byOffset + j];
+                for (int i = 0; i < 4; i++)
+                {
+                    int32ToColor32(this.buffer[remainder[bxOffset + i] + by * 4], colorBlock.color[blockPos++]);
+                }
+            }
+
+            if (attributes.isPremultiplyAlpha())
+            {
+                for (int i = 0; i < 16; i++)
+                {
+                    premultiplyAlpha(colorBlock.color[i]);
+                }
+            }
+        }
+    }
+}
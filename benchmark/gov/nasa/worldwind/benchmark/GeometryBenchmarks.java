@@ -0,0 +1,236 @@
+/*
+Copyright (C) 2001, 2010 United States Government
+as represented by the Administrator of the
+National Aeronautics and Space Administration.
+All Rights Reserved.
+*/
+package gov.nasa.worldwind.benchmark;
+
+import gov.nasa.worldwind.geom.*;
+
+import java.util.*;
+
+/**
+ * Benchmarks of the {@link Angle}, {@link LatLon}, {@link Sector}, {@link Vec4} and {@link Matrix} operations used
+ * throughout the tessellation, culling and rendering code.
+ *
+ * @version $Id$
+ */
+public class GeometryBenchmarks
+{
+    protected static final int COUNT = 1024;
+
+    protected static final List<LatLon> locations = SyntheticData.createLocations(1, SyntheticData.REGION, COUNT);
+    protected static final List<Sector> sectors = SyntheticData.createSectors(2, SyntheticData.REGION, COUNT, 2);
+    protected static final Vec4[] vectors = createVectors(3, COUNT);
+    protected static final Matrix[] matrices = createMatrices(4, COUNT);
+
+    public static void addBenchmarks(List<Benchmark> benchmarks)
+    {
+        benchmarks.add(new Benchmark("Angle.sinCos", COUNT)
+        {
+            public long run()
+            {
+                double sum = 0;
+                for (LatLon ll : locations)
+                {
+                    sum += ll.getLatitude().sin() * ll.getLongitude().cos();
+                }
+                return (long) sum;
+            }
+        });
+
+        benchmarks.add(new Benchmark("Angle.add", COUNT)
+        {
+            public long run()
+            {
+                Angle sum = Angle.ZERO;
+                for (LatLon ll : locations)
+                {
+                    sum = sum.add(ll.getLatitude());
+                }
+                return (long) sum.degrees;
+            }
+        });
+
+        benchmarks.add(new Benchmark("LatLon.greatCircleDistance", COUNT - 1)
+        {
+            public long run()
+            {
+                double sum = 0;
+                for (int i = 1; i < COUNT; i++)
+                {
+                    sum += LatLon.greatCircleDistance(locations.get(i - 1), locations.get(i)).radians;
+                }
+                return (long) sum;
+            }
+        });
+
+        benchmarks.add(new Benchmark("LatLon.greatCircleAzimuth", COUNT - 1)
+        {
+            public long run()
+            {
+                double sum = 0;
+                for (int i = 1; i < COUNT; i++)
+                {
+                    sum += LatLon.greatCircleAzimuth(locations.get(i - 1), locations.get(i)).radians;
+                }
+                return (long) sum;
+            }
+        });
+
+        benchmarks.add(new Benchmark("LatLon.interpolateGreatCircle", COUNT - 1)
+        {
+            public long run()
+            {
+                double sum = 0;
+                for (int i = 1; i < COUNT; i++)
+                {
+                    sum += LatLon.interpolateGreatCircle(0.3, locations.get(i - 1), locations.get(i)).getLatitude().degrees;
+                }
+                return (long) sum;
+            }
+        });
+
+        benchmarks.add(new Benchmark("LatLon.rhumbDistance", COUNT - 1)
+        {
+            public long run()
+            {
+                double sum = 0;
+                for (int i = 1; i < COUNT; i++)
+                {
+                    sum += LatLon.rhumbDistance(locations.get(i - 1), locations.get(i)).radians;
+                }
+                return (long) sum;
+            }
+        });
+
+        benchmarks.add(new Benchmark("Sector.contains", COUNT)
+        {
+            public long run()
+            {
+                long count = 0;
+                Sector sector = sectors.get(0);
+                for (LatLon ll : locations)
+                {
+                    if (sector.contains(ll))
+                        count++;
+                }
+                return count;
+            }
+        });
+
+        benchmarks.add(new Benchmark("Sector.intersects", COUNT - 1)
+        {
+            public long run()
+            {
+                long count = 0;
+                for (int i = 1; i < COUNT; i++)
+                {
+                    if (sectors.get(i - 1).intersects(sectors.get(i)))
+                        count++;
+                }
+                return count;
+            }
+        });
+
+        benchmarks.add(new Benchmark("Sector.union", COUNT - 1)
+        {
+            public long run()
+            {
+                double sum = 0;
+                for (int i = 1; i < COUNT; i++)
+                {
+                    sum += sectors.get(i - 1).union(sectors.get(i)).getDeltaLatDegrees();
+                }
+                return (long) sum;
+            }
+        });
+
+        benchmarks.add(new Benchmark("Sector.boundingSector", COUNT)
+        {
+            public long run()
+            {
+                return (long) Sector.boundingSector(locations).getDeltaLatDegrees();
+            }
+        });
+
+        benchmarks.add(new Benchmark("Vec4.crossNormalize", COUNT - 1)
+        {
+            public long run()
+            {
+                double sum = 0;
+                for (int i = 1; i < COUNT; i++)
+                {
+                    sum += vectors[i - 1].cross3(vectors[i]).normalize3().z;
+                }
+                return (long) sum;
+            }
+        });
+
+        benchmarks.add(new Benchmark("Vec4.transformBy4", COUNT)
+        {
+            public long run()
+            {
+                double sum = 0;
+                for (int i = 0; i < COUNT; i++)
+                {
+                    sum += vectors[i].transformBy4(matrices[i]).x;
+                }
+                return (long) sum;
+            }
+        });
+
+        benchmarks.add(new Benchmark("Matrix.multiply", COUNT - 1)
+        {
+            public long run()
+            {
+                double sum = 0;
+                for (int i = 1; i < COUNT; i++)
+                {
+                    sum += matrices[i - 1].multiply(matrices[i]).m14;
+                }
+                return (long) sum;
+            }
+        });
+
+        benchmarks.add(new Benchmark("Matrix.getInverse", COUNT)
+        {
+            public long run()
+            {
+                double sum = 0;
+                for (Matrix matrix : matrices)
+                {
+                    sum += matrix.getInverse().m14;
+                }
+                return (long) sum;
+            }
+        });
+    }
+
+    protected static Vec4[] createVectors(long seed, int count)
+    {
+        Random random = new Random(seed);
+        Vec4[] vectors = new Vec4[count];
+        for (int i = 0; i < count; i++)
+        {
+            vectors[i] = new Vec4(random.nextGaussian(), random.nextGaussian(), random.nextGaussian());
+        }
+        return vectors;
+    }
+
+    // Creates rigid transforms, the kind of matrix used for model-view transforms, which are always invertible.
+    protected static Matrix[] createMatrices(long seed, int count)
+    {
+        Random random = new Random(seed);
+        Matrix[] matrices = new Matrix[count];
+        for (int i = 0; i < count; i++)
+        {
+            Matrix rotation = Matrix.fromRotationXYZ(Angle.fromDegrees(random.nextDouble() * 360),
+                Angle.fromDegrees(random.nextDouble() * 360), Angle.fromDegrees(random.nextDouble() * 360));
+            matrices[i] = Matrix.fromTranslation(random.nextGaussian() * 1e6, random.nextGaussian() * 1e6,
+                random.nextGaussian() * 1e6).multiply(rotation);
+        }
+        return matrices;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+Copyright (C) 2001, 2010 United States Government
+as represented by the Administrator of the
+National Aeronautics and Space Administration.
+All Rights Reserved.
+*/
+package gov.nasa.worldwind.benchmark;
+
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+
+import java.util.*;
+
+/**
+ * Benchmarks of the geodetic and cartesian conversions of {@link EllipsoidalGlobe}.
+ *
+ * @version $Id$
+ */
+public class GlobeBenchmarks
+{
+    protected static final int COUNT = 1024;
+
+    public static void addBenchmarks(List<Benchmark> benchmarks)
+    {
+        benchmarks.add(new GlobeBenchmark("EllipsoidalGlobe.computePointFromPosition")
+        {
+            public long run()
+            {
+                double sum = 0;
+                for (Position position : this.positions)
+                {
+                    sum += this.globe.computePointFromPosition(position).x;
+                }
+                return (long) sum;
+            }
+        });
+
+        benchmarks.add(new GlobeBenchmark("EllipsoidalGlobe.computePositionFromPoint")
+        {
+            public long run()
+            {
+                double sum = 0;
+                for (Vec4 point : this.points)
+                {
+                    sum += this.globe.computePositionFromPoint(point).getElevation();
+                }
+                return (long) sum;
+            }
+        });
+
+        benchmarks.add(new GlobeBenchmark("EllipsoidalGlobe.computePointsFromPositions")
+        {
+            public long run()
+            {
+                this.globe.computePointsFromPositions(this.packedPositions, COUNT, null, this.packedPoints);
+                return (long) this.packedPoints[0];
+            }
+        });
+
+        benchmarks.add(new GlobeBenchmark("EllipsoidalGlobe.computePositionsFromPoints")
+        {
+            public long run()
+            {
+                this.globe.computePositionsFromPoints(this.packedPoints, COUNT, null, this.packedPositions);
+                return (long) this.packedPositions[2];
+            }
+        });
+
+        benchmarks.add(new GlobeBenchmark("EllipsoidalGlobe.computeSurfaceNormalAtLocation")
+        {
+            public long run()
+            {
+                double sum = 0;
+                for (Position position : this.positions)
+                {
+                    sum += this.globe.computeSurfaceNormalAtLocation(position.getLatitude(),
+                        position.getLongitude()).z;
+                }
+                return (long) sum;
+            }
+        });
+
+        benchmarks.add(new GlobeBenchmark("EllipsoidalGlobe.getRadiusAt")
+        {
+            public long run()
+            {
+                double sum = 0;
+                for (Position position : this.positions)
+                {
+                    sum += this.globe.getRadiusAt(position);
+                }
+                return (long) sum;
+            }
+        });
+    }
+
+    protected abstract static class GlobeBenchmark extends Benchmark
+    {
+        protected EllipsoidalGlobe globe;
+        protected List<Position> positions;
+        protected List<Vec4> points;
+        protected double[] packedPositions;
+        protected double[] packedPoints;
+
+        public GlobeBenchmark(String name)
+        {
+            super(name, COUNT);
+        }
+
+        @Override
+        public void setUp()
+        {
+            this.globe = SyntheticData.createGlobe(1);
+            this.positions = new ArrayList<Position>(COUNT);
+            this.points = new ArrayList<Vec4>(COUNT);
+
+            this.packedPositions = new double[3 * COUNT];
+            this.packedPoints = new double[3 * COUNT];
+
+            Random random = new Random(5);
+            for (LatLon ll : SyntheticData.createLocations(5, Sector.FULL_SPHERE, COUNT))
+            {
+                Position position = new Position(ll, random.nextDouble() * 10000);
+                Vec4 point = this.globe.computePointFromPosition(position);
+
+                int i = 3 * this.positions.size();
+                this.packedPositions[i] = position.getLatitude().degrees;
+                this.packedPositions[i + 1] = position.getLongitude().degrees;
+                this.packedPositions[i + 2] = position.getElevation();
+                this.packedPoints[i] = point.x;
+                this.packedPoints[i + 1] = point.y;
+                this.packedPoints[i + 2] = point.z;
+
+                this.positions.add(position);
+                this.points.add(point);
+            }
+        }
+    }
+}
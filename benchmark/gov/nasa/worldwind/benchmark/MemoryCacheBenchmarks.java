@@ -0,0 +1,143 @@
+/*
+Copyright (C) 2001, 2010 United States Government
+as represented by the Administrator of the
+National Aeronautics and Space Administration.
+All Rights Reserved.
+*/
+package gov.nasa.worldwind.benchmark;
+
+import gov.nasa.worldwind.cache.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Benchmarks of {@link BasicMemoryCache} lookups and insertions, with and without eviction, and of lookups from several
+ * threads at once as performed by the rendering and retrieval threads.
+ *
+ * @version $Id$
+ */
+public class MemoryCacheBenchmarks
+{
+    protected static final int COUNT = 1024;
+    protected static final int NUM_THREADS = 4;
+
+    public static void addBenchmarks(List<Benchmark> benchmarks)
+    {
+        benchmarks.add(new CacheBenchmark("BasicMemoryCache.getObject", COUNT, COUNT * 2)
+        {
+            public long run()
+            {
+                return this.getObjects();
+            }
+        });
+
+        benchmarks.add(new CacheBenchmark("BasicMemoryCache.getObjectMissing", COUNT, COUNT * 2)
+        {
+            public long run()
+            {
+                long count = 0;
+                for (int i = 0; i < COUNT; i++)
+                {
+                    if (this.cache.getObject(this.missingKeys[i]) == null)
+                        count++;
+                }
+                return count;
+            }
+        });
+
+        // Half the added entries must be evicted to make room for the others.
+        benchmarks.add(new CacheBenchmark("BasicMemoryCache.addWithEviction", COUNT, COUNT / 2)
+        {
+            public long run()
+            {
+                long count = 0;
+                for (int i = 0; i < COUNT; i++)
+                {
+                    if (this.cache.add(this.keys[i], this.values[i], 1))
+                        count++;
+                }
+                return count;
+            }
+        });
+
+        benchmarks.add(new CacheBenchmark("BasicMemoryCache.getObjectConcurrent", COUNT * NUM_THREADS, COUNT * 2)
+        {
+            protected ExecutorService executor;
+            protected List<Callable<Long>> tasks;
+
+            @Override
+            public void setUp()
+            {
+                super.setUp();
+                this.executor = Executors.newFixedThreadPool(NUM_THREADS);
+                this.tasks = new ArrayList<Callable<Long>>();
+                for (int i = 0; i < NUM_THREADS; i++)
+                {
+                    this.tasks.add(new Callable<Long>()
+                    {
+                        public Long call()
+                        {
+                            return getObjects();
+                        }
+                    });
+                }
+            }
+
+            public long run() throws Exception
+            {
+                long count = 0;
+                for (Future<Long> future : this.executor.invokeAll(this.tasks))
+                {
+                    count += future.get();
+                }
+                return count;
+            }
+
+            @Override
+            public void tearDown()
+            {
+                this.executor.shutdownNow();
+            }
+        });
+    }
+
+    protected abstract static class CacheBenchmark extends Benchmark
+    {
+        protected final long capacity;
+        protected MemoryCache cache;
+        protected Object[] keys = new Object[COUNT];
+        protected Object[] missingKeys = new Object[COUNT];
+        protected Object[] values = new Object[COUNT];
+
+        public CacheBenchmark(String name, int operationsPerInvocation, long capacity)
+        {
+            super(name, operationsPerInvocation);
+            this.capacity = capacity;
+        }
+
+        @Override
+        public void setUp()
+        {
+            this.cache = new BasicMemoryCache((long) (0.8 * this.capacity), this.capacity);
+            for (int i = 0; i < COUNT; i++)
+            {
+                this.keys[i] = "key" + i;
+                this.missingKeys[i] = "missing" + i;
+                this.values[i] = new byte[16];
+                this.cache.add(this.keys[i], this.values[i], 1);
+            }
+        }
+
+        protected long getObjects()
+        {
+            long count = 0;
+            for (int i = 0; i < COUNT; i++)
+            {
+                if (this.cache.getObject(this.keys[i]) != null)
+                    count++;
+            }
+            return count;
+        }
+    }
+}
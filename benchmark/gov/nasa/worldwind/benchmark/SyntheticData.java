@@ -0,0 +1,351 @@
+/*
+Copyright (C) 2001, 2010 United States Government
+as represented by the Administrator of the
+National Aeronautics and Space Administration.
+All Rights Reserved.
+*/
+package gov.nasa.worldwind.benchmark;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.formats.wvt.WaveletCodec;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import gov.nasa.worldwind.layers.rpf.RPFFileIndex;
+import gov.nasa.worldwind.terrain.BasicElevationModel;
+import gov.nasa.worldwind.util.*;
+
+import java.awt.image.*;
+import java.io.*;
+import java.nio.*;
+import java.util.*;
+
+/**
+ * Generates the datasets used by the benchmarks, so that the benchmarks run without network access or local data
+ * installation. All data is derived from fixed seeds and is identical from one run to the next.
+ *
+ * @version $Id$
+ */
+public class SyntheticData
+{
+    /** The region most benchmarks draw their locations from. */
+    public static final Sector REGION = Sector.fromDegrees(30, 40, -120, -110);
+
+    /**
+     * Returns random locations within a sector.
+     *
+     * @param seed   the random number generator seed.
+     * @param sector the sector containing the locations.
+     * @param count  the number of locations.
+     *
+     * @return the locations.
+     */
+    public static List<LatLon> createLocations(long seed, Sector sector, int count)
+    {
+        Random random = new Random(seed);
+        List<LatLon> locations = new ArrayList<LatLon>(count);
+        for (int i = 0; i < count; i++)
+        {
+            locations.add(LatLon.fromDegrees(
+                sector.getMinLatitude().degrees + random.nextDouble() * sector.getDeltaLatDegrees(),
+                sector.getMinLongitude().degrees + random.nextDouble() * sector.getDeltaLonDegrees()));
+        }
+        return locations;
+    }
+
+    /**
+     * Returns random sectors within a region.
+     *
+     * @param seed      the random number generator seed.
+     * @param region    the sector containing the sectors.
+     * @param count     the number of sectors.
+     * @param maxDegrees the maximum size of the sectors in latitude and longitude, in degrees.
+     *
+     * @return the sectors.
+     */
+    public static List<Sector> createSectors(long seed, Sector region, int count, double maxDegrees)
+    {
+        Random random = new Random(seed);
+        List<Sector> sectors = new ArrayList<Sector>(count);
+        for (int i = 0; i < count; i++)
+        {
+            double lat = region.getMinLatitude().degrees + random.nextDouble() * region.getDeltaLatDegrees();
+            double lon = region.getMinLongitude().degrees + random.nextDouble() * region.getDeltaLonDegrees();
+            sectors.add(Sector.fromDegrees(lat, Math.min(lat + random.nextDouble() * maxDegrees, 90),
+                lon, Math.min(lon + random.nextDouble() * maxDegrees, 180)));
+        }
+        return sectors;
+    }
+
+    /**
+     * Returns a globe with the dimensions of the Earth whose elevations come from a {@link SyntheticElevationModel}.
+     * Unlike {@link Earth}, the globe's elevation model makes no requests to elevation servers.
+     *
+     * @param numLevels the number of levels of the elevation model.
+     *
+     * @return the globe.
+     */
+    public static EllipsoidalGlobe createGlobe(int numLevels)
+    {
+        return new EllipsoidalGlobe(Earth.WGS84_EQUATORIAL_RADIUS, Earth.WGS84_POLAR_RADIUS, Earth.WGS84_ES,
+            new SyntheticElevationModel(numLevels));
+    }
+
+    /**
+     * Computes the elevation of the synthetic terrain, a pattern of hills rising to about 3000 meters.
+     *
+     * @param latitude  the latitude, in degrees.
+     * @param longitude the longitude, in degrees.
+     *
+     * @return the elevation, in meters.
+     */
+    public static double computeElevation(double latitude, double longitude)
+    {
+        return 1500 + 1000 * Math.sin(latitude * 3) * Math.cos(longitude * 3)
+            + 400 * Math.sin(latitude * 17 + longitude * 11);
+    }
+
+    /**
+     * A {@link BasicElevationModel} which synthesizes its tiles from {@link SyntheticData#computeElevation(double,
+     * double)} instead of reading them from the file store or a server. Tiles are created synchronously on the thread
+     * requesting them and are held in the model's memory cache like tiles read from files.
+     */
+    public static class SyntheticElevationModel extends BasicElevationModel
+    {
+        public SyntheticElevationModel(int numLevels)
+        {
+            super(createParams(numLevels));
+        }
+
+        protected static AVList createParams(int numLevels)
+        {
+            AVList params = new AVListImpl();
+            params.setValue(AVKey.DISPLAY_NAME, "Synthetic Elevations");
+            params.setValue(AVKey.DATASET_NAME, "SyntheticElevations");
+            params.setValue(AVKey.DATA_CACHE_NAME, "Benchmark/SyntheticElevations");
+            params.setValue(AVKey.FORMAT_SUFFIX, ".bil");
+            params.setValue(AVKey.SECTOR, Sector.FULL_SPHERE);
+            params.setValue(AVKey.LEVEL_ZERO_TILE_DELTA, LatLon.fromDegrees(20, 20));
+            params.setValue(AVKey.TILE_WIDTH, 150);
+            params.setValue(AVKey.TILE_HEIGHT, 150);
+            params.setValue(AVKey.NUM_LEVELS, numLevels);
+            params.setValue(AVKey.NUM_EMPTY_LEVELS, 0);
+            params.setValue(AVKey.ELEVATION_MIN, 100d);
+            params.setValue(AVKey.ELEVATION_MAX, 2900d);
+            params.setValue(AVKey.NETWORK_RETRIEVAL_ENABLED, false);
+            return params;
+        }
+
+        @Override
+        protected void requestTile(TileKey key)
+        {
+            ElevationTile tile = this.createTile(key);
+            Sector sector = tile.getSector();
+            int width = tile.getWidth();
+            int height = tile.getHeight();
+
+            // Elevation rows run from north to south.
+            ShortBuffer buffer = ShortBuffer.allocate(width * height);
+            for (int row = 0; row < height; row++)
+            {
+                double lat = sector.getMaxLatitude().degrees - row * sector.getDeltaLatDegrees() / (height - 1);
+                for (int col = 0; col < width; col++)
+                {
+                    double lon = sector.getMinLongitude().degrees + col * sector.getDeltaLonDegrees() / (width - 1);
+                    buffer.put((short) computeElevation(lat, lon));
+                }
+            }
+            buffer.rewind();
+
+            BufferWrapper elevations = new BufferWrapper.ShortBufferWrapper(buffer);
+            tile.setElevations(elevations);
+            this.addTileToCache(tile, elevations);
+        }
+    }
+
+    /**
+     * Creates the contents of a polyline shapefile (the .shp file) with random lines within a region.
+     *
+     * @param seed           the random number generator seed.
+     * @param region         the sector containing the lines.
+     * @param numRecords     the number of lines.
+     * @param pointsPerRecord the number of points of each line.
+     *
+     * @return the shapefile contents.
+     */
+    public static byte[] createPolylineShapefile(long seed, Sector region, int numRecords, int pointsPerRecord)
+    {
+        int contentLength = 4 + 32 + 4 + 4 + 4 + 16 * pointsPerRecord; // one part per record
+        int fileLength = 100 + numRecords * (8 + contentLength);
+
+        ByteBuffer buffer = ByteBuffer.allocate(fileLength);
+        // File header. The file code and length are big endian, the remainder little endian.
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        buffer.putInt(9994);
+        buffer.put(new byte[20]);
+        buffer.putInt(fileLength / 2);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(1000); // version
+        buffer.putInt(3); // polyline
+        putBoundingRectangle(buffer, region);
+        buffer.put(new byte[32]); // z and m ranges
+
+        List<LatLon> points = createLocations(seed, region, numRecords * pointsPerRecord);
+        for (int i = 0; i < numRecords; i++)
+        {
+            List<LatLon> recordPoints = points.subList(i * pointsPerRecord, (i + 1) * pointsPerRecord);
+
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            buffer.putInt(i + 1);
+            buffer.putInt(contentLength / 2);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(3);
+            putBoundingRectangle(buffer, Sector.boundingSector(recordPoints));
+            buffer.putInt(1); // number of parts
+            buffer.putInt(pointsPerRecord);
+            buffer.putInt(0); // first point of the part
+            for (LatLon ll : recordPoints)
+            {
+                buffer.putDouble(ll.getLongitude().degrees);
+                buffer.putDouble(ll.getLatitude().degrees);
+            }
+        }
+
+        return buffer.array();
+    }
+
+    protected static void putBoundingRectangle(ByteBuffer buffer, Sector sector)
+    {
+        buffer.putDouble(sector.getMinLongitude().degrees);
+        buffer.putDouble(sector.getMinLatitude().degrees);
+        buffer.putDouble(sector.getMaxLongitude().degrees);
+        buffer.putDouble(sector.getMaxLatitude().degrees);
+    }
+
+    /**
+     * Creates a KML document with placemarks holding points and line strings within a region.
+     *
+     * @param seed          the random number generator seed.
+     * @param region        the sector containing the placemarks.
+     * @param numPlacemarks the number of placemarks. Every other placemark holds a line string.
+     * @param lineLength    the number of points of each line string.
+     *
+     * @return the document, encoded as UTF-8.
+     */
+    public static byte[] createKMLDocument(long seed, Sector region, int numPlacemarks, int lineLength)
+    {
+        List<LatLon> points = createLocations(seed, region, numPlacemarks * lineLength);
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        sb.append("<kml xmlns=\"http://www.opengis.net/kml/2.2\">\n<Document>\n<name>Synthetic</name>\n");
+        sb.append("<Style id=\"line\"><LineStyle><color>ff00ffff</color><width>2</width></LineStyle></Style>\n");
+        for (int i = 0; i < numPlacemarks; i++)
+        {
+            sb.append("<Placemark id=\"p").append(i).append("\">\n<name>Placemark ").append(i).append("</name>\n");
+            sb.append("<description>Synthetic placemark ").append(i).append("</description>\n");
+            if (i % 2 == 0)
+            {
+                LatLon ll = points.get(i * lineLength);
+                sb.append("<Point><coordinates>").append(ll.getLongitude().degrees).append(",")
+                    .append(ll.getLatitude().degrees).append(",0</coordinates></Point>\n");
+            }
+            else
+            {
+                sb.append("<styleUrl>#line</styleUrl>\n<LineString><tessellate>1</tessellate><coordinates>");
+                for (int j = 0; j < lineLength; j++)
+                {
+                    LatLon ll = points.get(i * lineLength + j);
+                    sb.append(ll.getLongitude().degrees).append(",").append(ll.getLatitude().degrees).append(",0 ");
+                }
+                sb.append("</coordinates></LineString>\n");
+            }
+            sb.append("</Placemark>\n");
+        }
+        sb.append("</Document>\n</kml>\n");
+
+        try
+        {
+            return sb.toString().getBytes("UTF-8");
+        }
+        catch (UnsupportedEncodingException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Creates an image with smooth color gradients and noise, roughly resembling imagery.
+     *
+     * @param seed   the random number generator seed.
+     * @param width  the image width.
+     * @param height the image height.
+     *
+     * @return the image.
+     */
+    public static BufferedImage createImage(long seed, int width, int height)
+    {
+        Random random = new Random(seed);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < height; y++)
+        {
+            for (int x = 0; x < width; x++)
+            {
+                int r = (int) (127 + 100 * Math.sin(x * 0.05)) + random.nextInt(16);
+                int g = (int) (127 + 100 * Math.cos(y * 0.03)) + random.nextInt(16);
+                int b = (x + y) % 256;
+                image.setRGB(x, y, 0xFF000000 | (Math.min(r, 255) << 16) | (Math.min(g, 255) << 8) | b);
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Creates an RPF file index over a grid of frames covering a sector, and writes a wavelet encoding of a synthetic
+     * image for each frame to a directory. The frame files named by the index do not exist, so the index is suitable
+     * for requests which {@link gov.nasa.worldwind.layers.rpf.RPFGenerator} answers from the wavelet encodings: those
+     * in which each frame covers no more than 256 pixels of the requested image.
+     *
+     * @param seed          the random number generator seed.
+     * @param directory     the directory to receive the wavelet files.
+     * @param sector        the sector covered by the frames.
+     * @param framesPerSide the number of frames along each side of the grid.
+     * @param waveletSize   the width and height of each frame's wavelet encoding, a power of two.
+     *
+     * @return the file index.
+     *
+     * @throws IOException if a wavelet file cannot be written.
+     */
+    public static RPFFileIndex createRPFFileIndex(long seed, File directory, Sector sector, int framesPerSide,
+        int waveletSize) throws IOException
+    {
+        RPFFileIndex fileIndex = new RPFFileIndex();
+        double dLat = sector.getDeltaLatDegrees() / framesPerSide;
+        double dLon = sector.getDeltaLonDegrees() / framesPerSide;
+
+        for (int row = 0; row < framesPerSide; row++)
+        {
+            for (int col = 0; col < framesPerSide; col++)
+            {
+                int frameNumber = row * framesPerSide + col;
+                // CADRG frame file names are the frame number and version in base 34, of which decimal digits are a
+                // subset, the producer, and the data series and zone codes.
+                File rpfFile = new File(directory, String.format("%05d013.ON1", frameNumber));
+                File waveletFile = new File(directory, rpfFile.getName() + WaveletCodec.WVT_EXT);
+
+                // The wavelet codec requires an image of byte samples.
+                BufferedImage image = new BufferedImage(waveletSize, waveletSize, BufferedImage.TYPE_3BYTE_BGR);
+                image.getGraphics().drawImage(createImage(seed + frameNumber, waveletSize, waveletSize), 0, 0, null);
+                WWIO.saveBuffer(WaveletCodec.save(WaveletCodec.encode(image)), waveletFile);
+
+                RPFFileIndex.Record record = fileIndex.createRPFFileRecord(rpfFile);
+                ((RPFFileIndex.RPFFileRecord) record).setSector(Sector.fromDegrees(
+                    sector.getMinLatitude().degrees + row * dLat, sector.getMinLatitude().degrees + (row + 1) * dLat,
+                    sector.getMinLongitude().degrees + col * dLon, sector.getMinLongitude().degrees + (col + 1) * dLon));
+                fileIndex.createWaveletRecord(waveletFile, record.getKey());
+            }
+        }
+
+        fileIndex.updateBoundingSector();
+        return fileIndex;
+    }
+}
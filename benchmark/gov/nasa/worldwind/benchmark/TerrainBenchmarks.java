@@ -0,0 +1,152 @@
+/*
+Copyright (C) 2001, 2010 United States Government
+as represented by the Administrator of the
+National Aeronautics and Space Administration.
+All Rights Reserved.
+*/
+package gov.nasa.worldwind.benchmark;
+
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import gov.nasa.worldwind.terrain.*;
+
+import java.util.*;
+
+/**
+ * Benchmarks of elevation queries on a {@link BasicElevationModel} and of terrain intersection with {@link
+ * HighResolutionTerrain}. The elevation model synthesizes its tiles, see {@link SyntheticData.SyntheticElevationModel}.
+ * Tiles are created during the warmup iterations, so the measured iterations time queries against tiles in memory.
+ *
+ * @version $Id$
+ */
+public class TerrainBenchmarks
+{
+    protected static final int GRID_SIZE = 32;
+    // Enough segments for the batch intersection to be divided among four threads.
+    protected static final int NUM_SEGMENTS = 1024;
+    protected static final int NUM_LEVELS = 8;
+    protected static final Sector SECTOR = Sector.fromDegrees(34, 35, -116, -115);
+
+    public static void addBenchmarks(List<Benchmark> benchmarks)
+    {
+        benchmarks.add(new ElevationBenchmark("BasicElevationModel.getElevations", GRID_SIZE * GRID_SIZE)
+        {
+            public long run()
+            {
+                this.model.getElevations(SECTOR, this.locations, this.resolution, this.elevations);
+                return (long) this.elevations[this.elevations.length - 1];
+            }
+        });
+
+        benchmarks.add(new ElevationBenchmark("BasicElevationModel.getUnmappedElevation", GRID_SIZE * GRID_SIZE)
+        {
+            public long run()
+            {
+                double sum = 0;
+                for (LatLon ll : this.locations)
+                {
+                    sum += this.model.getUnmappedElevation(ll.getLatitude(), ll.getLongitude());
+                }
+                return (long) sum;
+            }
+        });
+
+        benchmarks.add(new TerrainBenchmark("HighResolutionTerrain.intersect", NUM_SEGMENTS)
+        {
+            public long run()
+            {
+                long count = 0;
+                for (int i = 0; i < NUM_SEGMENTS; i++)
+                {
+                    Intersection[] intersections = this.terrain.intersect(this.positions.get(i * 2),
+                        this.positions.get(i * 2 + 1));
+                    if (intersections != null)
+                        count += intersections.length;
+                }
+                return count;
+            }
+        });
+
+        benchmarks.add(new TerrainBenchmark("HighResolutionTerrain.intersectBatch", NUM_SEGMENTS)
+        {
+            public long run()
+            {
+                double[] distances = this.terrain.intersect(this.segments, null);
+                return (long) distances[distances.length - 1];
+            }
+        });
+    }
+
+    protected abstract static class ElevationBenchmark extends Benchmark
+    {
+        protected ElevationModel model;
+        protected List<LatLon> locations;
+        protected double resolution;
+        protected double[] elevations;
+
+        public ElevationBenchmark(String name, int operationsPerInvocation)
+        {
+            super(name, operationsPerInvocation);
+        }
+
+        @Override
+        public void setUp()
+        {
+            this.model = new SyntheticData.SyntheticElevationModel(NUM_LEVELS);
+            this.resolution = this.model.getBestResolution(SECTOR);
+            this.locations = new ArrayList<LatLon>(GRID_SIZE * GRID_SIZE);
+            for (int i = 0; i < GRID_SIZE; i++)
+            {
+                for (int j = 0; j < GRID_SIZE; j++)
+                {
+                    this.locations.add(LatLon.fromDegrees(
+                        SECTOR.getMinLatitude().degrees + SECTOR.getDeltaLatDegrees() * i / (GRID_SIZE - 1),
+                        SECTOR.getMinLongitude().degrees + SECTOR.getDeltaLonDegrees() * j / (GRID_SIZE - 1)));
+                }
+            }
+            this.elevations = new double[this.locations.size()];
+        }
+    }
+
+    protected abstract static class TerrainBenchmark extends Benchmark
+    {
+        protected HighResolutionTerrain terrain;
+        protected List<Position> positions;
+        protected double[] segments;
+
+        public TerrainBenchmark(String name, int operationsPerInvocation)
+        {
+            super(name, operationsPerInvocation);
+        }
+
+        @Override
+        public void setUp()
+        {
+            Globe globe = SyntheticData.createGlobe(NUM_LEVELS);
+            this.terrain = new HighResolutionTerrain(globe, SECTOR, null, null);
+
+            // Segments about 20 km long, 100 meters above the terrain at both ends.
+            Random random = new Random(7);
+            this.positions = new ArrayList<Position>(NUM_SEGMENTS * 2);
+            this.segments = new double[NUM_SEGMENTS * HighResolutionTerrain.SEGMENT_STRIDE];
+            Sector inner = Sector.fromDegrees(34.2, 34.8, -115.8, -115.2);
+            List<LatLon> origins = SyntheticData.createLocations(7, inner, NUM_SEGMENTS);
+            for (int i = 0; i < NUM_SEGMENTS; i++)
+            {
+                LatLon a = origins.get(i);
+                LatLon b = LatLon.greatCircleEndPosition(a, Angle.fromDegrees(random.nextDouble() * 360),
+                    Angle.fromRadians(20e3 / globe.getEquatorialRadius()));
+                this.positions.add(new Position(a, 100));
+                this.positions.add(new Position(b, 100));
+
+                int k = i * HighResolutionTerrain.SEGMENT_STRIDE;
+                this.segments[k] = a.getLatitude().degrees;
+                this.segments[k + 1] = a.getLongitude().degrees;
+                this.segments[k + 2] = 100;
+                this.segments[k + 3] = b.getLatitude().degrees;
+                this.segments[k + 4] = b.getLongitude().degrees;
+                this.segments[k + 5] = 100;
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+Copyright (C) 2001, 2010 United States Government
+as represented by the Administrator of the
+National Aeronautics and Space Administration.
+All Rights Reserved.
+*/
+package gov.nasa.worldwind.layers.rpf;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.benchmark.*;
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.util.WWIO;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.List;
+
+/**
+ * Benchmarks of {@link RPFGenerator} service requests over a synthetic frame set, see {@link
+ * gov.nasa.worldwind.benchmark.SyntheticData#createRPFFileIndex(long, java.io.File, gov.nasa.worldwind.geom.Sector, int, int)}. The frames are
+ * written to a temporary directory which is deleted when the benchmark completes. This class is in the RPF package
+ * because the generator is not public.
+ *
+ * @version $Id$
+ */
+public class RPFBenchmarks
+{
+    protected static final Sector FRAME_SET_SECTOR = Sector.fromDegrees(32, 40, -120, -112);
+    protected static final int FRAMES_PER_SIDE = 16;
+    protected static final int WAVELET_SIZE = 128;
+    protected static final int TILE_SIZE = 512;
+    protected static final int TILES_PER_SIDE = 4;
+
+    public static void addBenchmarks(List<Benchmark> benchmarks)
+    {
+        // Each tile covers 4 by 4 frames at 128 pixels per frame, so every frame is reconstructed from its full
+        // wavelet file. Successive invocations step through the tiles covering the frame set.
+        benchmarks.add(new RPFBenchmark("RPFGenerator.serviceRequest")
+        {
+            protected int tileIndex;
+
+            public long run() throws Exception
+            {
+                int row = (this.tileIndex / TILES_PER_SIDE) % TILES_PER_SIDE;
+                int col = this.tileIndex % TILES_PER_SIDE;
+                this.tileIndex++;
+
+                double dLat = FRAME_SET_SECTOR.getDeltaLatDegrees() / TILES_PER_SIDE;
+                double dLon = FRAME_SET_SECTOR.getDeltaLonDegrees() / TILES_PER_SIDE;
+                double minLat = FRAME_SET_SECTOR.getMinLatitude().degrees + row * dLat;
+                double minLon = FRAME_SET_SECTOR.getMinLongitude().degrees + col * dLon;
+
+                return this.serviceRequest(Sector.fromDegrees(minLat, minLat + dLat, minLon, minLon + dLon));
+            }
+        });
+
+        // The whole frame set in one tile, so each frame covers 32 pixels and is reconstructed from the partial
+        // wavelet the generator keeps in memory.
+        benchmarks.add(new RPFBenchmark("RPFGenerator.serviceRequestOverview")
+        {
+            public long run() throws Exception
+            {
+                return this.serviceRequest(FRAME_SET_SECTOR);
+            }
+        });
+    }
+
+    protected abstract static class RPFBenchmark extends Benchmark
+    {
+        protected File directory;
+        protected RPFGenerator.RPFServiceInstance service;
+
+        public RPFBenchmark(String name)
+        {
+            super(name);
+        }
+
+        @Override
+        public void setUp() throws Exception
+        {
+            this.directory = File.createTempFile("RPFBenchmarks", "");
+            if (!this.directory.delete() || !this.directory.mkdir())
+                throw new java.io.IOException(this.directory.getPath());
+
+            AVList params = new AVListImpl();
+            params.setValue(RPFGenerator.RPF_FILE_INDEX, SyntheticData.createRPFFileIndex(11, this.directory,
+                FRAME_SET_SECTOR, FRAMES_PER_SIDE, WAVELET_SIZE));
+            this.service = new RPFGenerator(params).getServiceInstance();
+        }
+
+        @Override
+        public void tearDown() throws Exception
+        {
+            WWIO.deleteDirectory(this.directory);
+            //noinspection ResultOfMethodCallIgnored
+            this.directory.delete();
+        }
+
+        protected long serviceRequest(Sector sector) throws Exception
+        {
+            AVList params = new AVListImpl();
+            params.setValue(RPFGenerator.RPFServiceInstance.BBOX, sector);
+            params.setValue(RPFGenerator.RPFServiceInstance.WIDTH, TILE_SIZE);
+            params.setValue(RPFGenerator.RPFServiceInstance.HEIGHT, TILE_SIZE);
+
+            BufferedImage image = this.service.serviceRequest(params);
+            return image != null ? image.getRGB(TILE_SIZE / 2, TILE_SIZE / 2) : 0;
+        }
+    }
+}
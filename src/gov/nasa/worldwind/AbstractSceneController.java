@@ -284,6 +284,13 @@ public abstract class AbstractSceneController extends WWObjectImpl implements Sc
                     "Texture Cache size (Kb)", this.dc.getTextureCache().getUsedCapacity() / 1000);
         }
 
+        if (perfKeys.contains(PerformanceStatistic.TEXTURE_UPLOAD) || perfKeys.contains(PerformanceStatistic.ALL))
+        {
+            if (this.dc instanceof TextureUploadSchedulerHolder)
+                this.dc.setPerFrameStatistics(
+                    ((TextureUploadSchedulerHolder) this.dc).getTextureUploadScheduler().getPerformanceStatistics());
+        }
+
         if (perfKeys.contains(PerformanceStatistic.JVM_HEAP) || perfKeys.contains(PerformanceStatistic.ALL))
         {
             long totalMemory = Runtime.getRuntime().totalMemory();
@@ -313,6 +320,9 @@ public abstract class AbstractSceneController extends WWObjectImpl implements Sc
         dc.setPickPoint(this.pickPoint);
         dc.setViewportCenterScreenPoint(this.getViewportCenter(dc));
         dc.setFrameTimeStamp(System.currentTimeMillis());
+
+        if (this.view != null && dc instanceof ViewMotionPredictorHolder)
+            ((ViewMotionPredictorHolder) dc).getViewMotionPredictor().update(dc.getFrameTimeStamp(), this.view);
     }
 
     protected Point getViewportCenter(DrawContext dc)
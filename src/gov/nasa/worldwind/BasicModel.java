@@ -10,9 +10,10 @@ import gov.nasa.worldwind.avlist.AVKey;
 import gov.nasa.worldwind.geom.Extent;
 import gov.nasa.worldwind.globes.Globe;
 import gov.nasa.worldwind.layers.*;
-import gov.nasa.worldwind.util.Logging;
+import gov.nasa.worldwind.util.*;
 import org.w3c.dom.Element;
 
+import java.util.*;
 import java.util.logging.Level;
 
 /**
@@ -30,6 +31,7 @@ public class BasicModel extends WWObjectImpl implements Model
     private boolean showWireframeInterior = false;
     private boolean showWireframeExterior = false;
     private boolean showTessellationBoundingVolumes = false;
+    private ArrayList<PerformanceStatistic> startupStatistics = new ArrayList<PerformanceStatistic>();
 
     public BasicModel()
     {
@@ -37,7 +39,13 @@ public class BasicModel extends WWObjectImpl implements Model
         if (globeName == null)
             return;
 
+        long startTime = System.nanoTime();
         this.setGlobe((Globe) WorldWind.createComponent(globeName));
+        this.addStartupStatistic(Logging.getMessage("BasicModel.StartupGlobe"), startTime);
+        if (this.globe != null && this.globe.getElevationModel() != null)
+            this.addStartupStatistic(this.globe.getElevationModel());
+
+        startTime = System.nanoTime();
 
         // Look for the old-style, property-based layer configuration first. If not found then use the new-style
         // configuration.
@@ -55,6 +63,46 @@ public class BasicModel extends WWObjectImpl implements Model
         }
 
         this.setLayers(layers != null ? layers : new LayerList(/*empty list*/)); // an empty list is ok
+        this.addStartupStatistic(Logging.getMessage("BasicModel.StartupLayers"), startTime);
+        for (Layer layer : this.layers)
+        {
+            this.addStartupStatistic(layer);
+        }
+    }
+
+    /**
+     * Returns the time taken to create the components of this model when it was constructed from the configuration:
+     * the globe, its elevation model, the layer list and each layer. Each value is in milliseconds. Components created
+     * in parallel, such as layers when {@link AVKey#PARALLEL_STARTUP} is set, may together take more time than the
+     * layer list. Components whose creation time is unknown are not included.
+     *
+     * @return the startup statistics. The collection is empty if this model was not constructed from the
+     *         configuration.
+     */
+    public Collection<PerformanceStatistic> getStartupStatistics()
+    {
+        return Collections.unmodifiableCollection(this.startupStatistics);
+    }
+
+    protected void addStartupStatistic(String displayName, long startTime)
+    {
+        long millis = (System.nanoTime() - startTime) / 1000000L;
+        this.startupStatistics.add(new PerformanceStatistic(PerformanceStatistic.STARTUP_TIME, displayName, millis));
+        Logging.logger().fine(Logging.getMessage("BasicModel.StartupTime", displayName, millis));
+    }
+
+    protected void addStartupStatistic(WWObject component)
+    {
+        Object millis = component.getValue(AVKey.STARTUP_TIME);
+        if (!(millis instanceof Long))
+            return;
+
+        String displayName = component.getStringValue(AVKey.DISPLAY_NAME);
+        if (displayName == null)
+            displayName = component.getClass().getName();
+
+        this.startupStatistics.add(new PerformanceStatistic(PerformanceStatistic.STARTUP_TIME, displayName, millis));
+        Logging.logger().fine(Logging.getMessage("BasicModel.StartupTime", displayName, millis));
     }
 
     /**
@@ -89,5 +89,22 @@ public class DoubleAnimator extends BasicAnimator
            this.end);
     }
 
+    /**
+     * Predicts the value this animator sets at a future time, without setting it. Animators driven by a {@link
+     * ScheduledInterpolator} are evaluated at the specified time. Other animators cannot predict their value.
+     *
+     * @param timeMillis the time of interest, in milliseconds since the epoch.
+     * @param numSteps   the number of times the animator is expected to be advanced until that time.
+     *
+     * @return the predicted value, or null if the animator cannot predict it.
+     */
+    public Double predictDouble(long timeMillis, int numSteps)
+    {
+        if (!(this.interpolator instanceof ScheduledInterpolator))
+            return null;
+
+        return this.nextDouble(((ScheduledInterpolator) this.interpolator).getInterpolant(timeMillis));
+    }
+
     
 }
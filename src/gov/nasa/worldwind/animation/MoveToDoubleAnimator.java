@@ -96,4 +96,24 @@ public class MoveToDoubleAnimator extends DoubleAnimator
         }
         return newValue;
     }
+
+    /**
+     * Predicts the value this animator sets after a number of steps, without setting it. Each step moves the value a
+     * fixed fraction of the remaining distance to the end value, so the prediction depends on the number of steps
+     * rather than on time.
+     *
+     * @param timeMillis the time of interest, in milliseconds since the epoch. Not used.
+     * @param numSteps   the number of times the animator is expected to be advanced until that time.
+     *
+     * @return the predicted value, or null if the current value is unavailable.
+     */
+    public Double predictDouble(long timeMillis, int numSteps)
+    {
+        Double curValue = this.propertyAccessor.getDouble();
+        if (curValue == null)
+            return null;
+
+        double interpolant = 1 - Math.pow(this.smoothing, Math.max(numSteps, 0));
+        return (1 - interpolant) * curValue + interpolant * this.end;
+    }
 }
@@ -60,4 +60,27 @@ public class MoveToPositionAnimator extends PositionAnimator
         }
         return nextPosition;
     }
+
+    /**
+     * Predicts the position this animator sets after a number of steps, without setting it. Each step moves the
+     * position a fixed fraction of the remaining distance to the end position, so the prediction depends on the number
+     * of steps rather than on time.
+     *
+     * @param timeMillis the time of interest, in milliseconds since the epoch. Not used.
+     * @param numSteps   the number of times the animator is expected to be advanced until that time.
+     *
+     * @return the predicted position, or null if the current position is unavailable.
+     */
+    public Position predictPosition(long timeMillis, int numSteps)
+    {
+        Position curCenter = this.propertyAccessor.getPosition();
+        if (curCenter == null)
+            return null;
+
+        double interpolant = 1 - Math.pow(this.smoothing, Math.max(numSteps, 0));
+        return new Position(
+            Angle.mix(interpolant, curCenter.getLatitude(), this.end.getLatitude()),
+            Angle.mix(interpolant, curCenter.getLongitude(), this.end.getLongitude()),
+            (1 - interpolant) * curCenter.getElevation() + interpolant * this.end.getElevation());
+    }
 }
@@ -93,4 +93,21 @@ public class PositionAnimator extends BasicAnimator
     {
         return Position.interpolateGreatCircle(interpolant, this.begin, this.end);
     }
+
+    /**
+     * Predicts the position this animator sets at a future time, without setting it. Animators driven by a {@link
+     * ScheduledInterpolator} are evaluated at the specified time. Other animators cannot predict their position.
+     *
+     * @param timeMillis the time of interest, in milliseconds since the epoch.
+     * @param numSteps   the number of times the animator is expected to be advanced until that time.
+     *
+     * @return the predicted position, or null if the animator cannot predict it.
+     */
+    public Position predictPosition(long timeMillis, int numSteps)
+    {
+        if (!(this.interpolator instanceof ScheduledInterpolator))
+            return null;
+
+        return this.nextPosition(((ScheduledInterpolator) this.interpolator).getInterpolant(timeMillis));
+    }
 }
@@ -56,6 +56,26 @@ public class ScheduledInterpolator implements Interpolator
         this.length = stopTime.getTime() - startTime.getTime();
     }
 
+    /**
+     * Returns the interpolant this interpolator will return at a specified time, without advancing it. The interpolant
+     * is 0 before the start time. An interpolator without a start time that has not run yet is assumed to start now.
+     *
+     * @param timeMillis the time of interest, in milliseconds since the epoch.
+     *
+     * @return the interpolant at the specified time, between 0 and 1.
+     */
+    public double getInterpolant(long timeMillis)
+    {
+        long startTime = this.startTime >= 0 ? this.startTime : System.currentTimeMillis();
+        if (timeMillis < startTime)
+            return 0;
+        if (this.length == 0)
+            return 1;
+
+        double unclampedInterpolant = ((double) (timeMillis - startTime)) / ((double) this.length);
+        return AnimationSupport.clampDouble(unclampedInterpolant, 0, 1);
+    }
+
     public double nextInterpolant()
     {
 
@@ -27,6 +27,11 @@ public class SmoothInterpolator extends ScheduledInterpolator
             this.START, this.STOP, this.MAX_SMOOTHING);
     }
 
+    public double getInterpolant(long timeMillis)
+    {
+        return basicInterpolant(super.getInterpolant(timeMillis), this.START, this.STOP, this.MAX_SMOOTHING);
+    }
+
     protected static double basicInterpolant(double interpolant, double startInterpolant,
         double stopInterpolant,
         int maxSmoothing)
@@ -0,0 +1,412 @@
+/*
+Copyright (C) 2001, 2010 United States Government as represented by
+the Administrator of the National Aeronautics and Space Administration.
+All Rights Reserved.
+*/
+package gov.nasa.worldwind.applications.gio.csw;
+
+import gov.nasa.worldwind.cache.*;
+import gov.nasa.worldwind.util.*;
+
+import java.io.*;
+import java.util.concurrent.*;
+
+/**
+ * A {@link CSWConnectionPool} which caches the responses to requests sent through its connections, so that repeating a
+ * query, such as paging back and forth through catalog results, does not query the catalog again. Responses are cached
+ * under the request's XML encoding with the whitespace between elements removed, and expire after a specified time.
+ * Responses containing an exception report are not cached.
+ * <p/>
+ * The pool can also retrieve a response in the background with {@link #prefetch(Request)}, such as the next page of
+ * results while the current page is displayed. A connection sending a request whose prefetch is in progress waits for
+ * the prefetch to complete rather than sending the request again.
+ *
+ * @version $Id$
+ */
+public class CachingCSWConnectionPool implements CSWConnectionPool
+{
+    /** The default capacity of the response cache, in bytes. */
+    public static final long DEFAULT_CACHE_CAPACITY = 8000000L;
+    /** The default time after which cached responses expire, in milliseconds. */
+    public static final long DEFAULT_EXPIRY_TIME = 300000L; // 5 minutes
+
+    protected static class CachedResponse
+    {
+        protected final byte[] content;
+        protected final long timeCached;
+
+        public CachedResponse(byte[] content)
+        {
+            this.content = content;
+            this.timeCached = System.currentTimeMillis();
+        }
+    }
+
+    private final CSWConnectionPool connectionPool;
+    private final MemoryCache responseCache;
+    private long expiryTime = DEFAULT_EXPIRY_TIME;
+    private final ConcurrentHashMap<String, Future<byte[]>> pendingRequests =
+        new ConcurrentHashMap<String, Future<byte[]>>();
+    private final ExecutorService prefetchService;
+
+    /**
+     * Creates a pool which caches the responses to requests sent through the connections of a specified pool.
+     *
+     * @param connectionPool the pool providing the connections to the catalog service.
+     * @param cacheCapacity  the capacity of the response cache, in bytes.
+     *
+     * @throws IllegalArgumentException if the connection pool is null or the capacity is less than 1.
+     */
+    public CachingCSWConnectionPool(CSWConnectionPool connectionPool, long cacheCapacity)
+    {
+        if (connectionPool == null)
+        {
+            String message = "nullValue.ConnectionPoolIsNull";
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+        if (cacheCapacity < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "cacheCapacity < 1");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.connectionPool = connectionPool;
+        this.responseCache = new BasicMemoryCache((long) (0.8 * cacheCapacity), cacheCapacity);
+        this.responseCache.setName("CSW Response Cache");
+        this.prefetchService = Executors.newSingleThreadExecutor(new ThreadFactory()
+        {
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable);
+                thread.setDaemon(true);
+                thread.setName("CSW Prefetch");
+                return thread;
+            }
+        });
+    }
+
+    public CachingCSWConnectionPool(CSWConnectionPool connectionPool)
+    {
+        this(connectionPool, DEFAULT_CACHE_CAPACITY);
+    }
+
+    public CSWConnectionPool getConnectionPool()
+    {
+        return this.connectionPool;
+    }
+
+    public long getExpiryTime()
+    {
+        return this.expiryTime;
+    }
+
+    /**
+     * Specifies the time after which cached responses expire. Expired responses are retrieved again from the catalog
+     * service.
+     *
+     * @param expiryTime the expiry time, in milliseconds.
+     *
+     * @throws IllegalArgumentException if the expiry time is negative.
+     */
+    public void setExpiryTime(long expiryTime)
+    {
+        if (expiryTime < 0)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "expiryTime < 0");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.expiryTime = expiryTime;
+    }
+
+    /** Removes all responses from the cache. */
+    public void clearCache()
+    {
+        this.responseCache.clear();
+    }
+
+    public CSWConnection getConnection() throws Exception
+    {
+        return new CachingConnection(this);
+    }
+
+    /**
+     * Retrieves the response to a request in the background and places it in the cache, unless the response is already
+     * cached or being retrieved. Exceptions during the retrieval are logged and not re-thrown.
+     *
+     * @param request the request to send.
+     *
+     * @throws IllegalArgumentException if the request is null.
+     */
+    public void prefetch(final Request request)
+    {
+        if (request == null)
+        {
+            String message = "nullValue.RequestIsNull";
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        final String key = makeCacheKey(request);
+        if (this.getCachedResponse(key) != null || this.pendingRequests.containsKey(key))
+            return;
+
+        FutureTask<byte[]> task = new FutureTask<byte[]>(new Callable<byte[]>()
+        {
+            public byte[] call() throws Exception
+            {
+                try
+                {
+                    return retrieveResponse(key, request, new SAXResponseParser());
+                }
+                catch (Exception e)
+                {
+                    String message = "csw.ExceptionWhilePrefetching";
+                    Logging.logger().log(java.util.logging.Level.FINE, message, e);
+                    throw e;
+                }
+                finally
+                {
+                    pendingRequests.remove(key);
+                }
+            }
+        });
+
+        if (this.pendingRequests.putIfAbsent(key, task) == null)
+            this.prefetchService.execute(task);
+    }
+
+    /**
+     * Returns the cache key for a request: the request's XML encoding with the whitespace between elements removed.
+     * Requests with the same content therefore share their cached response.
+     *
+     * @param request the request.
+     *
+     * @return the request's cache key.
+     */
+    protected static String makeCacheKey(Request request)
+    {
+        return request.toXml().replaceAll(">\\s+<", "><").trim();
+    }
+
+    protected byte[] getCachedResponse(String key)
+    {
+        CachedResponse response = (CachedResponse) this.responseCache.getObject(key);
+        if (response == null)
+            return null;
+
+        if (System.currentTimeMillis() - response.timeCached > this.expiryTime)
+        {
+            this.responseCache.remove(key);
+            return null;
+        }
+
+        return response.content;
+    }
+
+    /**
+     * Returns the cached response to a request. If the response is being prefetched, this waits for the prefetch to
+     * complete.
+     *
+     * @param key the request's cache key.
+     *
+     * @return the response, or null if the response is not cached and its prefetch, if any, failed.
+     *
+     * @throws InterruptedException if the current thread is interrupted while waiting for a prefetch.
+     */
+    protected byte[] getResponse(String key) throws InterruptedException
+    {
+        byte[] response = this.getCachedResponse(key);
+        if (response != null)
+            return response;
+
+        Future<byte[]> pending = this.pendingRequests.get(key);
+        if (pending == null)
+            return null;
+
+        try
+        {
+            return pending.get();
+        }
+        catch (ExecutionException e)
+        {
+            return null; // The exception has been logged; retrieve the response again.
+        }
+    }
+
+    /**
+     * Sends a request through a connection from the underlying pool and passes the response to a parser. The response
+     * is cached unless the parser finds an exception report in it.
+     *
+     * @param key            the request's cache key.
+     * @param request        the request to send.
+     * @param responseParser the parser to receive the response.
+     *
+     * @return the response.
+     *
+     * @throws Exception if the request cannot be sent or the response cannot be parsed.
+     */
+    protected byte[] retrieveResponse(String key, Request request, ResponseParser responseParser) throws Exception
+    {
+        RecordingResponseParser recorder = new RecordingResponseParser(responseParser);
+
+        CSWConnection conn = this.connectionPool.getConnection();
+        conn.openConnection();
+        try
+        {
+            conn.sendRequest(request, recorder);
+        }
+        finally
+        {
+            conn.closeConnection();
+        }
+
+        byte[] content = recorder.getContent();
+        if (content != null && !(responseParser instanceof SAXResponseParser
+            && ((SAXResponseParser) responseParser).hasExceptions()))
+        {
+            this.responseCache.add(key, new CachedResponse(content), content.length);
+        }
+
+        return content;
+    }
+
+    /**
+     * A connection which parses cached responses without contacting the catalog service. The connection sends requests
+     * whose responses are not cached through a connection of the underlying pool.
+     */
+    protected static class CachingConnection implements CSWConnection
+    {
+        protected final CachingCSWConnectionPool connectionPool;
+        protected boolean open;
+
+        public CachingConnection(CachingCSWConnectionPool connectionPool)
+        {
+            this.connectionPool = connectionPool;
+        }
+
+        public void openConnection() throws Exception
+        {
+            // The underlying connection is opened only if the response is not cached.
+            this.open = true;
+        }
+
+        public void closeConnection()
+        {
+            this.open = false;
+        }
+
+        public void sendRequest(Request request, ResponseParser responseParser) throws Exception
+        {
+            if (request == null)
+            {
+                String message = "nullValue.RequestIsNull";
+                Logging.logger().severe(message);
+                throw new IllegalArgumentException(message);
+            }
+            if (responseParser == null)
+            {
+                String message = "nullValue.ResponseParserIsNull";
+                Logging.logger().severe(message);
+                throw new IllegalArgumentException(message);
+            }
+            if (!this.open)
+            {
+                String message = "csw.ConnectionIsClosed";
+                Logging.logger().severe(message);
+                throw new IllegalStateException(message);
+            }
+
+            String key = makeCacheKey(request);
+            byte[] response = this.connectionPool.getResponse(key);
+            if (response != null)
+            {
+                Logging.logger().fine("csw.ResponseFromCache");
+                responseParser.parseResponse(new ByteArrayInputStream(response));
+                return;
+            }
+
+            this.connectionPool.retrieveResponse(key, request, responseParser);
+        }
+    }
+
+    /**
+     * A parser which passes a response to another parser as the response arrives, and keeps a copy of the response.
+     */
+    protected static class RecordingResponseParser implements ResponseParser
+    {
+        protected final ResponseParser responseParser;
+        protected byte[] content;
+
+        public RecordingResponseParser(ResponseParser responseParser)
+        {
+            this.responseParser = responseParser;
+        }
+
+        public byte[] getContent()
+        {
+            return this.content;
+        }
+
+        public void parseResponse(InputStream is) throws Exception
+        {
+            final ByteArrayOutputStream copy = new ByteArrayOutputStream();
+            InputStream recordingStream = new FilterInputStream(is)
+            {
+                @Override
+                public int read() throws IOException
+                {
+                    int b = super.read();
+                    if (b >= 0)
+                        copy.write(b);
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException
+                {
+                    int n = super.read(b, off, len);
+                    if (n > 0)
+                        copy.write(b, off, n);
+                    return n;
+                }
+
+                @Override
+                public long skip(long n) throws IOException
+                {
+                    byte[] buffer = new byte[(int) Math.min(n, 4096)];
+                    int count = this.read(buffer, 0, buffer.length);
+                    return count > 0 ? count : 0;
+                }
+
+                @Override
+                public boolean markSupported()
+                {
+                    return false;
+                }
+            };
+
+            this.responseParser.parseResponse(recordingStream);
+
+            // Record any content following the document the parser did not read. Parsers may close the stream at the
+            // end of the document, in which case they have read it all.
+            try
+            {
+                byte[] buffer = new byte[4096];
+                //noinspection StatementWithEmptyBody
+                while (recordingStream.read(buffer, 0, buffer.length) >= 0)
+                {
+                }
+            }
+            catch (IOException e)
+            {
+                // The stream has been closed by the parser.
+            }
+
+            this.content = copy.toByteArray();
+        }
+    }
+}
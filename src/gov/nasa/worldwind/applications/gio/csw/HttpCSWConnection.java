@@ -234,6 +234,7 @@ public class HttpCSWConnection implements CSWConnection
             if (in != null)
             {
                 responseParser.parseResponse(in);
+                drainResponse(in);
 
                 String message = String.format(
                     "csw.Response [Response-Code=%d, Content-Length=%s, Content-Type=%s, URL=%s]",
@@ -257,6 +258,24 @@ public class HttpCSWConnection implements CSWConnection
         }
     }
 
+    // Reads any response content the parser left unread, so that the underlying socket can be kept alive and reused
+    // by the next request to the service.
+    private static void drainResponse(InputStream in)
+    {
+        try
+        {
+            byte[] buffer = new byte[4096];
+            //noinspection StatementWithEmptyBody
+            while (in.read(buffer) >= 0)
+            {
+            }
+        }
+        catch (IOException e)
+        {
+            // The parser closed the stream, or the connection failed. Either way it cannot be reused.
+        }
+    }
+
     private boolean interrupted()
     {
         if (Thread.currentThread().isInterrupted())
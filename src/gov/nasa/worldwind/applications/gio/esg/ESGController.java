@@ -51,7 +51,7 @@ public class ESGController implements PropertyChangeListener
         try
         {
             URL url = this.esgPanel.getServiceURL();
-            this.connectionPool = new HttpCSWConnectionPool(url);
+            this.connectionPool = new CachingCSWConnectionPool(new HttpCSWConnectionPool(url));
         }
         catch (Exception e)
         {
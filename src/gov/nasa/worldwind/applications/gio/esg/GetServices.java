@@ -30,9 +30,17 @@ import java.util.logging.Level;
  */
 public class GetServices
 {
+    /** The default number of records requested from the catalog in each page of results. */
+    public static final int DEFAULT_PAGE_SIZE = 100;
+
     private AVList queryParams;
     private ResultList outResultList;
-    private List<ResultModel> serviceList;
+    private int pageSize = DEFAULT_PAGE_SIZE;
+    // Properties of the page of results being parsed.
+    private CSWConnectionPool connectionPool;
+    private int startPosition;
+    private int numberOfRecordsReturned;
+    private int nextRecord;
 
     public GetServices(AVList queryParams, ResultList resultList)
     {
@@ -53,11 +61,52 @@ public class GetServices
         this.outResultList = resultList;
     }
 
+    public int getPageSize()
+    {
+        return this.pageSize;
+    }
+
+    /**
+     * Specifies the number of records requested from the catalog in each page of results.
+     *
+     * @param pageSize the number of records per page.
+     *
+     * @throws IllegalArgumentException if the page size is less than 1.
+     */
+    public void setPageSize(int pageSize)
+    {
+        if (pageSize < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "pageSize < 1");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.pageSize = pageSize;
+    }
+
     public Request getRequest() throws Exception
     {
-        return new Request(this.queryParams);
+        return getRequest(1);
     }
 
+    public Request getRequest(int startPosition) throws Exception
+    {
+        return new Request(this.queryParams, startPosition, this.pageSize);
+    }
+
+    /**
+     * Queries the catalog for services and adds them to the result list as they are parsed, keeping the list sorted by
+     * title. The results are requested one page at a time. When the connection pool is a {@link
+     * CachingCSWConnectionPool}, the next page is prefetched as soon as a page indicates there is one, and repeated
+     * queries are answered from the pool's cache.
+     *
+     * @param connectionPool the pool providing connections to the catalog.
+     *
+     * @return the exception report returned by the catalog, or null if there is none.
+     *
+     * @throws Exception if the catalog cannot be queried.
+     */
     public ExceptionReport executeRequest(CSWConnectionPool connectionPool) throws Exception
     {
         if (connectionPool == null)
@@ -67,32 +116,62 @@ public class GetServices
             throw new IllegalArgumentException(message);
         }
 
-        return doExecuteRequest(connectionPool.getConnection());
+        this.connectionPool = connectionPool;
+        this.outResultList.clear();
+
+        int startPosition = 1;
+        while (startPosition > 0 && startPosition <= Short.MAX_VALUE && !Thread.currentThread().isInterrupted())
+        {
+            ExceptionReport exceptionReport = doExecuteRequest(connectionPool.getConnection(), startPosition);
+            if (exceptionReport != null)
+                return exceptionReport;
+
+            // Stop if the catalog returned no records or did not advance, which indicates the last page or a catalog
+            // ignoring the start position.
+            if (this.numberOfRecordsReturned <= 0 || this.nextRecord <= startPosition)
+                break;
+
+            startPosition = this.nextRecord;
+        }
+
+        return null;
     }
 
-    protected ExceptionReport doExecuteRequest(CSWConnection conn) throws Exception
+    protected ExceptionReport doExecuteRequest(CSWConnection conn, int startPosition) throws Exception
     {
-        Request request = getRequest();
+        this.startPosition = startPosition;
+        this.numberOfRecordsReturned = 0;
+        this.nextRecord = 0;
+
+        Request request = getRequest(startPosition);
         ResponseParser response = new ResponseParser(this);
         QueryUtils.executeQuery(conn, request, response);
 
-        this.outResultList.clear();
-        if (this.serviceList != null)
-        {
-            sortServiceList(CatalogKey.TITLE);
-            this.outResultList.addAll(this.serviceList);
-            this.serviceList = null;
-
-            // Search for more information about each Service.
-            for (ResultModel resultModel : this.outResultList)
-                resultModel.firePropertyChange(ESGKey.ACTION_COMMAND_GET_SERVICE_INFO, null, resultModel);
-        }
-
         if (response.hasExceptions())
             return response.getExceptionReport();
         return null;
     }
 
+    /**
+     * Called when the search results of a page are parsed, before the page's records. If the results indicate another
+     * page, this prefetches it when the connection pool supports prefetching.
+     *
+     * @param searchResults the search results of the page being parsed.
+     *
+     * @throws Exception if the request for the next page cannot be created.
+     */
+    protected void onSearchResults(SearchResultsParser searchResults) throws Exception
+    {
+        this.numberOfRecordsReturned = searchResults.getNumberOfRecordsReturned();
+        this.nextRecord = searchResults.getNextRecord();
+
+        if (this.nextRecord > this.startPosition && this.nextRecord <= Short.MAX_VALUE
+            && this.connectionPool instanceof CachingCSWConnectionPool)
+        {
+            ((CachingCSWConnectionPool) this.connectionPool).prefetch(getRequest(this.nextRecord));
+        }
+    }
+
     protected void addService(Service service)
     {
         if (service == null)
@@ -108,42 +187,49 @@ public class GetServices
         resultModel.setServicePackage(servicePackage);
         makeResultParams(resultModel);
 
-        if (this.serviceList == null)
-            this.serviceList = new ArrayList<ResultModel>();
-        this.serviceList.add(resultModel);
+        // Deliver the service to the result list now rather than when the response is complete.
+        this.outResultList.insert(findInsertionIndex(resultModel, CatalogKey.TITLE), resultModel);
+
+        // Search for more information about the Service.
+        resultModel.firePropertyChange(ESGKey.ACTION_COMMAND_GET_SERVICE_INFO, null, resultModel);
     }
 
-    protected void sortServiceList(String key)
+    protected int findInsertionIndex(ResultModel resultModel, String sortKey)
     {
-        if (key != null)
+        // Binary search for the index following all results ordered before or equal to the specified one.
+        int low = 0;
+        int high = this.outResultList.size();
+        while (low < high)
         {
-            final String sortKey = key;
-            Comparator<ResultModel> comparator = new Comparator<ResultModel>()
-            {
-                public int compare(ResultModel r1, ResultModel r2)
-                {
-                    if (r1 == null && r2 == null)
-                        return 0;
-                    else if (r1 == null)
-                        return 1;
-                    else if (r2 == null)
-                        return -1;
-
-                    Object o1 = r1.getValue(sortKey);
-                    Object o2 = r2.getValue(sortKey);
-                    if (o1 == null && o2 == null)
-                        return 0;
-                    else if (o1 == null)
-                        return 1;
-                    else if (o2 == null)
-                        return -1;
-
-                    return String.CASE_INSENSITIVE_ORDER.compare(o1.toString(), o2.toString());
-                }
-            };
-
-            Collections.sort(this.serviceList, comparator);
+            int mid = (low + high) >>> 1;
+            if (compareResults(this.outResultList.get(mid), resultModel, sortKey) <= 0)
+                low = mid + 1;
+            else
+                high = mid;
         }
+
+        return low;
+    }
+
+    protected static int compareResults(ResultModel r1, ResultModel r2, String sortKey)
+    {
+        if (r1 == null && r2 == null)
+            return 0;
+        else if (r1 == null)
+            return 1;
+        else if (r2 == null)
+            return -1;
+
+        Object o1 = r1.getValue(sortKey);
+        Object o2 = r2.getValue(sortKey);
+        if (o1 == null && o2 == null)
+            return 0;
+        else if (o1 == null)
+            return 1;
+        else if (o2 == null)
+            return -1;
+
+        return String.CASE_INSENSITIVE_ORDER.compare(o1.toString(), o2.toString());
     }
 
     protected void makeResultParams(ESGResultModel resultModel)
@@ -169,7 +255,7 @@ public class GetServices
 
     protected static class Request extends GetRecords
     {
-        public Request(AVList params) throws Exception
+        public Request(AVList params, int startPosition, int maxRecords) throws Exception
         {
             if (params == null)
             {
@@ -181,8 +267,8 @@ public class GetServices
             setResultType(ResultType.RESULTS);
             setOutputFormat("text/xml");
             setOutputSchema("EBRIM");
-            setStartPosition(1);
-            setMaxRecords(Short.MAX_VALUE);
+            setStartPosition(startPosition);
+            setMaxRecords(maxRecords);
             // TODO: prevent query injection
             buildQuery(params);
         }
@@ -429,12 +515,15 @@ public class GetServices
             this.getServices = getServices;
         }
 
-        protected void doStartElement(String name, org.xml.sax.Attributes attributes)
+        protected void doStartElement(String name, org.xml.sax.Attributes attributes) throws Exception
         {
             // Skip the "SearchStatus" element.
-            // Skip the "SearchResults" element.
 
-            if (ServiceParser.ELEMENT_NAME.equalsIgnoreCase(name))
+            if (SearchResultsParser.ELEMENT_NAME.equalsIgnoreCase(name))
+            {
+                this.getServices.onSearchResults(new SearchResultsParser(name, attributes));
+            }
+            else if (ServiceParser.ELEMENT_NAME.equalsIgnoreCase(name))
             {
                 ServiceParser parser = new ServiceParser(name, attributes);
                 this.currentService = parser;
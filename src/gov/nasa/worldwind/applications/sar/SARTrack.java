@@ -13,7 +13,7 @@ import gov.nasa.worldwind.formats.gpx.GpxWriter;
 import gov.nasa.worldwind.formats.nmea.NmeaWriter;
 import gov.nasa.worldwind.geom.*;
 import gov.nasa.worldwind.tracks.*;
-import gov.nasa.worldwind.util.Logging;
+import gov.nasa.worldwind.util.*;
 
 import javax.xml.parsers.ParserConfigurationException;
 import java.awt.*;
@@ -64,6 +64,7 @@ public class SARTrack extends WWObjectImpl implements Iterable<Position>
     private double offset = 0;
     private Color color = nextColor();
     private ArrayList<SARPosition> positions;
+    private PolylineSimplifier simplifier; // created on demand, and discarded when positions are edited
     private PropertyChangeSupport propChangeSupport = new PropertyChangeSupport(this);
 
     public static SARTrack fromFile(String filePath) throws IOException
@@ -240,6 +241,32 @@ public class SARTrack extends WWObjectImpl implements Iterable<Position>
         return this.positions;
     }
 
+    /**
+     * Returns a multi-resolution representation of this track's positions, for drawing the track simplified to the
+     * current view. The simplifier is extended as positions are appended to the track. Any other modification to the
+     * track's positions replaces the simplifier with a new one.
+     *
+     * @return the track's simplifier.
+     */
+    public PolylineSimplifier getSimplifier()
+    {
+        if (this.simplifier == null)
+            this.simplifier = new PolylineSimplifier(this.positions);
+
+        return this.simplifier;
+    }
+
+    private void positionAppended(SARPosition position)
+    {
+        if (this.simplifier != null)
+            this.simplifier.add(position);
+    }
+
+    private void positionsChanged()
+    {
+        this.simplifier = null;
+    }
+
     public SARPosition get(int index)
     {
         return this.positions.size() > index ? this.positions.get(index) : null;
@@ -251,9 +278,15 @@ public class SARTrack extends WWObjectImpl implements Iterable<Position>
             return;
 
         if (index >= this.positions.size())
+        {
             this.positions.add(position);
+            this.positionAppended(position);
+        }
         else
+        {
             this.positions.set(index, position);
+            this.positionsChanged();
+        }
 
         this.markDirty();
         this.firePropertyChange(TrackController.TRACK_MODIFY, null, index);
@@ -265,9 +298,15 @@ public class SARTrack extends WWObjectImpl implements Iterable<Position>
             return;
 
         if (index >= this.positions.size())
+        {
             this.positions.add(position);
+            this.positionAppended(position);
+        }
         else
+        {
             this.positions.add(index, position);
+            this.positionsChanged();
+        }
 
         this.markDirty();
         this.firePropertyChange(TrackController.TRACK_MODIFY, null, this);
@@ -315,6 +354,7 @@ public class SARTrack extends WWObjectImpl implements Iterable<Position>
             return;
 
         this.positions.remove(index);
+        this.positionsChanged();
         this.markDirty();
         this.firePropertyChange(TrackController.TRACK_MODIFY, null, this);
     }
@@ -330,6 +370,7 @@ public class SARTrack extends WWObjectImpl implements Iterable<Position>
             this.positions.remove(positionNumbers[i]);
         }
 
+        this.positionsChanged();
         this.markDirty();
         this.firePropertyChange(TrackController.TRACK_MODIFY, null, this);
     }
@@ -340,6 +381,7 @@ public class SARTrack extends WWObjectImpl implements Iterable<Position>
             return;
 
         this.positions.add(position);
+        this.positionAppended(position);
         this.markDirty();
         this.firePropertyChange(TrackController.TRACK_MODIFY, null, this);
     }
@@ -350,6 +392,7 @@ public class SARTrack extends WWObjectImpl implements Iterable<Position>
             return;
 
         this.positions.add(index, position);
+        this.positionsChanged();
         this.markDirty();
         this.firePropertyChange(TrackController.TRACK_MODIFY, null, this);
     }
@@ -360,6 +403,7 @@ public class SARTrack extends WWObjectImpl implements Iterable<Position>
             return;
 
         this.positions.set(index, position);
+        this.positionsChanged();
         this.markDirty();
         this.firePropertyChange(TrackController.TRACK_MODIFY, null, index);
     }
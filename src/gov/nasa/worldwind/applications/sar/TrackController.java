@@ -7,6 +7,7 @@ All Rights Reserved.
 package gov.nasa.worldwind.applications.sar;
 
 import gov.nasa.worldwind.WorldWindow;
+import gov.nasa.worldwind.applications.sar.render.TrackPolyline;
 import gov.nasa.worldwind.event.*;
 import gov.nasa.worldwind.geom.*;
 import gov.nasa.worldwind.layers.*;
@@ -164,12 +165,12 @@ public class TrackController
 
     private void createPolylineTrackRepresentation(SARTrack track)
     {
-        Polyline airPath = new Polyline(track);
+        Polyline airPath = new TrackPolyline(track);
         airPath.setOffset(track.getOffset());
         airPath.setPathType(Polyline.RHUMB_LINE);
         airPath.setColor(track.getColor());
 
-        Polyline groundPath = new Polyline(track);
+        Polyline groundPath = new TrackPolyline(track);
         groundPath.setFollowTerrain(true);
         groundPath.setPathType(Polyline.RHUMB_LINE);
         groundPath.setColor(track.getColor());
@@ -227,8 +228,10 @@ public class TrackController
 
         for (Renderable r : layer.getRenderables())
         {
+            // Track polylines follow the track's positions themselves.
             Polyline line = (Polyline) r;
-            line.setPositions(track);
+            if (!(line instanceof TrackPolyline))
+                line.setPositions(track);
             if (!line.isFollowTerrain())
                 line.setOffset(track.getOffset());
         }
@@ -0,0 +1,101 @@
+/* Copyright (C) 2001, 2010 United States Government as represented by
+the Administrator of the National Aeronautics and Space Administration.
+All Rights Reserved.
+*/
+package gov.nasa.worldwind.applications.sar.render;
+
+import gov.nasa.worldwind.applications.sar.SARTrack;
+import gov.nasa.worldwind.geom.Position;
+import gov.nasa.worldwind.render.*;
+import gov.nasa.worldwind.util.*;
+
+import java.util.ArrayList;
+
+/**
+ * A {@link Polyline} that draws a {@link SARTrack} simplified to the current view. Before each frame the polyline
+ * selects the track positions that are significant at the current view, using the track's {@link PolylineSimplifier},
+ * and replaces its positions only when the selection changes. The polyline follows changes to the track without being
+ * told of them.
+ *
+ * @version $Id$
+ */
+public class TrackPolyline extends Polyline
+{
+    protected final SARTrack track;
+    protected double simplificationPixels = 1;
+    protected PolylineSimplifier simplifier; // the simplifier the current positions were selected with
+    protected int simplifierSize = -1; // the simplifier's size when the current positions were selected
+    protected double tolerance = -1; // the tolerance the current positions were selected with
+
+    /**
+     * Creates a polyline for a specified track.
+     *
+     * @param track the track to draw.
+     *
+     * @throws IllegalArgumentException if the track is null.
+     */
+    public TrackPolyline(SARTrack track)
+    {
+        if (track == null)
+        {
+            String msg = Logging.getMessage("nullValue.TrackIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        this.track = track;
+    }
+
+    public SARTrack getTrack()
+    {
+        return this.track;
+    }
+
+    public double getSimplificationPixels()
+    {
+        return this.simplificationPixels;
+    }
+
+    /**
+     * Specifies the screen-space tolerance to which the track is simplified. Track positions whose omission would move
+     * the line by less than this many pixels are not drawn. The default is 1.
+     *
+     * @param simplificationPixels the simplification tolerance, in pixels. Zero or less draws every position.
+     */
+    public void setSimplificationPixels(double simplificationPixels)
+    {
+        this.simplificationPixels = simplificationPixels;
+        this.tolerance = -1;
+    }
+
+    @Override
+    protected void draw(DrawContext dc)
+    {
+        if (!dc.isOrderedRenderingMode())
+            this.updatePositions(dc);
+
+        super.draw(dc);
+    }
+
+    protected void updatePositions(DrawContext dc)
+    {
+        PolylineSimplifier s = this.track.getSimplifier();
+        double tol = s.computeTolerance(dc, this.simplificationPixels);
+        if (s == this.simplifier && s.size() == this.simplifierSize && tol == this.tolerance)
+            return;
+
+        int[] indices = s.select(tol);
+        ArrayList<Position> positions = new ArrayList<Position>(indices.length);
+        for (int index : indices)
+        {
+            Position position = this.track.get(index);
+            if (position != null)
+                positions.add(position);
+        }
+
+        this.setPositions(positions);
+        this.simplifier = s;
+        this.simplifierSize = s.size();
+        this.tolerance = tol;
+    }
+}
@@ -73,6 +73,7 @@ public interface AVKey // TODO: Eliminate unused constants, if any
     final String DATASET_NAME = "gov.nasa.worldwind.avkey.DatasetNameKey";
     final String DATASET_TYPE = "gov.nasa.worldwind.avkey.DatasetTypeKey";
     final String DATE_TIME = "gov.nasa.worldwind.avkey.DateTime";
+    final String DEFERRED_INITIALIZATION = "gov.nasa.worldwind.avkey.DeferredInitialization";
     final String DELETE_CACHE_ON_EXIT = "gov.nasa.worldwind.avkey.DeleteCacheOnExit";
     final String DESCRIPTION = "gov.nasa.worldwind.avkey.Description";
     final String DETAIL_HINT = "gov.nasa.worldwind.avkey.DetailHint";
@@ -227,6 +228,7 @@ public interface AVKey // TODO: Eliminate unused constants, if any
 
     final String OVERVIEW_FILE_NAME = "gov.nasa.worldwind.avkey.Overview.FileName";
 
+    final String PARALLEL_STARTUP = "gov.nasa.worldwind.avkey.ParallelStartup";
     final String PARENT_LAYER_NAME = "gov.nasa.worldwind.avkey.ParentLayerName";
 
     final String PAUSE = "gov.nasa.worldwind.avkey.Pause";
@@ -303,6 +305,8 @@ public interface AVKey // TODO: Eliminate unused constants, if any
     /** Does not modify the item size when the window changes size. */
     final String RESIZE_KEEP_FIXED_SIZE = "gov.nasa.worldwind.CompassLayer.ResizeKeepFixedSize";
     final String RETRIEVAL_POOL_SIZE = "gov.nasa.worldwind.avkey.RetrievalPoolSize";
+    final String RETRIEVAL_PREFETCH = "gov.nasa.worldwind.avkey.RetrievalPrefetch";
+    final String RETRIEVAL_PREFETCH_LIMIT = "gov.nasa.worldwind.avkey.RetrievalPrefetchLimit";
     final String RETRIEVE_PROPERTIES_FROM_SERVICE = "gov.nasa.worldwind.avkey.RetrievePropertiesFromService";
     final String RETRIEVAL_QUEUE_SIZE = "gov.nasa.worldwind.avkey.RetrievalQueueSize";
     final String RETRIEVAL_QUEUE_STALE_REQUEST_LIMIT = "gov.nasa.worldwind.avkey.RetrievalStaleRequestLimit";
@@ -367,6 +371,7 @@ public interface AVKey // TODO: Eliminate unused constants, if any
     final String SPATIAL_REFERENCE_WKT = "gov.nasa.worldwind.avkey.SpatialReference.WKT";
     final String SOUTH = "gov.nasa.worldwdind.avkey.South";
     final String START = "gov.nasa.worldwind.avkey.Start";
+    final String STARTUP_TIME = "gov.nasa.worldwind.avkey.StartupTime";
     final String STOP = "gov.nasa.worldwind.avkey.Stop";
     final String STYLE_NAMES = "gov.nasa.worldwind.avkey.StyleNames";
     final String SURFACE_TILE_DRAW_CONTEXT = "gov.nasa.worldwind.avkey.SurfaceTileDrawContext";
@@ -376,6 +381,9 @@ public interface AVKey // TODO: Eliminate unused constants, if any
     final String TEXTURE_COORDINATES = "gov.nasa.worldwind.avkey.TextureCoordinates";
     final String TEXTURE_FORMAT = "gov.nasa.worldwind.avkey.TextureFormat";
     final String TEXTURE_IMAGE_CACHE_SIZE = "gov.nasa.worldwind.avkey.TextureTileCacheSize";
+    final String TEXTURE_UPLOADS_PER_FRAME = "gov.nasa.worldwind.avkey.TextureUploadsPerFrame";
+    final String TEXTURE_UPLOAD_BYTES_PER_FRAME = "gov.nasa.worldwind.avkey.TextureUploadBytesPerFrame";
+    final String TEXTURE_UPLOAD_MILLIS_PER_FRAME = "gov.nasa.worldwind.avkey.TextureUploadMillisPerFrame";
     final String TASK_POOL_SIZE = "gov.nasa.worldwind.avkey.TaskPoolSize";
     final String TASK_QUEUE_SIZE = "gov.nasa.worldwind.avkey.TaskQueueSize";
     final String TASK_SERVICE_CLASS_NAME = "gov.nasa.worldwind.avkey.TaskServiceClassName";
@@ -6,8 +6,9 @@ All Rights Reserved.
 
 package gov.nasa.worldwind.data;
 
-import gov.nasa.worldwind.WWObjectImpl;
+import gov.nasa.worldwind.*;
 import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.cache.*;
 import gov.nasa.worldwind.exception.WWRuntimeException;
 import gov.nasa.worldwind.formats.dds.DDSCompressor;
 import gov.nasa.worldwind.geom.Sector;
@@ -18,9 +19,19 @@ import javax.xml.xpath.*;
 import java.awt.*;
 import java.io.File;
 import java.nio.ByteBuffer;
-import java.util.ArrayList;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
+ * Composes rasters from a collection of source rasters listed in a RasterServer configuration document.
+ * <p/>
+ * Source rasters are located through a quadtree over their sectors, so a request visits only the sources near the
+ * requested sector. The rasters read from each source are kept in a bounded memory cache, so that a source is opened
+ * and decoded once across the many tile requests covering it; windowed rasters such as those of GDAL and DTED sources
+ * stay open and read only the part of the source each request draws. The cache capacity and the index depth can be
+ * set with the {@link #SOURCE_CACHE_CAPACITY} and {@link #SOURCE_INDEX_LEVELS} properties. Request timing and cache
+ * use are reported by {@link #getPerformanceStatistics()}.
+ *
  * @author Lado Garakanidze
  * @version $Id: BasicRasterServer.java 14056 2010-10-27 09:11:24Z garakl $
  */
@@ -34,8 +45,20 @@ public class BasicRasterServer extends WWObjectImpl implements RasterServer
 
     protected final String RASTER_READER = "DataRasterReader";
 
+    public static final String SOURCE_CACHE_CAPACITY = "BasicRasterServer.SourceCacheCapacity";
+    public static final String SOURCE_INDEX_LEVELS = "BasicRasterServer.SourceIndexLevels";
+
+    protected static final long DEFAULT_SOURCE_CACHE_CAPACITY = 128L * 1024L * 1024L;
+    protected static final int DEFAULT_SOURCE_INDEX_LEVELS = 8;
+    // The size charged to the cache for a source raster that reports a smaller size, such as a windowed raster which
+    // holds an open file rather than decoded pixels. This bounds the number of sources kept open.
+    protected static final long MIN_SOURCE_SIZE = 1024L * 1024L;
+    // Marks a source raster that has been evicted from the source cache and disposed.
+    protected static final String SOURCE_DISPOSED = "BasicRasterServer.SourceDisposed";
+
     protected static DataRasterReader[] readers = new DataRasterReader[]
         {
+            new DTEDRasterReader(),
             new GDALDataRasterReader(),
             new ImageIORasterReader(),
             new GeotiffRasterReader(),
@@ -45,6 +68,15 @@ public class BasicRasterServer extends WWObjectImpl implements RasterServer
 
     protected ArrayList<AVList> rasters = new ArrayList<AVList>();
     protected DataRasterReader rasterReader = null;
+    // Indices of the entries of the rasters list, keyed by their sectors.
+    protected BasicQuadTree<Integer> rasterIndex;
+    protected MemoryCache sourceCache;
+
+    protected final AtomicLong requestCount = new AtomicLong();
+    protected final AtomicLong totalRequestNanos = new AtomicLong();
+    protected final AtomicLong maxRequestNanos = new AtomicLong();
+    protected final AtomicLong sourcesDrawn = new AtomicLong();
+    protected final AtomicLong sourceCacheHits = new AtomicLong();
 
     public BasicRasterServer(Object o, AVList params)
     {
@@ -102,6 +134,20 @@ public class BasicRasterServer extends WWObjectImpl implements RasterServer
         this.extractProperties(rootElement, xpath);
 
         this.buildRasterFilesList(rootElement, xpath);
+
+        this.rasterIndex = this.createRasterIndex();
+
+        long capacity = AVListImpl.getLongValue(this, SOURCE_CACHE_CAPACITY, DEFAULT_SOURCE_CACHE_CAPACITY);
+        this.sourceCache = new BasicMemoryCache((long) (0.8 * capacity), capacity);
+        this.sourceCache.setName("Raster Server Sources");
+        this.sourceCache.addCacheListener(new MemoryCache.CacheListener()
+        {
+            public void entryRemoved(Object key, Object clientObject)
+            {
+                if (clientObject instanceof DataRaster[])
+                    disposeSourceRasters((DataRaster[]) clientObject);
+            }
+        });
     }
 
     public void setDataRasterReaders(DataRasterReader[] rasterReaders)
@@ -261,11 +307,196 @@ public class BasicRasterServer extends WWObjectImpl implements RasterServer
         return (this.hasKey(AVKey.SECTOR)) ? (Sector) this.getValue(AVKey.SECTOR) : null;
     }
 
+    /**
+     * Builds a quadtree over the sectors of the source rasters. The tree holds each source's index in the raster list.
+     *
+     * @return the quadtree, or null if there are no source rasters.
+     */
+    protected BasicQuadTree<Integer> createRasterIndex()
+    {
+        Sector extent = null;
+        for (AVList raster : this.rasters)
+        {
+            extent = Sector.union(extent, (Sector) raster.getValue(AVKey.SECTOR));
+        }
+
+        if (null == extent)
+            return null;
+
+        int numLevels = AVListImpl.getIntegerValue(this, SOURCE_INDEX_LEVELS, DEFAULT_SOURCE_INDEX_LEVELS);
+        BasicQuadTree<Integer> tree = new BasicQuadTree<Integer>(Math.max(numLevels, 1), extent, null);
+        for (int i = 0; i < this.rasters.size(); i++)
+        {
+            Sector sector = (Sector) this.rasters.get(i).getValue(AVKey.SECTOR);
+            tree.add(i, sector.asDegreesArray());
+        }
+
+        return tree;
+    }
+
+    /**
+     * Returns the source rasters overlapping a sector, in the order of the configuration document, which is the order
+     * they are drawn in.
+     *
+     * @param sector the sector of interest.
+     *
+     * @return the overlapping source rasters.
+     */
+    protected java.util.List<AVList> getIntersectingRasters(Sector sector)
+    {
+        if (null == this.rasterIndex)
+            return Collections.emptyList();
+
+        // The quadtree returns the sources in its cells touching the sector; a sorted set restores document order.
+        Set<Integer> candidates = this.rasterIndex.getItemsInRegion(sector, new TreeSet<Integer>());
+
+        java.util.List<AVList> list = new ArrayList<AVList>(candidates.size());
+        for (Integer i : candidates)
+        {
+            AVList raster = this.rasters.get(i);
+            if (sector.intersects((Sector) raster.getValue(AVKey.SECTOR)))
+                list.add(raster);
+        }
+
+        return list;
+    }
+
+    /**
+     * Returns the rasters read from a source, reading them if they are not in the source cache.
+     *
+     * @param raster the source raster's metadata.
+     * @param reader the reader for the source.
+     *
+     * @return the source's rasters, or null if the source could not be read.
+     *
+     * @throws java.io.IOException if the source cannot be read.
+     */
+    protected DataRaster[] getSourceRasters(AVList raster, DataRasterReader reader) throws java.io.IOException
+    {
+        Object source = raster.getValue(AVKey.FILE);
+
+        DataRaster[] srcRasters = (DataRaster[]) this.sourceCache.getObject(source);
+        if (null != srcRasters)
+        {
+            this.sourceCacheHits.incrementAndGet();
+            return srcRasters;
+        }
+
+        srcRasters = reader.read(source, raster.copy());
+        if (null != srcRasters && srcRasters.length > 0)
+            this.sourceCache.add(source, srcRasters, this.computeSizeInBytes(srcRasters));
+
+        return srcRasters;
+    }
+
+    /**
+     * Draws a source raster onto a request's raster, unless the source raster has been disposed.
+     *
+     * @param srcRaster the source raster.
+     * @param reqRaster the request's raster.
+     * @param overlap   the sector of the source to draw.
+     *
+     * @return true if the source raster was drawn, false if it has been disposed.
+     */
+    protected boolean drawSourceRaster(DataRaster srcRaster, DataRaster reqRaster, Sector overlap)
+    {
+        // Cached rasters are shared by concurrent requests, and windowed rasters read from an open file which is not
+        // safe for concurrent use.
+        synchronized (srcRaster)
+        {
+            if (srcRaster.hasKey(SOURCE_DISPOSED))
+                return false;
+
+            srcRaster.drawOnCanvas(reqRaster, overlap);
+        }
+
+        this.sourcesDrawn.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Disposes the rasters of a source removed from the source cache, releasing open files and decoded pixels. Each
+     * raster is disposed under the same lock requests hold while drawing it, so a raster is never disposed while it is
+     * drawn.
+     *
+     * @param rasters the source's rasters.
+     */
+    protected void disposeSourceRasters(DataRaster[] rasters)
+    {
+        for (DataRaster raster : rasters)
+        {
+            if (raster == null)
+                continue;
+
+            synchronized (raster)
+            {
+                raster.setValue(SOURCE_DISPOSED, Boolean.TRUE);
+                if (raster instanceof Disposable)
+                    ((Disposable) raster).dispose();
+            }
+        }
+    }
+
+    protected long computeSizeInBytes(DataRaster[] rasters)
+    {
+        long size = 0;
+        for (DataRaster raster : rasters)
+        {
+            if (raster instanceof Cacheable)
+                size += ((Cacheable) raster).getSizeInBytes();
+        }
+
+        return Math.max(size, MIN_SOURCE_SIZE);
+    }
+
+    /**
+     * Returns statistics of the requests served: their count, mean and maximum duration, the number of source rasters
+     * drawn, how many of those were found in the source cache, and the cache's size.
+     *
+     * @return the statistics.
+     */
+    public Collection<PerformanceStatistic> getPerformanceStatistics()
+    {
+        String name = this.getStringValue(AVKey.DISPLAY_NAME);
+        String prefix = "Raster Server" + (WWUtil.isEmpty(name) ? "" : " " + name) + ": ";
+
+        long count = this.requestCount.get();
+        double meanMillis = count > 0 ? this.totalRequestNanos.get() / (count * 1.0e6) : 0;
+
+        ArrayList<PerformanceStatistic> stats = new ArrayList<PerformanceStatistic>();
+        stats.add(new PerformanceStatistic(PerformanceStatistic.RASTER_SERVER, prefix + "Requests", count));
+        stats.add(new PerformanceStatistic(PerformanceStatistic.RASTER_SERVER, prefix + "Mean Request Time (ms)",
+            meanMillis));
+        stats.add(new PerformanceStatistic(PerformanceStatistic.RASTER_SERVER, prefix + "Max Request Time (ms)",
+            this.maxRequestNanos.get() / 1.0e6));
+        stats.add(new PerformanceStatistic(PerformanceStatistic.RASTER_SERVER, prefix + "Sources Drawn",
+            this.sourcesDrawn.get()));
+        stats.add(new PerformanceStatistic(PerformanceStatistic.RASTER_SERVER, prefix + "Source Cache Hits",
+            this.sourceCacheHits.get()));
+        stats.add(new PerformanceStatistic(PerformanceStatistic.RASTER_SERVER, prefix + "Source Cache Size (Kb)",
+            this.sourceCache.getUsedCapacity() / 1000));
+
+        return stats;
+    }
+
+    protected void recordRequestTime(long nanos)
+    {
+        this.requestCount.incrementAndGet();
+        this.totalRequestNanos.addAndGet(nanos);
+
+        long max;
+        do
+        {
+            max = this.maxRequestNanos.get();
+        }
+        while (nanos > max && !this.maxRequestNanos.compareAndSet(max, nanos));
+    }
+
     protected DataRaster composeRaster(AVList reqParams)
     {
         DataRaster reqRaster = null;
 
-        long startTime = System.currentTimeMillis();
+        long startTime = System.nanoTime();
 
         if (null == reqParams)
         {
@@ -335,7 +566,7 @@ public class BasicRasterServer extends WWObjectImpl implements RasterServer
                 throw new WWRuntimeException(message);
             }
 
-            for (AVList raster : this.rasters)
+            for (AVList raster : this.getIntersectingRasters(reqSector))
             {
                 try
                 {
@@ -361,12 +592,13 @@ public class BasicRasterServer extends WWObjectImpl implements RasterServer
                         continue;
                     }
 
-                    DataRaster[] srcRasters = reader.read(raster.getValue(AVKey.FILE), raster.copy());
-
-                    if (null != srcRasters && srcRasters.length > 0)
+                    // A source evicted from the cache, and disposed, after it was retrieved is read again.
+                    for (int attempt = 0; attempt < 2; attempt++)
                     {
-                        DataRaster srcRaster = srcRasters[0];
-                        srcRaster.drawOnCanvas(reqRaster, overlap);
+                        DataRaster[] srcRasters = this.getSourceRasters(raster, reader);
+                        if (null == srcRasters || srcRasters.length == 0
+                            || this.drawSourceRaster(srcRasters[0], reqRaster, overlap))
+                            break;
                     }
                 }
                 catch (Throwable t)
@@ -385,7 +617,10 @@ public class BasicRasterServer extends WWObjectImpl implements RasterServer
         }
         finally
         {
-            String msg = Logging.getMessage("generic.ExecutionTime", System.currentTimeMillis() - startTime);
+            long elapsed = System.nanoTime() - startTime;
+            this.recordRequestTime(elapsed);
+
+            String msg = Logging.getMessage("generic.ExecutionTime", elapsed / 1000000L);
             Logging.logger().finest(msg);
         }
 
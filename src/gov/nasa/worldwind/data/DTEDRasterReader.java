@@ -0,0 +1,133 @@
+/*
+Copyright (C) 2001, 2010 United States Government as represented by
+the Administrator of the National Aeronautics and Space Administration.
+All Rights Reserved.
+*/
+
+package gov.nasa.worldwind.data;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.formats.dted.*;
+import gov.nasa.worldwind.util.*;
+
+import java.io.*;
+
+/**
+ * Reads DTED level 0, 1 and 2 elevation cells. The rasters returned by this reader are {@link DTEDDataRaster}s, which
+ * memory map the cell and decode only the data records needed to draw a requested region, rather than reading the
+ * entire cell into memory.
+ *
+ * @version $Id$
+ */
+public class DTEDRasterReader extends AbstractDataRasterReader
+{
+    protected static final String[] dtedMimeTypes = new String[] {"application/dted"};
+
+    protected static final String[] dtedSuffixes = new String[] {"dt0", "dt1", "dt2"};
+
+    private boolean verifyChecksums = false;
+
+    public DTEDRasterReader()
+    {
+        super(dtedMimeTypes, dtedSuffixes);
+    }
+
+    /**
+     * Indicates whether the rasters created by this reader verify the checksum of each data record as it's decoded.
+     *
+     * @return true if data record checksums are verified, otherwise false.
+     */
+    public boolean isVerifyChecksums()
+    {
+        return this.verifyChecksums;
+    }
+
+    /**
+     * Specifies whether the rasters created by this reader verify the checksum of each data record as it's decoded.
+     * Verification is disabled by default.
+     *
+     * @param verifyChecksums true to verify data record checksums, otherwise false.
+     */
+    public void setVerifyChecksums(boolean verifyChecksums)
+    {
+        this.verifyChecksums = verifyChecksums;
+    }
+
+    protected boolean doCanRead(Object source, AVList params)
+    {
+        File file = this.getFile(source);
+        if (null == file || !file.canRead())
+            return false;
+
+        // Every DTED cell starts with a User Header Label record, identified by the characters "UHL".
+        FileInputStream fis = null;
+        try
+        {
+            byte[] id = new byte[3];
+            fis = new FileInputStream(file);
+            if (fis.read(id) != id.length || !"UHL".equals(new String(id)))
+                return false;
+        }
+        catch (IOException e)
+        {
+            // Not interested in logging the exception, we only want to report the failure to read.
+            return false;
+        }
+        finally
+        {
+            WWIO.closeStream(fis, file.getPath());
+        }
+
+        if (null != params)
+        {
+            if (!params.hasKey(AVKey.PIXEL_FORMAT))
+                params.setValue(AVKey.PIXEL_FORMAT, AVKey.ELEVATION);
+
+            if (!params.hasKey(AVKey.RASTER_TYPE))
+                params.setValue(AVKey.RASTER_TYPE, AVKey.RASTER_TYPE_ELEVATION);
+        }
+
+        return true;
+    }
+
+    protected DataRaster[] doRead(Object source, AVList params) throws IOException
+    {
+        File file = this.getFile(source);
+        if (null == file)
+        {
+            String message = Logging.getMessage("DataRaster.CannotRead", source);
+            Logging.logger().severe(message);
+            throw new IOException(message);
+        }
+
+        DTEDDataRaster raster = new DTEDDataRaster(file, this.isVerifyChecksums());
+        if (null != params)
+            params.setValues(raster);
+
+        return new DataRaster[] {raster};
+    }
+
+    protected void doReadMetadata(Object source, AVList params) throws IOException
+    {
+        File file = this.getFile(source);
+        if (null == file)
+        {
+            String message = Logging.getMessage("DataRaster.CannotRead", source);
+            Logging.logger().severe(message);
+            throw new IOException(message);
+        }
+
+        params.setValues(DTED.readMetadata(file));
+    }
+
+    protected File getFile(Object source)
+    {
+        if (source instanceof File)
+            return (File) source;
+
+        if (source instanceof java.net.URL && "file".equalsIgnoreCase(((java.net.URL) source).getProtocol()))
+            return new File(((java.net.URL) source).getFile());
+
+        return null;
+    }
+}
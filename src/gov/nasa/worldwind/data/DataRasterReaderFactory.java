@@ -18,12 +18,12 @@ public class DataRasterReaderFactory
 {
     protected static DataRasterReader[] readers = new DataRasterReader[]
         {
+            new DTEDRasterReader(),
             new GDALDataRasterReader(),
             new ImageIORasterReader(),
             new GeotiffRasterReader(),
             new RPFRasterReader(),
             new BILRasterReader()
-//            TODO garakl make DTEDRasterReader
         };
 
     public static DataRasterReader findReaderFor(Object source, AVList params)
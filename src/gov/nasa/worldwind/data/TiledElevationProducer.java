@@ -30,6 +30,7 @@ public class TiledElevationProducer extends TiledRasterProducer
     // safely re-used.
     protected static DataRasterReader[] readers = new DataRasterReader[]
         {
+            new DTEDRasterReader(),
             new GDALDataRasterReader(),
             new BILRasterReader(),
             new GeotiffRasterReader()
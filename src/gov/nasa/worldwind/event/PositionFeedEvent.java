@@ -0,0 +1,70 @@
+/*
+Copyright (C) 2001, 2010 United States Government
+as represented by the Administrator of the
+National Aeronautics and Space Administration.
+All Rights Reserved.
+*/
+package gov.nasa.worldwind.event;
+
+import gov.nasa.worldwind.tracks.*;
+
+import java.util.*;
+
+/**
+ * Notifies of a batch of updates from a {@link PositionFeed}. A feed coalesces the position reports it receives
+ * between notifications, so each changed object appears once in an event, in its latest state.
+ *
+ * @version $Id$
+ */
+public class PositionFeedEvent extends EventObject
+{
+    private static final long serialVersionUID = 1L;
+
+    protected final List<MovingObject> objects;
+    protected final int numReports;
+
+    /**
+     * Creates a new event.
+     *
+     * @param source     the feed.
+     * @param objects    the latest state of each object that changed.
+     * @param numReports the number of position reports coalesced into this event.
+     */
+    public PositionFeedEvent(PositionFeed source, List<MovingObject> objects, int numReports)
+    {
+        super(source);
+        this.objects = Collections.unmodifiableList(objects);
+        this.numReports = numReports;
+    }
+
+    /**
+     * Returns the event source.
+     *
+     * @return the feed that reported the changes.
+     */
+    public PositionFeed getSource()
+    {
+        return super.getSource() instanceof PositionFeed ? (PositionFeed) super.getSource() : null;
+    }
+
+    /**
+     * Returns the latest state of each object that changed since the previous event.
+     *
+     * @return the changed objects.
+     */
+    public List<MovingObject> getObjects()
+    {
+        return this.objects;
+    }
+
+    /**
+     * Returns the number of position reports coalesced into this event. This is at least the number of changed
+     * objects.
+     *
+     * @return the number of position reports.
+     */
+    public int getNumReports()
+    {
+        return this.numReports;
+    }
+}
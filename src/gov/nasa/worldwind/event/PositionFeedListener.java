@@ -0,0 +1,25 @@
+/*
+Copyright (C) 2001, 2010 United States Government
+as represented by the Administrator of the
+National Aeronautics and Space Administration.
+All Rights Reserved.
+*/
+package gov.nasa.worldwind.event;
+
+import java.util.EventListener;
+
+/**
+ * Interface for listening for changes to the objects reported by a {@link gov.nasa.worldwind.tracks.PositionFeed}.
+ *
+ * @version $Id$
+ */
+public interface PositionFeedListener extends EventListener
+{
+    /**
+     * Called when one or more objects have been updated by the feed. Called on the feed's publishing thread, not on the
+     * event dispatch thread.
+     *
+     * @param event the event identifying the updated objects.
+     */
+    void objectsChanged(PositionFeedEvent event);
+}
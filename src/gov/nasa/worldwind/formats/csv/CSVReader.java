@@ -23,6 +23,7 @@ public class CSVReader implements Track, TrackSegment
     private List<TrackSegment> segments = new ArrayList<TrackSegment>();
     private List<TrackPoint> points = new ArrayList<TrackPoint>();
     private String name;
+    private TrackStore trackStore;
 //    private int lineNumber = 0;
 
     public CSVReader()
@@ -51,6 +52,28 @@ public class CSVReader implements Track, TrackSegment
         return this.points;
     }
 
+    /**
+     * Returns the store this reader appends points to.
+     *
+     * @return the reader's track store, or null if the reader collects points in its own lists.
+     */
+    public TrackStore getTrackStore()
+    {
+        return this.trackStore;
+    }
+
+    /**
+     * Specifies a store to append points to as they're read. When a store is specified this reader doesn't keep the
+     * points itself: each stream read starts a new track in the store, named after the stream, and this reader's
+     * point list stays empty. CSV points have no time, so their time is {@link TrackStore#TIME_UNKNOWN}.
+     *
+     * @param trackStore the store to append points to, or null to collect points in this reader.
+     */
+    public void setTrackStore(TrackStore trackStore)
+    {
+        this.trackStore = trackStore;
+    }
+
     /**
      * @param path
      * @throws IllegalArgumentException if <code>path</code> is null
@@ -75,8 +98,15 @@ public class CSVReader implements Track, TrackSegment
             throw new FileNotFoundException(path);
         }
 
-        FileInputStream fis = new FileInputStream(file);
-        this.doReadStream(fis);
+        InputStream fis = new BufferedInputStream(new FileInputStream(file));
+        try
+        {
+            this.doReadStream(fis);
+        }
+        finally
+        {
+            WWIO.closeStream(fis, path);
+        }
     }
 
     /**
@@ -131,6 +161,9 @@ public class CSVReader implements Track, TrackSegment
         String sentence;
         Scanner scanner = new Scanner(stream);
 
+        if (this.trackStore != null)
+            this.trackStore.beginTrack(this.name);
+
         try
         {
             do
@@ -157,7 +190,11 @@ public class CSVReader implements Track, TrackSegment
         if ( sentence.trim().length() > 0)
         {
             CSVTrackPoint point = new CSVTrackPoint(sentence.split(","));
-            this.points.add(point);
+            if (this.trackStore != null)
+                this.trackStore.append(point.getLatitude(), point.getLongitude(), point.getElevation(),
+                    TrackStore.TIME_UNKNOWN);
+            else
+                this.points.add(point);
         }
 //        }
 //        catch (Exception e)
@@ -21,7 +21,8 @@ public class BasicColorBlockExtractor implements ColorBlockExtractor
     protected int width;
     protected int height;
     protected java.awt.image.BufferedImage image;
-    private int[] buffer;
+    private int[] rowBuffer;
+    private int rowBufferY = -1;
 
     protected static int[] remainder =
     {
@@ -52,7 +53,7 @@ public class BasicColorBlockExtractor implements ColorBlockExtractor
         this.width = image.getWidth();
         this.height = image.getHeight();
         this.image = image;
-        this.buffer = new int[16];
+        this.rowBuffer = new int[4 * this.width];
     }
 
     /**
@@ -109,24 +110,34 @@ public class BasicColorBlockExtractor implements ColorBlockExtractor
         int blockPos = 0;
 
         // Extracts color data from the image in INT_ARGB format. So each integer in the buffer is a tightly packed
-        // 8888 ARGB int, where the color components are not considered to be premultiplied.
-        this.image.getRGB(x, y, bw, bh, this.buffer, 0, 4);
+        // 8888 ARGB int, where the color components are not considered to be premultiplied. Blocks are requested
+        // left to right along each row of blocks, so the pixels of an entire row of blocks are fetched with one call
+        // to getRGB(), instead of converting each block's pixels separately.
+        if (this.rowBufferY != y)
+        {
+            this.image.getRGB(0, y, this.width, bh, this.rowBuffer, 0, this.width);
+            this.rowBufferY = y;
+        }
+
+        int[] pixels = this.rowBuffer;
+        int rowOffset;
 
         for (int j = 0; j < 4; j++)
         {
             by = remainder[byOffset + j];
+            rowOffset = x + by * this.width;
 
             bx = remainder[bxOffset];
-            int32ToColor32(this.buffer[bx + by * 4], colorBlock.color[blockPos++]);
+            int32ToColor32(pixels[rowOffset + bx], colorBlock.color[blockPos++]);
 
             bx = remainder[bxOffset + 1];
-            int32ToColor32(this.buffer[bx + by * 4], colorBlock.color[blockPos++]);
+            int32ToColor32(pixels[rowOffset + bx], colorBlock.color[blockPos++]);
 
             bx = remainder[bxOffset + 2];
-            int32ToColor32(this.buffer[bx + by * 4], colorBlock.color[blockPos++]);
+            int32ToColor32(pixels[rowOffset + bx], colorBlock.color[blockPos++]);
 
             bx = remainder[bxOffset + 3];
-            int32ToColor32(this.buffer[bx + by * 4], colorBlock.color[blockPos++]);
+            int32ToColor32(pixels[rowOffset + bx], colorBlock.color[blockPos++]);
         }
 
         if (attributes.isPremultiplyAlpha())
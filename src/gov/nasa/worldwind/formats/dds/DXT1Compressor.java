@@ -66,6 +66,39 @@ public class DXT1Compressor implements DXTCompressor
             throw new IllegalArgumentException(message);
         }
 
+        // Rows of 4x4 blocks are independent of each other, so large images are divided into bands of block rows
+        // which are compressed concurrently. Each DXT1 block occupies 8 bytes.
+
+        final java.awt.image.BufferedImage compressImage = image;
+        final DXTCompressionAttributes compressAttributes = attributes;
+
+        int numRows = (image.getHeight() + 3) / 4;
+        int bytesPerRow = 8 * ((image.getWidth() + 3) / 4);
+
+        DXTBlockRowScheduler.compressBlockRows(numRows, bytesPerRow, buffer,
+            new DXTBlockRowScheduler.BlockRowCompressor()
+            {
+                public void compressBlockRows(int firstRow, int lastRow, java.nio.ByteBuffer buffer)
+                {
+                    doCompressBlockRows(compressImage, compressAttributes, firstRow, lastRow, buffer);
+                }
+            });
+    }
+
+    /**
+     * Compresses the specified range of 4x4 block rows of <code>image</code>, and writes the DXT1 blocks to
+     * <code>buffer</code> starting at its current position. This is invoked concurrently for disjoint row ranges of
+     * the same image, so it allocates its own color block, extractor and block compressor.
+     *
+     * @param image      the image to compress.
+     * @param attributes the attributes that may affect the compression.
+     * @param firstRow   the first block row to compress.
+     * @param lastRow    one past the last block row to compress.
+     * @param buffer     the buffer that receives the compressed blocks.
+     */
+    protected void doCompressBlockRows(java.awt.image.BufferedImage image, DXTCompressionAttributes attributes,
+        int firstRow, int lastRow, java.nio.ByteBuffer buffer)
+    {
         // If it is determined that the image and block have no alpha component, then we compress with DXT1 using a
         // four color palette. Otherwise, we use the three color palette (with the fourth color as transparent black).
 
@@ -76,13 +109,13 @@ public class DXT1Compressor implements DXTCompressor
         BlockDXT1Compressor dxt1Compressor = new BlockDXT1Compressor();
 
         int width = image.getWidth();
-        int height = image.getHeight();
+        int height = Math.min(image.getHeight(), 4 * lastRow);
 
         boolean imageHasAlpha = image.getColorModel().hasAlpha();
         boolean enableAlpha = attributes.isEnableDXT1Alpha();
         int alphaThreshold = attributes.getDXT1AlphaThreshold();
 
-        for (int j = 0; j < height; j += 4)
+        for (int j = 4 * firstRow; j < height; j += 4)
         {
             for (int i = 0; i < width; i += 4)
             {
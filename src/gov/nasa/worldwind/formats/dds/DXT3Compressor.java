@@ -66,6 +66,39 @@ public class DXT3Compressor implements DXTCompressor
             throw new IllegalArgumentException(message);
         }
 
+        // Rows of 4x4 blocks are independent of each other, so large images are divided into bands of block rows
+        // which are compressed concurrently. Each DXT3 block occupies 16 bytes.
+
+        final java.awt.image.BufferedImage compressImage = image;
+        final DXTCompressionAttributes compressAttributes = attributes;
+
+        int numRows = (image.getHeight() + 3) / 4;
+        int bytesPerRow = 16 * ((image.getWidth() + 3) / 4);
+
+        DXTBlockRowScheduler.compressBlockRows(numRows, bytesPerRow, buffer,
+            new DXTBlockRowScheduler.BlockRowCompressor()
+            {
+                public void compressBlockRows(int firstRow, int lastRow, java.nio.ByteBuffer buffer)
+                {
+                    doCompressBlockRows(compressImage, compressAttributes, firstRow, lastRow, buffer);
+                }
+            });
+    }
+
+    /**
+     * Compresses the specified range of 4x4 block rows of <code>image</code>, and writes the DXT3 blocks to
+     * <code>buffer</code> starting at its current position. This is invoked concurrently for disjoint row ranges of
+     * the same image, so it allocates its own color block, extractor and block compressor.
+     *
+     * @param image      the image to compress.
+     * @param attributes the attributes that may affect the compression.
+     * @param firstRow   the first block row to compress.
+     * @param lastRow    one past the last block row to compress.
+     * @param buffer     the buffer that receives the compressed blocks.
+     */
+    protected void doCompressBlockRows(java.awt.image.BufferedImage image, DXTCompressionAttributes attributes,
+        int firstRow, int lastRow, java.nio.ByteBuffer buffer)
+    {
         ColorBlock4x4 colorBlock = new ColorBlock4x4();
         ColorBlockExtractor colorBlockExtractor = this.getColorBlockExtractor(image);
 
@@ -73,9 +106,9 @@ public class DXT3Compressor implements DXTCompressor
         BlockDXT3Compressor dxt3Compressor = new BlockDXT3Compressor();
 
         int width = image.getWidth();
-        int height = image.getHeight();
+        int height = Math.min(image.getHeight(), 4 * lastRow);
 
-        for (int j = 0; j < height; j += 4)
+        for (int j = 4 * firstRow; j < height; j += 4)
         {
             for (int i = 0; i < width; i += 4)
             {
@@ -0,0 +1,139 @@
+/* Copyright (C) 2001, 2010 United States Government as represented by
+the Administrator of the National Aeronautics and Space Administration.
+All Rights Reserved.
+*/
+package gov.nasa.worldwind.formats.dds;
+
+import gov.nasa.worldwind.util.Logging;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Divides the rows of 4x4 blocks in an image into contiguous bands, and compresses the bands concurrently on a shared
+ * pool of daemon threads. Each band writes its blocks into its own view of the destination buffer, starting at the
+ * offset of the band's first block row, so the compressed output is identical to compressing the rows in order on a
+ * single thread.
+ * <p/>
+ * The calling thread compresses the first band itself, and waits for the remaining bands to complete. Small images are
+ * compressed entirely on the calling thread.
+ *
+ * @version $Id$
+ */
+class DXTBlockRowScheduler
+{
+    /** Compresses a contiguous range of block rows into a buffer positioned at the first row's first block. */
+    interface BlockRowCompressor
+    {
+        /**
+         * Compresses the block rows in the range [firstRow, lastRow).
+         *
+         * @param firstRow the first block row to compress.
+         * @param lastRow  one past the last block row to compress.
+         * @param buffer   the buffer that receives the compressed blocks, positioned at the first block of
+         *                 <code>firstRow</code>.
+         */
+        void compressBlockRows(int firstRow, int lastRow, java.nio.ByteBuffer buffer);
+    }
+
+    /** The minimum number of block rows a band must contain. Smaller bands are not worth a thread hand-off. */
+    protected static final int MIN_ROWS_PER_BAND = 16;
+
+    protected static final int NUM_THREADS = Runtime.getRuntime().availableProcessors();
+
+    protected static final ExecutorService executor = NUM_THREADS > 1 ? Executors.newFixedThreadPool(NUM_THREADS - 1,
+        new ThreadFactory()
+        {
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable);
+                thread.setDaemon(true);
+                thread.setName("DXT Compressor");
+                return thread;
+            }
+        }) : null;
+
+    /**
+     * Compresses <code>numRows</code> block rows into <code>buffer</code>, starting at the buffer's current position.
+     * On return the buffer's position is advanced past the last compressed block.
+     *
+     * @param numRows        the number of block rows in the image.
+     * @param bytesPerRow    the number of compressed bytes in one block row.
+     * @param buffer         the buffer that receives the compressed blocks.
+     * @param rowCompressor  the compressor that compresses a range of block rows.
+     */
+    static void compressBlockRows(int numRows, int bytesPerRow, java.nio.ByteBuffer buffer,
+        final BlockRowCompressor rowCompressor)
+    {
+        int startPosition = buffer.position();
+        int numBands = (executor != null) ? Math.min(NUM_THREADS, numRows / MIN_ROWS_PER_BAND) : 1;
+
+        if (numBands <= 1)
+        {
+            rowCompressor.compressBlockRows(0, numRows, buffer);
+            buffer.position(startPosition + numRows * bytesPerRow);
+            return;
+        }
+
+        int rowsPerBand = (numRows + numBands - 1) / numBands;
+        List<Future<?>> futures = new ArrayList<Future<?>>(numBands - 1);
+
+        for (int firstRow = rowsPerBand; firstRow < numRows; firstRow += rowsPerBand)
+        {
+            final int bandFirstRow = firstRow;
+            final int bandLastRow = Math.min(firstRow + rowsPerBand, numRows);
+            final java.nio.ByteBuffer bandBuffer = createBandBuffer(buffer, startPosition + firstRow * bytesPerRow);
+
+            futures.add(executor.submit(new Runnable()
+            {
+                public void run()
+                {
+                    rowCompressor.compressBlockRows(bandFirstRow, bandLastRow, bandBuffer);
+                }
+            }));
+        }
+
+        rowCompressor.compressBlockRows(0, rowsPerBand, createBandBuffer(buffer, startPosition));
+
+        for (Future<?> future : futures)
+        {
+            waitForBand(future);
+        }
+
+        buffer.position(startPosition + numRows * bytesPerRow);
+    }
+
+    protected static java.nio.ByteBuffer createBandBuffer(java.nio.ByteBuffer buffer, int position)
+    {
+        // A duplicate buffer shares the content of the original, but has its own position. Duplicates always have big
+        // endian byte order, so the original buffer's byte order must be applied explicitly.
+        java.nio.ByteBuffer bandBuffer = buffer.duplicate();
+        bandBuffer.order(buffer.order());
+        bandBuffer.position(position);
+        return bandBuffer;
+    }
+
+    protected static void waitForBand(Future<?> future)
+    {
+        try
+        {
+            future.get();
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+
+            String message = Logging.getMessage("DDSConverter.CompressionFailed", e.getCause());
+            Logging.logger().severe(message);
+            throw new IllegalStateException(message, e.getCause());
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            String message = Logging.getMessage("DDSConverter.CompressionInterrupted");
+            Logging.logger().severe(message);
+            throw new IllegalStateException(message, e);
+        }
+    }
+}
@@ -9,7 +9,7 @@ import gov.nasa.worldwind.avlist.*;
 import gov.nasa.worldwind.data.*;
 import gov.nasa.worldwind.formats.tiff.*;
 import gov.nasa.worldwind.geom.*;
-import gov.nasa.worldwind.util.Logging;
+import gov.nasa.worldwind.util.*;
 
 import java.io.*;
 import java.nio.*;
@@ -109,91 +109,207 @@ public class DTED
 
     public static DataRaster read(File file) throws IOException
     {
-        DataRaster raster = null;
-        RandomAccessFile sourceFile = null;
-
-        try
-        {
-            sourceFile = open(file);
-
-            FileChannel channel = sourceFile.getChannel();
+        return read(file, null, true);
+    }
 
-            AVList metadata = new AVListImpl();
+    /**
+     * Reads the elevation posts of a DTED cell that fall within a region of interest. The cell's data records are
+     * memory mapped, and only the columns (longitude lines) and rows intersecting the region are decoded, so reading
+     * a small region of a large level 2 cell touches only a small part of the file.
+     *
+     * @param file            the DTED cell to read.
+     * @param roi             the region of interest. If null, the entire cell is read.
+     * @param verifyChecksums true to verify the checksum of each decoded data record, false to skip verification.
+     *
+     * @return a raster of the posts within the region of interest, or null if the region does not intersect the cell.
+     *
+     * @throws IOException if the file cannot be read, is not a DTED file, or a verified record checksum does not
+     *                     match.
+     */
+    public static DataRaster read(File file, Sector roi, boolean verifyChecksums) throws IOException
+    {
+        AVList metadata = readMetadata(file);
+        ByteBuffer buffer = WWIO.mapFile(file);
 
-            readUHL(channel, DTED_UHL_OFFSET, metadata);
-            readDSI(channel, DTED_DSI_OFFSET, metadata);
-            readACC(channel, DTED_ACC_OFFSET, metadata);
+        return readElevations(buffer, metadata, roi, verifyChecksums);
+    }
 
-            raster = readElevations(channel, DTED_DATA_OFFSET, metadata);
-        }
-        finally
+    /**
+     * Decodes the elevation posts of a DTED cell that fall within a region of interest from a buffer containing the
+     * entire DTED file, such as a memory mapped file. DTED data records are stored column by column from west to east,
+     * with each column's posts ordered from south to north, so only the records of the intersecting columns are read.
+     * One post of margin is included around the region so the returned raster can be interpolated at the region's
+     * edges.
+     *
+     * @param buffer          the contents of the DTED file.
+     * @param metadata        the cell's metadata, as returned by {@link #readMetadata(java.io.File)}.
+     * @param roi             the region of interest. If null, the entire cell is decoded.
+     * @param verifyChecksums true to verify the checksum of each decoded data record, false to skip verification.
+     *
+     * @return a raster of the posts within the region of interest, or null if the region does not intersect the cell.
+     *
+     * @throws IOException if a verified record checksum does not match.
+     */
+    public static DataRaster readElevations(ByteBuffer buffer, AVList metadata, Sector roi, boolean verifyChecksums)
+        throws IOException
+    {
+        if (null == buffer)
         {
-            close(sourceFile);
+            String message = Logging.getMessage("nullValue.BufferIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
         }
 
-        return raster;
-    }
+        if (null == metadata)
+        {
+            String message = Logging.getMessage("nullValue.AVListIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
 
-    protected static DataRaster readElevations(FileChannel theChannel, long offset, AVList metadata) throws IOException
-    {
-        if (null == theChannel)
-            return null;
+        int width = (Integer) metadata.getValue(AVKey.WIDTH);
+        int height = (Integer) metadata.getValue(AVKey.HEIGHT);
+        double pixelWidth = (Double) metadata.getValue(AVKey.PIXEL_WIDTH);
+        double pixelHeight = (Double) metadata.getValue(AVKey.PIXEL_HEIGHT);
+        Sector sector = (Sector) metadata.getValue(AVKey.SECTOR);
+
+        // Compute the range of columns [x0, x1] and rows [y0, y1] covering the region of interest. Row 0 is the
+        // northernmost row, as World Wind rasters use the upper left corner as their origin.
+        int x0 = 0, x1 = width - 1, y0 = 0, y1 = height - 1;
+        if (null != roi)
+        {
+            if (!roi.intersects(sector))
+                return null;
+
+            x0 = (int) Math.floor((roi.getMinLongitude().degrees - sector.getMinLongitude().degrees) / pixelWidth) - 1;
+            x1 = (int) Math.ceil((roi.getMaxLongitude().degrees - sector.getMinLongitude().degrees) / pixelWidth);
+            y0 = (int) Math.floor((sector.getMaxLatitude().degrees - roi.getMaxLatitude().degrees) / pixelHeight) - 1;
+            y1 = (int) Math.ceil((sector.getMaxLatitude().degrees - roi.getMinLatitude().degrees) / pixelHeight);
+
+            x0 = Math.max(x0, 0);
+            x1 = Math.min(x1, width - 1);
+            y0 = Math.max(y0, 0);
+            y1 = Math.min(y1, height - 1);
+        }
 
-        ByteBufferRaster raster = (ByteBufferRaster) ByteBufferRaster.createGeoreferencedRaster(metadata);
+        int windowWidth = x1 - x0 + 1;
+        int windowHeight = y1 - y0 + 1;
 
-        theChannel.position(offset);
+        AVList params = metadata.copy();
+        params.setValue(AVKey.WIDTH, windowWidth);
+        params.setValue(AVKey.HEIGHT, windowHeight);
+        params.setValue(AVKey.SECTOR, Sector.fromDegrees(
+            sector.getMaxLatitude().degrees - (y1 + 1) * pixelHeight,
+            sector.getMaxLatitude().degrees - y0 * pixelHeight,
+            sector.getMinLongitude().degrees + x0 * pixelWidth,
+            sector.getMinLongitude().degrees + (x1 + 1) * pixelWidth));
+        params.setValue(AVKey.ORIGIN, LatLon.fromDegrees(
+            sector.getMaxLatitude().degrees - y0 * pixelHeight,
+            sector.getMinLongitude().degrees + x0 * pixelWidth));
 
-        int width = (Integer) metadata.getValue(AVKey.WIDTH);
-        int height = (Integer) metadata.getValue(AVKey.HEIGHT);
+        ByteBufferRaster raster = (ByteBufferRaster) ByteBufferRaster.createGeoreferencedRaster(params);
 
-        int recordSize = REC_HEADER_SIZE + width * Short.SIZE / Byte.SIZE + REC_CHKSUM_SIZE;
+        int recordSize = REC_HEADER_SIZE + height * Short.SIZE / Byte.SIZE + REC_CHKSUM_SIZE;
 
-        double min = Double.MAX_VALUE, max = Double.MIN_VALUE;
+        double min = Double.MAX_VALUE, max = -Double.MAX_VALUE;
         double nodata = (double) DTED_NODATA_VALUE;
 
-        ByteBuffer bb = ByteBuffer.allocate(recordSize).order(ByteOrder.BIG_ENDIAN);
-        for (int x = 0; x < width; x++)
+        ByteBuffer data = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+        for (int x = x0; x <= x1; x++)
         {
-            theChannel.read(bb);
-            bb.flip();
+            int recordOffset = (int) DTED_DATA_OFFSET + x * recordSize;
 
-            int dataChkSum = 0;
-            for (int i = 0; i < recordSize - REC_CHKSUM_SIZE;
-                i++) // include header and elevations, exclude checksum itself
-            {
-                dataChkSum += 0xFF & bb.get(i);
-            }
+            if (verifyChecksums)
+                verifyRecordChecksum(data, recordOffset, recordSize);
 
-            ShortBuffer data = bb.asShortBuffer();
-            for (int i = 0; i < height; i++)
+            // Elevation posts within a record are ordered from south to north, following the 8 byte record header.
+            for (int y = y0; y <= y1; y++)
             {
-                double elev = (double) data.get(i + 4); // skip 4 shorts of header
+                int i = height - y - 1;
+                double elev = decodeElevation(data.getShort(recordOffset + REC_HEADER_SIZE + 2 * i));
                 if (elev != nodata)
                 {
                     min = (elev < min) ? elev : min;
                     max = (elev > max) ? elev : max;
                 }
-                int y = height - i - 1;
-                raster.setDoubleAtPosition(y, x, elev);
+                raster.setDoubleAtPosition(y - y0, x - x0, elev);
             }
+        }
+
+        raster.setValue(AVKey.ELEVATION_MIN, min);
+        raster.setValue(AVKey.ELEVATION_MAX, max);
 
-            short hi = data.get(width + REC_CHKSUM_SIZE);
-            short lo = data.get(width + REC_CHKSUM_SIZE + 1);
+        return raster;
+    }
 
-            int expectedChkSum = (0xFFFF & hi) << 16 | (0xFFFF & lo);
+    /**
+     * Decodes all elevation posts of a DTED cell whose data records begin at the specified position in a channel,
+     * verifying the checksum of each record. Retained for subclasses; delegates to {@link
+     * #readElevations(java.nio.ByteBuffer, gov.nasa.worldwind.avlist.AVList, gov.nasa.worldwind.geom.Sector,
+     * boolean)}.
+     *
+     * @param theChannel the channel to read.
+     * @param offset     the channel position of the first data record.
+     * @param metadata   the cell's metadata, as returned by {@link #readMetadata(java.io.File)}.
+     *
+     * @return a raster of the cell's posts, or null if the channel is null.
+     *
+     * @throws IOException if the channel cannot be read or a record checksum does not match.
+     */
+    protected static DataRaster readElevations(FileChannel theChannel, long offset, AVList metadata)
+        throws IOException
+    {
+        if (null == theChannel)
+            return null;
 
-            if (expectedChkSum != dataChkSum)
+        // The buffer based decoder addresses records relative to DTED_DATA_OFFSET, so place the channel's records at
+        // that position regardless of where they begin in the channel.
+        ByteBuffer buffer;
+        if (offset >= DTED_DATA_OFFSET)
+        {
+            long position = offset - DTED_DATA_OFFSET;
+            buffer = theChannel.map(FileChannel.MapMode.READ_ONLY, position, theChannel.size() - position);
+        }
+        else
+        {
+            buffer = ByteBuffer.allocate((int) (DTED_DATA_OFFSET + theChannel.size() - offset));
+            buffer.position((int) DTED_DATA_OFFSET);
+            while (buffer.hasRemaining())
             {
-                String message = Logging.getMessage("DTED.DataRecordChecksumError", expectedChkSum, dataChkSum);
-                Logging.logger().severe(message);
-                throw new IOException(message);
+                if (theChannel.read(buffer, offset + buffer.position() - DTED_DATA_OFFSET) < 0)
+                    break;
             }
+            buffer.rewind();
         }
 
-        raster.setValue(AVKey.ELEVATION_MIN, min);
-        raster.setValue(AVKey.ELEVATION_MAX, max);
+        return readElevations(buffer, metadata, null, true);
+    }
 
-        return raster;
+    protected static void verifyRecordChecksum(ByteBuffer data, int recordOffset, int recordSize) throws IOException
+    {
+        // The checksum is the sum of all bytes in the record, including the header and the elevations, but excluding
+        // the checksum itself.
+        int dataChkSum = 0;
+        int chkSumOffset = recordOffset + recordSize - REC_CHKSUM_SIZE;
+        for (int i = recordOffset; i < chkSumOffset; i++)
+        {
+            dataChkSum += 0xFF & data.get(i);
+        }
+
+        int expectedChkSum = data.getInt(chkSumOffset);
+        if (expectedChkSum != dataChkSum)
+        {
+            String message = Logging.getMessage("DTED.DataRecordChecksumError", expectedChkSum, dataChkSum);
+            Logging.logger().severe(message);
+            throw new IOException(message);
+        }
+    }
+
+    protected static double decodeElevation(short value)
+    {
+        // DTED stores elevations as signed magnitude 16 bit integers, rather than two's complement. The high bit is the
+        // sign, and the remaining 15 bits are the magnitude. The missing data value -32767 is stored as 0xFFFF.
+        return ((value & 0x8000) != 0) ? -(value & 0x7FFF) : value;
     }
 
     protected static Angle readAngle(String angle) throws IOException
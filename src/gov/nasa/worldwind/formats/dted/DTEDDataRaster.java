@@ -0,0 +1,192 @@
+/* Copyright (C) 2001, 2010 United States Government as represented by
+   the Administrator of the National Aeronautics and Space Administration.
+   All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.formats.dted;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.cache.Cacheable;
+import gov.nasa.worldwind.data.DataRaster;
+import gov.nasa.worldwind.exception.WWRuntimeException;
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.util.*;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link DataRaster} backed by a memory mapped DTED cell. The cell's headers are read when the raster is created, but
+ * elevation posts are decoded on demand: drawing the raster on a canvas, or requesting a sub raster, decodes only the
+ * data records intersecting the canvas or sub raster sector. The file mapping is established on first use and is
+ * shared by all subsequent requests, so keeping instances of this class in a cache keeps the cells open.
+ *
+ * @version $Id$
+ */
+public class DTEDDataRaster extends AVListImpl implements DataRaster, Cacheable
+{
+    protected final File file;
+    protected final boolean verifyChecksums;
+    protected volatile ByteBuffer buffer;
+
+    /**
+     * Creates a raster for the specified DTED cell, and reads the cell's metadata.
+     *
+     * @param file            the DTED cell.
+     * @param verifyChecksums true to verify the checksum of each data record as it's decoded.
+     *
+     * @throws IOException              if the file cannot be read or is not a DTED file.
+     * @throws IllegalArgumentException if the file is null.
+     */
+    public DTEDDataRaster(File file, boolean verifyChecksums) throws IOException
+    {
+        if (null == file)
+        {
+            String message = Logging.getMessage("nullValue.FileIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.file = file;
+        this.verifyChecksums = verifyChecksums;
+        this.setValues(DTED.readMetadata(file));
+    }
+
+    public File getFile()
+    {
+        return this.file;
+    }
+
+    public boolean isVerifyChecksums()
+    {
+        return this.verifyChecksums;
+    }
+
+    public int getWidth()
+    {
+        return (Integer) this.getValue(AVKey.WIDTH);
+    }
+
+    public int getHeight()
+    {
+        return (Integer) this.getValue(AVKey.HEIGHT);
+    }
+
+    public Sector getSector()
+    {
+        return (Sector) this.getValue(AVKey.SECTOR);
+    }
+
+    /**
+     * Returns the approximate heap size of this raster. The elevation posts are memory mapped rather than held on the
+     * heap, so this is the size of the cell's header records.
+     *
+     * @return the approximate heap size of this raster, in bytes.
+     */
+    public long getSizeInBytes()
+    {
+        return DTED.DTED_DATA_OFFSET;
+    }
+
+    /**
+     * Decodes the posts of this cell within the specified region of interest.
+     *
+     * @param roi the region of interest. If null, the entire cell is decoded.
+     *
+     * @return a raster of the posts within the region, or null if the region does not intersect this cell.
+     *
+     * @throws IOException if the file cannot be mapped, or a record checksum does not match.
+     */
+    public DataRaster read(Sector roi) throws IOException
+    {
+        return DTED.readElevations(this.getBuffer(), this, roi, this.verifyChecksums);
+    }
+
+    protected ByteBuffer getBuffer() throws IOException
+    {
+        ByteBuffer buf = this.buffer;
+        if (null == buf)
+        {
+            buf = WWIO.mapFile(this.file);
+            this.buffer = buf;
+        }
+
+        return buf;
+    }
+
+    protected DataRaster readWindow(Sector roi)
+    {
+        try
+        {
+            return this.read(roi);
+        }
+        catch (IOException e)
+        {
+            String message = Logging.getMessage("DataRaster.CannotRead", this.file);
+            Logging.logger().log(java.util.logging.Level.SEVERE, message, e);
+            throw new WWRuntimeException(message, e);
+        }
+    }
+
+    public void drawOnCanvas(DataRaster canvas, Sector clipSector)
+    {
+        if (canvas == null)
+        {
+            String message = Logging.getMessage("nullValue.DestinationIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        Sector roi = canvas.getSector();
+        if (null != clipSector && null != roi)
+            roi = roi.intersection(clipSector);
+
+        if (null == roi || !roi.intersects(this.getSector()))
+            return;
+
+        DataRaster window = this.readWindow(roi);
+        if (null != window)
+            window.drawOnCanvas(canvas, clipSector);
+    }
+
+    public void drawOnCanvas(DataRaster canvas)
+    {
+        this.drawOnCanvas(canvas, null);
+    }
+
+    public DataRaster getSubRaster(int width, int height, Sector sector, AVList params)
+    {
+        if (null == params)
+            params = new AVListImpl();
+
+        params.setValue(AVKey.WIDTH, width);
+        params.setValue(AVKey.HEIGHT, height);
+        params.setValue(AVKey.SECTOR, sector);
+
+        return this.getSubRaster(params);
+    }
+
+    public DataRaster getSubRaster(AVList params)
+    {
+        if (null == params)
+        {
+            String message = Logging.getMessage("nullValue.ParamsIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        Sector roi = (Sector) params.getValue(AVKey.SECTOR);
+        if (null == roi)
+        {
+            String message = Logging.getMessage("generic.MissingRequiredParameter", AVKey.SECTOR);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        DataRaster window = this.readWindow(roi);
+        if (null == window)
+            window = this.readWindow(null);
+
+        return window.getSubRaster(params);
+    }
+}
@@ -7,7 +7,7 @@ All Rights Reserved.
 package gov.nasa.worldwind.formats.gpx;
 
 import gov.nasa.worldwind.tracks.*;
-import gov.nasa.worldwind.util.Logging;
+import gov.nasa.worldwind.util.*;
 import gov.nasa.worldwind.geom.Position;
 
 import java.util.Iterator;
@@ -20,6 +20,7 @@ public class GpxReader // TODO: I18N, proper exception handling, remove stack-tr
 {
     private javax.xml.parsers.SAXParser parser;
     private java.util.List<Track> tracks = new java.util.ArrayList<Track>();
+    private TrackStore trackStore;
 
     public GpxReader() throws javax.xml.parsers.ParserConfigurationException, org.xml.sax.SAXException
     {
@@ -52,8 +53,15 @@ public class GpxReader // TODO: I18N, proper exception handling, remove stack-tr
             throw new java.io.FileNotFoundException(path);
         }
 
-        java.io.FileInputStream fis = new java.io.FileInputStream(file);
-        this.doRead(fis);
+        java.io.InputStream fis = new java.io.BufferedInputStream(new java.io.FileInputStream(file));
+        try
+        {
+            this.doRead(fis);
+        }
+        finally
+        {
+            WWIO.closeStream(fis, path);
+        }
     }
 
     /**
@@ -79,6 +87,28 @@ public class GpxReader // TODO: I18N, proper exception handling, remove stack-tr
         return this.tracks;
     }
 
+    /**
+     * Returns the store this reader appends points to.
+     *
+     * @return the reader's track store, or null if the reader collects points in its own track list.
+     */
+    public TrackStore getTrackStore()
+    {
+        return this.trackStore;
+    }
+
+    /**
+     * Specifies a store to append points to as they're read. When a store is specified this reader doesn't create
+     * track or point objects: each track in the GPX document starts a track in the store, each track segment starts a
+     * segment, and each route becomes a track with a single segment. This reader's track list stays empty.
+     *
+     * @param trackStore the store to append points to, or null to collect tracks in this reader.
+     */
+    public void setTrackStore(TrackStore trackStore)
+    {
+        this.trackStore = trackStore;
+    }
+
     public Iterator<Position> getTrackPositionIterator()
     {
         return new Iterator<Position>()
@@ -104,7 +134,7 @@ public class GpxReader // TODO: I18N, proper exception handling, remove stack-tr
 
     private void doRead(java.io.InputStream fis) throws java.io.IOException, org.xml.sax.SAXException
     {
-        this.parser.parse(fis, new Handler());
+        this.parser.parse(fis, this.trackStore != null ? new StoreHandler(this.trackStore) : new Handler());
     }
 
     private class Handler extends org.xml.sax.helpers.DefaultHandler
@@ -185,4 +215,112 @@ public class GpxReader // TODO: I18N, proper exception handling, remove stack-tr
                 this.currentElement.characters(data, start, length);
         }
     }
+
+    /** Appends track and route points to a {@link TrackStore} as they're parsed. */
+    private static class StoreHandler extends org.xml.sax.helpers.DefaultHandler
+    {
+        private final TrackStore store;
+        private final StringBuilder text = new StringBuilder();
+        private boolean firstElement = true;
+        private int depth = 0;
+        private int trackDepth = -1; // depth of the current trk or rte element, or -1 if not in one
+        private int pointDepth = -1; // depth of the current trkpt or rtept element, or -1 if not in one
+        private double latitude;
+        private double longitude;
+        private double elevation;
+        private long time;
+
+        public StoreHandler(TrackStore store)
+        {
+            this.store = store;
+        }
+
+        @Override
+        public void startElement(String uri, String lname, String qname, org.xml.sax.Attributes attributes)
+            throws org.xml.sax.SAXException
+        {
+            if (this.firstElement)
+            {
+                if (!lname.equalsIgnoreCase("gpx"))
+                    throw new IllegalArgumentException(Logging.getMessage("formats.notGPX", uri));
+                else
+                    this.firstElement = false;
+            }
+
+            ++this.depth;
+            this.text.setLength(0);
+
+            if (this.trackDepth < 0)
+            {
+                if (lname.equalsIgnoreCase("trk") || lname.equalsIgnoreCase("rte"))
+                {
+                    this.trackDepth = this.depth;
+                    this.store.beginTrack(null);
+                    if (lname.equalsIgnoreCase("rte"))
+                        this.store.beginSegment();
+                }
+            }
+            else if (this.pointDepth < 0)
+            {
+                if (lname.equalsIgnoreCase("trkseg"))
+                {
+                    this.store.beginSegment();
+                }
+                else if (lname.equalsIgnoreCase("trkpt") || lname.equalsIgnoreCase("rtept"))
+                {
+                    this.pointDepth = this.depth;
+                    this.latitude = parseDouble(attributes.getValue("lat"));
+                    this.longitude = parseDouble(attributes.getValue("lon"));
+                    this.elevation = 0;
+                    this.time = TrackStore.TIME_UNKNOWN;
+                }
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String lname, String qname) throws org.xml.sax.SAXException
+        {
+            if (this.pointDepth >= 0)
+            {
+                if (this.depth == this.pointDepth)
+                {
+                    this.store.append(this.latitude, this.longitude, this.elevation, this.time);
+                    this.pointDepth = -1;
+                }
+                else if (this.depth == this.pointDepth + 1)
+                {
+                    if (lname.equalsIgnoreCase("ele"))
+                        this.elevation = parseDouble(this.text.toString());
+                    else if (lname.equalsIgnoreCase("time"))
+                        this.time = TrackStore.parseTime(this.text.toString());
+                }
+            }
+            else if (this.trackDepth >= 0)
+            {
+                if (this.depth == this.trackDepth)
+                    this.trackDepth = -1;
+                else if (this.depth == this.trackDepth + 1 && lname.equalsIgnoreCase("name"))
+                    this.store.setTrackName(this.store.getNumTracks() - 1, this.text.toString().trim());
+            }
+
+            --this.depth;
+            this.text.setLength(0);
+        }
+
+        @Override
+        public void characters(char[] data, int start, int length) throws org.xml.sax.SAXException
+        {
+            if (this.trackDepth >= 0)
+                this.text.append(data, start, length);
+        }
+
+        private static double parseDouble(String s)
+        {
+            if (s == null)
+                return 0;
+
+            s = s.trim();
+            return s.length() == 0 ? 0 : Double.parseDouble(s);
+        }
+    }
 }
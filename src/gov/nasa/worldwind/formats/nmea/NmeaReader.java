@@ -7,7 +7,7 @@ All Rights Reserved.
 package gov.nasa.worldwind.formats.nmea;
 
 import gov.nasa.worldwind.tracks.*;
-import gov.nasa.worldwind.util.Logging;
+import gov.nasa.worldwind.util.*;
 import gov.nasa.worldwind.geom.Position;
 
 import java.util.Iterator;
@@ -19,6 +19,9 @@ import java.util.Iterator;
  */
 public class NmeaReader implements Track, TrackSegment
 {
+    private static final int MAX_FIELDS = 20;
+    private static final long MILLIS_PER_DAY = 86400000L;
+
     private java.util.List<Track> tracks = new java.util.ArrayList<Track>();
     private java.util.List<TrackSegment> segments =
         new java.util.ArrayList<TrackSegment>();
@@ -26,6 +29,12 @@ public class NmeaReader implements Track, TrackSegment
         new java.util.ArrayList<TrackPoint>();
     private String name;
     private int sentenceNumber = 0;
+    private TrackStore trackStore;
+    // Sentence fields and the most recent RMC date, used when appending to a track store.
+    private final int[] fieldStarts = new int[MAX_FIELDS];
+    private final int[] fieldEnds = new int[MAX_FIELDS];
+    private int numFields;
+    private long date = TrackStore.TIME_UNKNOWN;
 
     public NmeaReader()
     {
@@ -53,6 +62,31 @@ public class NmeaReader implements Track, TrackSegment
         return this.points;
     }
 
+    /**
+     * Returns the store this reader appends points to.
+     *
+     * @return the reader's track store, or null if the reader collects points in its own lists.
+     */
+    public TrackStore getTrackStore()
+    {
+        return this.trackStore;
+    }
+
+    /**
+     * Specifies a store to append points to as they're read. When a store is specified this reader doesn't keep the
+     * points itself: each stream read starts a new track in the store, named after the stream, and this reader's
+     * point list stays empty. Points are appended for GGA sentences, which report only the UTC time of day of their
+     * fix. Their date is taken from the most recent RMC sentence of the stream, and point times are in milliseconds
+     * since January 1, 1970 UTC. Points read before the stream's first RMC sentence, and points whose sentence has no
+     * valid time, have the time {@link TrackStore#TIME_UNKNOWN}.
+     *
+     * @param trackStore the store to append points to, or null to collect points in this reader.
+     */
+    public void setTrackStore(TrackStore trackStore)
+    {
+        this.trackStore = trackStore;
+    }
+
     /**
      * @param path
      * @throws IllegalArgumentException if <code>path</code> is null
@@ -77,10 +111,23 @@ public class NmeaReader implements Track, TrackSegment
             throw new java.io.FileNotFoundException(path);
         }
 
-        java.io.FileInputStream fis = new java.io.FileInputStream(file);
-        this.doReadStream(fis);
+        java.io.InputStream fis = new java.io.BufferedInputStream(new java.io.FileInputStream(file));
+        int numStorePoints = this.trackStore != null ? this.trackStore.getNumPoints() : 0;
+        try
+        {
+            this.doReadStream(fis);
+        }
+        finally
+        {
+            WWIO.closeStream(fis, path);
+        }
 
-        if (this.tracks.isEmpty() || this.tracks.get(0).getNumPoints() == 0)
+        if (this.trackStore != null)
+        {
+            if (this.trackStore.getNumPoints() == numStorePoints)
+                throw new IllegalArgumentException(Logging.getMessage("formats.notNMEA", path));
+        }
+        else if (this.tracks.isEmpty() || this.tracks.get(0).getNumPoints() == 0)
             throw new IllegalArgumentException(Logging.getMessage("formats.notNMEA", path));
 //        java.nio.ByteBuffer buffer = this.doReadFile(fis);
 //        this.parseBuffer(buffer);
@@ -137,6 +184,12 @@ public class NmeaReader implements Track, TrackSegment
     {
         String sentence;
 
+        if (this.trackStore != null)
+        {
+            this.trackStore.beginTrack(this.name);
+            this.date = TrackStore.TIME_UNKNOWN;
+        }
+
         try
         {
             do
@@ -243,6 +296,12 @@ public class NmeaReader implements Track, TrackSegment
 
     private void parseSentence(String sentence)
     {
+        if (this.trackStore != null)
+        {
+            this.parseStoreSentence(sentence);
+            return;
+        }
+
         String[] words = sentence.split("[,*]");
 
         if (words[0].equalsIgnoreCase("GPGGA"))
@@ -265,4 +324,201 @@ public class NmeaReader implements Track, TrackSegment
                 e.getMessage(), this.sentenceNumber, this.name);
         }
     }
+
+    /**
+     * Appends the point of a GGA sentence to the track store, or records the date of an RMC sentence. The sentence's
+     * fields are parsed in place rather than split into strings.
+     *
+     * @param sentence the sentence, without its leading '$'.
+     */
+    private void parseStoreSentence(String sentence)
+    {
+        this.splitFields(sentence);
+
+        try
+        {
+            if (this.fieldEquals(sentence, 0, "GPGGA"))
+                this.doStorePoint(sentence);
+            else if (this.fieldEquals(sentence, 0, "GPRMC"))
+                this.doStoreDate(sentence);
+        }
+        catch (Exception e)
+        {
+            System.out.printf("Exception %s at sentence number %d for %s\n",
+                e.getMessage(), this.sentenceNumber, this.name);
+        }
+    }
+
+    private void doStorePoint(String sentence)
+    {
+        if (this.numFields < 6)
+        {
+            String msg = Logging.getMessage("generic.ArrayInvalidLength", this.numFields);
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        double latitude = this.parseAngle(sentence, 2, 3, 'S');
+        double longitude = this.parseAngle(sentence, 4, 5, 'W');
+
+        double elevation = 0;
+        if (this.numFields >= 11)
+            elevation += this.parseElevation(sentence, 9, 10);
+        if (this.numFields >= 13)
+            elevation += this.parseElevation(sentence, 11, 12);
+
+        long time = TrackStore.TIME_UNKNOWN;
+        if (this.date != TrackStore.TIME_UNKNOWN)
+        {
+            long timeOfDay = this.parseTimeOfDay(sentence, 1);
+            if (timeOfDay != TrackStore.TIME_UNKNOWN)
+                time = this.date + timeOfDay;
+        }
+
+        this.trackStore.append(latitude, longitude, elevation, time);
+    }
+
+    private void doStoreDate(String sentence)
+    {
+        // The date is a ddmmyy field following the time, status, position, speed and course fields.
+        if (this.numFields < 10 || this.fieldEnds[9] - this.fieldStarts[9] != 6)
+            return;
+
+        int ddmmyy = (int) this.parseNumber(sentence, 9);
+        int year = ddmmyy % 100;
+        this.date = TrackStore.daysSinceEpoch(year < 80 ? 2000 + year : 1900 + year, (ddmmyy / 100) % 100,
+            ddmmyy / 10000) * MILLIS_PER_DAY;
+    }
+
+    private void splitFields(String sentence)
+    {
+        // The fields end at the checksum, if the sentence has one.
+        int end = sentence.indexOf('*');
+        if (end < 0)
+            end = sentence.length();
+
+        this.numFields = 0;
+        this.fieldStarts[0] = 0;
+        for (int i = 0; i < end && this.numFields < MAX_FIELDS - 1; i++)
+        {
+            if (sentence.charAt(i) == ',')
+            {
+                this.fieldEnds[this.numFields++] = i;
+                this.fieldStarts[this.numFields] = i + 1;
+            }
+        }
+        this.fieldEnds[this.numFields++] = end;
+    }
+
+    private boolean fieldEquals(String sentence, int field, String value)
+    {
+        int start = this.fieldStarts[field];
+        return this.fieldEnds[field] - start == value.length()
+            && sentence.regionMatches(true, start, value, 0, value.length());
+    }
+
+    private char fieldChar(String sentence, int field)
+    {
+        return this.fieldEnds[field] > this.fieldStarts[field] ? sentence.charAt(this.fieldStarts[field]) : 0;
+    }
+
+    /**
+     * Parses a decimal number in a field. Unsigned numbers of up to fifteen digits, the form of NMEA fields, are parsed
+     * without creating intermediate objects; other forms are parsed by {@link Double#parseDouble(String)}.
+     *
+     * @param sentence the sentence.
+     * @param field    the field's index.
+     *
+     * @return the number, or 0 if the field is empty.
+     *
+     * @throws NumberFormatException if the field is not a number.
+     */
+    private double parseNumber(String sentence, int field)
+    {
+        int start = this.fieldStarts[field];
+        int end = this.fieldEnds[field];
+        if (start == end)
+            return 0;
+
+        long mantissa = 0;
+        int numDigits = 0;
+        int scale = 0;
+        boolean fraction = false;
+        for (int i = start; i < end; i++)
+        {
+            char c = sentence.charAt(i);
+            if (c >= '0' && c <= '9' && numDigits < 15)
+            {
+                mantissa = 10 * mantissa + (c - '0');
+                numDigits++;
+                if (fraction)
+                    scale++;
+            }
+            else if (c == '.' && !fraction)
+            {
+                fraction = true;
+            }
+            else
+            {
+                return Double.parseDouble(sentence.substring(start, end));
+            }
+        }
+
+        if (numDigits == 0)
+            return Double.parseDouble(sentence.substring(start, end));
+
+        return mantissa / Math.pow(10, scale);
+    }
+
+    /** Parses an NMEA angle of the form [d]ddmm.mmmm and its hemisphere field. */
+    private double parseAngle(String sentence, int angleField, int hemisphereField, char negativeHemisphere)
+    {
+        double value = this.parseNumber(sentence, angleField);
+        double degrees = Math.floor(value / 100);
+        double angle = degrees + (value - 100 * degrees) / 60;
+
+        return Character.toUpperCase(this.fieldChar(sentence, hemisphereField)) == negativeHemisphere ? -angle : angle;
+    }
+
+    private double parseElevation(String sentence, int heightField, int unitsField)
+    {
+        double height = this.parseNumber(sentence, heightField);
+
+        char units = this.fieldChar(sentence, unitsField);
+        if (units == 'f') // feet
+            return height * 3.2808399;
+        else if (units == 'F') // fathoms
+            return height * 0.5468066528;
+        else // meters
+            return height;
+    }
+
+    /**
+     * Converts an NMEA hhmmss.ss time of day to milliseconds since midnight.
+     *
+     * @param sentence the sentence.
+     * @param field    the index of the time field.
+     *
+     * @return the time of day in milliseconds, or {@link TrackStore#TIME_UNKNOWN} if the time is missing or malformed.
+     */
+    private long parseTimeOfDay(String sentence, int field)
+    {
+        if (this.fieldEnds[field] - this.fieldStarts[field] < 6)
+            return TrackStore.TIME_UNKNOWN;
+
+        double value;
+        try
+        {
+            value = this.parseNumber(sentence, field);
+        }
+        catch (NumberFormatException e)
+        {
+            return TrackStore.TIME_UNKNOWN;
+        }
+
+        int hhmm = (int) (value / 100);
+        double seconds = value - 100 * hhmm;
+
+        return (hhmm / 100 * 60 + hhmm % 100) * 60000L + Math.round(seconds * 1000);
+    }
 }
@@ -0,0 +1,813 @@
+/*
+Copyright (C) 2001, 2010 United States Government
+as represented by the Administrator of the
+National Aeronautics and Space Administration.
+All Rights Reserved.
+*/
+package gov.nasa.worldwind.geom.coords;
+
+import gov.nasa.worldwind.avlist.AVKey;
+import gov.nasa.worldwind.globes.Globe;
+import gov.nasa.worldwind.util.Logging;
+
+/**
+ * Converts arrays of geographic locations to and from UTM, UPS and MGRS coordinates. {@link UTMCoord}, {@link
+ * UPSCoord} and {@link MGRSCoord} create a new converter and several intermediate coordinates for every point they
+ * convert, and the transverse mercator constants are recomputed each time. This class computes the ellipsoid's
+ * projection constants once, when it's created, and converts whole arrays of coordinates without creating per point
+ * objects other than the MGRS strings themselves.
+ * <p/>
+ * Instances are immutable and may be shared by any number of threads. Geographic locations are passed as separate
+ * latitude and longitude arrays, in degrees. Each batch method converts the <code>count</code> coordinates starting
+ * at <code>offset</code> and stores the results at the same indices of the output arrays, so threads may convert
+ * disjoint ranges of the same arrays concurrently. Coordinates that cannot be converted do not cause an exception:
+ * their numeric results are set to <code>Double.NaN</code>, their zones to 0 and their hemispheres and MGRS strings to
+ * null, and the methods return the number of such coordinates.
+ * <p/>
+ * Datum shifts are applied to the geographic locations before or after conversion by {@link
+ * DatumTransformation#convertWGS84toNad27(double[], double[], double[], int, int)} and {@link
+ * DatumTransformation#convertNad27toWGS84(double[], double[], double[], int, int)}, using a converter created for the
+ * datum's ellipsoid, such as {@link DatumTransformation#CLARKE1866_GLOBE}.
+ *
+ * @version $Id$
+ * @see UTMCoordConverter
+ * @see UPSCoordConverter
+ * @see MGRSCoordConverter
+ */
+public class BatchCoordConverter
+{
+    private final static double PI = 3.14159265358979323;
+    private final static double DEG_TO_RAD = PI / 180.0;
+    private final static double RAD_TO_DEG = 180.0 / PI;
+
+    // Transverse mercator limits, see TMCoordConverter.
+    private final static double TM_MAX_LAT = (PI * 89.99) / 180.0;
+    private final static double TM_MAX_DELTA_LONG = (PI * 90) / 180.0;
+
+    // UTM projection parameters and limits, see UTMCoordConverter.
+    private final static double UTM_MIN_LAT = (-82 * PI) / 180.0;
+    private final static double UTM_MAX_LAT = (86 * PI) / 180.0;
+    private final static double UTM_MIN_EASTING = 100000;
+    private final static double UTM_MAX_EASTING = 900000;
+    private final static double UTM_MIN_NORTHING = 0;
+    private final static double UTM_MAX_NORTHING = 10000000;
+    private final static double UTM_FALSE_EASTING = 500000;
+    private final static double UTM_SOUTH_FALSE_NORTHING = 10000000;
+    private final static double UTM_SCALE = 0.9996;
+
+    // MGRS uses UPS rather than UTM beyond these latitudes, see MGRSCoordConverter.
+    private final static double MGRS_MIN_UTM_LAT = (-80 * PI) / 180.0;
+    private final static double MGRS_MAX_UTM_LAT = (84 * PI) / 180.0;
+    private final static int MGRS_MAX_PRECISION = 5;
+
+    private final Globe globe;
+    private final double a;
+    private final double f;
+    // Transverse mercator ellipsoid constants, see TMCoordConverter.setTransverseMercatorParameters.
+    private final double es;
+    private final double ebs;
+    private final double ap;
+    private final double bp;
+    private final double cp;
+    private final double dp;
+    private final double ep;
+    private final double deltaEasting;
+    private final double deltaNorthing;
+
+    /** Creates a converter for the WGS84 ellipsoid. */
+    public BatchCoordConverter()
+    {
+        this(null);
+    }
+
+    /**
+     * Creates a converter for the ellipsoid of a specified globe.
+     *
+     * @param globe the globe whose ellipsoid is used. May be null, in which case the WGS84 ellipsoid is used.
+     *
+     * @throws IllegalArgumentException if the globe's flattening is not supported by the UTM projection.
+     */
+    public BatchCoordConverter(Globe globe)
+    {
+        double a = UTMCoordConverter.WGS84_A;
+        double f = UTMCoordConverter.WGS84_F;
+        if (globe != null)
+        {
+            a = globe.getEquatorialRadius();
+            f = (globe.getEquatorialRadius() - globe.getPolarRadius()) / globe.getEquatorialRadius();
+        }
+
+        double inv_f = 1 / f;
+        if (a <= 0 || inv_f < 250 || inv_f > 350)
+        {
+            String message = Logging.getMessage("Coord.TMConversionError");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.globe = globe;
+        this.a = a;
+        this.f = f;
+        this.es = 2 * f - f * f;
+        this.ebs = (1 / (1 - this.es)) - 1;
+
+        double b = a * (1 - f);
+        double tn = (a - b) / (a + b);
+        double tn2 = tn * tn;
+        double tn3 = tn2 * tn;
+        double tn4 = tn3 * tn;
+        double tn5 = tn4 * tn;
+
+        this.ap = a * (1.e0 - tn + 5.e0 * (tn2 - tn3) / 4.e0 + 81.e0 * (tn4 - tn5) / 64.e0);
+        this.bp = 3.e0 * a * (tn - tn2 + 7.e0 * (tn3 - tn4) / 8.e0 + 55.e0 * tn5 / 64.e0) / 2.e0;
+        this.cp = 15.e0 * a * (tn2 - tn3 + 3.e0 * (tn4 - tn5) / 4.e0) / 16.0;
+        this.dp = 35.e0 * a * (tn3 - tn4 + 11.e0 * tn5 / 16.e0) / 48.e0;
+        this.ep = 315.e0 * a * (tn4 - tn5) / 512.e0;
+
+        // The range of valid eastings and northings is the extent of a unit scale projection 90 degrees from the
+        // central meridian.
+        double[] en = new double[2];
+        this.projectTransverseMercator(TM_MAX_LAT, TM_MAX_DELTA_LONG, 0, 0, 0, 1, en);
+        this.deltaNorthing = en[1];
+        this.projectTransverseMercator(0, TM_MAX_DELTA_LONG, 0, 0, 0, 1, en);
+        this.deltaEasting = en[0];
+    }
+
+    /**
+     * Returns the globe whose ellipsoid this converter uses.
+     *
+     * @return this converter's globe, or null if the converter uses the WGS84 ellipsoid.
+     */
+    public Globe getGlobe()
+    {
+        return this.globe;
+    }
+
+    /**
+     * Converts geographic locations to UTM coordinates. Locations outside the UTM latitude limits cannot be converted.
+     *
+     * @param latitudes   the latitudes to convert, in degrees.
+     * @param longitudes  the longitudes to convert, in degrees.
+     * @param offset      the index of the first location to convert.
+     * @param count       the number of locations to convert.
+     * @param zones       receives the UTM zone of each location.
+     * @param hemispheres receives the hemisphere of each location, either {@link AVKey#NORTH} or {@link AVKey#SOUTH}.
+     * @param eastings    receives the easting of each location, in meters.
+     * @param northings   receives the northing of each location, in meters.
+     *
+     * @return the number of locations that could not be converted.
+     *
+     * @throws IllegalArgumentException if any array is null or too short to hold the specified range of coordinates.
+     */
+    public int convertGeodeticToUTM(double[] latitudes, double[] longitudes, int offset, int count, int[] zones,
+        String[] hemispheres, double[] eastings, double[] northings)
+    {
+        checkLocations(latitudes, longitudes, offset, count);
+        checkGridCoordinates(zones, hemispheres, eastings, northings, offset, count);
+
+        double[] en = new double[2];
+        int numFailed = 0;
+
+        for (int i = offset; i < offset + count; i++)
+        {
+            int zone = this.convertGeodeticToUTM(latitudes[i] * DEG_TO_RAD, longitudes[i] * DEG_TO_RAD, en);
+            if (zone != 0)
+            {
+                zones[i] = zone;
+                hemispheres[i] = (latitudes[i] < 0) ? AVKey.SOUTH : AVKey.NORTH;
+                eastings[i] = en[0];
+                northings[i] = en[1];
+            }
+            else
+            {
+                setFailed(i, zones, hemispheres, eastings, northings);
+                numFailed++;
+            }
+        }
+
+        return numFailed;
+    }
+
+    /**
+     * Converts UTM coordinates to geographic locations.
+     *
+     * @param zones       the UTM zone of each coordinate.
+     * @param hemispheres the hemisphere of each coordinate, either {@link AVKey#NORTH} or {@link AVKey#SOUTH}.
+     * @param eastings    the easting of each coordinate, in meters.
+     * @param northings   the northing of each coordinate, in meters.
+     * @param offset      the index of the first coordinate to convert.
+     * @param count       the number of coordinates to convert.
+     * @param latitudes   receives the latitude of each coordinate, in degrees.
+     * @param longitudes  receives the longitude of each coordinate, in degrees.
+     *
+     * @return the number of coordinates that could not be converted.
+     *
+     * @throws IllegalArgumentException if any array is null or too short to hold the specified range of coordinates.
+     */
+    public int convertUTMToGeodetic(int[] zones, String[] hemispheres, double[] eastings, double[] northings,
+        int offset, int count, double[] latitudes, double[] longitudes)
+    {
+        checkGridCoordinates(zones, hemispheres, eastings, northings, offset, count);
+        checkLocations(latitudes, longitudes, offset, count);
+
+        double[] latLon = new double[2];
+        int numFailed = 0;
+
+        for (int i = offset; i < offset + count; i++)
+        {
+            if (this.convertUTMToGeodetic(zones[i], hemispheres[i], eastings[i], northings[i], latLon))
+            {
+                latitudes[i] = latLon[0];
+                longitudes[i] = latLon[1];
+            }
+            else
+            {
+                latitudes[i] = Double.NaN;
+                longitudes[i] = Double.NaN;
+                numFailed++;
+            }
+        }
+
+        return numFailed;
+    }
+
+    /**
+     * Converts geographic locations to UPS coordinates. Only locations north of 72 degrees north or south of 72
+     * degrees south can be converted.
+     *
+     * @param latitudes   the latitudes to convert, in degrees.
+     * @param longitudes  the longitudes to convert, in degrees.
+     * @param offset      the index of the first location to convert.
+     * @param count       the number of locations to convert.
+     * @param hemispheres receives the hemisphere of each location, either {@link AVKey#NORTH} or {@link AVKey#SOUTH}.
+     * @param eastings    receives the easting of each location, in meters.
+     * @param northings   receives the northing of each location, in meters.
+     *
+     * @return the number of locations that could not be converted.
+     *
+     * @throws IllegalArgumentException if any array is null or too short to hold the specified range of coordinates.
+     */
+    public int convertGeodeticToUPS(double[] latitudes, double[] longitudes, int offset, int count,
+        String[] hemispheres, double[] eastings, double[] northings)
+    {
+        checkLocations(latitudes, longitudes, offset, count);
+        checkGridCoordinates(null, hemispheres, eastings, northings, offset, count);
+
+        // UPS conversions are comparatively rare, so they share a converter that's confined to this call.
+        UPSCoordConverter converter = this.createUPSConverter();
+        int numFailed = 0;
+
+        for (int i = offset; i < offset + count; i++)
+        {
+            long err = converter.convertGeodeticToUPS(latitudes[i] * DEG_TO_RAD, longitudes[i] * DEG_TO_RAD);
+            if (err == UPSCoordConverter.UPS_NO_ERROR)
+            {
+                hemispheres[i] = converter.getHemisphere();
+                eastings[i] = converter.getEasting();
+                northings[i] = converter.getNorthing();
+            }
+            else
+            {
+                setFailed(i, null, hemispheres, eastings, northings);
+                numFailed++;
+            }
+        }
+
+        return numFailed;
+    }
+
+    /**
+     * Converts UPS coordinates to geographic locations.
+     *
+     * @param hemispheres the hemisphere of each coordinate, either {@link AVKey#NORTH} or {@link AVKey#SOUTH}.
+     * @param eastings    the easting of each coordinate, in meters.
+     * @param northings   the northing of each coordinate, in meters.
+     * @param offset      the index of the first coordinate to convert.
+     * @param count       the number of coordinates to convert.
+     * @param latitudes   receives the latitude of each coordinate, in degrees.
+     * @param longitudes  receives the longitude of each coordinate, in degrees.
+     *
+     * @return the number of coordinates that could not be converted.
+     *
+     * @throws IllegalArgumentException if any array is null or too short to hold the specified range of coordinates.
+     */
+    public int convertUPSToGeodetic(String[] hemispheres, double[] eastings, double[] northings, int offset,
+        int count, double[] latitudes, double[] longitudes)
+    {
+        checkGridCoordinates(null, hemispheres, eastings, northings, offset, count);
+        checkLocations(latitudes, longitudes, offset, count);
+
+        UPSCoordConverter converter = this.createUPSConverter();
+        int numFailed = 0;
+
+        for (int i = offset; i < offset + count; i++)
+        {
+            long err = (hemispheres[i] != null)
+                ? converter.convertUPSToGeodetic(hemispheres[i], eastings[i], northings[i])
+                : UPSCoordConverter.UPS_HEMISPHERE_ERROR;
+            if (err == UPSCoordConverter.UPS_NO_ERROR)
+            {
+                latitudes[i] = converter.getLatitude() * RAD_TO_DEG;
+                longitudes[i] = converter.getLongitude() * RAD_TO_DEG;
+            }
+            else
+            {
+                latitudes[i] = Double.NaN;
+                longitudes[i] = Double.NaN;
+                numFailed++;
+            }
+        }
+
+        return numFailed;
+    }
+
+    /**
+     * Converts geographic locations to MGRS coordinate strings, such as "32T LP 56266 35418". Locations between 80
+     * degrees south and 84 degrees north are converted by way of UTM coordinates, and polar locations by way of UPS
+     * coordinates. The strings match those of {@link MGRSCoord#fromLatLon(gov.nasa.worldwind.geom.Angle,
+     * gov.nasa.worldwind.geom.Angle, Globe, int)}.
+     *
+     * @param latitudes  the latitudes to convert, in degrees.
+     * @param longitudes the longitudes to convert, in degrees.
+     * @param offset     the index of the first location to convert.
+     * @param count      the number of locations to convert.
+     * @param precision  the number of digits used for easting and northing, from 1 to 5.
+     * @param result     receives the MGRS string of each location.
+     *
+     * @return the number of locations that could not be converted.
+     *
+     * @throws IllegalArgumentException if any array is null or too short to hold the specified range of coordinates,
+     *                                  or the precision is not between 1 and 5.
+     */
+    public int convertGeodeticToMGRS(double[] latitudes, double[] longitudes, int offset, int count, int precision,
+        String[] result)
+    {
+        checkLocations(latitudes, longitudes, offset, count);
+        checkLength(result, offset, count);
+
+        if (precision < 1 || precision > MGRS_MAX_PRECISION)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", precision);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        // The letter and string construction is delegated to an MGRS converter that's confined to this call.
+        MGRSCoordConverter mgrsConverter = this.createMGRSConverter();
+        UPSCoordConverter upsConverter = null;
+        double[] en = new double[2];
+        int numFailed = 0;
+
+        for (int i = offset; i < offset + count; i++)
+        {
+            double latitude = latitudes[i] * DEG_TO_RAD;
+            double longitude = longitudes[i] * DEG_TO_RAD;
+            long err;
+
+            try
+            {
+                if (latitude < -PI / 2 || latitude > PI / 2 || longitude < -PI || longitude > 2 * PI)
+                {
+                    err = UTMCoordConverter.UTM_LAT_ERROR;
+                }
+                else if (latitude < MGRS_MIN_UTM_LAT || latitude > MGRS_MAX_UTM_LAT)
+                {
+                    if (upsConverter == null)
+                        upsConverter = this.createUPSConverter();
+
+                    err = upsConverter.convertGeodeticToUPS(latitude, longitude);
+                    if (err == UPSCoordConverter.UPS_NO_ERROR)
+                        err = mgrsConverter.convertUPSToMGRS(upsConverter.getHemisphere(), upsConverter.getEasting(),
+                            upsConverter.getNorthing(), precision);
+                }
+                else
+                {
+                    int zone = this.convertGeodeticToUTM(latitude, longitude, en);
+                    err = (zone != 0)
+                        ? mgrsConverter.convertUTMToMGRS(zone, latitude, en[0], en[1], precision)
+                        : UTMCoordConverter.UTM_TM_ERROR;
+                }
+            }
+            catch (RuntimeException e)
+            {
+                // MGRSCoordConverter reports malformed grid squares by throwing; MGRSCoord treats these as errors.
+                err = MGRSCoordConverter.MGRS_STRING_ERROR;
+            }
+
+            // The converter clears its string before each conversion, but may leave it empty without reporting an
+            // error when it cannot form the grid square letters.
+            String mgrs = (err == MGRSCoordConverter.MGRS_NO_ERROR) ? mgrsConverter.getMGRSString() : null;
+            if (mgrs != null && mgrs.length() > 0)
+            {
+                result[i] = mgrs;
+            }
+            else
+            {
+                result[i] = null;
+                numFailed++;
+            }
+        }
+
+        return numFailed;
+    }
+
+    /**
+     * Converts MGRS coordinate strings to geographic locations. The strings are interpreted as by {@link
+     * MGRSCoord#fromString(String, Globe)}: letters may be lower case, and spaces are ignored.
+     *
+     * @param mgrs       the MGRS strings to convert.
+     * @param offset     the index of the first string to convert.
+     * @param count      the number of strings to convert.
+     * @param latitudes  receives the latitude of each string, in degrees.
+     * @param longitudes receives the longitude of each string, in degrees.
+     *
+     * @return the number of strings that could not be converted.
+     *
+     * @throws IllegalArgumentException if any array is null or too short to hold the specified range of coordinates.
+     */
+    public int convertMGRSToGeodetic(String[] mgrs, int offset, int count, double[] latitudes, double[] longitudes)
+    {
+        checkLength(mgrs, offset, count);
+        checkLocations(latitudes, longitudes, offset, count);
+
+        MGRSCoordConverter converter = this.createMGRSConverter();
+        int numFailed = 0;
+
+        for (int i = offset; i < offset + count; i++)
+        {
+            long err = MGRSCoordConverter.MGRS_STRING_ERROR;
+            if (mgrs[i] != null && mgrs[i].length() > 0)
+            {
+                try
+                {
+                    err = converter.convertMGRSToGeodetic(mgrs[i].toUpperCase().replace(" ", ""));
+                }
+                catch (RuntimeException e)
+                {
+                    err = MGRSCoordConverter.MGRS_STRING_ERROR;
+                }
+            }
+
+            if (err == MGRSCoordConverter.MGRS_NO_ERROR)
+            {
+                latitudes[i] = converter.getLatitude() * RAD_TO_DEG;
+                longitudes[i] = converter.getLongitude() * RAD_TO_DEG;
+            }
+            else
+            {
+                latitudes[i] = Double.NaN;
+                longitudes[i] = Double.NaN;
+                numFailed++;
+            }
+        }
+
+        return numFailed;
+    }
+
+    protected UPSCoordConverter createUPSConverter()
+    {
+        UPSCoordConverter converter = new UPSCoordConverter(null);
+        converter.setUPSParameters(this.a, this.f);
+        return converter;
+    }
+
+    protected MGRSCoordConverter createMGRSConverter()
+    {
+        return new MGRSCoordConverter(this.globe);
+    }
+
+    /**
+     * Computes the UTM coordinates of a location, as UTMCoordConverter.convertGeodeticToUTM does.
+     *
+     * @param latitude  the location's latitude, in radians.
+     * @param longitude the location's longitude, in radians.
+     * @param result    receives the location's easting and northing, in meters, in its first two elements.
+     *
+     * @return the location's UTM zone, or 0 if the location cannot be converted.
+     */
+    protected int convertGeodeticToUTM(double latitude, double longitude, double[] result)
+    {
+        if (latitude < UTM_MIN_LAT || latitude > UTM_MAX_LAT || longitude < -PI || longitude > 2 * PI)
+            return 0;
+
+        if (longitude < 0)
+            longitude += (2 * PI) + 1.0e-10;
+
+        long latDegrees = (long) (latitude * RAD_TO_DEG);
+        long lonDegrees = (long) (longitude * RAD_TO_DEG);
+
+        int zone;
+        if (longitude < PI)
+            zone = (int) (31 + ((longitude * RAD_TO_DEG) / 6.0));
+        else
+            zone = (int) (((longitude * RAD_TO_DEG) / 6.0) - 29);
+        if (zone > 60)
+            zone = 1;
+
+        // UTM special cases for Norway and Svalbard.
+        if ((latDegrees > 55) && (latDegrees < 64) && (lonDegrees > -1) && (lonDegrees < 3))
+            zone = 31;
+        if ((latDegrees > 55) && (latDegrees < 64) && (lonDegrees > 2) && (lonDegrees < 12))
+            zone = 32;
+        if ((latDegrees > 71) && (lonDegrees > -1) && (lonDegrees < 9))
+            zone = 31;
+        if ((latDegrees > 71) && (lonDegrees > 8) && (lonDegrees < 21))
+            zone = 33;
+        if ((latDegrees > 71) && (lonDegrees > 20) && (lonDegrees < 33))
+            zone = 35;
+        if ((latDegrees > 71) && (lonDegrees > 32) && (lonDegrees < 42))
+            zone = 37;
+
+        double falseNorthing = (latitude < 0) ? UTM_SOUTH_FALSE_NORTHING : 0;
+        if (!this.projectTransverseMercator(latitude, longitude, computeCentralMeridian(zone), UTM_FALSE_EASTING,
+            falseNorthing, UTM_SCALE, result))
+            return 0;
+
+        if (result[0] < UTM_MIN_EASTING || result[0] > UTM_MAX_EASTING
+            || result[1] < UTM_MIN_NORTHING || result[1] > UTM_MAX_NORTHING)
+            return 0;
+
+        return zone;
+    }
+
+    /**
+     * Computes the location of a UTM coordinate, as UTMCoordConverter.convertUTMToGeodetic does.
+     *
+     * @param zone       the coordinate's UTM zone.
+     * @param hemisphere the coordinate's hemisphere, either {@link AVKey#NORTH} or {@link AVKey#SOUTH}.
+     * @param easting    the coordinate's easting, in meters.
+     * @param northing   the coordinate's northing, in meters.
+     * @param result     receives the coordinate's latitude and longitude, in degrees, in its first two elements.
+     *
+     * @return true if the coordinate was converted, otherwise false.
+     */
+    protected boolean convertUTMToGeodetic(int zone, String hemisphere, double easting, double northing,
+        double[] result)
+    {
+        if (zone < 1 || zone > 60)
+            return false;
+        if (!AVKey.NORTH.equals(hemisphere) && !AVKey.SOUTH.equals(hemisphere))
+            return false;
+        if (northing < UTM_MIN_NORTHING || northing > UTM_MAX_NORTHING)
+            return false;
+
+        double falseNorthing = AVKey.SOUTH.equals(hemisphere) ? UTM_SOUTH_FALSE_NORTHING : 0;
+        if (!this.unprojectTransverseMercator(easting, northing, computeCentralMeridian(zone), UTM_FALSE_EASTING,
+            falseNorthing, UTM_SCALE, result))
+            return false;
+
+        if (result[0] < UTM_MIN_LAT || result[0] > UTM_MAX_LAT)
+            return false;
+
+        result[0] *= RAD_TO_DEG;
+        result[1] *= RAD_TO_DEG;
+        return true;
+    }
+
+    protected static double computeCentralMeridian(int zone)
+    {
+        double centralMeridian = (zone >= 31) ? (6 * zone - 183) * PI / 180.0 : (6 * zone + 177) * PI / 180.0;
+        if (centralMeridian > PI)
+            centralMeridian -= (2 * PI);
+
+        return centralMeridian;
+    }
+
+    /**
+     * Projects a location to transverse mercator coordinates with a latitude of origin of zero. This evaluates the
+     * same series as TMCoordConverter.convertGeodeticToTransverseMercator, using this converter's precomputed
+     * ellipsoid constants. The easting and northing are stored in the first two elements of <code>result</code>.
+     *
+     * @return true if the location was projected, or false if it is outside the projection's limits.
+     */
+    private boolean projectTransverseMercator(double latitude, double longitude, double centralMeridian,
+        double falseEasting, double falseNorthing, double scale, double[] result)
+    {
+        if ((latitude < -TM_MAX_LAT) || (latitude > TM_MAX_LAT))
+            return false;
+
+        if (longitude > PI)
+            longitude -= (2 * PI);
+        if ((longitude < (centralMeridian - TM_MAX_DELTA_LONG)) || (longitude > (centralMeridian + TM_MAX_DELTA_LONG)))
+        {
+            double tempLong = (longitude < 0) ? longitude + 2 * PI : longitude;
+            double tempOrigin = (centralMeridian < 0) ? centralMeridian + 2 * PI : centralMeridian;
+            if ((tempLong < (tempOrigin - TM_MAX_DELTA_LONG)) || (tempLong > (tempOrigin + TM_MAX_DELTA_LONG)))
+                return false;
+        }
+
+        double dlam = longitude - centralMeridian;
+        if (dlam > PI)
+            dlam -= (2 * PI);
+        if (dlam < -PI)
+            dlam += (2 * PI);
+        if (Math.abs(dlam) < 2.e-10)
+            dlam = 0.0;
+
+        double s = Math.sin(latitude);
+        double c = Math.cos(latitude);
+        double c2 = c * c;
+        double c3 = c2 * c;
+        double c5 = c3 * c2;
+        double c7 = c5 * c2;
+        double t = s / c;
+        double tan2 = t * t;
+        double tan4 = tan2 * tan2;
+        double tan6 = tan4 * tan2;
+        double eta = this.ebs * c2;
+        double eta2 = eta * eta;
+        double eta3 = eta2 * eta;
+        double eta4 = eta3 * eta;
+
+        // Radius of curvature in the prime vertical, and true meridional distance. The latitude of origin is zero, so
+        // its meridional distance is zero.
+        double sn = this.a / Math.sqrt(1 - this.es * s * s);
+        double tmd = this.computeMeridionalDistance(latitude);
+
+        double t1 = tmd * scale;
+        double t2 = sn * s * c * scale / 2.e0;
+        double t3 = sn * s * c3 * scale * (5.e0 - tan2 + 9.e0 * eta + 4.e0 * eta2) / 24.e0;
+        double t4 = sn * s * c5 * scale * (61.e0 - 58.e0 * tan2 + tan4 + 270.e0 * eta - 330.e0 * tan2 * eta
+            + 445.e0 * eta2 + 324.e0 * eta3 - 680.e0 * tan2 * eta2 + 88.e0 * eta4 - 600.e0 * tan2 * eta3
+            - 192.e0 * tan2 * eta4) / 720.e0;
+        double t5 = sn * s * c7 * scale * (1385.e0 - 3111.e0 * tan2 + 543.e0 * tan4 - tan6) / 40320.e0;
+
+        double t6 = sn * c * scale;
+        double t7 = sn * c3 * scale * (1.e0 - tan2 + eta) / 6.e0;
+        double t8 = sn * c5 * scale * (5.e0 - 18.e0 * tan2 + tan4 + 14.e0 * eta - 58.e0 * tan2 * eta + 13.e0 * eta2
+            + 4.e0 * eta3 - 64.e0 * tan2 * eta2 - 24.e0 * tan2 * eta3) / 120.e0;
+        double t9 = sn * c7 * scale * (61.e0 - 479.e0 * tan2 + 179.e0 * tan4 - tan6) / 5040.e0;
+
+        double dlam2 = dlam * dlam;
+        double dlam3 = dlam2 * dlam;
+        double dlam4 = dlam2 * dlam2;
+        double dlam5 = dlam4 * dlam;
+        double dlam6 = dlam4 * dlam2;
+        double dlam7 = dlam6 * dlam;
+        double dlam8 = dlam4 * dlam4;
+
+        result[0] = falseEasting + dlam * t6 + dlam3 * t7 + dlam5 * t8 + dlam7 * t9;
+        result[1] = falseNorthing + t1 + dlam2 * t2 + dlam4 * t3 + dlam6 * t4 + dlam8 * t5;
+
+        return true;
+    }
+
+    /**
+     * Computes the location of transverse mercator coordinates with a latitude of origin of zero, as
+     * TMCoordConverter.convertTransverseMercatorToGeodetic does. The latitude and longitude are stored, in radians, in
+     * the first two elements of <code>result</code>.
+     *
+     * @return true if the coordinate was converted, or false if it is outside the projection's limits.
+     */
+    private boolean unprojectTransverseMercator(double easting, double northing, double centralMeridian,
+        double falseEasting, double falseNorthing, double scale, double[] result)
+    {
+        if ((easting < (falseEasting - this.deltaEasting)) || (easting > (falseEasting + this.deltaEasting)))
+            return false;
+        if ((northing < (falseNorthing - this.deltaNorthing)) || (northing > (falseNorthing + this.deltaNorthing)))
+            return false;
+
+        double tmd = (northing - falseNorthing) / scale;
+
+        // Iterate to the footpoint latitude, starting from the estimate given by the meridional radius of curvature
+        // at the equator.
+        double sr = this.a * (1.e0 - this.es);
+        double ftphi = tmd / sr;
+        for (int i = 0; i < 5; i++)
+        {
+            sr = this.computeMeridionalRadius(ftphi);
+            ftphi = ftphi + (tmd - this.computeMeridionalDistance(ftphi)) / sr;
+        }
+
+        double s = Math.sin(ftphi);
+        double c = Math.cos(ftphi);
+        sr = this.computeMeridionalRadius(ftphi);
+        double sn = this.a / Math.sqrt(1.e0 - this.es * s * s);
+        double sn2 = sn * sn;
+        double sn3 = sn2 * sn;
+        double sn5 = sn3 * sn2;
+        double sn7 = sn5 * sn2;
+
+        double t = s / c;
+        double tan2 = t * t;
+        double tan4 = tan2 * tan2;
+        double tan6 = tan4 * tan2;
+        double eta = this.ebs * c * c;
+        double eta2 = eta * eta;
+        double eta3 = eta2 * eta;
+        double eta4 = eta3 * eta;
+
+        double k2 = scale * scale;
+        double k3 = k2 * scale;
+        double k4 = k2 * k2;
+        double k5 = k4 * scale;
+        double k6 = k4 * k2;
+        double k7 = k6 * scale;
+        double k8 = k4 * k4;
+
+        double de = easting - falseEasting;
+        if (Math.abs(de) < 0.0001)
+            de = 0.0;
+        double de2 = de * de;
+        double de3 = de2 * de;
+        double de4 = de2 * de2;
+        double de5 = de4 * de;
+        double de6 = de4 * de2;
+        double de7 = de6 * de;
+        double de8 = de4 * de4;
+
+        double t10 = t / (2.e0 * sr * sn * k2);
+        double t11 = t * (5.e0 + 3.e0 * tan2 + eta - 4.e0 * eta2 - 9.e0 * tan2 * eta) / (24.e0 * sr * sn3 * k4);
+        double t12 = t * (61.e0 + 90.e0 * tan2 + 46.e0 * eta + 45.E0 * tan4 - 252.e0 * tan2 * eta - 3.e0 * eta2
+            + 100.e0 * eta3 - 66.e0 * tan2 * eta2 - 90.e0 * tan4 * eta + 88.e0 * eta4 + 225.e0 * tan4 * eta2
+            + 84.e0 * tan2 * eta3 - 192.e0 * tan2 * eta4) / (720.e0 * sr * sn5 * k6);
+        double t13 = t * (1385.e0 + 3633.e0 * tan2 + 4095.e0 * tan4 + 1575.e0 * tan6) / (40320.e0 * sr * sn7 * k8);
+        double latitude = ftphi - de2 * t10 + de4 * t11 - de6 * t12 + de8 * t13;
+
+        double t14 = 1.e0 / (sn * c * scale);
+        double t15 = (1.e0 + 2.e0 * tan2 + eta) / (6.e0 * sn3 * c * k3);
+        double t16 = (5.e0 + 6.e0 * eta + 28.e0 * tan2 - 3.e0 * eta2 + 8.e0 * tan2 * eta + 24.e0 * tan4
+            - 4.e0 * eta3 + 4.e0 * tan2 * eta2 + 24.e0 * tan2 * eta3) / (120.e0 * sn5 * c * k5);
+        double t17 = (61.e0 + 662.e0 * tan2 + 1320.e0 * tan4 + 720.e0 * tan6) / (5040.e0 * sn7 * c * k7);
+        double dlam = de * t14 - de3 * t15 + de5 * t16 - de7 * t17;
+        double longitude = centralMeridian + dlam;
+
+        if (Math.abs(latitude) > (90.0 * PI / 180.0))
+            return false;
+
+        if (longitude > PI)
+        {
+            longitude -= (2 * PI);
+            if (Math.abs(longitude) > PI)
+                return false;
+        }
+
+        result[0] = latitude;
+        result[1] = longitude;
+        return true;
+    }
+
+    private double computeMeridionalDistance(double latitude)
+    {
+        return this.ap * latitude
+            - this.bp * Math.sin(2.0 * latitude)
+            + this.cp * Math.sin(4.0 * latitude)
+            - this.dp * Math.sin(6.0 * latitude)
+            + this.ep * Math.sin(8.0 * latitude);
+    }
+
+    private double computeMeridionalRadius(double latitude)
+    {
+        double s = Math.sin(latitude);
+        double d = Math.sqrt(1.e0 - this.es * s * s);
+        return this.a * (1.e0 - this.es) / (d * d * d);
+    }
+
+    private static void setFailed(int index, int[] zones, String[] hemispheres, double[] eastings,
+        double[] northings)
+    {
+        if (zones != null)
+            zones[index] = 0;
+        hemispheres[index] = null;
+        eastings[index] = Double.NaN;
+        northings[index] = Double.NaN;
+    }
+
+    static void checkLocations(double[] latitudes, double[] longitudes, int offset, int count)
+    {
+        checkLength(latitudes, offset, count);
+        checkLength(longitudes, offset, count);
+    }
+
+    private static void checkGridCoordinates(int[] zones, String[] hemispheres, double[] eastings,
+        double[] northings, int offset, int count)
+    {
+        if (zones != null)
+            checkLength(zones, offset, count);
+        checkLength(hemispheres, offset, count);
+        checkLength(eastings, offset, count);
+        checkLength(northings, offset, count);
+    }
+
+    /**
+     * Ensures that an array is non-null and holds the range [offset, offset + count).
+     *
+     * @throws IllegalArgumentException if the array is null or does not hold the range.
+     */
+    static void checkLength(Object array, int offset, int count)
+    {
+        if (array == null)
+        {
+            String message = Logging.getMessage("nullValue.ArrayIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (offset < 0 || count < 0 || offset + count > java.lang.reflect.Array.getLength(array))
+        {
+            String message = Logging.getMessage("generic.ArrayInvalidLength", java.lang.reflect.Array.getLength(array));
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+    }
+}
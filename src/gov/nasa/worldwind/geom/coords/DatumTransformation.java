@@ -29,6 +29,17 @@ public class DatumTransformation
         EllipsoidalGlobe.makeElevationModel(AVKey.EARTH_ELEVATION_MODEL_CONFIG_FILE,
             "config/Earth/EarthMergedElevationModel.xml"));
 
+    // Ellipsoids are specified as {equatorial radius, polar radius, eccentricity squared}.
+    private final static double[] CLARKE1866_ELLIPSOID = new double[] {Clarke1866_EQUATORIAL_RADIUS,
+        Clarke1866_POLAR_RADIUS, Clarke1866_ES};
+    private final static double[] WGS84_ELLIPSOID = new double[] {Earth.WGS84_EQUATORIAL_RADIUS,
+        Earth.WGS84_POLAR_RADIUS, Earth.WGS84_ES};
+
+    //todo cite source for shift values
+    private final static double NAD27_TO_WGS84_DX = -8.0;
+    private final static double NAD27_TO_WGS84_DY = 160;
+    private final static double NAD27_TO_WGS84_DZ = 176;
+
     /**
      * Shift datum from NAD27 to WGS84
      *
@@ -47,13 +58,12 @@ public class DatumTransformation
             throw new IllegalArgumentException(message);
         }
 
-        //todo cite source for shift values
-        double dx_nad27_to_wgs84 = -8.0;
-        double dy_nad27_to_wgs84 = 160;
-        double dz_nad27_to_wgs84 = 176;
+        double[] result = new double[3];
+        DatumTransformation.threeParamMolodenski(pos.getLatitude().radians, pos.getLongitude().radians,
+            pos.getElevation(), CLARKE1866_ELLIPSOID, WGS84_ELLIPSOID,
+            NAD27_TO_WGS84_DX, NAD27_TO_WGS84_DY, NAD27_TO_WGS84_DZ, result);
 
-        return DatumTransformation.threeParamMolodenski(pos, CLARKE1866_GLOBE, new Earth(),
-            dx_nad27_to_wgs84, dy_nad27_to_wgs84, dz_nad27_to_wgs84);
+        return Position.fromRadians(result[0], result[1], result[2]);
     }
 
     /**
@@ -74,49 +84,122 @@ public class DatumTransformation
             throw new IllegalArgumentException(message);
         }
 
-        //todo cite source for shift values
-        double dx_wgs84_to_nad27 = 8.0;
-        double dy_wgs84_to_nad27 = -160;
-        double dz_wgs84_to_nad27 = -176;
+        double[] result = new double[3];
+        DatumTransformation.threeParamMolodenski(pos.getLatitude().radians, pos.getLongitude().radians,
+            pos.getElevation(), WGS84_ELLIPSOID, CLARKE1866_ELLIPSOID,
+            -NAD27_TO_WGS84_DX, -NAD27_TO_WGS84_DY, -NAD27_TO_WGS84_DZ, result);
+
+        return Position.fromRadians(result[0], result[1], result[2]);
+    }
+
+    /**
+     * Shifts arrays of locations from NAD27 to WGS84, in place. The locations are specified in degrees, and the
+     * location at index <code>i</code> is <code>(latitudes[i], longitudes[i])</code>. The optional elevations array
+     * receives the shifted elevations, in meters. If it's null, the locations are assumed to lie on the ellipsoid.
+     * This method creates no objects, and may be called concurrently by threads shifting disjoint ranges of the same
+     * arrays.
+     *
+     * @param latitudes  the latitudes to shift, in degrees.
+     * @param longitudes the longitudes to shift, in degrees.
+     * @param elevations the elevations to shift, in meters. May be null.
+     * @param offset     the index of the first location to shift.
+     * @param count      the number of locations to shift.
+     *
+     * @throws IllegalArgumentException if either the latitude or longitude array is null, or if the arrays are too
+     *                                  short to contain the specified range of locations.
+     */
+    public static void convertNad27toWGS84(double[] latitudes, double[] longitudes, double[] elevations, int offset,
+        int count)
+    {
+        BatchCoordConverter.checkLocations(latitudes, longitudes, offset, count);
+        if (elevations != null)
+            BatchCoordConverter.checkLength(elevations, offset, count);
 
-        return DatumTransformation.threeParamMolodenski(pos, new Earth(), CLARKE1866_GLOBE,
-            dx_wgs84_to_nad27, dy_wgs84_to_nad27, dz_wgs84_to_nad27);
+        DatumTransformation.threeParamMolodenski(latitudes, longitudes, elevations, offset, count,
+            CLARKE1866_ELLIPSOID, WGS84_ELLIPSOID, NAD27_TO_WGS84_DX, NAD27_TO_WGS84_DY, NAD27_TO_WGS84_DZ);
     }
 
-    private static Position threeParamMolodenski(Position source, Globe fromGlobe, Globe toGlobe,
-        double dx, double dy, double dz)
+    /**
+     * Shifts arrays of locations from WGS84 to NAD27, in place. See {@link #convertNad27toWGS84(double[], double[],
+     * double[], int, int)} for a description of the arrays.
+     *
+     * @param latitudes  the latitudes to shift, in degrees.
+     * @param longitudes the longitudes to shift, in degrees.
+     * @param elevations the elevations to shift, in meters. May be null.
+     * @param offset     the index of the first location to shift.
+     * @param count      the number of locations to shift.
+     *
+     * @throws IllegalArgumentException if either the latitude or longitude array is null, or if the arrays are too
+     *                                  short to contain the specified range of locations.
+     */
+    public static void convertWGS84toNad27(double[] latitudes, double[] longitudes, double[] elevations, int offset,
+        int count)
     {
+        BatchCoordConverter.checkLocations(latitudes, longitudes, offset, count);
+        if (elevations != null)
+            BatchCoordConverter.checkLength(elevations, offset, count);
 
-        double sinLat = Math.sin(source.getLatitude().getRadians());
-        double cosLat = Math.cos(source.getLatitude().getRadians());
-        double sinLon = Math.sin(source.getLongitude().getRadians());
-        double cosLon = Math.cos(source.getLongitude().getRadians());
+        DatumTransformation.threeParamMolodenski(latitudes, longitudes, elevations, offset, count,
+            WGS84_ELLIPSOID, CLARKE1866_ELLIPSOID, -NAD27_TO_WGS84_DX, -NAD27_TO_WGS84_DY, -NAD27_TO_WGS84_DZ);
+    }
+
+    private static void threeParamMolodenski(double[] latitudes, double[] longitudes, double[] elevations,
+        int offset, int count, double[] fromEllipsoid, double[] toEllipsoid, double dx, double dy, double dz)
+    {
+        double[] result = new double[3];
+
+        for (int i = offset; i < offset + count; i++)
+        {
+            double elevation = (elevations != null) ? elevations[i] : 0;
+            DatumTransformation.threeParamMolodenski(Math.toRadians(latitudes[i]), Math.toRadians(longitudes[i]),
+                elevation, fromEllipsoid, toEllipsoid, dx, dy, dz, result);
+
+            latitudes[i] = Math.toDegrees(result[0]);
+            longitudes[i] = Math.toDegrees(result[1]);
+            if (elevations != null)
+                elevations[i] = result[2];
+        }
+    }
+
+    /**
+     * Shifts a single location between two ellipsoids, each specified by its equatorial radius, polar radius and
+     * eccentricity squared. The shifted latitude and longitude, in radians, and the shifted elevation are stored in
+     * the first three elements of <code>result</code>.
+     */
+    private static void threeParamMolodenski(double latitude, double longitude, double elevation,
+        double[] fromEllipsoid, double[] toEllipsoid, double dx, double dy, double dz, double[] result)
+    {
+        double fromEquatorialRadius = fromEllipsoid[0];
+        double fromEccentricitySquared = fromEllipsoid[2];
+
+        double sinLat = Math.sin(latitude);
+        double cosLat = Math.cos(latitude);
+        double sinLon = Math.sin(longitude);
+        double cosLon = Math.cos(longitude);
         double sinLatsquared = sinLat * sinLat;
-        double fromF = (fromGlobe.getEquatorialRadius() - fromGlobe.getPolarRadius()) / fromGlobe.getEquatorialRadius();
-        double toF = (toGlobe.getEquatorialRadius() - toGlobe.getPolarRadius()) / toGlobe.getEquatorialRadius();
+        double fromF = (fromEquatorialRadius - fromEllipsoid[1]) / fromEquatorialRadius;
+        double toF = (toEllipsoid[0] - toEllipsoid[1]) / toEllipsoid[0];
         double dF = toF - fromF;
         double adb = 1.0 / (1.0 - fromF);
 
-        double dEquatorialRadius = (toGlobe.getEquatorialRadius() - fromGlobe.getEquatorialRadius());
+        double dEquatorialRadius = (toEllipsoid[0] - fromEquatorialRadius);
 
-        double rn = fromGlobe.getEquatorialRadius() / Math.sqrt(
-            1.0 - fromGlobe.getEccentricitySquared() * sinLatsquared);
-        double rm = fromGlobe.getEquatorialRadius() * (1. - fromGlobe.getEccentricitySquared()) /
-            Math.pow((1.0 - fromGlobe.getEccentricitySquared() * sinLatsquared), 1.5);
+        double rn = fromEquatorialRadius / Math.sqrt(1.0 - fromEccentricitySquared * sinLatsquared);
+        double rm = fromEquatorialRadius * (1. - fromEccentricitySquared) /
+            Math.pow((1.0 - fromEccentricitySquared * sinLatsquared), 1.5);
 
         double dLat = (((((-dx * sinLat * cosLon - dy * sinLat * sinLon) + dz * cosLat)
-            + (dEquatorialRadius * ((rn * fromGlobe.getEccentricitySquared() * sinLat * cosLat)
-            / fromGlobe.getEquatorialRadius())))
+            + (dEquatorialRadius * ((rn * fromEccentricitySquared * sinLat * cosLat) / fromEquatorialRadius)))
             + (dF * (rm * adb + rn / adb) * sinLat * cosLat)))
-            / (rm + source.getElevation());
+            / (rm + elevation);
 
-        double dLon = (-dx * sinLon + dy * cosLon) / ((rn + source.getElevation()) * cosLat);
+        double dLon = (-dx * sinLon + dy * cosLon) / ((rn + elevation) * cosLat);
 
         double dh = (dx * cosLat * cosLon) + (dy * cosLat * sinLon) + (dz * sinLat)
-            - (dEquatorialRadius * (fromGlobe.getEquatorialRadius() / rn)) + ((dF * rn * sinLatsquared) / adb);
+            - (dEquatorialRadius * (fromEquatorialRadius / rn)) + ((dF * rn * sinLatsquared) / adb);
 
-        return Position.fromRadians(source.getLatitude().getRadians() + dLat,
-            source.getLongitude().getRadians() + dLon, source.getElevation() + dh);
+        result[0] = latitude + dLat;
+        result[1] = longitude + dLon;
+        result[2] = elevation + dh;
     }
 }
-
@@ -698,7 +698,7 @@ class MGRSCoordConverter
      *
      * @return error value
      */
-    private long convertUPSToMGRS(String Hemisphere, Double Easting, Double Northing, long Precision)
+    long convertUPSToMGRS(String Hemisphere, double Easting, double Northing, long Precision)
     {
         double false_easting;       /* False easting for 2nd letter                 */
         double false_northing;      /* False northing for 3rd letter                */
@@ -710,6 +710,8 @@ class MGRSCoordConverter
         int index;
         long error_code = MGRS_NO_ERROR;
 
+        MGRSString = "";
+
         if (!AVKey.NORTH.equals(Hemisphere) && !AVKey.SOUTH.equals(Hemisphere))
             error_code |= MGRS_HEMISPHERE_ERROR;
         if ((Easting < MIN_EAST_NORTH) || (Easting > MAX_EAST_NORTH))
@@ -805,7 +807,7 @@ class MGRSCoordConverter
      *
      * @return error code
      */
-    private long convertUTMToMGRS(long Zone, double Latitude, double Easting, double Northing, long Precision)
+    long convertUTMToMGRS(long Zone, double Latitude, double Easting, double Northing, long Precision)
     {
         double grid_easting;        /* Easting used to derive 2nd letter of MGRS   */
         double grid_northing;       /* Northing used to derive 3rd letter of MGRS  */
@@ -813,6 +815,8 @@ class MGRSCoordConverter
         double divisor;
         long error_code;
 
+        MGRSString = "";
+
         /* Round easting and northing values */
         divisor = Math.pow(10.0, (5 - Precision));
         Easting = roundMGRS(Easting / divisor) * divisor;
@@ -984,17 +988,22 @@ class MGRSCoordConverter
         long north;
         long error_code = MGRS_NO_ERROR;
 
+        StringBuilder sb = new StringBuilder(16);
         if (Zone != 0)
-            MGRSString = String.format("%02d", Zone);
+        {
+            if (Zone < 10)
+                sb.append('0');
+            sb.append(Zone);
+        }
         else
-            MGRSString = "  ";
+            sb.append("  ");
 
         for (j = 0; j < 3; j++)
         {
 
             if (Letters[j] < 0 || Letters[j] > 26)
                 return MGRS_ZONE_ERROR;  // TODO: Find out why this happens
-            MGRSString = MGRSString + alphabet.charAt((int) Letters[j]);
+            sb.append(alphabet.charAt((int) Letters[j]));
         }
 
         divisor = Math.pow(10.0, (5 - Precision));
@@ -1004,42 +1013,37 @@ class MGRSCoordConverter
         east = (long) (Easting / divisor);
 
         // Here we need to only use the number requesting in the precision
-        Integer iEast = (int) east;
-        String sEast = iEast.toString();
-        if (sEast.length() > Precision)
-            sEast = sEast.substring(0, (int) Precision - 1);
-        else
-        {
-            int i;
-            int length = sEast.length();
-            for (i = 0; i < Precision - length; i++)
-            {
-                sEast = "0" + sEast;
-            }
-        }
-        MGRSString = MGRSString + " " + sEast;
+        sb.append(' ');
+        appendDigits(sb, (int) east, Precision);
 
         Northing = Northing % 100000.0;
         if (Northing >= 99999.5)
             Northing = 99999.0;
         north = (long) (Northing / divisor);
 
-        Integer iNorth = (int) north;
-        String sNorth = iNorth.toString();
-        if (sNorth.length() > Precision)
-            sNorth = sNorth.substring(0, (int) Precision - 1);
+        sb.append(' ');
+        appendDigits(sb, (int) north, Precision);
+
+        MGRSString = sb.toString();
+
+        return (error_code);
+    }
+
+    private static void appendDigits(StringBuilder sb, int value, long precision)
+    {
+        String digits = Integer.toString(value);
+        if (digits.length() > precision)
+        {
+            sb.append(digits, 0, (int) precision - 1);
+        }
         else
         {
-            int i;
-            int length = sNorth.length();
-            for (i = 0; i < Precision - length; i++)
+            for (int i = digits.length(); i < precision; i++)
             {
-                sNorth = "0" + sNorth;
+                sb.append('0');
             }
+            sb.append(digits);
         }
-        MGRSString = MGRSString + " " + sNorth;
-
-        return (error_code);
     }
 
     /**
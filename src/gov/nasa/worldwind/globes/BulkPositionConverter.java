@@ -0,0 +1,88 @@
+/*
+Copyright (C) 2001, 2010 United States Government
+as represented by the Administrator of the
+National Aeronautics and Space Administration.
+All Rights Reserved.
+*/
+package gov.nasa.worldwind.globes;
+
+import gov.nasa.worldwind.geom.Vec4;
+
+import java.nio.*;
+
+/**
+ * Implemented by {@link Globe}s that convert packed arrays of positions and points in bulk. Callers that convert many
+ * positions at once, such as tessellators and shapes, test whether their globe implements this interface, and
+ * otherwise convert one position at a time with {@link Globe#computePointFromPosition(gov.nasa.worldwind.geom.Position)}.
+ *
+ * @version $Id$
+ */
+public interface BulkPositionConverter
+{
+    /**
+     * Computes the Cartesian points corresponding to a packed array of geographic positions. Positions are read as
+     * consecutive (latitude, longitude, elevation) triples, with latitude and longitude in degrees and elevation in
+     * meters. Points are written as consecutive (x, y, z) triples relative to a reference point, which keeps them
+     * precise enough to be stored in single precision. No objects are created per position, so this method is suited
+     * to converting large numbers of positions, such as terrain or shape vertices.
+     *
+     * @param positions       the positions to convert.
+     * @param count           the number of positions to convert.
+     * @param referencePoint  the point subtracted from each computed point. May be null, in which case the points are
+     *                        absolute.
+     * @param points          the array in which to write the points. Must hold at least <code>3 * count</code>
+     *                        values. May be the positions array, in which case the positions are overwritten.
+     *
+     * @throws IllegalArgumentException if either array is null, if <code>count</code> is negative or if either array
+     *                                  is too short.
+     */
+    void computePointsFromPositions(double[] positions, int count, Vec4 referencePoint, double[] points);
+
+    /**
+     * Computes the Cartesian points corresponding to a packed array of geographic positions, as described by {@link
+     * #computePointsFromPositions(double[], int, Vec4, double[])}, and puts them in a buffer starting at its current
+     * position. The buffer's position is advanced by <code>3 * count</code>.
+     *
+     * @param positions      the positions to convert.
+     * @param count          the number of positions to convert.
+     * @param referencePoint the point subtracted from each computed point. May be null.
+     * @param points         the buffer in which to put the points.
+     *
+     * @throws IllegalArgumentException if the array or buffer is null, if <code>count</code> is negative, if the array
+     *                                  is too short or if the buffer's remaining space is too small.
+     */
+    void computePointsFromPositions(double[] positions, int count, Vec4 referencePoint, DoubleBuffer points);
+
+    /**
+     * Computes the Cartesian points corresponding to a packed array of geographic positions, as described by {@link
+     * #computePointsFromPositions(double[], int, Vec4, double[])}, and puts them in a buffer starting at its current
+     * position. The buffer's position is advanced by <code>3 * count</code>.
+     *
+     * @param positions      the positions to convert.
+     * @param count          the number of positions to convert.
+     * @param referencePoint the point subtracted from each computed point. May be null.
+     * @param points         the buffer in which to put the points.
+     *
+     * @throws IllegalArgumentException if the array or buffer is null, if <code>count</code> is negative, if the array
+     *                                  is too short or if the buffer's remaining space is too small.
+     */
+    void computePointsFromPositions(double[] positions, int count, Vec4 referencePoint, FloatBuffer points);
+
+    /**
+     * Computes the geographic positions corresponding to a packed array of Cartesian points. This is the inverse of
+     * {@link #computePointsFromPositions(double[], int, Vec4, double[])}: points are read as (x, y, z) triples relative
+     * to a reference point, and positions are written as (latitude, longitude, elevation) triples, with latitude and
+     * longitude in degrees and elevation in meters.
+     *
+     * @param points         the points to convert.
+     * @param count          the number of points to convert.
+     * @param referencePoint the point added to each point before conversion. May be null, in which case the points are
+     *                       absolute.
+     * @param positions      the array in which to write the positions. Must hold at least <code>3 * count</code>
+     *                       values. May be the points array, in which case the points are overwritten.
+     *
+     * @throws IllegalArgumentException if either array is null, if <code>count</code> is negative or if either array
+     *                                  is too short.
+     */
+    void computePositionsFromPoints(double[] points, int count, Vec4 referencePoint, double[] positions);
+}
@@ -0,0 +1,34 @@
+/*
+Copyright (C) 2001, 2010 United States Government
+as represented by the Administrator of the
+National Aeronautics and Space Administration.
+All Rights Reserved.
+*/
+package gov.nasa.worldwind.globes;
+
+import gov.nasa.worldwind.geom.Sector;
+
+/**
+ * Implemented by {@link ElevationModel}s that report when the elevations they provide change. Shapes that conform to
+ * the terrain test whether their globe's elevation model implements this interface, and if it does, recompute their
+ * geometry only when the change epoch of their sector advances.
+ *
+ * @version $Id$
+ */
+public interface ElevationChangeTracker
+{
+    /**
+     * Returns a number that advances whenever the elevations this model provides within a specified sector change, for
+     * example when higher resolution elevation tiles arrive from the disk cache or the network. Shapes that conform to
+     * the terrain record the epoch of their sector when they compute their geometry, and need to recompute it only when
+     * the epoch advances.
+     * <p/>
+     * Epochs never decrease, and are only meaningful in comparison to other epochs returned by the same model. An
+     * epoch may advance for changes near, but not within, the sector.
+     *
+     * @param sector the sector of interest. May be null, to indicate the entire globe.
+     *
+     * @return the sector's change epoch.
+     */
+    long getChangeEpoch(Sector sector);
+}
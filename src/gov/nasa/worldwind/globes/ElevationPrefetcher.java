@@ -0,0 +1,31 @@
+/*
+Copyright (C) 2001, 2010 United States Government
+as represented by the Administrator of the
+National Aeronautics and Space Administration.
+All Rights Reserved.
+*/
+package gov.nasa.worldwind.globes;
+
+import gov.nasa.worldwind.geom.Sector;
+
+/**
+ * Implemented by {@link ElevationModel}s that can request elevations before they are needed. Tessellators test whether
+ * their globe's elevation model implements this interface, and if it does, request the elevations of the regions the
+ * view is predicted to show soon.
+ *
+ * @version $Id$
+ */
+public interface ElevationPrefetcher
+{
+    /**
+     * Requests the elevations of a sector at a specified resolution in anticipation of their use, such as for a region
+     * the view is predicted to show soon. The request is made asynchronously and is satisfied after requests for
+     * elevations that are needed now.
+     *
+     * @param sector           the sector of interest.
+     * @param targetResolution the desired horizontal resolution, in radians, of the elevations.
+     *
+     * @throws IllegalArgumentException if the sector is null.
+     */
+    void prefetchElevations(Sector sector, double targetResolution);
+}
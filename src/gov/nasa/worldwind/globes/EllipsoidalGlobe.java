@@ -13,14 +13,18 @@ import gov.nasa.worldwind.render.DrawContext;
 import gov.nasa.worldwind.terrain.*;
 import gov.nasa.worldwind.util.Logging;
 
+import java.nio.*;
 import java.util.*;
 
 /**
  * @author Tom Gaskins
  * @version $Id: EllipsoidalGlobe.java 13966 2010-10-09 01:11:23Z tgaskins $
  */
-public class EllipsoidalGlobe extends WWObjectImpl implements Globe
+public class EllipsoidalGlobe extends WWObjectImpl implements Globe, BulkPositionConverter
 {
+    /** The number of positions converted at a time by the bulk conversions writing to buffers. */
+    protected static final int BULK_CHUNK_SIZE = 256;
+
     protected final double equatorialRadius;
     protected final double polarRadius;
     protected final double es;
@@ -460,6 +464,135 @@ public class EllipsoidalGlobe extends WWObjectImpl implements Globe
         return this.cartesianToGeodetic(point);
     }
 
+    public void computePointsFromPositions(double[] positions, int count, Vec4 referencePoint, double[] points)
+    {
+        this.validateBulkArguments(positions, count, points);
+
+        this.geodeticToCartesian(positions, 0, count, points, 0);
+
+        if (referencePoint != null)
+        {
+            for (int i = 0; i < 3 * count; i += 3)
+            {
+                points[i] -= referencePoint.x;
+                points[i + 1] -= referencePoint.y;
+                points[i + 2] -= referencePoint.z;
+            }
+        }
+    }
+
+    public void computePointsFromPositions(double[] positions, int count, Vec4 referencePoint, DoubleBuffer points)
+    {
+        this.validateBulkArguments(positions, count, points, points != null ? points.remaining() : 0);
+
+        // Convert in chunks so that the scratch array stays small regardless of the number of positions.
+        double[] chunk = new double[3 * Math.min(count, BULK_CHUNK_SIZE)];
+        for (int i = 0; i < count; i += BULK_CHUNK_SIZE)
+        {
+            int n = Math.min(BULK_CHUNK_SIZE, count - i);
+            this.geodeticToCartesian(positions, 3 * i, n, chunk, 0);
+
+            if (referencePoint != null)
+            {
+                for (int j = 0; j < 3 * n; j += 3)
+                {
+                    chunk[j] -= referencePoint.x;
+                    chunk[j + 1] -= referencePoint.y;
+                    chunk[j + 2] -= referencePoint.z;
+                }
+            }
+
+            points.put(chunk, 0, 3 * n);
+        }
+    }
+
+    public void computePointsFromPositions(double[] positions, int count, Vec4 referencePoint, FloatBuffer points)
+    {
+        this.validateBulkArguments(positions, count, points, points != null ? points.remaining() : 0);
+
+        double rx = referencePoint != null ? referencePoint.x : 0;
+        double ry = referencePoint != null ? referencePoint.y : 0;
+        double rz = referencePoint != null ? referencePoint.z : 0;
+
+        // Subtract the reference point in double precision before narrowing to float.
+        double[] chunk = new double[3 * Math.min(count, BULK_CHUNK_SIZE)];
+        for (int i = 0; i < count; i += BULK_CHUNK_SIZE)
+        {
+            int n = Math.min(BULK_CHUNK_SIZE, count - i);
+            this.geodeticToCartesian(positions, 3 * i, n, chunk, 0);
+
+            for (int j = 0; j < 3 * n; j += 3)
+            {
+                points.put((float) (chunk[j] - rx));
+                points.put((float) (chunk[j + 1] - ry));
+                points.put((float) (chunk[j + 2] - rz));
+            }
+        }
+    }
+
+    public void computePositionsFromPoints(double[] points, int count, Vec4 referencePoint, double[] positions)
+    {
+        this.validateBulkArguments(points, count, positions);
+
+        if (referencePoint == null)
+        {
+            this.cartesianToGeodetic(points, 0, count, positions, 0);
+            return;
+        }
+
+        // Write the absolute points to the output array and convert them in place, leaving the input unmodified.
+        for (int i = 0; i < 3 * count; i += 3)
+        {
+            positions[i] = points[i] + referencePoint.x;
+            positions[i + 1] = points[i + 1] + referencePoint.y;
+            positions[i + 2] = points[i + 2] + referencePoint.z;
+        }
+        this.cartesianToGeodetic(positions, 0, count, positions, 0);
+    }
+
+    protected void validateBulkArguments(double[] source, int count, double[] destination)
+    {
+        if (destination == null)
+        {
+            String message = Logging.getMessage("nullValue.ArrayIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (count > 0 && destination.length < 3 * count)
+        {
+            String message = Logging.getMessage("generic.ArrayInvalidLength", destination.length);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.validateBulkArguments(source, count, destination, destination.length);
+    }
+
+    protected void validateBulkArguments(double[] source, int count, Object destination, int destinationCapacity)
+    {
+        if (source == null || destination == null)
+        {
+            String message = Logging.getMessage(source == null ? "nullValue.ArrayIsNull" : "nullValue.BufferIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (count < 0 || source.length < 3 * count)
+        {
+            String message = Logging.getMessage("generic.ArrayInvalidLength", source.length);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (destinationCapacity < 3 * count)
+        {
+            String message = Logging.getMessage("generic.BufferOverflow", destinationCapacity, 3 * count);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+    }
+
     /**
      * Returns the normal to the Globe at the specified position.
      *
@@ -683,6 +816,95 @@ public class EllipsoidalGlobe extends WWObjectImpl implements Globe
 
         return Position.fromRadians(lat, lon, elevation);
     }
+
+    /**
+     * Maps packed positions to world Cartesian coordinates, as {@link #geodeticToCartesian(Angle, Angle, double)} does
+     * for a single position. Positions are (latitude, longitude, elevation) triples in degrees and meters; points are
+     * absolute (x, y, z) triples. The trigonometry of a latitude is reused while consecutive positions share it, as
+     * the rows of a tessellation grid do.
+     *
+     * @param positions      the positions to convert.
+     * @param positionOffset the index of the first position value to read.
+     * @param count          the number of positions to convert.
+     * @param points         the array in which to write the points. May be the positions array.
+     * @param pointOffset    the index of the first point value to write.
+     */
+    protected void geodeticToCartesian(double[] positions, int positionOffset, int count, double[] points,
+        int pointOffset)
+    {
+        double lastLatitude = Double.NaN;
+        double sinLat = 0, cosLat = 0, rpm = 0;
+
+        for (int i = 0; i < count; i++)
+        {
+            int p = positionOffset + 3 * i;
+            double latitude = positions[p];
+            double lonRadians = Math.toRadians(positions[p + 1]);
+            double metersElevation = positions[p + 2];
+
+            if (latitude != lastLatitude)
+            {
+                double latRadians = Math.toRadians(latitude);
+                sinLat = Math.sin(latRadians);
+                cosLat = Math.cos(latRadians);
+                rpm = this.equatorialRadius / Math.sqrt(1.0 - this.es * sinLat * sinLat);
+                lastLatitude = latitude;
+            }
+
+            int q = pointOffset + 3 * i;
+            points[q] = (rpm + metersElevation) * cosLat * Math.sin(lonRadians);
+            points[q + 1] = (rpm * (1.0 - this.es) + metersElevation) * sinLat;
+            points[q + 2] = (rpm + metersElevation) * cosLat * Math.cos(lonRadians);
+        }
+    }
+
+    /**
+     * Maps packed world Cartesian points to positions, as {@link #cartesianToGeodetic(Vec4)} does for a single point.
+     * Points are absolute (x, y, z) triples; positions are (latitude, longitude, elevation) triples in degrees and
+     * meters.
+     *
+     * @param points         the points to convert.
+     * @param pointOffset    the index of the first point value to read.
+     * @param count          the number of points to convert.
+     * @param positions      the array in which to write the positions. May be the points array.
+     * @param positionOffset the index of the first position value to write.
+     */
+    protected void cartesianToGeodetic(double[] points, int pointOffset, int count, double[] positions,
+        int positionOffset)
+    {
+        double ra2 = 1 / (this.equatorialRadius * this.equatorialRadius);
+        double e2 = this.es;
+        double e4 = e2 * e2;
+
+        for (int i = 0; i < count; i++)
+        {
+            int p = pointOffset + 3 * i;
+            double X = points[p + 2];
+            //noinspection SuspiciousNameCombination
+            double Y = points[p];
+            double Z = points[p + 1];
+
+            // See cartesianToGeodetic(Vec4) for the source of this transformation.
+            double XXpYY = X * X + Y * Y;
+            double sqrtXXpYY = Math.sqrt(XXpYY);
+            double pp = XXpYY * ra2;
+            double q = Z * Z * (1 - e2) * ra2;
+            double r = 1 / 6.0 * (pp + q - e4);
+            double s = e4 * pp * q / (4 * r * r * r);
+            double t = Math.pow(1 + s + Math.sqrt(s * (2 + s)), 1 / 3.0);
+            double u = r * (1 + t + 1 / t);
+            double v = Math.sqrt(u * u + e4 * q);
+            double w = e2 * (u + v - q) / (2 * v);
+            double k = Math.sqrt(u + v + w * w) - w;
+            double D = k * sqrtXXpYY / (k + e2);
+            double sqrtDDpZZ = Math.sqrt(D * D + Z * Z);
+
+            int o = positionOffset + 3 * i;
+            positions[o] = Math.toDegrees(2 * Math.atan2(Z, D + sqrtDDpZZ));
+            positions[o + 1] = Math.toDegrees(2 * Math.atan2(Y, X + sqrtXXpYY));
+            positions[o + 2] = (k + e2 - 1) * sqrtDDpZZ / k;
+        }
+    }
 //
 //    /**
 //     * Returns a cylinder that minimally surrounds the sector at a specified vertical exaggeration.
@@ -875,7 +1097,13 @@ public class EllipsoidalGlobe extends WWObjectImpl implements Globe
             throw new IllegalArgumentException(msg);
         }
 
+        long startTime = System.nanoTime();
+
         Object configSource = Configuration.getStringValue(key, defaultValue);
-        return (ElevationModel) BasicFactory.create(AVKey.ELEVATION_MODEL_FACTORY, configSource);
+        ElevationModel em = (ElevationModel) BasicFactory.create(AVKey.ELEVATION_MODEL_FACTORY, configSource);
+        if (em != null)
+            em.setValue(AVKey.STARTUP_TIME, (System.nanoTime() - startTime) / 1000000L);
+
+        return em;
     }
 }
\ No newline at end of file
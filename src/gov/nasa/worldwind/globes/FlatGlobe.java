@@ -381,6 +381,93 @@ public class FlatGlobe extends EllipsoidalGlobe
         return pos;
     }
 
+    @Override
+    protected void geodeticToCartesian(double[] positions, int positionOffset, int count, double[] points,
+        int pointOffset)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            int p = positionOffset + 3 * i;
+            double lat = Math.toRadians(positions[p]);
+            double lon = Math.toRadians(positions[p + 1]);
+            double metersElevation = positions[p + 2];
+
+            double x = 0;
+            double y = 0;
+            if (this.projection.equals(PROJECTION_LAT_LON))
+            {
+                x = this.equatorialRadius * lon;
+                y = this.equatorialRadius * lat;
+            }
+            else if (this.projection.equals(PROJECTION_MERCATOR))
+            {
+                lat = Math.max(Math.min(lat, Math.toRadians(75)), Math.toRadians(-75));
+                x = this.equatorialRadius * lon;
+                y = this.equatorialRadius * Math.log(Math.tan(Math.PI / 4 + lat / 2));
+            }
+            else if (this.projection.equals(PROJECTION_SINUSOIDAL))
+            {
+                double latCos = Math.cos(lat);
+                x = latCos > 0 ? this.equatorialRadius * lon * latCos : 0;
+                y = this.equatorialRadius * lat;
+            }
+            else if (this.projection.equals(PROJECTION_MODIFIED_SINUSOIDAL))
+            {
+                double latCos = Math.cos(lat);
+                x = latCos > 0 ? this.equatorialRadius * lon * Math.pow(latCos, .3) : 0;
+                y = this.equatorialRadius * lat;
+            }
+
+            int q = pointOffset + 3 * i;
+            points[q] = x;
+            points[q + 1] = y;
+            points[q + 2] = metersElevation;
+        }
+    }
+
+    @Override
+    protected void cartesianToGeodetic(double[] points, int pointOffset, int count, double[] positions,
+        int positionOffset)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            int p = pointOffset + 3 * i;
+            double x = points[p];
+            double y = points[p + 1];
+            double z = points[p + 2];
+
+            double lat = 0;
+            double lon = 0;
+            if (this.projection.equals(PROJECTION_LAT_LON))
+            {
+                lat = y / this.equatorialRadius;
+                lon = x / this.equatorialRadius;
+            }
+            else if (this.projection.equals(PROJECTION_MERCATOR))
+            {
+                lat = Math.atan(Math.sinh(y / this.equatorialRadius));
+                lon = x / this.equatorialRadius;
+            }
+            else if (this.projection.equals(PROJECTION_SINUSOIDAL))
+            {
+                lat = y / this.equatorialRadius;
+                double latCos = Math.cos(lat);
+                lon = latCos > 0 ? x / this.equatorialRadius / latCos : 0;
+            }
+            else if (this.projection.equals(PROJECTION_MODIFIED_SINUSOIDAL))
+            {
+                lat = y / this.equatorialRadius;
+                double latCos = Math.cos(lat);
+                lon = latCos > 0 ? x / this.equatorialRadius / Math.pow(latCos, .3) : 0;
+            }
+
+            int o = positionOffset + 3 * i;
+            positions[o] = Math.toDegrees(lat);
+            positions[o + 1] = Math.toDegrees(lon);
+            positions[o + 2] = z;
+        }
+    }
+
 //
 //    /**
 //     * Returns a cylinder that minimally surrounds the specified minimum and maximum elevations in the sector at a
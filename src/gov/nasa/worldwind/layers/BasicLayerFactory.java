@@ -20,6 +20,7 @@ import org.w3c.dom.Element;
 import java.io.File;
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * A factory that creates {@link gov.nasa.worldwind.layers.Layer} instances.
@@ -227,6 +228,9 @@ public class BasicLayerFactory extends BasicFactory
      */
     protected LayerList createLayerList(Element[] layerElements, AVList params)
     {
+        if (layerElements.length > 1 && this.isParallelStartup())
+            return this.createLayerListInParallel(layerElements, params);
+
         LayerList layerList = new LayerList();
 
         for (Element element : layerElements)
@@ -245,6 +249,198 @@ public class BasicLayerFactory extends BasicFactory
         return layerList;
     }
 
+    /**
+     * Indicates whether layer lists are created using multiple threads. This returns the value of {@link
+     * AVKey#PARALLEL_STARTUP} in {@link Configuration}, which is <code>false</code> by default.
+     *
+     * @return <code>true</code> if layers are created in parallel, otherwise <code>false</code>.
+     */
+    protected boolean isParallelStartup()
+    {
+        return Configuration.getBooleanValue(AVKey.PARALLEL_STARTUP, false);
+    }
+
+    /**
+     * Create a list of layers described by an array of XML layer description elements, creating the layers
+     * concurrently. Layers described by a <code>className</code> or <code>href</code> attribute are created on a pool
+     * of threads, one per available processor, and all other layers are created on the calling thread. The layer
+     * descriptions are read on the calling thread only, because DOM implementations are not required to be thread safe.
+     * The returned list contains the layers in the order of their descriptions.
+     * <p/>
+     * Any exceptions occurring during creation of the layers are logged and not re-thrown. The layers associated with
+     * the exceptions are not included in the returned layer list.
+     *
+     * @param layerElements the XML elements describing the layers to create.
+     * @param params        any parameters to apply when creating the layers.
+     *
+     * @return a layer list containing the specified layers.
+     */
+    protected LayerList createLayerListInParallel(Element[] layerElements, AVList params)
+    {
+        int numThreads = Math.min(layerElements.length, Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads, new ThreadFactory()
+        {
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable);
+                thread.setDaemon(true);
+                thread.setName(Logging.getMessage("LayerFactory.LayerCreationThreadName"));
+                return thread;
+            }
+        });
+
+        try
+        {
+            // Submit the layers that can be created on another thread before creating the others on this thread.
+            ArrayList<Future<Layer>> futures = new ArrayList<Future<Layer>>(layerElements.length);
+            for (Element element : layerElements)
+            {
+                Callable<Layer> task = this.createLayerTask(element, params);
+                futures.add(task != null ? executor.submit(task) : null);
+            }
+
+            LayerList layerList = new LayerList();
+
+            for (int i = 0; i < layerElements.length; i++)
+            {
+                try
+                {
+                    Future<Layer> future = futures.get(i);
+                    if (future != null)
+                        layerList.add(this.initializeLayer(future.get(), layerElements[i]));
+                    else
+                        layerList.add(this.createFromLayerDocument(layerElements[i], params));
+                }
+                catch (ExecutionException e)
+                {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    Logging.logger().log(java.util.logging.Level.WARNING, cause.getMessage(), cause);
+                    // keep going to create other layers
+                }
+                catch (Exception e)
+                {
+                    Logging.logger().log(java.util.logging.Level.WARNING, e.getMessage(), e);
+                    // keep going to create other layers
+                }
+            }
+
+            return layerList;
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Returns a task that creates the layer described by an XML layer description, for layers described by a
+     * <code>className</code> or <code>href</code> attribute. The task may run on any thread, and does not access the
+     * description. The layer it returns must be initialized from the description by {@link
+     * #initializeLayer(Layer, org.w3c.dom.Element)}.
+     *
+     * @param domElement the XML element describing the layer to create.
+     * @param params     any parameters to apply when creating the layer.
+     *
+     * @return a task that creates the layer, or null if the layer must be created by {@link
+     *         #createFromLayerDocument(org.w3c.dom.Element, gov.nasa.worldwind.avlist.AVList)}.
+     */
+    protected Callable<Layer> createLayerTask(Element domElement, AVList params)
+    {
+        final String className = WWXML.getText(domElement, "@className");
+        if (className != null && className.length() > 0)
+        {
+            return new Callable<Layer>()
+            {
+                public Layer call() throws Exception
+                {
+                    long startTime = System.nanoTime();
+                    Layer layer = (Layer) WorldWind.createComponent(className);
+                    recordStartupTime(layer, startTime);
+                    return layer;
+                }
+            };
+        }
+
+        final String href = WWXML.getText(domElement, "@href");
+        if (href != null && href.length() > 0)
+        {
+            // Each task receives its own parameter list because layer constructors may add values to it.
+            AVList props = WWXML.copyProperties(domElement, null);
+            if (props != null)
+            {
+                if (params != null)
+                    props.setValues(params);
+            }
+            else if (params != null)
+            {
+                props = params.copy();
+            }
+
+            final AVList layerParams = props;
+            return new Callable<Layer>()
+            {
+                public Layer call() throws Exception
+                {
+                    long startTime = System.nanoTime();
+                    Object o = createFromConfigSource(href, layerParams);
+                    if (o == null)
+                        return null;
+
+                    if (!(o instanceof Layer))
+                    {
+                        String msg = Logging.getMessage("LayerFactory.UnexpectedTypeForLayer",
+                            o.getClass().getName());
+                        throw new WWRuntimeException(msg);
+                    }
+
+                    recordStartupTime((Layer) o, startTime);
+                    return (Layer) o;
+                }
+            };
+        }
+
+        return null;
+    }
+
+    /**
+     * Initializes a layer created by a task from {@link #createLayerTask(org.w3c.dom.Element,
+     * gov.nasa.worldwind.avlist.AVList)}: sets its enabled state and invokes its property setters as specified by its
+     * XML description. This must be invoked on the thread that reads the description.
+     *
+     * @param layer      the layer to initialize. May be null.
+     * @param domElement the XML element describing the layer.
+     *
+     * @return the specified layer.
+     */
+    protected Layer initializeLayer(Layer layer, Element domElement)
+    {
+        if (layer == null)
+            return null;
+
+        String className = WWXML.getText(domElement, "@className");
+        String actuate = WWXML.getText(domElement, "@actuate");
+        if (className != null && className.length() > 0)
+            layer.setEnabled(WWUtil.isEmpty(actuate) || actuate.equals("onLoad"));
+        else
+            layer.setEnabled(actuate != null && actuate.equals("onLoad"));
+
+        WWXML.invokePropertySetters(layer, domElement);
+
+        return layer;
+    }
+
+    /**
+     * Records in a layer the time taken to create it, in milliseconds, as the value of {@link AVKey#STARTUP_TIME}.
+     *
+     * @param layer     the layer. May be null.
+     * @param startTime the value of {@link System#nanoTime()} when creation of the layer began.
+     */
+    protected void recordStartupTime(Layer layer, long startTime)
+    {
+        if (layer != null)
+            layer.setValue(AVKey.STARTUP_TIME, (System.nanoTime() - startTime) / 1000000L);
+    }
+
     /**
      * Create a layer described by an XML layer description.
      *
@@ -259,6 +455,8 @@ public class BasicLayerFactory extends BasicFactory
      */
     protected Layer createFromLayerDocument(Element domElement, AVList params)
     {
+        long startTime = System.nanoTime();
+
         String className = WWXML.getText(domElement, "@className");
         if (className != null && className.length() > 0)
         {
@@ -266,6 +464,7 @@ public class BasicLayerFactory extends BasicFactory
             String actuate = WWXML.getText(domElement, "@actuate");
             layer.setEnabled(WWUtil.isEmpty(actuate) || actuate.equals("onLoad"));
             WWXML.invokePropertySetters(layer, domElement);
+            this.recordStartupTime(layer, startTime);
             return layer;
         }
 
@@ -294,6 +493,7 @@ public class BasicLayerFactory extends BasicFactory
             String actuate = WWXML.getText(domElement, "@actuate");
             layer.setEnabled(actuate != null && actuate.equals("onLoad"));
             WWXML.invokePropertySetters(layer, domElement);
+            this.recordStartupTime(layer, startTime);
 
             return layer;
         }
@@ -301,7 +501,9 @@ public class BasicLayerFactory extends BasicFactory
         String layerType = WWXML.getText(domElement, "@layerType");
         if (layerType != null && layerType.equals("TiledImageLayer"))
         {
-            return this.createTiledImageLayer(domElement, params);
+            Layer layer = this.createTiledImageLayer(domElement, params);
+            this.recordStartupTime(layer, startTime);
+            return layer;
         }
         else
         {
@@ -25,10 +25,25 @@ import java.awt.*;
 import java.io.*;
 import java.net.URL;
 import java.nio.ByteBuffer;
-import java.util.Map;
+import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
+ * A tiled image layer whose tiles are read from the file store, or retrieved from a local or remote source into the
+ * file store.
+ * <p/>
+ * Tile images are read and decoded on the tile request threads of the task service. The layer's file lock is held only
+ * while a tile's file is read, to prevent reading a file while a download replaces it, so tiles are decoded in parallel.
+ * Decoded tiles are converted to textures by the render thread within the per-frame upload budgets of the draw
+ * context's {@link gov.nasa.worldwind.render.TextureUploadScheduler}.
+ * <p/>
+ * When the layer's texture format is <code>image/dds</code> and its tiles are stored in another image format, each tile
+ * is transcoded to DDS when first loaded and the DDS tile is saved beside the original in the file store. Later loads of
+ * the tile read the DDS tile directly. A DDS tile older than its original is transcoded again. Transcoding runs on the
+ * tile request threads, outside the lock guarding the layer's files. Transcoding cost is reported by {@link
+ * #getPerformanceStatistics()}.
+ *
  * @author tag
  * @version $Id: BasicTiledImageLayer.java 14017 2010-10-22 21:54:25Z garakl $
  */
@@ -36,12 +51,18 @@ public class BasicTiledImageLayer extends TiledImageLayer implements BulkRetriev
 {
     private final Object fileLock = new Object();
 
+    // Texture transcoding statistics.
+    protected final AtomicLong transcodeCount = new AtomicLong();
+    protected final AtomicLong transcodeNanos = new AtomicLong();
+    protected final AtomicLong transcodedTextureReads = new AtomicLong();
+
     // Layer resource properties.
     protected ScheduledExecutorService resourceRetrievalService;
     protected AbsentResourceList absentResources;
     protected static final int RESOURCE_ID_OGC_CAPABILITIES = 1;
     protected static final int DEFAULT_MAX_RESOURCE_ATTEMPTS = 3;
     protected static final int DEFAULT_MIN_RESOURCE_CHECK_INTERVAL = (int) 6e5; // 10 minutes
+    protected boolean resourceRetrievalDeferred;
 
     public BasicTiledImageLayer(LevelSet levelSet)
     {
@@ -126,10 +147,14 @@ public class BasicTiledImageLayer extends TiledImageLayer implements BulkRetriev
         this.setValue(AVKey.CONSTRUCTION_PARAMETERS, params.copy());
 
         // If any resources should be retrieved for this Layer, start a task to retrieve those resources, and initialize
-        // this Layer once those resources are retrieved.
+        // this Layer once those resources are retrieved. When initialization is deferred, the task is started when this
+        // Layer is first rendered.
         if (this.isRetrieveResources())
         {
-            this.startResourceRetrieval();
+            if (DataConfigurationUtils.isDeferredInitialization(params))
+                this.resourceRetrievalDeferred = true;
+            else
+                this.startResourceRetrieval();
         }
     }
 
@@ -237,15 +262,40 @@ public class BasicTiledImageLayer extends TiledImageLayer implements BulkRetriev
         this.getRequestQ().add(task);
     }
 
+    /**
+     * Prefetches a tile's texture by adding a request task for it to the task service. The task loads the texture from
+     * the file store if it is there, otherwise it retrieves it with a retriever marked as a prefetch, which the
+     * retrieval service runs after the retrievals of visible tiles.
+     *
+     * @param dc   the current draw context.
+     * @param tile the tile to prefetch.
+     */
+    @Override
+    protected void prefetchTexture(DrawContext dc, TextureTile tile)
+    {
+        Vec4 referencePoint = this.getReferencePoint(dc);
+        if (referencePoint != null)
+            tile.setPriority(tile.getCentroidPoint(dc.getGlobe()).distanceTo3(referencePoint));
+
+        WorldWind.getTaskService().addTask(new RequestTask(tile, this, true));
+    }
+
     private static class RequestTask implements Runnable, Comparable<RequestTask>
     {
         private final BasicTiledImageLayer layer;
         private final TextureTile tile;
+        private final boolean prefetch;
 
         private RequestTask(TextureTile tile, BasicTiledImageLayer layer)
+        {
+            this(tile, layer, false);
+        }
+
+        private RequestTask(TextureTile tile, BasicTiledImageLayer layer, boolean prefetch)
         {
             this.layer = layer;
             this.tile = tile;
+            this.prefetch = prefetch;
         }
 
         public void run()
@@ -270,7 +320,9 @@ public class BasicTiledImageLayer extends TiledImageLayer implements BulkRetriev
                 }
             }
 
-            this.layer.retrieveTexture(this.tile, new DownloadPostProcessor(this.tile, this.layer));
+            DownloadPostProcessor postProcessor = new DownloadPostProcessor(this.tile, this.layer);
+            postProcessor.setPrefetch(this.prefetch);
+            this.layer.retrieveTexture(this.tile, postProcessor);
         }
 
         /**
@@ -332,10 +384,10 @@ public class BasicTiledImageLayer extends TiledImageLayer implements BulkRetriev
     {
         TextureData textureData;
 
-        synchronized (this.fileLock)
-        {
-            textureData = readTexture(textureURL, this.getTextureFormat(), this.isUseMipMaps());
-        }
+        if (this.isTranscodeTexture(textureURL))
+            textureData = this.readTranscodedTexture(tile, textureURL);
+        else
+            textureData = this.readTexture(textureURL);
 
         if (textureData == null)
             return false;
@@ -348,53 +400,198 @@ public class BasicTiledImageLayer extends TiledImageLayer implements BulkRetriev
     }
 
     /**
-     * Reads and returns the texture data at the specified URL, optionally converting it to the specified format and
-     * generating mip-maps. If <code>textureFormat</code> is a recognized mime type, this returns the texture data in
-     * the specified format. Otherwise, this returns the texture data in its native format. If <code>useMipMaps</code>
-     * is true, this generates mip maps for any non-DDS texture data, and uses any mip-maps contained in DDS texture
+     * Reads and decodes the texture data at the specified URL. The contents of the URL are read under the layer's file
+     * lock, which prevents reading a file while a download replaces it, but are decoded outside the lock so that the
+     * tile requests running concurrently on the task service decode their images in parallel. If the layer uses
+     * mip-maps, this generates mip maps for any non-DDS texture data, and uses any mip-maps contained in DDS texture
      * data.
-     * <p/>
-     * Suppported texture formats are as follows: <ul> <li><code>image/dds</code> - Returns DDS texture data, converting
-     * the data to DDS if necessary. If the data is already in DDS format it's returned as-is.</li> </ul>
      *
-     * @param url           the URL referencing the texture data to read.
-     * @param textureFormat the texture data format to return.
-     * @param useMipMaps    true to generate mip-maps for the texture data or use mip maps already in the texture data,
-     *                      and false to read the texture data without generating or using mip-maps.
+     * @param url the URL referencing the texture data to read.
      *
-     * @return TextureData the texture data from the specified URL, in the specified format and with mip-maps.
+     * @return the texture data from the specified URL, or null if the texture data could not be read.
      */
-    private static TextureData readTexture(java.net.URL url, String textureFormat, boolean useMipMaps)
+    protected TextureData readTexture(java.net.URL url)
     {
         try
         {
-            // If the caller has enabled texture compression, and the texture data is not a DDS file, then use read the
-            // texture data and convert it to DDS.
-            if ("image/dds".equalsIgnoreCase(textureFormat) && !url.toString().toLowerCase().endsWith("dds"))
+            ByteBuffer buffer;
+            synchronized (this.fileLock)
             {
-                // Configure a DDS compressor to generate mipmaps based according to the 'useMipMaps' parameter, and
-                // convert the image URL to a compressed DDS format.
-                DXTCompressionAttributes attributes = DDSCompressor.getDefaultCompressionAttributes();
-                attributes.setBuildMipmaps(useMipMaps);
-                ByteBuffer buffer = DDSCompressor.compressImageURL(url, attributes);
+                buffer = WWIO.readURLContentToBuffer(url);
+            }
+
+            return this.decodeTexture(buffer, url);
+        }
+        catch (Exception e)
+        {
+            String msg = Logging.getMessage("layers.TextureLayer.ExceptionAttemptingToReadTextureFile", url);
+            Logging.logger().log(java.util.logging.Level.SEVERE, msg, e);
+            return null;
+        }
+    }
 
-                return TextureIO.newTextureData(WWIO.getInputStreamFromByteBuffer(buffer), useMipMaps, null);
+    /**
+     * Decodes texture data read from a URL. This does not access the file store and may be called by any number of
+     * threads at once.
+     *
+     * @param buffer the contents of the URL.
+     * @param url    the URL the contents were read from. Its suffix identifies the image format.
+     *
+     * @return the texture data.
+     *
+     * @throws IOException if the contents cannot be decoded.
+     */
+    protected TextureData decodeTexture(ByteBuffer buffer, java.net.URL url) throws IOException
+    {
+        String suffix = WWIO.getSuffix(url.getPath());
+        if (suffix != null)
+            suffix = suffix.toLowerCase();
+
+        return TextureIO.newTextureData(WWIO.getInputStreamFromByteBuffer(buffer), this.isUseMipMaps(), suffix);
+    }
+
+    /**
+     * Indicates whether the texture at a URL must be transcoded to the layer's texture format. This is the case when the
+     * layer's texture format is <code>image/dds</code> and the URL does not reference a DDS file.
+     *
+     * @param textureURL the URL of the texture.
+     *
+     * @return true if the texture must be transcoded, otherwise false.
+     */
+    protected boolean isTranscodeTexture(java.net.URL textureURL)
+    {
+        return "image/dds".equalsIgnoreCase(this.getTextureFormat())
+            && !textureURL.toString().toLowerCase().endsWith("dds");
+    }
+
+    /**
+     * Returns the file store path of a tile's transcoded texture. The path is the tile's path with a DDS suffix.
+     *
+     * @param tile the tile.
+     *
+     * @return the path of the tile's transcoded texture.
+     */
+    protected String getTranscodedTexturePath(TextureTile tile)
+    {
+        return WWIO.replaceSuffix(tile.getPath(), ".dds");
+    }
+
+    /**
+     * Reads a tile's texture as DDS texture data. If the file store holds a transcoded texture for the tile which is
+     * at least as recent as the tile's original texture, the transcoded texture is read. Otherwise the original texture
+     * is transcoded to DDS and the result is saved in the file store. The original is read under the layer's file lock,
+     * but is transcoded outside it so that concurrent tile requests are not serialized behind the compression.
+     *
+     * @param tile       the tile.
+     * @param textureURL the URL of the tile's original texture.
+     *
+     * @return the texture data, or null if the texture could not be read.
+     */
+    protected TextureData readTranscodedTexture(TextureTile tile, java.net.URL textureURL)
+    {
+        FileStore fileStore = this.getDataFileStore();
+        String ddsPath = this.getTranscodedTexturePath(tile);
+
+        java.net.URL ddsURL = fileStore.findFile(ddsPath, false);
+        if (ddsURL != null)
+        {
+            if (!this.isTranscodedTextureStale(textureURL, ddsURL))
+            {
+                TextureData textureData = this.readTexture(ddsURL);
+                if (textureData != null)
+                {
+                    this.transcodedTextureReads.incrementAndGet();
+                    return textureData;
+                }
             }
-            // If the caller has disabled texture compression, or if the texture data is already a DDS file, then read
-            // the texture data without converting it.
-            else
+
+            // The transcoded texture is out of date or unreadable. Remove it and transcode the original again.
+            fileStore.removeFile(ddsURL);
+        }
+
+        try
+        {
+            ByteBuffer imageBuffer;
+            synchronized (this.fileLock)
             {
-                return TextureIO.newTextureData(url, useMipMaps, null);
+                imageBuffer = WWIO.readURLContentToBuffer(textureURL);
             }
+
+            long startTime = System.nanoTime();
+            DXTCompressionAttributes attributes = DDSCompressor.getDefaultCompressionAttributes();
+            attributes.setBuildMipmaps(this.isUseMipMaps());
+            ByteBuffer ddsBuffer = DDSCompressor.compressImageBuffer(imageBuffer, attributes);
+            this.transcodeNanos.addAndGet(System.nanoTime() - startTime);
+            this.transcodeCount.incrementAndGet();
+
+            if (ddsBuffer == null)
+                return null;
+
+            this.saveTranscodedTexture(fileStore, ddsPath, ddsBuffer);
+
+            ddsBuffer.rewind();
+            return TextureIO.newTextureData(WWIO.getInputStreamFromByteBuffer(ddsBuffer), this.isUseMipMaps(),
+                TextureIO.DDS);
         }
         catch (Exception e)
         {
-            String msg = Logging.getMessage("layers.TextureLayer.ExceptionAttemptingToReadTextureFile", url);
+            String msg = Logging.getMessage("layers.TextureLayer.ExceptionAttemptingToReadTextureFile", textureURL);
             Logging.logger().log(java.util.logging.Level.SEVERE, msg, e);
             return null;
         }
     }
 
+    protected boolean isTranscodedTextureStale(java.net.URL textureURL, java.net.URL ddsURL)
+    {
+        File textureFile = WWIO.convertURLToFile(textureURL);
+        File ddsFile = WWIO.convertURLToFile(ddsURL);
+
+        return textureFile != null && ddsFile != null && ddsFile.lastModified() < textureFile.lastModified();
+    }
+
+    protected void saveTranscodedTexture(FileStore fileStore, String ddsPath, ByteBuffer ddsBuffer)
+    {
+        // Failing to save the transcoded texture costs only another transcoding on the next load, so it's not an error
+        // for the tile.
+        try
+        {
+            synchronized (this.fileLock)
+            {
+                File file = fileStore.newFile(ddsPath);
+                if (file != null)
+                    WWIO.saveBuffer(ddsBuffer, file, false);
+            }
+        }
+        catch (IOException e)
+        {
+            String msg = Logging.getMessage("generic.ExceptionAttemptingToWriteTo", ddsPath);
+            Logging.logger().log(java.util.logging.Level.WARNING, msg, e);
+        }
+    }
+
+    /**
+     * Returns statistics of the layer's texture transcoding: the number of textures transcoded, their mean transcoding
+     * time, and the number of textures read from previously transcoded files.
+     *
+     * @return the statistics.
+     */
+    public Collection<PerformanceStatistic> getPerformanceStatistics()
+    {
+        String prefix = this.getName() + ": ";
+        long count = this.transcodeCount.get();
+        double meanMillis = count > 0 ? this.transcodeNanos.get() / (count * 1.0e6) : 0;
+
+        ArrayList<PerformanceStatistic> stats = new ArrayList<PerformanceStatistic>();
+        stats.add(new PerformanceStatistic(PerformanceStatistic.TEXTURE_TRANSCODE, prefix + "Textures Transcoded",
+            count));
+        stats.add(new PerformanceStatistic(PerformanceStatistic.TEXTURE_TRANSCODE, prefix + "Mean Transcode Time (ms)",
+            meanMillis));
+        stats.add(new PerformanceStatistic(PerformanceStatistic.TEXTURE_TRANSCODE,
+            prefix + "Transcoded Textures Read", this.transcodedTextureReads.get()));
+
+        return stats;
+    }
+
     private void addTileToCache(TextureTile tile)
     {
         TextureTile.getMemoryCache().add(tile.getTileKey(), tile);
@@ -540,6 +737,8 @@ public class BasicTiledImageLayer extends TiledImageLayer implements BulkRetriev
         avList.setValue(AVKey.FILE_NAME, tile.getPath());
 
         Retriever retriever = retrieverFactory.createRetriever(avList, postProcessor);
+        if (retriever != null && postProcessor != null && postProcessor.isPrefetch())
+            retriever.setValue(AVKey.RETRIEVAL_PREFETCH, Boolean.TRUE);
 
         WorldWind.getLocalRetrievalService().runRetriever(retriever, tile.getPriority());
     }
@@ -598,6 +797,8 @@ public class BasicTiledImageLayer extends TiledImageLayer implements BulkRetriev
         Integer srl = AVListImpl.getIntegerValue(this, AVKey.RETRIEVAL_QUEUE_STALE_REQUEST_LIMIT);
         if (srl != null && srl > 0)
             retriever.setStaleRequestLimit(srl);
+        if (postProcessor.isPrefetch())
+            retriever.setValue(AVKey.RETRIEVAL_PREFETCH, Boolean.TRUE);
 
         WorldWind.getRetrievalService().runRetriever(retriever, tile.getPriority());
     }
@@ -607,6 +808,7 @@ public class BasicTiledImageLayer extends TiledImageLayer implements BulkRetriev
         protected final TextureTile tile;
         protected final BasicTiledImageLayer layer;
         protected final FileStore fileStore;
+        protected boolean prefetch;
 
         public DownloadPostProcessor(TextureTile tile, BasicTiledImageLayer layer)
         {
@@ -628,6 +830,21 @@ public class BasicTiledImageLayer extends TiledImageLayer implements BulkRetriev
             return this.fileStore != null ? this.fileStore : this.layer.getDataFileStore();
         }
 
+        /**
+         * Indicates whether the retrieval is a prefetch of a tile that is not yet visible.
+         *
+         * @return true if the retrieval is a prefetch, otherwise false.
+         */
+        public boolean isPrefetch()
+        {
+            return this.prefetch;
+        }
+
+        public void setPrefetch(boolean prefetch)
+        {
+            this.prefetch = prefetch;
+        }
+
         @Override
         protected void markResourceAbsent()
         {
@@ -716,9 +933,10 @@ public class BasicTiledImageLayer extends TiledImageLayer implements BulkRetriev
         if (this.absentResources.isResourceAbsent(RESOURCE_ID_OGC_CAPABILITIES))
             return null;
 
-        // Get the service's OGC Capabilities resource from the session cache, or initiate a retrieval to fetch it in
-        // a separate thread. SessionCacheUtils.getOrRetrieveSessionCapabilities() returns null if it initiated a
-        // retrieval, or if the OGC Capabilities URL is unavailable.
+        // Get the service's OGC Capabilities resource from the session cache or the file store, or initiate a
+        // retrieval to fetch it in a separate thread. SessionCacheUtils.getOrRetrieveSessionCapabilities() returns
+        // null if it initiated a retrieval and has no stored copy, or if the OGC Capabilities URL is unavailable. A
+        // stored copy is returned immediately while a retrieval checks the server's copy for changes.
         //
         // Note that we use the URL's String representation as the cache key. We cannot use the URL itself, because
         // the cache invokes the methods Object.hashCode() and Object.equals() on the cache key. URL's implementations
@@ -729,8 +947,7 @@ public class BasicTiledImageLayer extends TiledImageLayer implements BulkRetriev
             caps = SessionCacheUtils.getOrRetrieveSessionCapabilities(url, WorldWind.getSessionCache(),
                 url.toString(), this.absentResources, RESOURCE_ID_OGC_CAPABILITIES, null, null);
         else
-            caps = SessionCacheUtils.getSessionCapabilities(WorldWind.getSessionCache(), url.toString(),
-                url.toString());
+            caps = SessionCacheUtils.getCachedCapabilities(url, WorldWind.getSessionCache(), url.toString());
 
         // The OGC Capabilities resource retrieval is either currently running in another thread, or has failed. In
         // either case, return null indicating that that the retrieval was not successful, and we should try again
@@ -845,6 +1062,24 @@ public class BasicTiledImageLayer extends TiledImageLayer implements BulkRetriev
         }
     }
 
+    /**
+     * Starts retrieving non-tile resources if their retrieval was deferred when this Layer was constructed, then
+     * renders this Layer. See {@link gov.nasa.worldwind.util.DataConfigurationUtils#isDeferredInitialization(AVList)}.
+     *
+     * @param dc the current draw context.
+     */
+    @Override
+    public void render(DrawContext dc)
+    {
+        if (this.resourceRetrievalDeferred && this.isEnabled())
+        {
+            this.resourceRetrievalDeferred = false;
+            this.startResourceRetrieval();
+        }
+
+        super.render(dc);
+    }
+
     /**
      * Returns a Runnable task which retrieves any non-tile resources associated with a specified Layer in it's run
      * method. This task is used by the Layer to schedule periodic resource checks. If the task's run method throws an
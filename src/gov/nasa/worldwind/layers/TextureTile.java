@@ -340,6 +340,7 @@ public class TextureTile extends Tile implements SurfaceTile
             throw new IllegalStateException(msg);
         }
 
+        long startTime = System.nanoTime();
         try
         {
             t = TextureIO.newTexture(this.getTextureData());
@@ -351,6 +352,13 @@ public class TextureTile extends Tile implements SurfaceTile
             return null;
         }
 
+        if (dc instanceof TextureUploadSchedulerHolder)
+        {
+            TextureUploadScheduler scheduler = ((TextureUploadSchedulerHolder) dc).getTextureUploadScheduler();
+            if (scheduler != null)
+                scheduler.uploadCompleted(this.getTextureData().getEstimatedMemorySize(), System.nanoTime() - startTime);
+        }
+
         this.setTexture(dc.getTextureCache(), t);
         t.bind();
 
@@ -14,6 +14,7 @@ import gov.nasa.worldwind.globes.Earth;
 import gov.nasa.worldwind.render.*;
 import gov.nasa.worldwind.retrieve.*;
 import gov.nasa.worldwind.util.*;
+import gov.nasa.worldwind.view.ViewMotionPredictor;
 import org.w3c.dom.*;
 
 import javax.imageio.ImageIO;
@@ -31,6 +32,11 @@ import java.util.concurrent.PriorityBlockingQueue;
  */
 public abstract class TiledImageLayer extends AbstractLayer
 {
+    /** The delay in milliseconds of the frame requested when texture uploads are deferred. */
+    protected static final int TEXTURE_UPLOAD_REDRAW_DELAY = 10;
+    /** The default maximum number of tile prefetch requests the layer makes each frame. */
+    protected static final int DEFAULT_MAX_PREFETCH_REQUESTS_PER_FRAME = 4;
+
     // Infrastructure
     protected static final LevelComparer levelComparer = new LevelComparer();
     protected final LevelSet levels;
@@ -45,6 +51,8 @@ public abstract class TiledImageLayer extends AbstractLayer
     protected boolean useTransparentTextures = false;
     protected ArrayList<String> supportedImageFormats = new ArrayList<String>();
     protected String textureFormat;
+    protected boolean prefetchEnabled = true;
+    protected int maxPrefetchRequestsPerFrame = DEFAULT_MAX_PREFETCH_REQUESTS_PER_FRAME;
 
     // Diagnostic flags
     protected boolean drawTileBoundaries = false;
@@ -54,6 +62,7 @@ public abstract class TiledImageLayer extends AbstractLayer
     // Stuff computed each frame
     protected ArrayList<TextureTile> currentTiles = new ArrayList<TextureTile>();
     protected TextureTile currentResourceTile;
+    protected ArrayList<TextureTile> resourceTiles = new ArrayList<TextureTile>();
     protected boolean atMaxResolution = false;
     protected PriorityBlockingQueue<Runnable> requestQ = new PriorityBlockingQueue<Runnable>(200);
 
@@ -186,6 +195,60 @@ public abstract class TiledImageLayer extends AbstractLayer
         this.detailHint = detailHint;
     }
 
+    /**
+     * Indicates whether the layer prefetches the tiles along the view's predicted path. See {@link
+     * #setPrefetchEnabled(boolean)}.
+     *
+     * @return true if the layer prefetches tiles, otherwise false.
+     */
+    public boolean isPrefetchEnabled()
+    {
+        return this.prefetchEnabled;
+    }
+
+    /**
+     * Specifies whether the layer prefetches the tiles along the view's predicted path. When enabled, and the draw
+     * context is a {@link ViewMotionPredictorHolder}, the layer requests the tiles a view at each position predicted by
+     * the draw context's {@link ViewMotionPredictor} would show, at the level it would show them. Prefetch requests are
+     * made after the requests for visible tiles and give way to them in the retrieval service. The default is true.
+     *
+     * @param prefetchEnabled true if the layer prefetches tiles, otherwise false.
+     */
+    public void setPrefetchEnabled(boolean prefetchEnabled)
+    {
+        this.prefetchEnabled = prefetchEnabled;
+    }
+
+    /**
+     * Indicates the maximum number of tile prefetch requests the layer makes each frame. See {@link
+     * #setMaxPrefetchRequestsPerFrame(int)}.
+     *
+     * @return the maximum number of prefetch requests per frame.
+     */
+    public int getMaxPrefetchRequestsPerFrame()
+    {
+        return this.maxPrefetchRequestsPerFrame;
+    }
+
+    /**
+     * Specifies the maximum number of tile prefetch requests the layer makes each frame. The default is 4.
+     *
+     * @param maxPrefetchRequestsPerFrame the maximum number of prefetch requests per frame.
+     *
+     * @throws IllegalArgumentException if the maximum is less than 1.
+     */
+    public void setMaxPrefetchRequestsPerFrame(int maxPrefetchRequestsPerFrame)
+    {
+        if (maxPrefetchRequestsPerFrame < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "maxPrefetchRequestsPerFrame < 1");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.maxPrefetchRequestsPerFrame = maxPrefetchRequestsPerFrame;
+    }
+
     protected LevelSet getLevels()
     {
         return levels;
@@ -337,6 +400,7 @@ public abstract class TiledImageLayer extends AbstractLayer
     protected void assembleTiles(DrawContext dc)
     {
         this.currentTiles.clear();
+        this.resourceTiles.clear();
 
         for (TextureTile tile : this.getTopLevels())
         {
@@ -367,6 +431,7 @@ public abstract class TiledImageLayer extends AbstractLayer
         // appropriate region of the ancestor's texture.
 
         TextureTile ancestorResource = null;
+        boolean isResourceTile = false;
 
         try
         {
@@ -383,10 +448,14 @@ public abstract class TiledImageLayer extends AbstractLayer
             // progressive resolution increase, this ensures that the parents are available as the user zooms out, and
             // therefore the layer remains visible until the user is zoomed out to the point the layer is no longer
             // active.
+            // Texture data awaiting conversion is not charged against the upload budgets here. It's charged only if a
+            // descendant is drawn with this tile's texture; see addTile.
             if (tile.isTextureInMemory(dc.getTextureCache()) || tile.getLevelNumber() == 0)
             {
                 ancestorResource = this.currentResourceTile;
                 this.currentResourceTile = tile;
+                this.resourceTiles.add(tile);
+                isResourceTile = true;
             }
             else if (!tile.getLevel().isEmpty())
             {
@@ -411,6 +480,8 @@ public abstract class TiledImageLayer extends AbstractLayer
         }
         finally
         {
+            if (isResourceTile)
+                this.resourceTiles.remove(this.resourceTiles.size() - 1);
             if (ancestorResource != null) // Pop this tile as the currentResource ancestor
                 this.currentResourceTile = ancestorResource;
         }
@@ -420,7 +491,7 @@ public abstract class TiledImageLayer extends AbstractLayer
     {
         tile.setFallbackTile(null);
 
-        if (tile.isTextureInMemory(dc.getTextureCache()))
+        if (this.isTextureReady(dc, tile))
         {
             this.addTileToCurrent(tile);
             return;
@@ -437,28 +508,93 @@ public abstract class TiledImageLayer extends AbstractLayer
             }
         }
 
-        // Tile's texture isn't available, so request it
-        if (tile.getLevelNumber() < this.levels.getNumLevels())
+        // Tile's texture isn't available, so request it. A tile whose texture data awaits conversion needs no request.
+        if (tile.getTextureData() == null && tile.getLevelNumber() < this.levels.getNumLevels())
         {
             // Request only tiles with data associated at this level
             if (!this.levels.isResourceAbsent(tile))
                 this.requestTexture(dc, tile);
         }
 
-        // Set up to use the currentResource tile's texture
-        if (this.currentResourceTile != null)
+        // Set up to use the texture of the closest ancestor that can be drawn this frame
+        TextureTile fallbackTile = this.getFallbackTile(dc);
+        if (fallbackTile != null)
         {
-            if (this.currentResourceTile.getLevelNumber() == 0 && this.forceLevelZeroLoads &&
-                !this.currentResourceTile.isTextureInMemory(dc.getTextureCache()) &&
-                !this.currentResourceTile.isTextureInMemory(dc.getTextureCache()))
-                this.forceTextureLoad(this.currentResourceTile);
+            tile.setFallbackTile(fallbackTile);
+            this.addTileToCurrent(tile);
+        }
+    }
 
-            if (this.currentResourceTile.isTextureInMemory(dc.getTextureCache()))
-            {
-                tile.setFallbackTile(currentResourceTile);
-                this.addTileToCurrent(tile);
-            }
+    /**
+     * Returns the closest ancestor of the tile being added whose texture can be drawn in the current frame. The current
+     * resource tile is preferred. If its texture data awaits conversion and the upload is deferred, the next closest
+     * resource tile is used instead.
+     *
+     * @param dc the current draw context.
+     *
+     * @return the ancestor tile to draw with, or null if no ancestor's texture can be drawn.
+     */
+    protected TextureTile getFallbackTile(DrawContext dc)
+    {
+        for (int i = this.resourceTiles.size() - 1; i >= 0; i--)
+        {
+            TextureTile resourceTile = this.resourceTiles.get(i);
+
+            if (resourceTile.getLevelNumber() == 0 && this.forceLevelZeroLoads &&
+                !resourceTile.isTextureInMemory(dc.getTextureCache()))
+                this.forceTextureLoad(resourceTile);
+
+            if (this.isTextureReady(dc, resourceTile))
+                return resourceTile;
+        }
+
+        return null;
+    }
+
+    /**
+     * Indicates whether a tile's texture can be drawn in the current frame. This is the case when the tile's texture is
+     * in the texture cache, or when the tile holds texture data and the draw context's {@link TextureUploadScheduler}
+     * grants the upload. Texture data is converted to a texture when the tile is drawn, so call this only for tiles
+     * that are drawn in the frame: each grant counts against the frame's upload budgets. Uploads are prioritized by the
+     * distance from the eye to the tile, so that the tiles covering the most screen area are uploaded first. When an
+     * upload is deferred, this requests another frame so that the upload takes place even if nothing else causes a
+     * redraw.
+     *
+     * @param dc   the current draw context.
+     * @param tile the tile.
+     *
+     * @return true if the tile's texture can be drawn in the current frame, otherwise false.
+     */
+    protected boolean isTextureReady(DrawContext dc, TextureTile tile)
+    {
+        if (!tile.isTextureInMemory(dc.getTextureCache()))
+            return false;
+
+        if (tile.getTextureData() == null)
+            return true;
+
+        if (!this.requestTextureUpload(dc, tile))
+        {
+            if (dc.getRedrawRequested() == 0 || dc.getRedrawRequested() > TEXTURE_UPLOAD_REDRAW_DELAY)
+                dc.setRedrawRequested(TEXTURE_UPLOAD_REDRAW_DELAY);
+            return false;
         }
+
+        return true;
+    }
+
+    protected boolean requestTextureUpload(DrawContext dc, TextureTile tile)
+    {
+        if (!(dc instanceof TextureUploadSchedulerHolder))
+            return true;
+
+        TextureUploadScheduler scheduler = ((TextureUploadSchedulerHolder) dc).getTextureUploadScheduler();
+        if (scheduler == null)
+            return true;
+
+        double priority = dc.getView().getEyePoint().distanceTo3(tile.getCentroidPoint(dc.getGlobe()));
+        return scheduler.requestUpload(dc.getFrameTimeStamp(), tile.getTileKey(),
+            tile.getTextureData().getEstimatedMemorySize(), priority);
     }
 
     protected void addTileToCurrent(TextureTile tile)
@@ -663,6 +799,74 @@ public abstract class TiledImageLayer extends AbstractLayer
 
         this.sendRequests();
         this.requestQ.clear();
+
+        if (this.isPrefetchEnabled())
+            this.prefetchTiles(dc);
+    }
+
+    /**
+     * Requests the tiles a view at the positions predicted by the draw context's view motion predictor would show. For
+     * each predicted position, nearest in time first, the layer determines the region and level the view would show and
+     * requests that level's tiles in the region whose textures are neither in memory nor known to be absent, nearest to
+     * the predicted position first. The layer stops when it has made {@link #getMaxPrefetchRequestsPerFrame()} requests
+     * or the task service is full. Called after the requests for the visible tiles have been sent.
+     *
+     * @param dc the current draw context.
+     */
+    protected void prefetchTiles(DrawContext dc)
+    {
+        if (!(dc instanceof ViewMotionPredictorHolder))
+            return;
+
+        ViewMotionPredictor predictor = ((ViewMotionPredictorHolder) dc).getViewMotionPredictor();
+        if (predictor == null || !predictor.hasPrediction() || dc.getView() == null)
+            return;
+
+        Angle fieldOfView = dc.getView().getFieldOfView();
+        int viewportWidth = dc.getView().getViewport().width;
+        double radius = dc.getGlobe().getRadius();
+
+        int numRequests = 0;
+        for (Position position : predictor.getPredictedPositions())
+        {
+            Sector footprint = ViewMotionPredictor.computeFootprint(position, fieldOfView, radius);
+            footprint = footprint.intersection(this.getLevels().getSector());
+            if (footprint == null)
+                continue;
+
+            double texelSize = ViewMotionPredictor.computeTexelSize(position, fieldOfView, viewportWidth, radius);
+            int levelNumber = this.computeLevelForResolution(footprint, texelSize);
+
+            List<TextureTile> tiles = new ArrayList<TextureTile>();
+            for (TextureTile[] row : this.getTilesInSector(footprint, levelNumber))
+            {
+                tiles.addAll(Arrays.asList(row));
+            }
+            Collections.sort(tiles, new TileDistanceComparer(position));
+
+            for (TextureTile tile : tiles)
+            {
+                if (numRequests >= this.maxPrefetchRequestsPerFrame || WorldWind.getTaskService().isFull())
+                    return;
+
+                if (this.getLevels().isResourceAbsent(tile) || tile.isTextureInMemory(dc.getTextureCache()))
+                    continue;
+
+                this.prefetchTexture(dc, tile);
+                numRequests++;
+            }
+        }
+    }
+
+    /**
+     * Requests a tile's texture in anticipation of the view showing the tile. Prefetch requests should give way to the
+     * requests for visible tiles. This does nothing by default; subclasses able to retrieve textures override it.
+     *
+     * @param dc   the current draw context.
+     * @param tile the tile to prefetch.
+     */
+    protected void prefetchTexture(DrawContext dc, TextureTile tile)
+    {
     }
 
     protected void checkTextureExpiration(DrawContext dc, List<TextureTile> tiles)
@@ -756,6 +960,23 @@ public abstract class TiledImageLayer extends AbstractLayer
         }
     }
 
+    protected static class TileDistanceComparer implements Comparator<TextureTile>
+    {
+        protected final LatLon location;
+
+        public TileDistanceComparer(LatLon location)
+        {
+            this.location = location;
+        }
+
+        public int compare(TextureTile ta, TextureTile tb)
+        {
+            double da = LatLon.greatCircleDistance(this.location, ta.getSector().getCentroid()).radians;
+            double db = LatLon.greatCircleDistance(this.location, tb.getSector().getCentroid()).radians;
+            return da < db ? -1 : da == db ? 0 : 1;
+        }
+    }
+
     protected void drawTileIDs(DrawContext dc, ArrayList<TextureTile> tiles)
     {
         java.awt.Rectangle viewport = dc.getView().getViewport();
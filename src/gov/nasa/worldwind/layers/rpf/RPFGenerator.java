@@ -5,6 +5,7 @@
 package gov.nasa.worldwind.layers.rpf;
 
 import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.cache.*;
 import gov.nasa.worldwind.formats.rpf.*;
 import gov.nasa.worldwind.formats.wvt.*;
 import gov.nasa.worldwind.geom.*;
@@ -26,8 +27,10 @@ class RPFGenerator
     @SuppressWarnings({"FieldCanBeLocal"})
     private final RPFFileIndex fileIndex;
     private final FrameFile[] frameFiles;
+    private final BasicQuadTree<FrameFile> frameIndex;
     private final Sector globalBounds;
     private final AbsentResourceList absentFrames;
+    private final MemoryCache frameImageCache;
     // Wavelet parameters.
     private final int smallImageSize;
     private final int preloadRes;
@@ -36,6 +39,8 @@ class RPFGenerator
     public static final String RPF_FILE_INDEX = "RPFGenerator.RPFFileIndex";
     public static final String WAVELET_IMAGE_THRESHOLD = "RPFGenerator.WaveletImageThreshold";
     public static final String WAVELET_PRELOAD_SIZE = "RPFGenerator.WaveletPreloadSize";
+    public static final String FRAME_INDEX_LEVELS = "RPFGenerator.FrameIndexLevels";
+    public static final String FRAME_CACHE_CAPACITY = "RPFGenerator.FrameCacheCapacity";
 
     public RPFGenerator(AVList params)
     {
@@ -50,9 +55,14 @@ class RPFGenerator
 
         this.fileIndex = (RPFFileIndex) params.getValue(RPF_FILE_INDEX);
         this.frameFiles = loadFrameFiles(this.fileIndex);
+        this.frameIndex = createFrameIndex(this.frameFiles, (Integer) params.getValue(FRAME_INDEX_LEVELS));
         this.globalBounds = computeGlobalBounds(this.fileIndex);
         this.absentFrames = new AbsentResourceList(-1, -1);
 
+        long capacity = (Long) params.getValue(FRAME_CACHE_CAPACITY);
+        this.frameImageCache = new BasicMemoryCache((long) (0.8 * capacity), capacity);
+        this.frameImageCache.setName("RPF Frame Images");
+
         this.smallImageSize = (Integer) params.getValue(WAVELET_IMAGE_THRESHOLD);
         this.preloadRes = (Integer) params.getValue(WAVELET_PRELOAD_SIZE);
     }
@@ -81,6 +91,14 @@ class RPFGenerator
         if (o == null || !(o instanceof Integer) || !WWMath.isPowerOfTwo((Integer) o))
             params.setValue(WAVELET_PRELOAD_SIZE, 32);
 
+        o = params.getValue(FRAME_INDEX_LEVELS);
+        if (o == null || !(o instanceof Integer) || (Integer) o < 1)
+            params.setValue(FRAME_INDEX_LEVELS, 8);
+
+        o = params.getValue(FRAME_CACHE_CAPACITY);
+        if (o == null || !(o instanceof Long) || (Long) o < 0)
+            params.setValue(FRAME_CACHE_CAPACITY, 64L * 1024L * 1024L);
+
         return params;
     }
 
@@ -128,6 +146,58 @@ class RPFGenerator
         return array;
     }
 
+    //
+    // Build a quadtree over the frame file sectors so that service requests visit only the frames near the requested
+    // sector, rather than every frame in the index. The tree spans the union of the frame sectors, which may be
+    // larger than the bounding sector recorded in the index properties.
+    //
+    private static BasicQuadTree<FrameFile> createFrameIndex(FrameFile[] frames, int numLevels)
+    {
+        Sector bounds = null;
+        for (FrameFile frame : frames)
+        {
+            bounds = (bounds != null) ? bounds.union(frame.sector) : frame.sector;
+        }
+
+        if (bounds == null)
+            bounds = Sector.FULL_SPHERE;
+
+        BasicQuadTree<FrameFile> tree = new BasicQuadTree<FrameFile>(numLevels, bounds, null);
+        for (FrameFile frame : frames)
+        {
+            tree.add(frame, frame.sector.asDegreesArray());
+        }
+
+        return tree;
+    }
+
+    //
+    // Returns the frame files whose sectors intersect the specified sector, in index order. The quadtree returns
+    // the frames in its cells touching the sector, so each candidate is tested against the sector itself.
+    //
+    private java.util.List<FrameFile> getIntersectingFrames(Sector sector)
+    {
+        Set<FrameFile> candidates = this.frameIndex.getItemsInRegion(sector, null);
+
+        java.util.List<FrameFile> frames = new ArrayList<FrameFile>(candidates.size());
+        for (FrameFile frame : candidates)
+        {
+            if (sector.intersects(frame.sector))
+                frames.add(frame);
+        }
+
+        // Draw overlapping frames in the same order as the index lists them, independent of the set's ordering.
+        Collections.sort(frames, new Comparator<FrameFile>()
+        {
+            public int compare(FrameFile a, FrameFile b)
+            {
+                return a.id < b.id ? -1 : (a.id == b.id ? 0 : 1);
+            }
+        });
+
+        return frames;
+    }
+
     //
     // Find the global bounds for this collection of frame files (i.e., the union of their Sectors).
     //
@@ -223,26 +293,8 @@ class RPFGenerator
 
                 int numFramesInRequest = 0;
 
-                for (FrameFile frame : RPFGenerator.this.frameFiles)
+                for (FrameFile frame : RPFGenerator.this.getIntersectingFrames(reqSector))
                 {
-                    try
-                    {
-                        // The call to getSector() can throw an exception if the file is
-                        // named with an inappropriate frameNumber for the dataseries/zone.
-                        // We don't want these to short circuit the entire request, so
-                        // trap any such occurances and ignore 'em.
-                        if (!reqSector.intersects(frame.sector))
-                            continue;
-                    }
-                    catch (Exception e)
-                    {
-                        /* ignore this framefile */
-                        String msg = String.format("Exception while computing frame bounds: %s", frame.rpfFile);
-                        Logging.logger().log(java.util.logging.Level.SEVERE, msg, e);
-                        markFrameFileAbsent(frame);
-                        continue;
-                    }
-
                     if (RPFGenerator.this.isFrameFileAbsent(frame))
                         continue;
                     
@@ -432,16 +484,28 @@ class RPFGenerator
         }
 
         //
-        // Attempts to return the specified FrameFile as a BufferedImage. Returns null on failure.
+        // Attempts to return the specified FrameFile as a BufferedImage. Returns null on failure. Deprojected frame
+        // images are kept in the generator's frame cache, which is shared by all service instances, so adjacent tile
+        // requests covering the same frame decode it only once.
         //
         private RPFFrameTransform.RPFImage[] getImageFromRPFSource(FrameFile frame)
         {
             try
             {
+                RPFFrameTransform.RPFImage[] images =
+                    (RPFFrameTransform.RPFImage[]) RPFGenerator.this.frameImageCache.getObject(frame.id);
+                if (images != null)
+                    return images;
+
                 File file = frame.rpfFile;
                 RPFImageFile sourceFile = RPFImageFile.load(file);
                 BufferedImage image = sourceFile.getBufferedImage();
-                return frame.getFrameTransform().deproject(frame.getFrameNumber(), image);
+                images = frame.getFrameTransform().deproject(frame.getFrameNumber(), image);
+
+                if (images != null)
+                    RPFGenerator.this.frameImageCache.add(frame.id, images, computeSizeInBytes(images));
+
+                return images;
             }
             catch (Exception e)
             {
@@ -452,6 +516,18 @@ class RPFGenerator
             }
         }
 
+        private long computeSizeInBytes(RPFFrameTransform.RPFImage[] images)
+        {
+            long size = 0;
+            for (RPFFrameTransform.RPFImage image : images)
+            {
+                if (image.getImage() != null)
+                    size += 4L * image.getImage().getWidth() * image.getImage().getHeight();
+            }
+
+            return Math.max(size, 1L);
+        }
+
         //
         // Attempts to reconstruct the given FrameFile as a BufferedImage from a WaveletEncoding.
         // Returns null if encoding does not exist or on any other failure.
@@ -499,6 +575,7 @@ class RPFGenerator
 
     private void markFrameFileAbsent(FrameFile frame)
     {
+        this.frameImageCache.remove(frame.id);
         this.absentFrames.markResourceAbsent(frame.id);
     }
 
@@ -22,6 +22,7 @@ import java.net.URL;
 import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author dcollins
@@ -29,12 +30,17 @@ import java.util.concurrent.*;
  */
 public class RPFTiledImageProcessor
 {
-    private int numThreads = -1;
+    private int numThreads = Runtime.getRuntime().availableProcessors();
     private final PropertyChangeSupport propertyChangeSupport;
     private final Object fileLock = new Object();
     private volatile boolean doStop = false;
 
     private static final int DEFAULT_WAVELET_SIZE = 256;
+    private static final String MANIFEST_SUFFIX = ".manifest";
+    // Each pipeline stage queues at most this many items per worker thread of the stage that consumes them. This
+    // bounds the number of frame records and decoded tile images held in memory between stages.
+    private static final int STAGE_QUEUE_ITEMS_PER_THREAD = 2;
+    private static final long STAGE_POLL_MILLIS = 100L;
 
     public static final String BEGIN_SUB_TASK = "BeginSubTask";
     public static final String END_SUB_TASK = "EndSubTask";
@@ -82,21 +88,103 @@ public class RPFTiledImageProcessor
         RPFFileIndex result = null;
         if (!this.doStop)
         {
-            RPFFileIndex fileIndex = new RPFFileIndex();
-            fileIndex.getIndexProperties().setRootPath(rootFile.getAbsolutePath());
-            fileIndex.getIndexProperties().setDataSeriesIdentifier(dataSeriesId);
-            fileIndex.getIndexProperties().setDescription(description);
+            RPFFileIndex fileIndex = newFileIndex(rootFile, dataSeriesId, description);
 
-            // Populate the index with the list of RPF files.
+            firePropertyChange(BEGIN_SUB_TASK, null, null);
+            if (fileIterable instanceof Collection)
+                firePropertyChange(SUB_TASK_NUM_STEPS, null, ((Collection) fileIterable).size());
+
+            // Frame files are decoded by the frame stage as they are added to the index.
+            Stage<RPFFileIndex.Record> frameStage = startFrameStage(fileIndex);
             for (File file : fileIterable)
             {
-                fileIndex.createRPFFileRecord(file);
+                if (!frameStage.put(createRPFFileRecord(fileIndex, file)))
+                    break;
+            }
+            frameStage.complete();
+            frameStage.await();
+
+            firePropertyChange(END_SUB_TASK, null, null);
+
+            // Update the RPF bounding sector.
+            fileIndex.updateBoundingSector();
+
+            if (!this.doStop)
+            {
+                result = fileIndex;
             }
+        }
+        return result;
+    }
+
+    /**
+     * Creates a file index for the RPF frame files of one data series found beneath a root directory. The directory is
+     * searched by an {@link RPFCrawler} while the frame files already found are decoded, deprojected and wavelet
+     * encoded by the processor's worker threads. Since the number of frame files is not known until the search
+     * completes, the number of steps reported by {@link #SUB_TASK_NUM_STEPS} grows as frame files are found.
+     *
+     * @param rootFile     the directory to search.
+     * @param dataSeriesId the data series code of the frame files to index, such as "ON" or "I1".
+     * @param description  the description of the data series.
+     *
+     * @return the file index, or null if the processor was stopped.
+     *
+     * @throws IllegalArgumentException if the root file or data series identifier is null, or the root file is not a
+     *                                  directory.
+     */
+    public RPFFileIndex makeFileIndex(File rootFile, final String dataSeriesId, String description)
+    {
+        if (rootFile == null)
+        {
+            String message = Logging.getMessage("nullValue.FileIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+        if (!rootFile.isDirectory())
+        {
+            String message = Logging.getMessage("generic.FileNotFound", rootFile.getPath());
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+        if (dataSeriesId == null)
+        {
+            String message = Logging.getMessage("nullValue.StringIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        RPFFileIndex result = null;
+        if (!this.doStop)
+        {
+            final RPFFileIndex fileIndex = newFileIndex(rootFile, dataSeriesId, description);
+            final AtomicInteger numFiles = new AtomicInteger();
+
+            firePropertyChange(BEGIN_SUB_TASK, null, null);
+
+            final Stage<RPFFileIndex.Record> frameStage = startFrameStage(fileIndex);
+            RPFCrawler crawler = new RPFCrawler();
+            crawler.start(rootFile, new RPFCrawler.RPFCrawlerListener()
+            {
+                public void fileFound(File file, boolean isTOCFile)
+                {
+                    if (isTOCFile || !isDataSeries(file, dataSeriesId))
+                        return;
 
-            // Process RPF file records.
-            int waveletWidth = DEFAULT_WAVELET_SIZE;
-            int waveletHeight = DEFAULT_WAVELET_SIZE;
-            processFileIndex(fileIndex, waveletWidth, waveletHeight);
+                    firePropertyChange(SUB_TASK_NUM_STEPS, null, numFiles.incrementAndGet());
+                    frameStage.put(createRPFFileRecord(fileIndex, file));
+                }
+
+                public void finished()
+                {
+                    frameStage.complete();
+                }
+            }, false);
+
+            // The crawler does not report that it has finished when it is stopped.
+            frameStage.await();
+            crawler.stop();
+
+            firePropertyChange(END_SUB_TASK, null, null);
 
             // Update the RPF bounding sector.
             fileIndex.updateBoundingSector();
@@ -109,6 +197,37 @@ public class RPFTiledImageProcessor
         return result;
     }
 
+    private static RPFFileIndex newFileIndex(File rootFile, String dataSeriesId, String description)
+    {
+        RPFFileIndex fileIndex = new RPFFileIndex();
+        fileIndex.getIndexProperties().setRootPath(rootFile.getAbsolutePath());
+        fileIndex.getIndexProperties().setDataSeriesIdentifier(dataSeriesId);
+        fileIndex.getIndexProperties().setDescription(description);
+        return fileIndex;
+    }
+
+    private static boolean isDataSeries(File file, String dataSeriesId)
+    {
+        try
+        {
+            return dataSeriesId.equalsIgnoreCase(
+                RPFFrameFilename.parseFilename(file.getName().toUpperCase()).getDataSeriesCode());
+        }
+        catch (Exception e)
+        {
+            return false;
+        }
+    }
+
+    private RPFFileIndex.Record createRPFFileRecord(RPFFileIndex fileIndex, File file)
+    {
+        // The file index tables are not thread safe. Records are created and read under the processor's file lock.
+        synchronized (this.fileLock)
+        {
+            return fileIndex.createRPFFileRecord(file);
+        }
+    }
+
     public Layer makeLayer(RPFFileIndex fileIndex)
     {
         if (fileIndex == null)
@@ -141,7 +260,7 @@ public class RPFTiledImageProcessor
             params.setValue(RPFGenerator.RPF_FILE_INDEX, fileIndex);
             Collection<Tile> tileList = RPFTiledImageLayer.createTopLevelTiles(params);
             RPFGenerator generator = new RPFGenerator(params);
-            createTiledImagery(tileList, generator);
+            createTiledImagery(tileList, generator, indexFile);
 
             // Return the layer.
             if (!this.doStop)
@@ -184,40 +303,36 @@ public class RPFTiledImageProcessor
         return path;
     }
 
-    private void processFileIndex(final RPFFileIndex fileIndex, final int waveletWidth, final int waveletHeight)
+    //
+    // Starts the stage which decodes, deprojects and wavelet encodes the frame files of the records put to it.
+    //
+    private Stage<RPFFileIndex.Record> startFrameStage(final RPFFileIndex fileIndex)
     {
-        RPFFileIndex.Table table = fileIndex.getRPFFileTable();
-        Collection<RPFFileIndex.Record> recordList = table.getRecords();
-        if (recordList != null)
+        Stage<RPFFileIndex.Record> stage = new Stage<RPFFileIndex.Record>()
         {
-            firePropertyChange(BEGIN_SUB_TASK, null, null);
-            firePropertyChange(SUB_TASK_NUM_STEPS, null, recordList.size());
-
-            Collection<Runnable> tasks = new ArrayList<Runnable>();
-            for (final RPFFileIndex.Record record : recordList)
-            {
-                tasks.add(new Runnable() {
-                    public void run() {
-                        File file = fileIndex.getRPFFile(record.getKey());
-                        try {
-                            processRecord(fileIndex, record, waveletWidth, waveletHeight);
-                            firePropertyChange(SUB_TASK_STEP_COMPLETE, null, file.getName());
-                        } catch (Throwable t) {
-                            String message = String.format("Exception while processing file: %s", file);
-                            Logging.logger().log(java.util.logging.Level.SEVERE, message, t);
-                            firePropertyChange(SUB_TASK_STEP_FAILED, null, file.getName());
-                        }
+            protected void process(RPFFileIndex.Record record)
+            {
+                File file = null;
+                try
+                {
+                    synchronized (fileLock)
+                    {
+                        file = fileIndex.getRPFFile(record.getKey());
                     }
-                });
+                    processRecord(fileIndex, record, DEFAULT_WAVELET_SIZE, DEFAULT_WAVELET_SIZE);
+                    firePropertyChange(SUB_TASK_STEP_COMPLETE, null, file.getName());
+                }
+                catch (Throwable t)
+                {
+                    String message = String.format("Exception while processing file: %s", file);
+                    Logging.logger().log(java.util.logging.Level.SEVERE, message, t);
+                    firePropertyChange(SUB_TASK_STEP_FAILED, null, file != null ? file.getName() : String.valueOf(record.getKey()));
+                }
             }
+        };
 
-            if (this.numThreads > 1)
-                runAsynchronously(tasks, this.numThreads, true);
-            else
-                run(tasks);
-
-            firePropertyChange(END_SUB_TASK, null, null);
-        }
+        stage.start(this.numThreads);
+        return stage;
     }
 
     private void processRecord(RPFFileIndex fileIndex, RPFFileIndex.Record record,
@@ -237,44 +352,53 @@ public class RPFTiledImageProcessor
         }
 
         File file = null;
-        RPFImageFile rpfImageFile = null;
+        File waveletFile = null;
         if (!this.doStop)
         {
-            // Load the RPF image file.
-            file = fileIndex.getRPFFile(record.getKey());
-            rpfImageFile = RPFImageFile.load(file);
-
-            // Create an attribute for the file's sector.
-            Sector sector = getFileSector(rpfImageFile);
-            if (sector != null)
+            // Create the wavelet file path, and a record for the wavelet file. The file index tables are not
+            // thread safe, so records are created under the same lock as the file store paths.
+            synchronized (this.fileLock)
             {
-                ((RPFFileIndex.RPFFileRecord) record).setSector(sector);
+                file = fileIndex.getRPFFile(record.getKey());
+                String cachePath = makeWaveletCachePath(fileIndex, record.getKey());
+                waveletFile = WorldWind.getDataFileStore().newFile(cachePath);
+
+                if (waveletFile != null)
+                {
+                    fileIndex.createWaveletRecord(waveletFile, record.getKey());
+                }
             }
         }
 
-        File waveletFile = null;
+        // If the wavelet file is not null, and the source RPF file is newer than the wavelet file, then a new wavelet
+        // file must be created. Otherwise the wavelet from a previous run is current, and the RPF file need only be
+        // read if its sector cannot be computed from its filename. This lets an interrupted run resume without
+        // decoding the frames it already processed.
+        boolean mustCreateWavelet = waveletFile != null && file != null
+            && file.lastModified() > waveletFile.lastModified();
+
+        RPFImageFile rpfImageFile = null;
         if (!this.doStop)
         {
-            // Create the wavelet file path.
-            synchronized (this.fileLock)
+            Sector sector = mustCreateWavelet ? null : sectorFromFilename(file);
+            if (sector == null)
             {
-                String cachePath = makeWaveletCachePath(fileIndex, record.getKey());
-                waveletFile = WorldWind.getDataFileStore().newFile(cachePath);
+                // Load the RPF image file.
+                rpfImageFile = RPFImageFile.load(file);
+                sector = getFileSector(rpfImageFile);
             }
 
-            // Create a record for the wavelet file.
-            if (waveletFile != null)
+            // Create an attribute for the file's sector.
+            if (sector != null)
             {
-                fileIndex.createWaveletRecord(waveletFile, record.getKey());
+                ((RPFFileIndex.RPFFileRecord) record).setSector(sector);
             }
         }
 
         WaveletCodec wavelet = null;
         if (!this.doStop)
         {
-            // If the wavelet file is not null, and the source RPF file is newer than the wavelet file,
-            // then create a new wavelet file.
-            if (waveletFile != null && (file != null && file.lastModified() > waveletFile.lastModified()))
+            if (mustCreateWavelet && rpfImageFile != null)
             {
                 // Get the RPF image file as a BufferedImage.
                 BufferedImage bi = rpfImageFile.getBufferedImage();
@@ -461,38 +585,166 @@ public class RPFTiledImageProcessor
     //    return isPolar;
     //}
 
-    private void createTiledImagery(Collection<Tile> tileList, RPFGenerator generator)
+    private void createTiledImagery(Collection<Tile> tileList, RPFGenerator generator, File indexFile)
     {
         firePropertyChange(BEGIN_SUB_TASK, null, null);
         firePropertyChange(SUB_TASK_NUM_STEPS, null, tileList.size());
 
-        Collection<Runnable> tasks = new ArrayList<Runnable>();
+        // The manifest lists the tiles written by a previous, interrupted run against the same file index. Those
+        // tiles are reported complete without being regenerated. Each tile is appended to the manifest once its
+        // image has been written, and the manifest is removed when the run finishes without being stopped.
+        final File manifestFile = indexFile != null ? new File(indexFile.getPath() + MANIFEST_SUFFIX) : null;
+        final String signature = makeManifestSignature(generator);
+        final Set<String> completedTiles = readManifest(manifestFile, signature);
+        final Writer manifestWriter = openManifest(manifestFile, signature, !completedTiles.isEmpty());
+
+        // Tile images are composed from the frames by the render stage, then compressed to DDS and written by the
+        // compress stage. The queue between the stages bounds the number of uncompressed images held in memory.
         final RPFGenerator.RPFServiceInstance service = generator.getServiceInstance();
-        for (final Tile tile : tileList)
+        final Stage<TileImage> compressStage = new Stage<TileImage>()
+        {
+            protected void process(TileImage tileImage)
+            {
+                try
+                {
+                    if (saveTileImage(tileImage.tile, tileImage.image))
+                        appendManifest(manifestWriter, tileImage.tile.getPath());
+                    firePropertyChange(SUB_TASK_STEP_COMPLETE, null, tileImage.tile.getPath());
+                }
+                catch (Throwable t)
+                {
+                    String message = String.format("Exception while processing image: %s", tileImage.tile.getPath());
+                    Logging.logger().log(java.util.logging.Level.SEVERE, message, t);
+                    firePropertyChange(SUB_TASK_STEP_FAILED, null, tileImage.tile.getPath());
+                }
+            }
+        };
+        Stage<Tile> renderStage = new Stage<Tile>()
         {
-            tasks.add(new Runnable() {
-                public void run() {
-                    try {
-                        createTileImage(tile, service);
+            protected void process(Tile tile)
+            {
+                try
+                {
+                    BufferedImage image = createTileImage(tile, service);
+                    if (image != null)
+                        compressStage.put(new TileImage(tile, image));
+                    else
                         firePropertyChange(SUB_TASK_STEP_COMPLETE, null, tile.getPath());
-                    } catch (Throwable t) {
-                        String message = String.format("Exception while processing image: %s", tile.getPath());
-                        Logging.logger().log(java.util.logging.Level.SEVERE, message, t);
-                        firePropertyChange(SUB_TASK_STEP_FAILED, null, tile.getPath());
-                    }
                 }
-            });
+                catch (Throwable t)
+                {
+                    String message = String.format("Exception while processing image: %s", tile.getPath());
+                    Logging.logger().log(java.util.logging.Level.SEVERE, message, t);
+                    firePropertyChange(SUB_TASK_STEP_FAILED, null, tile.getPath());
+                }
+            }
+        };
+
+        compressStage.start(this.numThreads);
+        renderStage.start(this.numThreads);
+        for (Tile tile : tileList)
+        {
+            if (completedTiles.contains(tile.getPath()) && WorldWind.getDataFileStore().findFile(tile.getPath(), false) != null)
+            {
+                firePropertyChange(SUB_TASK_STEP_COMPLETE, null, tile.getPath());
+                continue;
+            }
+
+            if (!renderStage.put(tile))
+                break;
         }
+        renderStage.complete();
+        renderStage.await();
+        compressStage.complete();
+        compressStage.await();
 
-        if (this.numThreads > 1)
-            runAsynchronously(tasks, this.numThreads, true);
-        else
-            run(tasks);
+        WWIO.closeStream(manifestWriter, manifestFile != null ? manifestFile.getPath() : null);
+        if (!this.doStop && manifestFile != null && manifestFile.exists())
+        {
+            //noinspection ResultOfMethodCallIgnored
+            manifestFile.delete();
+        }
 
         firePropertyChange(END_SUB_TASK, null, null);
     }
 
-    private void createTileImage(Tile tile, RPFGenerator.RPFServiceInstance service) throws Exception
+    private String makeManifestSignature(RPFGenerator generator)
+    {
+        // Identifies the tile set a manifest belongs to. A manifest written for different source coverage is ignored.
+        return "RPFTiledImageProcessor " + generator.getGlobalBounds().toString();
+    }
+
+    private Set<String> readManifest(File manifestFile, String signature)
+    {
+        Set<String> tiles = new HashSet<String>();
+        if (manifestFile == null || !manifestFile.exists())
+            return tiles;
+
+        BufferedReader reader = null;
+        try
+        {
+            reader = new BufferedReader(new FileReader(manifestFile));
+            String line = reader.readLine();
+            if (line == null || !line.equals(signature))
+                return tiles;
+
+            while ((line = reader.readLine()) != null)
+            {
+                if (line.length() > 0)
+                    tiles.add(line);
+            }
+        }
+        catch (Exception e)
+        {
+            String message = String.format("Exception while reading manifest: %s", manifestFile);
+            Logging.logger().log(java.util.logging.Level.SEVERE, message, e);
+        }
+        finally
+        {
+            WWIO.closeStream(reader, manifestFile.getPath());
+        }
+
+        return tiles;
+    }
+
+    private Writer openManifest(File manifestFile, String signature, boolean append)
+    {
+        if (manifestFile == null)
+            return null;
+
+        try
+        {
+            Writer writer = new BufferedWriter(new FileWriter(manifestFile, append));
+            if (!append)
+            {
+                writer.write(signature);
+                writer.write('\n');
+                writer.flush();
+            }
+            return writer;
+        }
+        catch (Exception e)
+        {
+            String message = String.format("Exception while opening manifest: %s", manifestFile);
+            Logging.logger().log(java.util.logging.Level.SEVERE, message, e);
+            return null;
+        }
+    }
+
+    private void appendManifest(Writer writer, String tilePath) throws IOException
+    {
+        if (writer == null)
+            return;
+
+        synchronized (writer)
+        {
+            writer.write(tilePath);
+            writer.write('\n');
+            writer.flush();
+        }
+    }
+
+    private BufferedImage createTileImage(Tile tile, RPFGenerator.RPFServiceInstance service) throws Exception
     {
         if (tile == null)
         {
@@ -507,38 +759,54 @@ public class RPFTiledImageProcessor
             throw new IllegalArgumentException(message);
         }
 
-        File outFile = null;
+        BufferedImage image = null;
         if (!this.doStop)
         {
-            synchronized (this.fileLock)
+            URL url = tile.getResourceURL();
+            if (url != null)
             {
-                outFile = WorldWind.getDataFileStore().newFile(tile.getPath());
+                image = service.serviceRequest(url);
             }
         }
 
-        BufferedImage image = null;
+        return image;
+    }
+
+    private boolean saveTileImage(Tile tile, BufferedImage image) throws Exception
+    {
+        File outFile = null;
         if (!this.doStop)
         {
-            URL url = tile.getResourceURL();
-            if (url != null)
+            synchronized (this.fileLock)
             {
-                image = service.serviceRequest(url);
+                outFile = WorldWind.getDataFileStore().newFile(tile.getPath());
             }
         }
 
         if (!this.doStop)
         {
-            // If an image has been created,
-            // then convert it to DDS and write it to file.
-            if (image != null)
+            // Convert the image to DDS and write it to file.
+            ByteBuffer buffer = DDSCompressor.compressImage(image);
+            if (buffer != null && outFile != null)
             {
-                ByteBuffer buffer = DDSCompressor.compressImage(image);
-                if (buffer != null && outFile != null)
-                {
-                    WWIO.saveBuffer(buffer, outFile);
-                }
+                WWIO.saveBuffer(buffer, outFile);
+                return true;
             }
         }
+
+        return false;
+    }
+
+    private static class TileImage
+    {
+        private final Tile tile;
+        private final BufferedImage image;
+
+        private TileImage(Tile tile, BufferedImage image)
+        {
+            this.tile = tile;
+            this.image = image;
+        }
     }
 
     private void saveFileIndex(RPFFileIndex fileIndex, File file)
@@ -585,58 +853,112 @@ public class RPFTiledImageProcessor
         return outImage;
     }
 
-    private void run(Iterable<Runnable> taskIterable)
+    // -----------------------------------------------
+    // class Stage
+    //
+    // One stage of the preprocessing pipeline. Items put to the stage wait in a bounded queue until one of the stage's
+    // worker threads takes and processes them, so a producer blocks while the stage is busy rather than queueing an
+    // unbounded amount of work. Once the producer calls complete, the workers finish after processing the items
+    // remaining in the queue. If the processor is stopped, producers stop blocking and the workers discard the queued
+    // items without processing them.
+    //
+    private abstract class Stage<T>
     {
-        try
+        private BlockingQueue<T> queue;
+        private ExecutorService executor;
+        private volatile boolean complete;
+
+        protected abstract void process(T item);
+
+        public void start(int numThreads)
         {
-            if (taskIterable != null)
+            numThreads = Math.max(numThreads, 1);
+            this.queue = new ArrayBlockingQueue<T>(numThreads * STAGE_QUEUE_ITEMS_PER_THREAD);
+            this.executor = Executors.newFixedThreadPool(numThreads);
+            for (int i = 0; i < numThreads; i++)
             {
-                for (Runnable task : taskIterable)
+                this.executor.execute(new Runnable()
                 {
-                    if (!this.doStop)
+                    public void run()
                     {
-                        task.run();
+                        work();
                     }
+                });
+            }
+            this.executor.shutdown();
+        }
+
+        public boolean put(T item)
+        {
+            try
+            {
+                while (!doStop)
+                {
+                    if (this.queue.offer(item, STAGE_POLL_MILLIS, TimeUnit.MILLISECONDS))
+                        return true;
                 }
             }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+
+            return false;
         }
-        catch (Exception e)
+
+        public void complete()
         {
-            String message = "Exception while executing tasks";
-            Logging.logger().log(java.util.logging.Level.SEVERE, message, e);
+            this.complete = true;
         }
-    }
 
-    private void runAsynchronously(Iterable<Runnable> taskIterable, int threadPoolSize, boolean blockUntilFinished)
-    {
-        try
+        public void await()
         {
-            if (taskIterable != null)
+            try
             {
-                ExecutorService executor = Executors.newFixedThreadPool(threadPoolSize);
+                while (!this.executor.awaitTermination(STAGE_POLL_MILLIS, TimeUnit.MILLISECONDS))
+                {
+                    // A stopped processor may never complete the stage's input. The workers then finish once they
+                    // have discarded the queued items.
+                    if (doStop)
+                        this.complete();
+                }
+            }
+            catch (InterruptedException e)
+            {
+                this.executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
 
-                for (Runnable task : taskIterable)
+        private void work()
+        {
+            try
+            {
+                while (true)
                 {
-                    if (!this.doStop)
+                    // Test for completion before polling, so the queue is known to be empty when the poll fails.
+                    boolean complete = this.complete || doStop;
+                    T item = this.queue.poll(STAGE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (item == null)
+                    {
+                        if (complete)
+                            return;
+                    }
+                    else if (!doStop)
                     {
-                        if (task != null)
-                        {
-                            executor.submit(task);
-                        }
+                        this.process(item);
                     }
                 }
-                executor.shutdown();
-
-                // Attempt to block this thread until all Runnables
-                // have completed execution.
-                while (blockUntilFinished && !executor.awaitTermination(1000L, TimeUnit.MILLISECONDS))
-                {}
             }
-        }
-        catch (Exception e)
-        {
-            String message = "Exception while executing tasks";
-            Logging.logger().log(java.util.logging.Level.SEVERE, message, e);
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+            catch (Throwable t)
+            {
+                String message = "Exception while executing tasks";
+                Logging.logger().log(java.util.logging.Level.SEVERE, message, t);
+            }
         }
     }
 
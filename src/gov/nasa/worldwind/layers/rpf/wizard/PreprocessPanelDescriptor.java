@@ -31,7 +31,7 @@ public class PreprocessPanelDescriptor extends DefaultPanelDescriptor
     private RPFTiledImageProcessor preprocessor;
     private Thread workerThread;
     // Preprocessing state display components.
-    private int numSteps;
+    private volatile int numSteps;
     private final AtomicInteger stepsTaken = new AtomicInteger(0);
     private final AtomicInteger stepsWithErrors = new AtomicInteger(0);
     private final ETRCalculator etrCalc = new ETRCalculator();
@@ -40,7 +40,7 @@ public class PreprocessPanelDescriptor extends DefaultPanelDescriptor
     public static final String THREAD_POOL_SIZE = "gov.nasa.worldwind.rpf.wizard.ThreadPoolSize";
     public static final String STEPS_NEEDED_FOR_ESTIMATE = "gov.nasa.worldwind.rpf.wizard.StepsNeededForEstimate";
 
-    private static final int DEFAULT_THREAD_POOL_SIZE = 3;
+    private static final int DEFAULT_THREAD_POOL_SIZE = Runtime.getRuntime().availableProcessors();
     private static final int DEFAULT_STEPS_NEEDED_FOR_ESTIMATE = 20;
 
     public PreprocessPanelDescriptor()
@@ -148,7 +148,9 @@ public class PreprocessPanelDescriptor extends DefaultPanelDescriptor
                 String subDescr = makeSubStepDescription(descr, "Processing Image Files");
                 this.panelComponent.setDescription(RPFWizardUtil.makeBold(subDescr));
 
-                fileIndex = this.preprocessor.makeFileIndex(inFile, set.getIdentifier(), set.getTitle(), set.getFiles());
+                // The set's frame files are found again by the processor's crawler so that frame decoding starts
+                // while the directory is still being searched.
+                fileIndex = this.preprocessor.makeFileIndex(inFile, set.getIdentifier(), set.getTitle());
                 set.setProperty("filesProcessed", this.stepsTaken.intValue());
                 set.setProperty("filesWithErrors", this.stepsWithErrors.intValue());
             }
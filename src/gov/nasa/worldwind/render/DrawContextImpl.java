@@ -8,6 +8,7 @@ package gov.nasa.worldwind.render;
 
 import com.sun.opengl.util.texture.TextureCoords;
 import gov.nasa.worldwind.*;
+import gov.nasa.worldwind.avlist.AVKey;
 import gov.nasa.worldwind.cache.TextureCache;
 import gov.nasa.worldwind.geom.*;
 import gov.nasa.worldwind.globes.Globe;
@@ -15,6 +16,7 @@ import gov.nasa.worldwind.layers.*;
 import gov.nasa.worldwind.pick.*;
 import gov.nasa.worldwind.terrain.*;
 import gov.nasa.worldwind.util.*;
+import gov.nasa.worldwind.view.ViewMotionPredictor;
 
 import javax.media.opengl.*;
 import javax.media.opengl.glu.GLU;
@@ -28,7 +30,8 @@ import java.util.Queue;
  * @author Tom Gaskins
  * @version $Id: DrawContextImpl.java 14193 2010-12-06 22:20:43Z dcollins $
  */
-public class DrawContextImpl extends WWObjectImpl implements DrawContext
+public class DrawContextImpl extends WWObjectImpl implements DrawContext, TextureUploadSchedulerHolder,
+    ViewMotionPredictorHolder
 {
     private long frameTimestamp;
     private GLContext glContext;
@@ -52,6 +55,14 @@ public class DrawContextImpl extends WWObjectImpl implements DrawContext
     private SurfaceTileRenderer geographicSurfaceTileRenderer = new GeographicSurfaceTileRenderer();
     private AnnotationRenderer annotationRenderer = new BasicAnnotationRenderer();
     private TextureCache textureCache;
+    private TextureUploadScheduler textureUploadScheduler = new TextureUploadScheduler(
+        Configuration.getIntegerValue(AVKey.TEXTURE_UPLOADS_PER_FRAME,
+            TextureUploadScheduler.DEFAULT_MAX_UPLOADS_PER_FRAME),
+        Configuration.getLongValue(AVKey.TEXTURE_UPLOAD_BYTES_PER_FRAME,
+            TextureUploadScheduler.DEFAULT_MAX_BYTES_PER_FRAME),
+        Configuration.getLongValue(AVKey.TEXTURE_UPLOAD_MILLIS_PER_FRAME,
+            TextureUploadScheduler.DEFAULT_MAX_MILLIS_PER_FRAME));
+    private ViewMotionPredictor viewMotionPredictor = new ViewMotionPredictor();
     private TextRendererCache textRendererCache;
     private Set<String> perFrameStatisticsKeys;
     private Collection<PerformanceStatistic> perFrameStatistics;
@@ -271,6 +282,16 @@ public class DrawContextImpl extends WWObjectImpl implements DrawContext
         this.textureCache = textureCache;
     }
 
+    public TextureUploadScheduler getTextureUploadScheduler()
+    {
+        return this.textureUploadScheduler;
+    }
+
+    public ViewMotionPredictor getViewMotionPredictor()
+    {
+        return this.viewMotionPredictor;
+    }
+
     public TextRendererCache getTextRendererCache()
     {
         return textRendererCache;
@@ -12,6 +12,7 @@ import gov.nasa.worldwind.*;
 import gov.nasa.worldwind.avlist.*;
 import gov.nasa.worldwind.exception.WWRuntimeException;
 import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
 import gov.nasa.worldwind.layers.Layer;
 import gov.nasa.worldwind.ogc.kml.KMLConstants;
 import gov.nasa.worldwind.ogc.kml.impl.KMLExportUtil;
@@ -194,6 +195,8 @@ public class ExtrudedPolygon extends AVListImpl
     // These values are determined every frame, thus they are safe for multi-window usage.
     protected long frameID; // the ID of the most recent rendering frame
     protected long visGeomRegenFrame = -1;
+    protected long terrainChangeEpoch = -1; // the terrain's change epoch when the geometry was last regenerated
+    protected Vec4 regenEyePoint; // the eye point when the geometry was last regenerated
     protected double previousExaggeration = -1;
     protected Layer pickLayer; // shape's layer when ordered renderable was created
     protected OGLStackHandler BEogsh = new OGLStackHandler();
@@ -1356,8 +1359,32 @@ public class ExtrudedPolygon extends AVListImpl
             || dc.getVerticalExaggeration() != this.previousExaggeration)
             return true;
 
-        return this.getAltitudeMode() != WorldWind.ABSOLUTE
-            && this.frameID - this.visGeomRegenFrame > this.getGeometryRegenerationInterval();
+        if (this.getAltitudeMode() == WorldWind.ABSOLUTE)
+            return false;
+
+        // Elevation data beneath the shape has arrived or changed.
+        if (this.getTerrainChangeEpoch(dc) != this.terrainChangeEpoch)
+            return true;
+
+        // The terrain's resolution also varies with the view, so periodically regenerate after the view moves.
+        return this.frameID - this.visGeomRegenFrame > this.getGeometryRegenerationInterval()
+            && (this.regenEyePoint == null || dc.getView().getEyePoint().distanceTo3(this.regenEyePoint) != 0);
+    }
+
+    /**
+     * Returns the change epoch of the terrain beneath the shape. See {@link ElevationChangeTracker#getChangeEpoch(Sector)}.
+     *
+     * @param dc the current draw context.
+     *
+     * @return the change epoch of the elevations within the shape's sector.
+     */
+    protected long getTerrainChangeEpoch(DrawContext dc)
+    {
+        ElevationModel em = dc.getGlobe().getElevationModel();
+        if (!(em instanceof ElevationChangeTracker))
+            return 0;
+
+        return ((ElevationChangeTracker) em).getChangeEpoch(this.getSector());
     }
 
     /**
@@ -1560,6 +1587,9 @@ public class ExtrudedPolygon extends AVListImpl
         // Re-use values already calculated this frame.
         if (this.mustRegenerateGeometry(dc)) // TODO: account for multi-window
         {
+            // Capture the terrain's epoch first so that elevations arriving during regeneration trigger another one.
+            long epoch = this.getTerrainChangeEpoch(dc);
+
             if (dc.getSurfaceGeometry() == null || this.boundarySet.boundaries.size() < 1)
                 return;
 
@@ -1582,6 +1612,8 @@ public class ExtrudedPolygon extends AVListImpl
 
             this.createVisualGeometry(dc, dc.getTerrain(), this.boundarySet, true);
             this.visGeomRegenFrame = dc.getFrameTimeStamp();
+            this.terrainChangeEpoch = epoch;
+            this.regenEyePoint = dc.getView().getEyePoint();
             this.previousExaggeration = dc.getVerticalExaggeration();
         }
 
@@ -11,7 +11,7 @@ import com.sun.opengl.util.BufferUtil;
 import gov.nasa.worldwind.*;
 import gov.nasa.worldwind.avlist.AVKey;
 import gov.nasa.worldwind.geom.*;
-import gov.nasa.worldwind.globes.Globe;
+import gov.nasa.worldwind.globes.*;
 import gov.nasa.worldwind.layers.Layer;
 import gov.nasa.worldwind.ogc.kml.KMLConstants;
 import gov.nasa.worldwind.ogc.kml.impl.KMLExportUtil;
@@ -100,6 +100,9 @@ public class Path extends WWObjectImpl implements Highlightable, OrderedRenderab
     protected boolean enableBatchPicking = true;
     protected long geometryRegenerationInteval = DEFAULT_GEOMETRY_GENERATION_INTERVAL;
     protected int outlinePickWidth = 10;
+    protected double simplificationPixels; // zero disables simplification
+    protected PolylineSimplifier simplifier; // built on demand from the path's positions
+    protected double simplificationTolerance = -1; // the tolerance the tessellated positions were simplified to
 
     // Values computed once per frame and reused during the frame as needed.
     protected long frameNumber = -1; // identifies frame used to calculate these values
@@ -110,6 +113,9 @@ public class Path extends WWObjectImpl implements Highlightable, OrderedRenderab
     protected boolean hasExtrusionPoints; // true when the rendered path contains extrusion points
     protected Vec4 referenceCenter;
     protected Extent extent;
+    protected Sector sector; // the path's bounding sector
+    protected long terrainChangeEpoch = -1; // the terrain's change epoch when the geometry was last regenerated
+    protected Vec4 regenEyePoint; // the eye point when the geometry was last regenerated
     protected double eyeDistance;
     protected Position endPosition;
     protected Layer pickLayer;
@@ -193,6 +199,7 @@ public class Path extends WWObjectImpl implements Highlightable, OrderedRenderab
         if (this.renderedPath != null)
             this.renderedPath.clear();
         this.extent = null;
+        this.sector = null;
     }
 
     /**
@@ -225,6 +232,7 @@ public class Path extends WWObjectImpl implements Highlightable, OrderedRenderab
 
         this.reset();
         this.positions = positions;
+        this.simplifier = null;
         this.computePositionCount();
     }
 
@@ -447,6 +455,32 @@ public class Path extends WWObjectImpl implements Highlightable, OrderedRenderab
         this.terrainConformance = terrainConformance;
     }
 
+    /**
+     * Indicates the screen-space tolerance to which the path's positions are simplified before they're tessellated.
+     *
+     * @return the simplification tolerance, in pixels. Zero indicates that the path is not simplified.
+     *
+     * @see #setSimplificationPixels(double)
+     */
+    public double getSimplificationPixels()
+    {
+        return this.simplificationPixels;
+    }
+
+    /**
+     * Specifies a screen-space tolerance to which the path's positions are simplified before they're tessellated.
+     * Positions whose omission would move the path by less than this many pixels in the current view are skipped, so
+     * the cost of drawing paths with very many positions depends on their visual complexity rather than on their
+     * number of positions. See {@link PolylineSimplifier}. Simplification is disabled by default.
+     *
+     * @param simplificationPixels the simplification tolerance, in pixels. Zero or less disables simplification.
+     */
+    public void setSimplificationPixels(double simplificationPixels)
+    {
+        this.reset();
+        this.simplificationPixels = simplificationPixels;
+    }
+
     /**
      * Indicate's the paths path type.
      *
@@ -565,11 +599,65 @@ public class Path extends WWObjectImpl implements Highlightable, OrderedRenderab
         this.extent = extent;
     }
 
+    /**
+     * Returns the path's bounding sector.
+     *
+     * @return the path's bounding sector, or null if the path has no positions.
+     */
+    public Sector getSector()
+    {
+        if (this.sector == null && this.positions != null)
+            this.sector = Sector.boundingSector(this.positions);
+
+        return this.sector;
+    }
+
+    /**
+     * Indicates whether the path's geometry depends on the terrain, and must therefore be regenerated when the terrain
+     * changes.
+     *
+     * @return true if the path follows the terrain, is positioned relative to it, or is extruded to it.
+     */
+    protected boolean isTerrainDependent()
+    {
+        return this.isFollowTerrain() || this.getAltitudeMode() != WorldWind.ABSOLUTE || this.isExtrude();
+    }
+
+    /**
+     * Returns the change epoch of the terrain beneath the path. See {@link ElevationChangeTracker#getChangeEpoch(Sector)}.
+     *
+     * @param dc the current draw context.
+     *
+     * @return the change epoch of the elevations within the path's sector.
+     */
+    protected long getTerrainChangeEpoch(DrawContext dc)
+    {
+        ElevationModel em = dc.getGlobe().getElevationModel();
+        if (!(em instanceof ElevationChangeTracker))
+            return 0;
+
+        return ((ElevationChangeTracker) em).getChangeEpoch(this.getSector());
+    }
+
     protected boolean mustRegenerateGeometry(DrawContext dc)
     {
-        return this.referenceCenter == null || this.renderedPath == null
-            || dc.getVerticalExaggeration() != this.previousExaggeration
-            || this.frameNumber - this.regenTime > this.getGeometryRegenerationInteval();
+        if (this.referenceCenter == null || this.renderedPath == null
+            || dc.getVerticalExaggeration() != this.previousExaggeration)
+            return true;
+
+        if (this.mustResimplify(dc))
+            return true;
+
+        if (!this.isTerrainDependent())
+            return false;
+
+        // Elevation data beneath the path has arrived or changed.
+        if (this.getTerrainChangeEpoch(dc) != this.terrainChangeEpoch)
+            return true;
+
+        // The terrain's resolution also varies with the view, so periodically regenerate after the view moves.
+        return this.frameNumber - this.regenTime > this.getGeometryRegenerationInteval()
+            && (this.regenEyePoint == null || dc.getView().getEyePoint().distanceTo3(this.regenEyePoint) != 0);
     }
 
     /** Counts the number of positions in the path's specified positions. */
@@ -717,6 +805,8 @@ public class Path extends WWObjectImpl implements Highlightable, OrderedRenderab
             {
                 this.regenTime = this.frameNumber;
                 this.previousExaggeration = dc.getVerticalExaggeration();
+                this.terrainChangeEpoch = this.getTerrainChangeEpoch(dc);
+                this.regenEyePoint = dc.getView().getEyePoint();
 
                 if (this.referenceCenter == null) // ref center never changes unless the path's positions change
                 {
@@ -728,7 +818,7 @@ public class Path extends WWObjectImpl implements Highlightable, OrderedRenderab
                 }
 
                 // Re-use the tessellation positions if we can.
-                if (this.tessellatedPositions == null || this.isFollowTerrain())
+                if (this.tessellatedPositions == null || this.isFollowTerrain() || this.mustResimplify(dc))
                     this.makeTessellatedPositions(dc);
                 if (this.tessellatedPositions == null || this.tessellatedPositions.size() < 2)
                     return;
@@ -1151,24 +1241,29 @@ public class Path extends WWObjectImpl implements Highlightable, OrderedRenderab
         path.clear();
 
         Globe globe = dc.getGlobe();
+        double ve = dc.getVerticalExaggeration();
 
-        if (dc.getVerticalExaggeration() != 1)
+        if (globe instanceof BulkPositionConverter)
         {
-            double ve = dc.getVerticalExaggeration();
+            // Pack the positions and convert them in one pass, rather than creating a point per position.
+            double[] coords = new double[3 * numPositions];
+            int i = 0;
             for (Position pos : positions)
             {
-                Vec4 pt = globe.computePointFromPosition(pos.getLatitude(), pos.getLongitude(),
-                    ve * (pos.getAltitude()));
-                path.put((float) (pt.x - this.referenceCenter.x));
-                path.put((float) (pt.y - this.referenceCenter.y));
-                path.put((float) (pt.z - this.referenceCenter.z));
+                coords[i++] = pos.getLatitude().degrees;
+                coords[i++] = pos.getLongitude().degrees;
+                coords[i++] = ve * pos.getAltitude();
             }
+
+            ((BulkPositionConverter) globe).computePointsFromPositions(coords, numPositions, this.referenceCenter,
+                path);
         }
         else
         {
             for (Position pos : positions)
             {
-                Vec4 pt = globe.computePointFromPosition(pos);
+                Vec4 pt = globe.computePointFromPosition(pos.getLatitude(), pos.getLongitude(),
+                    ve * (pos.getAltitude()));
                 path.put((float) (pt.x - this.referenceCenter.x));
                 path.put((float) (pt.y - this.referenceCenter.y));
                 path.put((float) (pt.z - this.referenceCenter.z));
@@ -1224,6 +1319,14 @@ public class Path extends WWObjectImpl implements Highlightable, OrderedRenderab
 
         this.polePositions.clear();
 
+        // Determine the positions significant at the current view, if the path is simplified.
+        int[] selected = null;
+        if (this.simplificationPixels > 0)
+        {
+            this.simplificationTolerance = this.computeSimplificationTolerance(dc);
+            selected = this.getSimplifier().select(this.simplificationTolerance);
+        }
+
         Iterator<? extends Position> iter = this.positions.iterator();
         Position posA = iter.next();
         this.addPosition(posA, true); // add the first position of the path
@@ -1239,7 +1342,7 @@ public class Path extends WWObjectImpl implements Highlightable, OrderedRenderab
         }
 
         // Tessellate each segment of the path.
-        for (int i = 1; i <= this.numPositions; i++)
+        for (int i = 1, nextSelected = 1; i <= this.numPositions; i++)
         {
             Position posB;
             if (i < this.numPositions)
@@ -1247,6 +1350,13 @@ public class Path extends WWObjectImpl implements Highlightable, OrderedRenderab
             else
                 break;
 
+            if (selected != null)
+            {
+                if (nextSelected >= selected.length || selected[nextSelected] != i)
+                    continue;
+                nextSelected++;
+            }
+
             ptB = this.computePoint(dc, posB);
 
             // If the segment is very small or not visible, don't tessellate it, just add the segment's end position.
@@ -1260,6 +1370,44 @@ public class Path extends WWObjectImpl implements Highlightable, OrderedRenderab
         }
     }
 
+    /**
+     * Returns the simplifier for the path's positions, creating it if necessary.
+     *
+     * @return the path's simplifier.
+     */
+    protected PolylineSimplifier getSimplifier()
+    {
+        if (this.simplifier == null)
+            this.simplifier = new PolylineSimplifier(this.positions);
+
+        return this.simplifier;
+    }
+
+    /**
+     * Computes the distance corresponding to the path's simplification tolerance in the current view.
+     *
+     * @param dc the current draw context.
+     *
+     * @return the simplification tolerance, in meters.
+     */
+    protected double computeSimplificationTolerance(DrawContext dc)
+    {
+        return this.getSimplifier().computeTolerance(dc, this.simplificationPixels);
+    }
+
+    /**
+     * Indicates whether the path is simplified and the view has changed enough to require simplifying it again.
+     *
+     * @param dc the current draw context.
+     *
+     * @return true if the path's positions must be simplified again, otherwise false.
+     */
+    protected boolean mustResimplify(DrawContext dc)
+    {
+        return this.simplificationPixels > 0 && this.positions != null
+            && this.computeSimplificationTolerance(dc) != this.simplificationTolerance;
+    }
+
     /**
      * Adds a position to the path's <code>tesselatedPositions</code> list and optionally its <code>polePositions</code>
      * list.
@@ -12,7 +12,7 @@ import gov.nasa.worldwind.*;
 import gov.nasa.worldwind.avlist.*;
 import gov.nasa.worldwind.exception.WWRuntimeException;
 import gov.nasa.worldwind.geom.*;
-import gov.nasa.worldwind.globes.Globe;
+import gov.nasa.worldwind.globes.*;
 import gov.nasa.worldwind.layers.Layer;
 import gov.nasa.worldwind.ogc.kml.KMLConstants;
 import gov.nasa.worldwind.ogc.kml.impl.KMLExportUtil;
@@ -139,6 +139,8 @@ public class Polygon extends AVListImpl
     // These values are determined with every geometry regeneration.
     protected long frameID; // the ID of the most recent rendering frame
     protected long visGeomRegenFrame = -1;
+    protected long terrainChangeEpoch = -1; // the terrain's change epoch when the geometry was last regenerated
+    protected Vec4 regenEyePoint; // the eye point when the geometry was last regenerated
     protected double previousExaggeration = -1;
     protected int totalNumLocations; // number of specified locations in the entire polygon
     protected Matrix rotationMatrix;
@@ -934,8 +936,32 @@ public class Polygon extends AVListImpl
         if (this.boundarySet.vertexBuffer == null || dc.getVerticalExaggeration() != this.previousExaggeration)
             return true;
 
-        return this.getAltitudeMode() != WorldWind.ABSOLUTE
-            && this.frameID - this.visGeomRegenFrame > this.getGeometryRegenerationInterval();
+        if (this.getAltitudeMode() == WorldWind.ABSOLUTE)
+            return false;
+
+        // Elevation data beneath the shape has arrived or changed.
+        if (this.getTerrainChangeEpoch(dc) != this.terrainChangeEpoch)
+            return true;
+
+        // The terrain's resolution also varies with the view, so periodically regenerate after the view moves.
+        return this.frameID - this.visGeomRegenFrame > this.getGeometryRegenerationInterval()
+            && (this.regenEyePoint == null || dc.getView().getEyePoint().distanceTo3(this.regenEyePoint) != 0);
+    }
+
+    /**
+     * Returns the change epoch of the terrain beneath the shape. See {@link ElevationChangeTracker#getChangeEpoch(Sector)}.
+     *
+     * @param dc the current draw context.
+     *
+     * @return the change epoch of the elevations within the shape's sector.
+     */
+    protected long getTerrainChangeEpoch(DrawContext dc)
+    {
+        ElevationModel em = dc.getGlobe().getElevationModel();
+        if (!(em instanceof ElevationChangeTracker))
+            return 0;
+
+        return ((ElevationChangeTracker) em).getChangeEpoch(this.getSector());
     }
 
     /**
@@ -1071,6 +1097,9 @@ public class Polygon extends AVListImpl
         // Re-use values already calculated this frame.
         if (this.mustRegenerateGeometry(dc)) // TODO: account for multi-window
         {
+            // Capture the terrain's epoch first so that elevations arriving during regeneration trigger another one.
+            long epoch = this.getTerrainChangeEpoch(dc);
+
             if (dc.getSurfaceGeometry() == null || this.boundarySet.boundaries.size() < 1)
                 return;
 
@@ -1096,6 +1125,8 @@ public class Polygon extends AVListImpl
 
             this.createVisualGeometry(dc, dc.getTerrain(), this.boundarySet, true);
             this.visGeomRegenFrame = dc.getFrameTimeStamp();
+            this.terrainChangeEpoch = epoch;
+            this.regenEyePoint = dc.getView().getEyePoint();
             this.previousExaggeration = dc.getVerticalExaggeration();
         }
 
@@ -1604,6 +1635,31 @@ public class Polygon extends AVListImpl
         int n = boundary.locations.size();
         Vec4[] boundaryVertices = new Vec4[n];
 
+        if (this.getAltitudeMode() != WorldWind.RELATIVE_TO_GROUND && this.rotationMatrix == null
+            && terrain.getGlobe() instanceof BulkPositionConverter)
+        {
+            // Convert the boundary in one pass, avoiding the intermediate points of the per-location path below.
+            double ve = terrain.getVerticalExaggeration();
+            double[] coords = new double[3 * n];
+            for (int i = 0; i < n; i++)
+            {
+                LatLon location = boundary.locations.get(i);
+                coords[3 * i] = location.getLatitude().degrees;
+                coords[3 * i + 1] = location.getLongitude().degrees;
+                coords[3 * i + 2] = location instanceof Position ? ((Position) location).getElevation() * ve : 0;
+            }
+
+            ((BulkPositionConverter) terrain.getGlobe()).computePointsFromPositions(coords, n, refPoint, coords);
+
+            for (int i = 0; i < n; i++)
+            {
+                boundaryVertices[i] = new Vec4(coords[3 * i], coords[3 * i + 1], coords[3 * i + 2]);
+            }
+
+            boundary.vertices = boundaryVertices;
+            return;
+        }
+
         for (int i = 0; i < n; i++)
         {
             if (this.rotationMatrix == null)
@@ -0,0 +1,348 @@
+/*
+Copyright (C) 2001, 2010 United States Government
+as represented by the Administrator of the
+National Aeronautics and Space Administration.
+All Rights Reserved.
+*/
+package gov.nasa.worldwind.render;
+
+import gov.nasa.worldwind.util.*;
+
+import java.util.*;
+
+/**
+ * Schedules the conversion of texture data to textures, which uploads the data to the graphics device, so that the
+ * uploads of a frame stay within a count budget, a byte budget and a time budget. Without scheduling, a burst of
+ * arriving texture data, such as after the view jumps to a new location, causes a frame that uploads all of it at once.
+ * <p/>
+ * Renderers call {@link #requestUpload(long, Object, long, double)} before uploading texture data, and upload only when
+ * it returns true. Requests which are refused during a frame compete for the budget of the next frame, which grants
+ * them in order of priority until the count or byte budget is spent. A priority is a value such as a distance to the
+ * eye: lower values are more important. Renderers report each upload's duration to {@link #uploadCompleted(long,
+ * long)}; once a frame's uploads have taken the time budget, the scheduler refuses further uploads in that frame. While
+ * no upload has been granted in a frame, the first request is also granted whatever its key if it fits in the budget
+ * left by the requests granted at the start of the frame, so that frames make progress even when those requests are no
+ * longer made.
+ * <p/>
+ * The scheduler only schedules. It does not access OpenGL and does not hold textures; uploaded textures reside in the
+ * draw context's {@link gov.nasa.worldwind.cache.TextureCache}, which is shared by all layers and evicts the least
+ * recently used textures when its capacity is reached. A scheduler is used by the rendering thread of one window and is
+ * not thread safe.
+ *
+ * @version $Id$
+ */
+public class TextureUploadScheduler
+{
+    /** The default maximum number of uploads each frame. */
+    public static final int DEFAULT_MAX_UPLOADS_PER_FRAME = 8;
+    /** The default maximum number of bytes uploaded each frame: 16 MB. */
+    public static final long DEFAULT_MAX_BYTES_PER_FRAME = 16000000L;
+    /** The default maximum time spent uploading each frame, in milliseconds. */
+    public static final long DEFAULT_MAX_MILLIS_PER_FRAME = 8L;
+
+    protected static class Request implements Comparable<Request>
+    {
+        protected final Object key;
+        protected final long sizeInBytes;
+        protected double priority;
+
+        public Request(Object key, long sizeInBytes, double priority)
+        {
+            this.key = key;
+            this.sizeInBytes = sizeInBytes;
+            this.priority = priority;
+        }
+
+        public int compareTo(Request that)
+        {
+            return this.priority < that.priority ? -1 : this.priority == that.priority ? 0 : 1;
+        }
+    }
+
+    protected int maxUploadsPerFrame;
+    protected long maxBytesPerFrame;
+    protected long maxNanosPerFrame;
+    protected long frameTimeStamp = -1;
+    // Requests refused during the current frame. They compete for the next frame's budget.
+    protected Map<Object, Request> deferredRequests = new HashMap<Object, Request>();
+    // Requests granted at the start of the current frame, keyed by request key, and the total size of those not yet
+    // uploaded.
+    protected Map<Object, Request> grantedRequests = new HashMap<Object, Request>();
+    protected long grantedBytes;
+    // Keys of the uploads granted during the current frame.
+    protected Set<Object> uploadKeys = new HashSet<Object>();
+    protected long frameUploadCount;
+    protected long frameUploadBytes;
+    protected long frameUploadNanos;
+    protected long uploadCount;
+    protected long uploadBytes;
+    protected long uploadNanos;
+    protected long deferredCount;
+
+    /** Creates a scheduler with the default budgets. */
+    public TextureUploadScheduler()
+    {
+        this(DEFAULT_MAX_UPLOADS_PER_FRAME, DEFAULT_MAX_BYTES_PER_FRAME, DEFAULT_MAX_MILLIS_PER_FRAME);
+    }
+
+    /**
+     * Creates a scheduler with specified budgets.
+     *
+     * @param maxUploadsPerFrame the maximum number of uploads each frame.
+     * @param maxBytesPerFrame   the maximum number of bytes uploaded each frame.
+     * @param maxMillisPerFrame  the maximum time spent uploading each frame, in milliseconds.
+     *
+     * @throws IllegalArgumentException if any budget is less than 1.
+     */
+    public TextureUploadScheduler(int maxUploadsPerFrame, long maxBytesPerFrame, long maxMillisPerFrame)
+    {
+        this.setMaxUploadsPerFrame(maxUploadsPerFrame);
+        this.setMaxBytesPerFrame(maxBytesPerFrame);
+        this.setMaxMillisPerFrame(maxMillisPerFrame);
+    }
+
+    public int getMaxUploadsPerFrame()
+    {
+        return this.maxUploadsPerFrame;
+    }
+
+    /**
+     * Specifies the maximum number of uploads each frame. Limiting the count keeps frames short when many small
+     * textures arrive at once, which the byte budget alone would admit.
+     *
+     * @param maxUploadsPerFrame the maximum number of uploads each frame.
+     *
+     * @throws IllegalArgumentException if the maximum is less than 1.
+     */
+    public void setMaxUploadsPerFrame(int maxUploadsPerFrame)
+    {
+        if (maxUploadsPerFrame < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "maxUploadsPerFrame < 1");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.maxUploadsPerFrame = maxUploadsPerFrame;
+    }
+
+    public long getMaxBytesPerFrame()
+    {
+        return this.maxBytesPerFrame;
+    }
+
+    /**
+     * Specifies the maximum number of bytes uploaded each frame.
+     *
+     * @param maxBytesPerFrame the maximum number of bytes uploaded each frame.
+     *
+     * @throws IllegalArgumentException if the maximum is less than 1.
+     */
+    public void setMaxBytesPerFrame(long maxBytesPerFrame)
+    {
+        if (maxBytesPerFrame < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "maxBytesPerFrame < 1");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.maxBytesPerFrame = maxBytesPerFrame;
+    }
+
+    public long getMaxMillisPerFrame()
+    {
+        return this.maxNanosPerFrame / 1000000L;
+    }
+
+    /**
+     * Specifies the maximum time spent uploading each frame.
+     *
+     * @param maxMillisPerFrame the maximum upload time each frame, in milliseconds.
+     *
+     * @throws IllegalArgumentException if the maximum is less than 1.
+     */
+    public void setMaxMillisPerFrame(long maxMillisPerFrame)
+    {
+        if (maxMillisPerFrame < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "maxMillisPerFrame < 1");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.maxNanosPerFrame = maxMillisPerFrame * 1000000L;
+    }
+
+    /**
+     * Requests permission to upload texture data in a frame. The request is granted if it was granted at the start of
+     * the frame, provided the frame's uploads have not reached the count budget or taken the time budget. While no
+     * upload has been granted in the frame, a request for any key is granted if, together with the requests granted at
+     * the start of the frame, it stays within the count and byte budgets, or if no request was granted at the start of
+     * the frame. A key granted earlier in the frame is granted again without counting twice. A refused request
+     * competes for the next frame's budget with the other requests refused in this frame. When a key is requested more
+     * than once in a frame, its most important priority is used.
+     *
+     * @param frameTimeStamp the time stamp of the current frame. A time stamp different from that of the previous call
+     *                       starts a new frame.
+     * @param key            the key identifying the texture data.
+     * @param sizeInBytes    the size of the texture data, in bytes.
+     * @param priority       the importance of the upload. Lower values are more important.
+     *
+     * @return true if the texture data may be uploaded now, otherwise false.
+     *
+     * @throws IllegalArgumentException if the key is null.
+     */
+    public boolean requestUpload(long frameTimeStamp, Object key, long sizeInBytes, double priority)
+    {
+        if (key == null)
+        {
+            String message = Logging.getMessage("nullValue.KeyIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (frameTimeStamp != this.frameTimeStamp)
+            this.beginFrame(frameTimeStamp);
+
+        if (this.uploadKeys.contains(key))
+            return true;
+
+        if (this.frameUploadNanos < this.maxNanosPerFrame && this.frameUploadCount < this.maxUploadsPerFrame
+            && (this.grantedRequests.containsKey(key) || this.isFirstRequestGranted(sizeInBytes)))
+        {
+            // Count the upload now so that later requests of the frame see it, even before it completes.
+            Request granted = this.grantedRequests.remove(key);
+            if (granted != null)
+                this.grantedBytes -= granted.sizeInBytes;
+            this.uploadKeys.add(key);
+            this.frameUploadCount++;
+            this.frameUploadBytes += sizeInBytes;
+            return true;
+        }
+
+        Request request = this.deferredRequests.get(key);
+        if (request == null)
+        {
+            this.deferredRequests.put(key, new Request(key, sizeInBytes, priority));
+            this.deferredCount++;
+        }
+        else if (priority < request.priority)
+        {
+            request.priority = priority;
+        }
+
+        return false;
+    }
+
+    /**
+     * Indicates whether a request whose key was not granted at the start of the frame is granted as the frame's first
+     * upload. The request must fit in the budget left by the requests granted at the start of the frame, which may
+     * still be made later in the frame. If there are none, the request is granted even if it exceeds the byte budget
+     * by itself.
+     *
+     * @param sizeInBytes the size of the request's texture data, in bytes.
+     *
+     * @return true if the request is granted, otherwise false.
+     */
+    protected boolean isFirstRequestGranted(long sizeInBytes)
+    {
+        if (this.frameUploadCount != 0)
+            return false;
+
+        if (this.grantedRequests.isEmpty())
+            return true;
+
+        return this.grantedRequests.size() < this.maxUploadsPerFrame
+            && this.grantedBytes + sizeInBytes <= this.maxBytesPerFrame;
+    }
+
+    /**
+     * Records the completion of an upload granted by {@link #requestUpload(long, Object, long, double)}.
+     *
+     * @param sizeInBytes the number of bytes uploaded.
+     * @param nanos       the duration of the upload, in nanoseconds.
+     */
+    public void uploadCompleted(long sizeInBytes, long nanos)
+    {
+        this.frameUploadNanos += nanos;
+        this.uploadCount++;
+        this.uploadBytes += sizeInBytes;
+        this.uploadNanos += nanos;
+    }
+
+    /**
+     * Indicates whether requests refused during the current frame await the next frame. Renderers use this to request
+     * another frame when no other event would cause one.
+     *
+     * @return true if uploads have been deferred to the next frame, otherwise false.
+     */
+    public boolean hasDeferredUploads()
+    {
+        return !this.deferredRequests.isEmpty();
+    }
+
+    /**
+     * Starts a new frame. The requests refused during the previous frame are granted in order of priority until their
+     * number reaches the count budget or their total size reaches the byte budget. The most important request is
+     * always granted, even if it exceeds the budget by itself.
+     *
+     * @param frameTimeStamp the time stamp of the new frame.
+     */
+    protected void beginFrame(long frameTimeStamp)
+    {
+        this.frameTimeStamp = frameTimeStamp;
+        this.frameUploadCount = 0;
+        this.frameUploadBytes = 0;
+        this.frameUploadNanos = 0;
+        this.grantedRequests.clear();
+        this.grantedBytes = 0;
+        this.uploadKeys.clear();
+
+        if (this.deferredRequests.isEmpty())
+            return;
+
+        Request[] requests = this.deferredRequests.values().toArray(new Request[this.deferredRequests.size()]);
+        Arrays.sort(requests);
+        this.deferredRequests.clear();
+
+        long bytes = 0;
+        for (Request request : requests)
+        {
+            if (this.grantedRequests.size() >= this.maxUploadsPerFrame)
+                break;
+            if (bytes > 0 && bytes + request.sizeInBytes > this.maxBytesPerFrame)
+                break;
+
+            this.grantedRequests.put(request.key, request);
+            bytes += request.sizeInBytes;
+        }
+
+        this.grantedBytes = bytes;
+    }
+
+    /**
+     * Returns statistics of the scheduler's uploads: the number of uploads and bytes uploaded in the current frame, the
+     * total number of uploads, bytes uploaded and mean upload time, and the number of deferred requests.
+     *
+     * @return the statistics.
+     */
+    public Collection<PerformanceStatistic> getPerformanceStatistics()
+    {
+        double meanMillis = this.uploadCount > 0 ? this.uploadNanos / (this.uploadCount * 1.0e6) : 0;
+
+        ArrayList<PerformanceStatistic> stats = new ArrayList<PerformanceStatistic>();
+        stats.add(new PerformanceStatistic(PerformanceStatistic.TEXTURE_UPLOAD, "Texture Uploads This Frame",
+            this.frameUploadCount));
+        stats.add(new PerformanceStatistic(PerformanceStatistic.TEXTURE_UPLOAD, "Texture Upload Size This Frame (Kb)",
+            this.frameUploadBytes / 1000));
+        stats.add(new PerformanceStatistic(PerformanceStatistic.TEXTURE_UPLOAD, "Texture Uploads", this.uploadCount));
+        stats.add(new PerformanceStatistic(PerformanceStatistic.TEXTURE_UPLOAD, "Texture Upload Size (Kb)",
+            this.uploadBytes / 1000));
+        stats.add(new PerformanceStatistic(PerformanceStatistic.TEXTURE_UPLOAD, "Mean Texture Upload Time (ms)",
+            meanMillis));
+        stats.add(new PerformanceStatistic(PerformanceStatistic.TEXTURE_UPLOAD, "Texture Uploads Deferred",
+            this.deferredCount));
+        return stats;
+    }
+}
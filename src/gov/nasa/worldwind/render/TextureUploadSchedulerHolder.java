@@ -0,0 +1,24 @@
+/*
+Copyright (C) 2001, 2010 United States Government
+as represented by the Administrator of the
+National Aeronautics and Space Administration.
+All Rights Reserved.
+*/
+package gov.nasa.worldwind.render;
+
+/**
+ * Implemented by {@link DrawContext}s that schedule texture uploads. Renderers that convert texture data to textures
+ * test whether the draw context implements this interface, and otherwise upload without scheduling.
+ *
+ * @version $Id$
+ */
+public interface TextureUploadSchedulerHolder
+{
+    /**
+     * Returns the scheduler that limits the texture data converted to textures, and thereby uploaded to the graphics
+     * device, in each frame.
+     *
+     * @return the texture upload scheduler.
+     */
+    TextureUploadScheduler getTextureUploadScheduler();
+}
@@ -42,6 +42,7 @@ public class TrackRenderer implements Disposable
     private String iconFilePath;
     private Shape shape = SPHERE;
     private boolean keepSeparated = true;
+    private double simplificationPixels = 1d;
 
     public TrackRenderer()
     {
@@ -124,7 +125,45 @@ public class TrackRenderer implements Disposable
         this.keepSeparated = keepSeparated;
     }
 
+    /**
+     * Indicates the screen-space tolerance used to simplify tracks drawn with a {@link PolylineSimplifier}.
+     *
+     * @return the simplification tolerance, in pixels.
+     *
+     * @see #setSimplificationPixels(double)
+     */
+    public double getSimplificationPixels()
+    {
+        return this.simplificationPixels;
+    }
+
+    /**
+     * Specifies the screen-space tolerance used to simplify tracks drawn with a {@link PolylineSimplifier}. Track points
+     * whose omission would move the track by less than this many pixels are not drawn. The default is 1.
+     *
+     * @param simplificationPixels the simplification tolerance, in pixels. Zero or less draws every point.
+     */
+    public void setSimplificationPixels(double simplificationPixels)
+    {
+        this.simplificationPixels = simplificationPixels;
+    }
+
     protected Vec4 draw(DrawContext dc, Iterator<TrackPoint> trackPositions)
+    {
+        return this.draw(dc, trackPositions, null);
+    }
+
+    /**
+     * Draws track points.
+     *
+     * @param dc             the current draw context.
+     * @param trackPositions the track points to draw.
+     * @param indices        the index within the track of each point returned by the iterator. May be null, in which
+     *                       case the points are assumed to be consecutive, starting with the track's first point.
+     *
+     * @return the model-coordinate point of the last track point drawn, or null if none was drawn.
+     */
+    protected Vec4 draw(DrawContext dc, Iterator<TrackPoint> trackPositions, int[] indices)
     {
         if (dc.getVisibleSector() == null)
             return null;
@@ -145,9 +184,10 @@ public class TrackRenderer implements Disposable
 
             Vec4 previousDrawnPoint = null;
             double radius;
-            for (int index = 0; trackPositions.hasNext(); index++)
+            for (int i = 0; trackPositions.hasNext(); i++)
             {
                 TrackPoint tp = trackPositions.next();
+                int index = indices != null ? indices[i] : i;
 
                 if (index < this.lowerLimit)
                     continue;
@@ -359,6 +399,100 @@ public class TrackRenderer implements Disposable
         return this.draw(dc, trackPositions);
     }
 
+    /**
+     * Picks a track simplified for the current view. Only the points selected by the simplifier at this renderer's
+     * simplification tolerance are drawn.
+     *
+     * @param dc          the current draw context.
+     * @param trackPoints the track's points.
+     * @param simplifier  a simplifier built from the track's points.
+     * @param pickPoint   the pick point.
+     * @param layer       the layer to report as the picked object's layer.
+     *
+     * @return the model-coordinate point of the last track point drawn, or null if none was drawn.
+     *
+     * @throws IllegalArgumentException if the track points or simplifier are null.
+     */
+    public Vec4 pick(DrawContext dc, List<TrackPoint> trackPoints, PolylineSimplifier simplifier,
+        java.awt.Point pickPoint, Layer layer)
+    {
+        this.pickSupport.clearPickList();
+        Vec4 lastPointDrawn = this.render(dc, trackPoints, simplifier);
+        this.pickSupport.resolvePick(dc, pickPoint, layer);
+        this.pickSupport.clearPickList(); // to ensure entries can be garbage collected
+
+        return lastPointDrawn;
+    }
+
+    /**
+     * Renders a track simplified for the current view. Only the points selected by the simplifier at this renderer's
+     * simplification tolerance are drawn, so the cost of drawing a long track depends on its visual complexity at the
+     * current view rather than on its number of points.
+     *
+     * @param dc          the current draw context.
+     * @param trackPoints the track's points.
+     * @param simplifier  a simplifier built from the track's points.
+     *
+     * @return the model-coordinate point of the last track point drawn, or null if none was drawn.
+     *
+     * @throws IllegalArgumentException if the track points or simplifier are null.
+     */
+    public Vec4 render(DrawContext dc, final List<TrackPoint> trackPoints, PolylineSimplifier simplifier)
+    {
+        if (trackPoints == null)
+        {
+            String msg = Logging.getMessage("nullValue.PointListIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (simplifier == null)
+        {
+            String msg = Logging.getMessage("nullValue.SimplifierIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        int[] selected = simplifier.select(dc, this.simplificationPixels);
+
+        // The simplifier may lag the list of points, or lead it.
+        int count = 0;
+        while (count < selected.length && selected[count] < trackPoints.size())
+        {
+            count++;
+        }
+        final int[] indices = count < selected.length ? Arrays.copyOf(selected, count) : selected;
+
+        return this.draw(dc, new Iterator<TrackPoint>()
+        {
+            private int i = 0;
+
+            public boolean hasNext()
+            {
+                return this.i < indices.length;
+            }
+
+            public TrackPoint next()
+            {
+                if (!this.hasNext())
+                {
+                    String msg = Logging.getMessage("TrackPointIterator.NoMoreTrackPoints");
+                    Logging.logger().severe(msg);
+                    throw new NoSuchElementException(msg);
+                }
+
+                return trackPoints.get(indices[this.i++]);
+            }
+
+            public void remove()
+            {
+                String msg = Logging.getMessage("TrackPointIterator.RemoveNotSupported");
+                Logging.logger().severe(msg);
+                throw new UnsupportedOperationException(msg);
+            }
+        }, indices);
+    }
+
     protected static abstract class Shape
     {
         protected String name;
@@ -0,0 +1,26 @@
+/*
+Copyright (C) 2001, 2010 United States Government
+as represented by the Administrator of the
+National Aeronautics and Space Administration.
+All Rights Reserved.
+*/
+package gov.nasa.worldwind.render;
+
+import gov.nasa.worldwind.view.ViewMotionPredictor;
+
+/**
+ * Implemented by {@link DrawContext}s that predict the view's motion. Layers and tessellators that prefetch data test
+ * whether the draw context implements this interface, and otherwise prefetch nothing.
+ *
+ * @version $Id$
+ */
+public interface ViewMotionPredictorHolder
+{
+    /**
+     * Returns the predictor of the view's motion, which is updated once per frame with the view's state. Layers and
+     * elevation models use it to request the data the view is about to show.
+     *
+     * @return the view motion predictor.
+     */
+    ViewMotionPredictor getViewMotionPredictor();
+}
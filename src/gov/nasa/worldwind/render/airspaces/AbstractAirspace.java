@@ -9,7 +9,7 @@ import gov.nasa.worldwind.*;
 import gov.nasa.worldwind.avlist.*;
 import gov.nasa.worldwind.cache.*;
 import gov.nasa.worldwind.geom.*;
-import gov.nasa.worldwind.globes.Globe;
+import gov.nasa.worldwind.globes.*;
 import gov.nasa.worldwind.render.*;
 import gov.nasa.worldwind.util.*;
 
@@ -25,6 +25,7 @@ public abstract class AbstractAirspace extends AVListImpl implements Airspace, M
     protected static final String ARC_SLICES = "ArcSlices";
     protected static final String DISABLE_TERRAIN_CONFORMANCE = "DisableTerrainConformance";
     protected static final String EXPIRY_TIME = "ExpiryTime";
+    protected static final String EYE_POINT = "EyePoint";
     protected static final String GEOMETRY_CACHE_NAME = "Airspace Geometry";
     protected static final String GEOMETRY_CACHE_KEY = Geometry.class.getName();
     protected static final String GLOBE_KEY = "GlobeKey";
@@ -35,6 +36,7 @@ public abstract class AbstractAirspace extends AVListImpl implements Airspace, M
     protected static final String SPLIT_THRESHOLD = "SplitThreshold";
     protected static final String STACKS = "Stacks";
     protected static final String SUBDIVISIONS = "Subdivisions";
+    protected static final String TERRAIN_CHANGE_EPOCH = "TerrainChangeEpoch";
     protected static final String VERTICAL_EXAGGERATION = "VerticalExaggeration";
 
     private static final long DEFAULT_GEOMETRY_CACHE_SIZE = 16777216L; // 16 megabytes
@@ -59,6 +61,9 @@ public abstract class AbstractAirspace extends AVListImpl implements Airspace, M
     private long minExpiryTime = 2000L;
     private long maxExpiryTime = 6000L;
     private static Random rand = new Random();
+    // Terrain change support.
+    private Extent terrainChangeExtent;
+    private Sector terrainChangeSector;
     // Elevation lookup map.
     private Map<LatLon, Double> elevationMap = new HashMap<LatLon, Double>();
 
@@ -734,9 +739,21 @@ public abstract class AbstractAirspace extends AVListImpl implements Airspace, M
 
         Object o = geom.getValue(EXPIRY_TIME);
         if (o != null && o instanceof Long)
-            if (dc.getFrameTimeStamp() > (Long) o)
+        {
+            // Terrain conforming geometry is regenerated as soon as the elevations beneath the airspace change.
+            Object epoch = geom.getValue(TERRAIN_CHANGE_EPOCH);
+            if (epoch != null && !epoch.equals(this.getTerrainChangeEpoch(dc)))
                 return true;
 
+            // The terrain's resolution also varies with the view, so periodically regenerate after the view moves.
+            if (dc.getFrameTimeStamp() > (Long) o)
+            {
+                Object eyePoint = geom.getValue(EYE_POINT);
+                if (eyePoint == null || dc.getView().getEyePoint().distanceTo3((Vec4) eyePoint) != 0)
+                    return true;
+            }
+        }
+
         o = geom.getValue(GLOBE_KEY);
         if (o != null)
             if (!dc.getGlobe().getStateKey(dc).equals(o))
@@ -763,6 +780,39 @@ public abstract class AbstractAirspace extends AVListImpl implements Airspace, M
         long expiryTime = this.getExpiryTime();
         geom.setValue(EXPIRY_TIME, (expiryTime >= 0L) ? expiryTime : null);
         geom.setValue(GLOBE_KEY, dc.getGlobe().getStateKey(dc));
+        geom.setValue(TERRAIN_CHANGE_EPOCH, (expiryTime >= 0L) ? this.getTerrainChangeEpoch(dc) : null);
+        geom.setValue(EYE_POINT, (expiryTime >= 0L) ? dc.getView().getEyePoint() : null);
+    }
+
+    /**
+     * Returns the change epoch of the terrain beneath this airspace. See {@link
+     * ElevationChangeTracker#getChangeEpoch(Sector)}.
+     *
+     * @param dc the current draw context.
+     *
+     * @return the change epoch of the elevations within this airspace's extent.
+     */
+    protected long getTerrainChangeEpoch(DrawContext dc)
+    {
+        ElevationModel em = dc.getGlobe().getElevationModel();
+        if (!(em instanceof ElevationChangeTracker))
+            return 0L;
+
+        // The sector bounding the airspace's extent is recomputed only when the extent changes.
+        Extent extent = this.getExtent(dc);
+        if (extent != this.terrainChangeExtent)
+        {
+            this.terrainChangeExtent = extent;
+            this.terrainChangeSector = null;
+
+            if (extent != null)
+            {
+                Position center = dc.getGlobe().computePositionFromPoint(extent.getCenter());
+                this.terrainChangeSector = Sector.boundingSector(dc.getGlobe(), center, extent.getRadius());
+            }
+        }
+
+        return ((ElevationChangeTracker) em).getChangeEpoch(this.terrainChangeSector);
     }
 
     protected long getExpiryTime()
@@ -0,0 +1,1582 @@
+/*
+Copyright (C) 2001, 2010 United States Government as represented by
+the Administrator of the National Aeronautics and Space Administration.
+All Rights Reserved.
+*/
+package gov.nasa.worldwind.render.airspaces;
+
+import gov.nasa.worldwind.avlist.AVKey;
+import gov.nasa.worldwind.exception.WWRuntimeException;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.Globe;
+import gov.nasa.worldwind.util.Logging;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Answers geometric queries about a collection of airspaces: which airspaces contain a position, and which pairs of
+ * airspaces overlap. The index models each airspace as one or more volumes, each a footprint on the globe's surface
+ * and a band of altitudes above it, and keeps the volumes in a latitude-longitude grid so that a query examines only
+ * the airspaces near it.
+ * <p/>
+ * Altitudes relative to the ground, see {@link Airspace#setAltitudeDatum(String, String)} and {@link
+ * Airspace#setTerrainConforming(boolean, boolean)}, are resolved with the elevations of the index's globe at the
+ * location being tested. Vertical exaggeration is not applied. Elevations are those currently available from the
+ * globe's elevation model, see {@link Globe#getElevation(Angle, Angle)}.
+ * <p/>
+ * The index supports {@link Polygon}, {@link PolyArc}, {@link CappedCylinder}, {@link PartialCappedCylinder}, {@link
+ * Cake}, {@link SphereAirspace}, {@link Orbit}, {@link Box}, {@link TrackAirspace} and {@link Route} airspaces.
+ * Curtains have no volume and never contain a position or overlap another airspace. Footprints are computed on a
+ * sphere of the globe's radius, and footprints enclosing a pole are not supported.
+ * <p/>
+ * Airspaces do not notify the index when they change. Call {@link #update()} after changing the shape, location or
+ * altitudes of an indexed airspace, or when more accurate elevations become available. Queries may be made
+ * concurrently from multiple threads, and batch queries are divided among {@link #getNumThreads()} threads.
+ *
+ * @version $Id$
+ */
+public class AirspaceIndex
+{
+    /** The default size of the index's grid cells, in degrees. */
+    public static final double DEFAULT_CELL_SIZE = 1;
+
+    protected static final int MIN_POSITIONS_PER_TASK = 256;
+    protected static final int ARC_SLICES = 64; // per full circle, when approximating footprint boundaries
+    protected static final int NEARBY_DIRECTIONS = 16; // when searching near a boundary for a point inside two volumes
+    protected static final double[] NEARBY_DISTANCES = {1e-7, 1e-5, 1e-3}; // degrees
+
+    /** Describes a region in which two airspaces overlap. */
+    public static class Conflict
+    {
+        protected final Airspace airspace1;
+        protected final Airspace airspace2;
+        protected final Position position;
+
+        public Conflict(Airspace airspace1, Airspace airspace2, Position position)
+        {
+            this.airspace1 = airspace1;
+            this.airspace2 = airspace2;
+            this.position = position;
+        }
+
+        public Airspace getAirspace1()
+        {
+            return this.airspace1;
+        }
+
+        public Airspace getAirspace2()
+        {
+            return this.airspace2;
+        }
+
+        /**
+         * Returns a position inside both airspaces.
+         *
+         * @return a position inside both airspaces. Its elevation is midway between the bottom and top of the overlap.
+         */
+        public Position getPosition()
+        {
+            return this.position;
+        }
+
+        @Override
+        public String toString()
+        {
+            return this.airspace1 + " " + this.airspace2 + " " + this.position;
+        }
+    }
+
+    /**
+     * A region of the globe's surface. Latitudes and longitudes are in degrees. Longitudes of a footprint's boundary are
+     * continuous: they are within 180 degrees of the footprint's reference longitude, and may be outside the range
+     * [-180, 180].
+     */
+    protected abstract static class Footprint
+    {
+        protected double referenceLongitude;
+        protected double[][] boundaries; // closed loops of latitude, longitude pairs
+        protected double minLatitude = Double.MAX_VALUE;
+        protected double maxLatitude = -Double.MAX_VALUE;
+        protected double minLongitude = Double.MAX_VALUE;
+        protected double maxLongitude = -Double.MAX_VALUE;
+
+        /**
+         * Indicates whether a location is inside this footprint.
+         *
+         * @param latitude  the location's latitude.
+         * @param longitude the location's longitude, within 180 degrees of the reference longitude.
+         *
+         * @return true if the location is inside the footprint, otherwise false.
+         */
+        protected abstract boolean contains(double latitude, double longitude);
+
+        /**
+         * Returns the horizontal distance from a location to this footprint's center, for footprints whose altitude
+         * band varies with location.
+         *
+         * @param latitude  the location's latitude.
+         * @param longitude the location's longitude.
+         *
+         * @return the distance in radians.
+         */
+        protected double distanceToCenter(double latitude, double longitude)
+        {
+            return 0;
+        }
+
+        protected double unwrap(double longitude)
+        {
+            return this.referenceLongitude + normalizeDegrees(longitude - this.referenceLongitude);
+        }
+
+        /**
+         * Computes a location inside this footprint and away from its boundary: the middle of the widest span of the
+         * footprint along one of several latitudes.
+         *
+         * @return the location's latitude and longitude, or null if none was found.
+         */
+        protected double[] computeInteriorPoint()
+        {
+            double minLat = Double.MAX_VALUE;
+            double maxLat = -Double.MAX_VALUE;
+            int numEdges = 0;
+            for (double[] boundary : this.boundaries)
+            {
+                for (int i = 0; i < boundary.length; i += 2)
+                {
+                    minLat = Math.min(minLat, boundary[i]);
+                    maxLat = Math.max(maxLat, boundary[i]);
+                }
+                numEdges += boundary.length / 2;
+            }
+
+            double[] crossings = new double[numEdges];
+            for (double f : new double[] {0.5, 0.25, 0.75, 0.125, 0.875})
+            {
+                double latitude = minLat + f * (maxLat - minLat);
+
+                int n = 0;
+                for (double[] boundary : this.boundaries)
+                {
+                    for (int i = 0, j = boundary.length - 2; i < boundary.length; j = i, i += 2)
+                    {
+                        if ((boundary[i] > latitude) != (boundary[j] > latitude))
+                            crossings[n++] = boundary[i + 1] + (latitude - boundary[i])
+                                * (boundary[j + 1] - boundary[i + 1]) / (boundary[j] - boundary[i]);
+                    }
+                }
+
+                // Successive pairs of crossings bound the spans inside the footprint.
+                Arrays.sort(crossings, 0, n);
+                double[] point = null;
+                double width = 0;
+                for (int k = 0; k + 1 < n; k += 2)
+                {
+                    double longitude = (crossings[k] + crossings[k + 1]) / 2;
+                    if (crossings[k + 1] - crossings[k] > width && this.contains(latitude, longitude))
+                    {
+                        point = new double[] {latitude, longitude};
+                        width = crossings[k + 1] - crossings[k];
+                    }
+                }
+
+                if (point != null)
+                    return point;
+            }
+
+            return null;
+        }
+
+        protected void setBoundaries(double[]... boundaries)
+        {
+            this.boundaries = boundaries;
+
+            for (double[] boundary : boundaries)
+            {
+                for (int i = 0; i < boundary.length; i += 2)
+                {
+                    this.minLatitude = Math.min(this.minLatitude, boundary[i]);
+                    this.maxLatitude = Math.max(this.maxLatitude, boundary[i]);
+                    this.minLongitude = Math.min(this.minLongitude, boundary[i + 1]);
+                    this.maxLongitude = Math.max(this.maxLongitude, boundary[i + 1]);
+                }
+            }
+        }
+
+        /**
+         * Expands the footprint's bounds to account for the difference between curved edges and the boundary
+         * polygons approximating them.
+         *
+         * @param distance the maximum distance between an edge and its approximation, in radians.
+         */
+        protected void expandBounds(double distance)
+        {
+            double degrees = Math.toDegrees(distance);
+            double cosLat = Math.cos(Math.toRadians(Math.max(Math.abs(this.minLatitude), Math.abs(this.maxLatitude))));
+
+            this.minLatitude = Math.max(this.minLatitude - degrees, -90);
+            this.maxLatitude = Math.min(this.maxLatitude + degrees, 90);
+            this.minLongitude -= cosLat > 1e-6 ? degrees / cosLat : 180;
+            this.maxLongitude += cosLat > 1e-6 ? degrees / cosLat : 180;
+        }
+    }
+
+    /** A footprint bounded by a list of locations connected by straight lines in latitude and longitude. */
+    protected static class PolygonFootprint extends Footprint
+    {
+        protected final double[] vertices;
+
+        public PolygonFootprint(List<? extends LatLon> locations)
+        {
+            this.vertices = new double[2 * locations.size()];
+            this.referenceLongitude = locations.get(0).getLongitude().degrees;
+
+            int i = 0;
+            for (LatLon location : locations)
+            {
+                this.vertices[i++] = location.getLatitude().degrees;
+                this.vertices[i++] = this.unwrap(location.getLongitude().degrees);
+            }
+
+            this.setBoundaries(this.vertices);
+        }
+
+        protected boolean contains(double latitude, double longitude)
+        {
+            if (latitude < this.minLatitude || latitude > this.maxLatitude)
+                return false;
+
+            return polygonContains(this.vertices, latitude, longitude);
+        }
+    }
+
+    /**
+     * A circle, a ring, or a sector of one, about a center location. Azimuths are clockwise from north, and the
+     * footprint spans the azimuths from the start azimuth clockwise through the sweep.
+     */
+    protected static class ArcFootprint extends Footprint
+    {
+        protected final double centerLatitude;
+        protected final double centerLongitude;
+        protected final double innerRadius; // radians
+        protected final double outerRadius; // radians
+        protected final double startAzimuth; // degrees
+        protected final double sweep; // degrees
+
+        public ArcFootprint(LatLon center, double innerRadius, double outerRadius, double startAzimuth, double sweep)
+        {
+            this.centerLatitude = center.getLatitude().degrees;
+            this.centerLongitude = center.getLongitude().degrees;
+            this.referenceLongitude = this.centerLongitude;
+            this.innerRadius = innerRadius;
+            this.outerRadius = outerRadius;
+            this.startAzimuth = startAzimuth;
+            this.sweep = sweep;
+
+            int slices = Math.max((int) Math.ceil(ARC_SLICES * sweep / 360), 2);
+            boolean fullCircle = sweep >= 360;
+            if (fullCircle)
+                slices = ARC_SLICES;
+
+            double[] outer = this.makeArc(outerRadius, slices, !fullCircle);
+            if (innerRadius > 0)
+            {
+                double[] inner = this.makeArc(innerRadius, slices, !fullCircle);
+                if (fullCircle)
+                {
+                    this.setBoundaries(outer, inner);
+                }
+                else
+                {
+                    // The boundary of a ring sector follows the outer arc clockwise and the inner arc back.
+                    double[] boundary = new double[outer.length + inner.length];
+                    System.arraycopy(outer, 0, boundary, 0, outer.length);
+                    for (int i = 0; i < inner.length; i += 2)
+                    {
+                        boundary[outer.length + i] = inner[inner.length - 2 - i];
+                        boundary[outer.length + i + 1] = inner[inner.length - 1 - i];
+                    }
+                    this.setBoundaries(boundary);
+                }
+            }
+            else if (fullCircle)
+            {
+                this.setBoundaries(outer);
+            }
+            else
+            {
+                double[] boundary = new double[outer.length + 2];
+                System.arraycopy(outer, 0, boundary, 0, outer.length);
+                boundary[outer.length] = this.centerLatitude;
+                boundary[outer.length + 1] = this.centerLongitude;
+                this.setBoundaries(boundary);
+            }
+
+            this.expandBounds(outerRadius * (1 - Math.cos(Math.PI / ARC_SLICES)) + 1e-9);
+        }
+
+        protected double[] makeArc(double radius, int slices, boolean includeEnd)
+        {
+            int count = includeEnd ? slices + 1 : slices;
+            double[] arc = new double[2 * count];
+            for (int i = 0; i < count; i++)
+            {
+                double azimuth = Math.toRadians(this.startAzimuth + this.sweep * i / slices);
+                LatLon location = LatLon.greatCircleEndPosition(LatLon.fromDegrees(this.centerLatitude,
+                    this.centerLongitude), azimuth, radius);
+                arc[2 * i] = location.getLatitude().degrees;
+                arc[2 * i + 1] = this.unwrap(location.getLongitude().degrees);
+            }
+
+            return arc;
+        }
+
+        protected boolean contains(double latitude, double longitude)
+        {
+            if (latitude < this.minLatitude || latitude > this.maxLatitude)
+                return false;
+
+            double lat1 = Math.toRadians(this.centerLatitude);
+            double lat2 = Math.toRadians(latitude);
+            double dLon = Math.toRadians(longitude - this.centerLongitude);
+
+            double distance = greatCircleDistance(lat1, lat2, dLon);
+            if (distance < this.innerRadius || distance > this.outerRadius)
+                return false;
+
+            if (this.sweep >= 360 || distance == 0)
+                return true;
+
+            double azimuth = Math.toDegrees(Math.atan2(Math.sin(dLon) * Math.cos(lat2),
+                Math.cos(lat1) * Math.sin(lat2) - Math.sin(lat1) * Math.cos(lat2) * Math.cos(dLon)));
+            double offset = azimuth - this.startAzimuth;
+            offset -= 360 * Math.floor(offset / 360);
+
+            return offset <= this.sweep;
+        }
+
+        @Override
+        protected double distanceToCenter(double latitude, double longitude)
+        {
+            return greatCircleDistance(Math.toRadians(this.centerLatitude), Math.toRadians(latitude),
+                Math.toRadians(longitude - this.centerLongitude));
+        }
+    }
+
+    /**
+     * A band along the great circle segment between two locations, extending specified distances to the left and right
+     * of the segment, optionally with semicircular ends.
+     */
+    protected static class CorridorFootprint extends Footprint
+    {
+        protected final double[] begin;
+        protected final double[] end;
+        protected final double[] normal; // points to the left of the segment
+        protected final double leftWidth; // radians
+        protected final double rightWidth; // radians
+        protected final boolean rounded;
+
+        public CorridorFootprint(double[] begin, double[] end, double leftWidth, double rightWidth, boolean rounded)
+        {
+            this.begin = begin;
+            this.end = end;
+            this.normal = normalize(cross(begin, end));
+            this.leftWidth = leftWidth;
+            this.rightWidth = rightWidth;
+            this.rounded = rounded;
+            this.referenceLongitude = Math.toDegrees(Math.atan2(begin[1], begin[0]));
+
+            double length = Math.acos(Math.max(-1, Math.min(1, dot(begin, end))));
+            int lengthSlices = Math.max(1, (int) Math.ceil(Math.toDegrees(length)));
+            int capSlices = rounded ? ARC_SLICES / 2 : 0;
+
+            double[] boundary = new double[2 * (2 * (lengthSlices + 1) + 2 * Math.max(capSlices - 1, 0))];
+            int index = 0;
+
+            // Left side from the beginning to the end, the end cap, the right side back, and the beginning cap.
+            for (int i = 0; i <= lengthSlices; i++)
+            {
+                index = this.addOffsetPoint(boundary, index, this.interpolate((double) i / lengthSlices), leftWidth);
+            }
+            for (int i = 1; i < capSlices; i++)
+            {
+                index = this.addCapPoint(boundary, index, end, Math.PI * i / capSlices, leftWidth);
+            }
+            for (int i = lengthSlices; i >= 0; i--)
+            {
+                index = this.addOffsetPoint(boundary, index, this.interpolate((double) i / lengthSlices), -rightWidth);
+            }
+            for (int i = 1; i < capSlices; i++)
+            {
+                index = this.addCapPoint(boundary, index, begin, Math.PI + Math.PI * i / capSlices, leftWidth);
+            }
+
+            this.setBoundaries(boundary);
+            this.expandBounds(Math.max(leftWidth, rightWidth) * (1 - Math.cos(Math.PI / ARC_SLICES))
+                + length * length / (8 * lengthSlices * lengthSlices) + 1e-9);
+        }
+
+        protected double[] interpolate(double t)
+        {
+            double[] point = new double[3];
+            for (int i = 0; i < 3; i++)
+            {
+                point[i] = (1 - t) * this.begin[i] + t * this.end[i];
+            }
+
+            return normalize(point);
+        }
+
+        protected int addOffsetPoint(double[] boundary, int index, double[] point, double offset)
+        {
+            double c = Math.cos(offset);
+            double s = Math.sin(offset);
+            double[] p = new double[] {c * point[0] + s * this.normal[0], c * point[1] + s * this.normal[1],
+                c * point[2] + s * this.normal[2]};
+
+            return this.addPoint(boundary, index, p);
+        }
+
+        protected int addCapPoint(double[] boundary, int index, double[] center, double angle, double radius)
+        {
+            // Angles are measured from the left of the segment toward its direction of travel.
+            double[] forward = cross(this.normal, center);
+            double c = Math.cos(radius);
+            double s = Math.sin(radius);
+            double ca = Math.cos(angle);
+            double sa = Math.sin(angle);
+            double[] p = new double[3];
+            for (int i = 0; i < 3; i++)
+            {
+                p[i] = c * center[i] + s * (ca * this.normal[i] + sa * forward[i]);
+            }
+
+            return this.addPoint(boundary, index, p);
+        }
+
+        protected int addPoint(double[] boundary, int index, double[] p)
+        {
+            boundary[index] = Math.toDegrees(Math.asin(Math.max(-1, Math.min(1, p[2]))));
+            boundary[index + 1] = this.unwrap(Math.toDegrees(Math.atan2(p[1], p[0])));
+            return index + 2;
+        }
+
+        protected boolean contains(double latitude, double longitude)
+        {
+            if (latitude < this.minLatitude || latitude > this.maxLatitude)
+                return false;
+
+            double[] p = toVector(latitude, longitude);
+
+            // The point is alongside the segment if it's past its beginning and before its end.
+            boolean alongside = dot(cross(this.begin, p), this.normal) >= 0
+                && dot(cross(p, this.end), this.normal) >= 0;
+            if (alongside)
+            {
+                double offset = Math.asin(Math.max(-1, Math.min(1, dot(p, this.normal))));
+                return offset <= this.leftWidth && -offset <= this.rightWidth;
+            }
+
+            if (!this.rounded)
+                return false;
+
+            return angleBetween(p, this.begin) <= this.leftWidth || angleBetween(p, this.end) <= this.leftWidth;
+        }
+    }
+
+    /** A footprint and the altitudes of its bottom and top. */
+    protected static class Volume
+    {
+        protected final Airspace airspace; // the indexed airspace, which may be composed of several volumes
+        protected final int airspaceIndex;
+        protected final Footprint footprint;
+        protected final double[] altitudes;
+        protected final boolean[] aboveGround; // whether each altitude is relative to the terrain at the location
+        protected final double sphereRadius; // the radius of spherical volumes, or 0
+        protected final double[] interiorPoint; // a location inside the footprint, or null
+
+        public Volume(Airspace airspace, int airspaceIndex, Footprint footprint, double[] altitudes,
+            boolean[] aboveGround, double sphereRadius)
+        {
+            this.airspace = airspace;
+            this.airspaceIndex = airspaceIndex;
+            this.footprint = footprint;
+            this.altitudes = altitudes;
+            this.aboveGround = aboveGround;
+            this.sphereRadius = sphereRadius;
+            this.interiorPoint = footprint.computeInteriorPoint();
+        }
+    }
+
+    /** The index's volumes and the grid locating them. Immutable once built. */
+    protected static class Index
+    {
+        protected final Volume[] volumes;
+        protected final double cellSize;
+        protected final int numRows;
+        protected final int numColumns;
+        protected final int[][] cells; // the ascending indices of the volumes overlapping each cell
+
+        public Index(List<Volume> volumes, double cellSize)
+        {
+            this.volumes = volumes.toArray(new Volume[volumes.size()]);
+            this.cellSize = cellSize;
+            this.numRows = (int) Math.ceil(180 / cellSize);
+            this.numColumns = (int) Math.ceil(360 / cellSize);
+
+            int[] counts = new int[this.numRows * this.numColumns];
+            this.visitCells(counts, null);
+
+            this.cells = new int[counts.length][];
+            for (int i = 0; i < counts.length; i++)
+            {
+                if (counts[i] > 0)
+                    this.cells[i] = new int[counts[i]];
+            }
+
+            this.visitCells(new int[counts.length], this.cells);
+        }
+
+        protected void visitCells(int[] counts, int[][] cells)
+        {
+            for (int v = 0; v < this.volumes.length; v++)
+            {
+                Footprint f = this.volumes[v].footprint;
+                int minRow = this.row(f.minLatitude);
+                int maxRow = this.row(f.maxLatitude);
+                int minColumn = (int) Math.floor((f.minLongitude + 180) / this.cellSize);
+                int maxColumn = (int) Math.floor((f.maxLongitude + 180) / this.cellSize);
+                if (maxColumn - minColumn >= this.numColumns)
+                {
+                    minColumn = 0;
+                    maxColumn = this.numColumns - 1;
+                }
+
+                for (int row = minRow; row <= maxRow; row++)
+                {
+                    for (int column = minColumn; column <= maxColumn; column++)
+                    {
+                        int cell = row * this.numColumns + this.wrapColumn(column);
+                        if (cells != null)
+                            cells[cell][counts[cell]] = v;
+                        counts[cell]++;
+                    }
+                }
+            }
+        }
+
+        protected int row(double latitude)
+        {
+            return Math.max(0, Math.min(this.numRows - 1, (int) Math.floor((latitude + 90) / this.cellSize)));
+        }
+
+        protected int wrapColumn(int column)
+        {
+            column %= this.numColumns;
+            return column < 0 ? column + this.numColumns : column;
+        }
+
+        protected int[] getCell(double latitude, double longitude)
+        {
+            int column = this.wrapColumn((int) Math.floor((normalizeDegrees(longitude) + 180) / this.cellSize));
+            return this.cells[this.row(latitude) * this.numColumns + column];
+        }
+    }
+
+    protected final Globe globe;
+    protected final List<Airspace> airspaces = new ArrayList<Airspace>();
+    protected double cellSize = DEFAULT_CELL_SIZE;
+    protected int numThreads = Runtime.getRuntime().availableProcessors();
+    protected volatile Index index;
+
+    /** The daemon threads shared by all indexes' batch queries. Created on first use. */
+    protected static ExecutorService queryExecutor;
+
+    /**
+     * Creates an empty index.
+     *
+     * @param globe the globe the airspaces are on, which provides its radius and terrain elevations.
+     *
+     * @throws IllegalArgumentException if the globe is null.
+     */
+    public AirspaceIndex(Globe globe)
+    {
+        if (globe == null)
+        {
+            String message = Logging.getMessage("nullValue.GlobeIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.globe = globe;
+    }
+
+    public Globe getGlobe()
+    {
+        return this.globe;
+    }
+
+    public double getCellSize()
+    {
+        return this.cellSize;
+    }
+
+    /**
+     * Specifies the size of the index's grid cells. Smaller cells discriminate better between small airspaces but use
+     * more memory for large ones. The default is {@link #DEFAULT_CELL_SIZE}.
+     *
+     * @param cellSize the cell size, in degrees.
+     *
+     * @throws IllegalArgumentException if the cell size is not positive or is greater than 90 degrees.
+     */
+    public synchronized void setCellSize(double cellSize)
+    {
+        if (!(cellSize > 0 && cellSize <= 90))
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "cellSize=" + cellSize);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.cellSize = cellSize;
+        this.index = null;
+    }
+
+    public int getNumThreads()
+    {
+        return this.numThreads;
+    }
+
+    /**
+     * Specifies the number of threads batch queries are divided among. The default is the number of available
+     * processors.
+     *
+     * @param numThreads the number of threads. Values less than 1 are clamped to 1.
+     */
+    public void setNumThreads(int numThreads)
+    {
+        this.numThreads = Math.max(numThreads, 1);
+    }
+
+    /**
+     * Adds an airspace to the index.
+     *
+     * @param airspace the airspace to add.
+     *
+     * @throws IllegalArgumentException if the airspace is null.
+     */
+    public synchronized void addAirspace(Airspace airspace)
+    {
+        if (airspace == null)
+        {
+            String message = Logging.getMessage("nullValue.AirspaceIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.airspaces.add(airspace);
+        this.index = null;
+    }
+
+    /**
+     * Adds airspaces to the index.
+     *
+     * @param airspaces the airspaces to add.
+     *
+     * @throws IllegalArgumentException if the iterable is null.
+     */
+    public synchronized void addAirspaces(Iterable<? extends Airspace> airspaces)
+    {
+        if (airspaces == null)
+        {
+            String message = Logging.getMessage("nullValue.AirspaceIterableIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        for (Airspace airspace : airspaces)
+        {
+            if (airspace != null)
+                this.airspaces.add(airspace);
+        }
+
+        this.index = null;
+    }
+
+    public synchronized void removeAirspace(Airspace airspace)
+    {
+        if (this.airspaces.remove(airspace))
+            this.index = null;
+    }
+
+    public synchronized void removeAllAirspaces()
+    {
+        this.airspaces.clear();
+        this.index = null;
+    }
+
+    public synchronized List<Airspace> getAirspaces()
+    {
+        return new ArrayList<Airspace>(this.airspaces);
+    }
+
+    /**
+     * Causes the index to recompute the volumes of its airspaces before the next query. Call this after changing an
+     * indexed airspace, or to pick up more accurate elevations for airspaces whose altitudes are relative to a ground
+     * reference.
+     */
+    public synchronized void update()
+    {
+        this.index = null;
+    }
+
+    /**
+     * Determines the airspaces containing a position.
+     *
+     * @param position the position, with its elevation in meters above mean sea level.
+     *
+     * @return the airspaces containing the position, in the order they were added to the index.
+     *
+     * @throws IllegalArgumentException if the position is null.
+     */
+    public List<Airspace> getAirspacesContaining(Position position)
+    {
+        if (position == null)
+        {
+            String message = Logging.getMessage("nullValue.PositionIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        return this.getAirspacesContaining(this.getIndex(), position, new double[2]);
+    }
+
+    /**
+     * Determines the airspaces containing each of a list of positions. The positions are divided among {@link
+     * #getNumThreads()} threads.
+     *
+     * @param positions the positions, with their elevations in meters above mean sea level.
+     *
+     * @return for each position, the airspaces containing it in the order they were added to the index. The entry for
+     *         a null position is an empty list.
+     *
+     * @throws IllegalArgumentException if the position list is null.
+     * @throws WWRuntimeException       if the operation is interrupted.
+     */
+    public List<List<Airspace>> getAirspacesContaining(final List<? extends Position> positions)
+    {
+        if (positions == null)
+        {
+            String message = Logging.getMessage("nullValue.PositionsListIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        final Index index = this.getIndex();
+        final int numPositions = positions.size();
+        // Each task sets a disjoint range of entries, and waiting for the tasks publishes their results.
+        final List<List<Airspace>> results = new ArrayList<List<Airspace>>(
+            Collections.<List<Airspace>>nCopies(numPositions, null));
+
+        int numTasks = Math.min(this.getNumThreads(),
+            (numPositions + MIN_POSITIONS_PER_TASK - 1) / MIN_POSITIONS_PER_TASK);
+        final int positionsPerTask = numTasks > 0 ? (numPositions + numTasks - 1) / numTasks : 0;
+
+        this.execute(numTasks, new TaskBody()
+        {
+            public void run(int task, int numTasks)
+            {
+                double[] altitudes = new double[2];
+                int last = Math.min((task + 1) * positionsPerTask, numPositions);
+                for (int i = task * positionsPerTask; i < last; i++)
+                {
+                    Position position = positions.get(i);
+                    results.set(i, position != null ? getAirspacesContaining(index, position, altitudes)
+                        : Collections.<Airspace>emptyList());
+                }
+            }
+        });
+
+        return results;
+    }
+
+    /**
+     * Determines which pairs of airspaces overlap. The search is divided among {@link #getNumThreads()} threads.
+     * <p/>
+     * Two airspaces overlap when their footprints overlap and their altitude bands overlap at a location where they do.
+     * Altitude bands are compared at a location inside each footprint, near the corners of each footprint lying within
+     * the other, and near the crossings of the footprints' boundaries, so airspaces with altitudes relative to the
+     * ground may be reported as not overlapping if they overlap only away from those locations.
+     *
+     * @return one conflict for each pair of overlapping airspaces. The first airspace of each pair was added to the
+     *         index before the second, and pairs are ordered by their first airspace, then their second.
+     *
+     * @throws WWRuntimeException if the operation is interrupted.
+     */
+    public List<Conflict> getConflicts()
+    {
+        final Index index = this.getIndex();
+        final int numVolumes = index.volumes.length;
+        final Map<Long, Conflict> conflicts = new ConcurrentSkipListMap<Long, Conflict>();
+
+        int numTasks = Math.min(this.getNumThreads(), numVolumes / 16 + 1);
+
+        // Volumes are interleaved among tasks, because the number of candidate pairs per volume decreases with the
+        // volume's index.
+        this.execute(numTasks, new TaskBody()
+        {
+            public void run(int task, int numTasks)
+            {
+                int[] visited = new int[numVolumes];
+                Arrays.fill(visited, -1);
+
+                for (int i = task; i < numVolumes; i += numTasks)
+                {
+                    findConflicts(index, i, visited, conflicts);
+                }
+            }
+        });
+
+        return new ArrayList<Conflict>(conflicts.values());
+    }
+
+    //**************************************************************//
+    //********************  Queries  *******************************//
+    //**************************************************************//
+
+    protected List<Airspace> getAirspacesContaining(Index index, Position position, double[] altitudes)
+    {
+        double latitude = position.getLatitude().degrees;
+        double longitude = position.getLongitude().degrees;
+        double elevation = position.getElevation();
+
+        int[] cell = index.getCell(latitude, longitude);
+        if (cell == null)
+            return Collections.emptyList();
+
+        List<Airspace> airspaces = null;
+        double terrainElevation = Double.NaN;
+
+        for (int v : cell)
+        {
+            Volume volume = index.volumes[v];
+            if (airspaces != null && airspaces.get(airspaces.size() - 1) == volume.airspace)
+                continue; // the airspace is already known to contain the position
+
+            Footprint footprint = volume.footprint;
+            double lon = footprint.unwrap(longitude);
+            if (lon < footprint.minLongitude || lon > footprint.maxLongitude)
+                continue;
+
+            if (!footprint.contains(latitude, lon))
+                continue;
+
+            if ((volume.aboveGround[0] || volume.aboveGround[1]) && Double.isNaN(terrainElevation))
+                terrainElevation = this.getTerrainElevation(latitude, longitude);
+
+            this.computeAltitudes(volume, latitude, lon, terrainElevation, altitudes);
+            if (elevation < altitudes[0] || elevation > altitudes[1])
+                continue;
+
+            if (airspaces == null)
+                airspaces = new ArrayList<Airspace>(2);
+            airspaces.add(volume.airspace);
+        }
+
+        return airspaces != null ? airspaces : Collections.<Airspace>emptyList();
+    }
+
+    /**
+     * Finds the volumes that overlap a volume and follow it in the index.
+     *
+     * @param index     the index.
+     * @param i         the volume's index.
+     * @param visited   the index of the last volume each volume was compared to.
+     * @param conflicts the map to add conflicts to, keyed by the indices of their airspaces. Volumes are not compared
+     *                  if their airspaces are already known to conflict.
+     */
+    protected void findConflicts(Index index, int i, int[] visited, Map<Long, Conflict> conflicts)
+    {
+        Volume a = index.volumes[i];
+        Footprint fa = a.footprint;
+
+        int minRow = index.row(fa.minLatitude);
+        int maxRow = index.row(fa.maxLatitude);
+        int minColumn = (int) Math.floor((fa.minLongitude + 180) / index.cellSize);
+        int maxColumn = (int) Math.floor((fa.maxLongitude + 180) / index.cellSize);
+        if (maxColumn - minColumn >= index.numColumns)
+        {
+            minColumn = 0;
+            maxColumn = index.numColumns - 1;
+        }
+
+        for (int row = minRow; row <= maxRow; row++)
+        {
+            for (int column = minColumn; column <= maxColumn; column++)
+            {
+                int[] cell = index.cells[row * index.numColumns + index.wrapColumn(column)];
+                if (cell == null)
+                    continue;
+
+                for (int j : cell)
+                {
+                    if (j <= i || visited[j] == i)
+                        continue;
+                    visited[j] = i;
+
+                    Volume b = index.volumes[j];
+                    if (b.airspaceIndex == a.airspaceIndex)
+                        continue;
+
+                    long key = (long) a.airspaceIndex << 32 | b.airspaceIndex;
+                    if (conflicts.containsKey(key))
+                        continue;
+
+                    Position position = this.findOverlap(a, b);
+                    if (position != null && !conflicts.containsKey(key))
+                        conflicts.put(key, new Conflict(a.airspace, b.airspace, position));
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds a position inside two volumes.
+     *
+     * @param a the first volume.
+     * @param b the second volume.
+     *
+     * @return a position inside both volumes, or null if none was found.
+     */
+    protected Position findOverlap(Volume a, Volume b)
+    {
+        Footprint fa = a.footprint;
+        Footprint fb = b.footprint;
+
+        // Express the second footprint's longitudes relative to the first footprint's.
+        double shift = fa.unwrap(fb.referenceLongitude) - fb.referenceLongitude;
+
+        if (fa.maxLatitude < fb.minLatitude || fb.maxLatitude < fa.minLatitude
+            || fa.maxLongitude < fb.minLongitude + shift || fb.maxLongitude + shift < fa.minLongitude)
+            return null;
+
+        double[] altitudes = new double[4];
+
+        // Test a location inside each footprint, which finds a footprint lying entirely within the other.
+        if (a.interiorPoint != null)
+        {
+            Position p = this.testOverlap(a, b, a.interiorPoint[0], a.interiorPoint[1], altitudes);
+            if (p != null)
+                return p;
+        }
+
+        if (b.interiorPoint != null)
+        {
+            Position p = this.testOverlap(a, b, b.interiorPoint[0], b.interiorPoint[1], altitudes);
+            if (p != null)
+                return p;
+        }
+
+        // Test the corners of each footprint that lie within the other. The corners are on their own footprint's
+        // boundary, so they are tested only against the other footprint, and a position near them is reported.
+        for (double[] boundary : fa.boundaries)
+        {
+            for (int k = 0; k < boundary.length; k += 2)
+            {
+                if (!fb.contains(boundary[k], boundary[k + 1] - shift))
+                    continue;
+
+                Position p = this.testNearbyOverlap(a, b, boundary[k], boundary[k + 1], altitudes);
+                if (p != null)
+                    return p;
+            }
+        }
+
+        for (double[] boundary : fb.boundaries)
+        {
+            for (int k = 0; k < boundary.length; k += 2)
+            {
+                if (!fa.contains(boundary[k], boundary[k + 1] + shift))
+                    continue;
+
+                Position p = this.testNearbyOverlap(a, b, boundary[k], boundary[k + 1] + shift, altitudes);
+                if (p != null)
+                    return p;
+            }
+        }
+
+        // Test the crossings of the footprints' boundaries.
+        for (double[] ba : fa.boundaries)
+        {
+            for (double[] bb : fb.boundaries)
+            {
+                Position p = this.testCrossings(a, b, ba, bb, shift, altitudes);
+                if (p != null)
+                    return p;
+            }
+        }
+
+        return null;
+    }
+
+    protected Position testCrossings(Volume a, Volume b, double[] ba, double[] bb, double shift, double[] altitudes)
+    {
+        int na = ba.length;
+        int nb = bb.length;
+
+        for (int i = 0; i < na; i += 2)
+        {
+            double y1 = ba[i];
+            double x1 = ba[i + 1];
+            double y2 = ba[(i + 2) % na];
+            double x2 = ba[(i + 3) % na];
+
+            for (int j = 0; j < nb; j += 2)
+            {
+                double y3 = bb[j];
+                double x3 = bb[j + 1] + shift;
+                double y4 = bb[(j + 2) % nb];
+                double x4 = bb[(j + 3) % nb] + shift;
+
+                double d = (x2 - x1) * (y4 - y3) - (y2 - y1) * (x4 - x3);
+                if (d == 0)
+                    continue;
+
+                double s = ((x3 - x1) * (y4 - y3) - (y3 - y1) * (x4 - x3)) / d;
+                double t = ((x3 - x1) * (y2 - y1) - (y3 - y1) * (x2 - x1)) / d;
+                if (s < 0 || s > 1 || t < 0 || t > 1)
+                    continue;
+
+                double latitude = y1 + s * (y2 - y1);
+                double longitude = x1 + s * (x2 - x1);
+                Position p = this.testNearbyOverlap(a, b, latitude, longitude, altitudes);
+                if (p != null)
+                    return p;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Tests whether a location is inside two volumes, and if so, whether their altitude bands overlap there. The
+     * location is tested as {@link #getAirspacesContaining(Position)} tests it, so that the position returned is
+     * reported to be inside both volumes.
+     *
+     * @param a         the first volume.
+     * @param b         the second volume.
+     * @param latitude  the location's latitude, in degrees.
+     * @param longitude the location's longitude, in degrees.
+     * @param altitudes an array of at least two elements for intermediate results.
+     *
+     * @return a position at the location inside both volumes, or null if there is none.
+     */
+    protected Position testOverlap(Volume a, Volume b, double latitude, double longitude, double[] altitudes)
+    {
+        longitude = normalizeDegrees(longitude);
+        double longitudeA = a.footprint.unwrap(longitude);
+        double longitudeB = b.footprint.unwrap(longitude);
+        if (!a.footprint.contains(latitude, longitudeA) || !b.footprint.contains(latitude, longitudeB))
+            return null;
+
+        return this.testAltitudeOverlap(a, b, latitude, longitudeA, longitudeB, altitudes);
+    }
+
+    /**
+     * Finds a position inside two volumes at or near a location on the boundary of either, such as a corner of one
+     * footprint or a crossing of the footprints' boundaries. Locations at increasing distances around the location are
+     * tested until one is inside both volumes.
+     *
+     * @param a         the first volume.
+     * @param b         the second volume.
+     * @param latitude  the location's latitude, in degrees.
+     * @param longitude the location's longitude, in degrees.
+     * @param altitudes an array of at least two elements for intermediate results.
+     *
+     * @return a position inside both volumes, or null if none was found.
+     */
+    protected Position testNearbyOverlap(Volume a, Volume b, double latitude, double longitude, double[] altitudes)
+    {
+        Position p = this.testOverlap(a, b, latitude, longitude, altitudes);
+        if (p != null)
+            return p;
+
+        for (double distance : NEARBY_DISTANCES)
+        {
+            for (int i = 0; i < NEARBY_DIRECTIONS; i++)
+            {
+                double angle = 2 * Math.PI * i / NEARBY_DIRECTIONS;
+                p = this.testOverlap(a, b, latitude + distance * Math.cos(angle),
+                    longitude + distance * Math.sin(angle), altitudes);
+                if (p != null)
+                    return p;
+            }
+        }
+
+        return null;
+    }
+
+    protected Position testAltitudeOverlap(Volume a, Volume b, double latitude, double longitudeA, double longitudeB,
+        double[] altitudes)
+    {
+        double terrainElevation = Double.NaN;
+        if (a.aboveGround[0] || a.aboveGround[1] || b.aboveGround[0] || b.aboveGround[1])
+            terrainElevation = this.getTerrainElevation(latitude, longitudeA);
+
+        this.computeAltitudes(a, latitude, longitudeA, terrainElevation, altitudes);
+        double lowerA = altitudes[0];
+        double upperA = altitudes[1];
+        this.computeAltitudes(b, latitude, longitudeB, terrainElevation, altitudes);
+
+        double lower = Math.max(lowerA, altitudes[0]);
+        double upper = Math.min(upperA, altitudes[1]);
+        if (lower > upper)
+            return null;
+
+        return Position.fromDegrees(latitude, normalizeDegrees(longitudeA), (lower + upper) / 2);
+    }
+
+    /**
+     * Computes the bottom and top altitudes of a volume at a location.
+     *
+     * @param volume           the volume.
+     * @param latitude         the location's latitude, in degrees.
+     * @param longitude        the location's longitude, in degrees.
+     * @param terrainElevation the terrain elevation at the location, used by altitudes relative to the ground.
+     * @param altitudes        an array in which to return the bottom and top altitudes, in meters above mean sea
+     *                         level.
+     */
+    protected void computeAltitudes(Volume volume, double latitude, double longitude, double terrainElevation,
+        double[] altitudes)
+    {
+        altitudes[0] = volume.altitudes[0] + (volume.aboveGround[0] ? terrainElevation : 0);
+        altitudes[1] = volume.altitudes[1] + (volume.aboveGround[1] ? terrainElevation : 0);
+
+        if (volume.sphereRadius > 0)
+        {
+            // The altitudes of a sphere are those of its center, and its extent above and below the center depends on
+            // the horizontal distance from it.
+            double d = volume.footprint.distanceToCenter(latitude, longitude) * this.globe.getEquatorialRadius();
+            double h = Math.sqrt(Math.max(volume.sphereRadius * volume.sphereRadius - d * d, 0));
+            altitudes[0] -= h;
+            altitudes[1] += h;
+        }
+    }
+
+    protected double getTerrainElevation(double latitude, double longitude)
+    {
+        return this.globe.getElevation(Angle.fromDegrees(latitude), Angle.fromDegrees(normalizeDegrees(longitude)));
+    }
+
+    //**************************************************************//
+    //********************  Volumes  *******************************//
+    //**************************************************************//
+
+    protected Index getIndex()
+    {
+        Index index = this.index;
+        if (index != null)
+            return index;
+
+        synchronized (this)
+        {
+            if (this.index == null)
+            {
+                List<Volume> volumes = new ArrayList<Volume>();
+                for (int i = 0; i < this.airspaces.size(); i++)
+                {
+                    this.addVolumes(this.airspaces.get(i), i, volumes);
+                }
+
+                this.index = new Index(volumes, this.cellSize);
+            }
+
+            return this.index;
+        }
+    }
+
+    /**
+     * Computes the volumes of an airspace. Override this method to index airspace types not supported by this class.
+     *
+     * @param airspace      the airspace.
+     * @param airspaceIndex the airspace's position in the index.
+     * @param volumes       the list to add the airspace's volumes to.
+     */
+    protected void addVolumes(Airspace airspace, int airspaceIndex, List<Volume> volumes)
+    {
+        if (airspace instanceof TrackAirspace)
+        {
+            for (Box leg : ((TrackAirspace) airspace).getLegs())
+            {
+                this.addVolume(airspace, airspaceIndex, leg, this.makeBoxFootprint(leg), volumes);
+            }
+        }
+        else if (airspace instanceof Cake)
+        {
+            for (Cake.Layer layer : ((Cake) airspace).getLayers())
+            {
+                this.addVolume(airspace, airspaceIndex, layer, this.makeCylinderFootprint(layer), volumes);
+            }
+        }
+        else if (airspace instanceof CappedCylinder)
+        {
+            this.addVolume(airspace, airspaceIndex, airspace, this.makeCylinderFootprint((CappedCylinder) airspace),
+                volumes);
+        }
+        else if (airspace instanceof PolyArc)
+        {
+            this.addVolume(airspace, airspaceIndex, airspace, this.makePolyArcFootprint((PolyArc) airspace), volumes);
+        }
+        else if (airspace instanceof Polygon)
+        {
+            List<LatLon> locations = ((Polygon) airspace).getLocations();
+            if (locations.size() >= 3)
+                this.addVolume(airspace, airspaceIndex, airspace, new PolygonFootprint(locations), volumes);
+        }
+        else if (airspace instanceof Box)
+        {
+            this.addVolume(airspace, airspaceIndex, airspace, this.makeBoxFootprint((Box) airspace), volumes);
+        }
+        else if (airspace instanceof Orbit)
+        {
+            this.addVolume(airspace, airspaceIndex, airspace, this.makeOrbitFootprint((Orbit) airspace), volumes);
+        }
+        else if (airspace instanceof SphereAirspace)
+        {
+            this.addSphereVolume((SphereAirspace) airspace, airspaceIndex, volumes);
+        }
+        else if (!(airspace instanceof Curtain))
+        {
+            String message = Logging.getMessage("AirspaceIndex.UnsupportedAirspace", airspace.getClass().getName());
+            Logging.logger().warning(message);
+        }
+    }
+
+    /**
+     * Adds a volume whose altitudes are those of a specified airspace.
+     *
+     * @param airspace      the indexed airspace.
+     * @param airspaceIndex the indexed airspace's position in the index.
+     * @param part          the airspace, or the part of it, that defines the volume's altitudes.
+     * @param footprint     the volume's footprint. If null, no volume is added.
+     * @param volumes       the list to add the volume to.
+     */
+    protected void addVolume(Airspace airspace, int airspaceIndex, Airspace part, Footprint footprint,
+        List<Volume> volumes)
+    {
+        if (footprint == null)
+            return;
+
+        double[] altitudes = part.getAltitudes();
+        String[] datums = part.getAltitudeDatum();
+        boolean[] terrainConforming = part.isTerrainConforming();
+        LatLon groundReference = part.getGroundReference() != null ? part.getGroundReference()
+            : airspace.getGroundReference();
+
+        boolean[] aboveGround = new boolean[2];
+        for (int i = 0; i < 2; i++)
+        {
+            if (AVKey.ABOVE_GROUND_REFERENCE.equals(datums[i]) && groundReference != null)
+                altitudes[i] += this.getTerrainElevation(groundReference.getLatitude().degrees,
+                    groundReference.getLongitude().degrees);
+            else
+                aboveGround[i] = terrainConforming[i];
+        }
+
+        volumes.add(new Volume(airspace, airspaceIndex, footprint, altitudes, aboveGround, 0));
+    }
+
+    protected void addSphereVolume(SphereAirspace sphere, int airspaceIndex, List<Volume> volumes)
+    {
+        double radius = sphere.getRadius();
+        if (radius <= 0)
+            return;
+
+        // The sphere's center is relative to the terrain beneath it, rather than to the terrain at the location tested.
+        double altitude = sphere.getAltitudes()[0];
+        LatLon center = sphere.getLocation();
+        if (sphere.isTerrainConforming()[0])
+            altitude += this.getTerrainElevation(center.getLatitude().degrees, center.getLongitude().degrees);
+
+        Footprint footprint = new ArcFootprint(center, 0, radius / this.globe.getEquatorialRadius(), 0, 360);
+        volumes.add(new Volume(sphere, airspaceIndex, footprint, new double[] {altitude, altitude},
+            new boolean[2], radius));
+    }
+
+    protected Footprint makeCylinderFootprint(CappedCylinder cylinder)
+    {
+        double[] radii = cylinder.getRadii();
+        double globeRadius = this.globe.getEquatorialRadius();
+        if (radii[1] <= radii[0])
+            return null;
+
+        double start = 0;
+        double sweep = 360;
+        if (cylinder instanceof PartialCappedCylinder)
+        {
+            double[] angles = ((PartialCappedCylinder) cylinder).computeAngles();
+            if (angles != null)
+            {
+                start = Math.toDegrees(angles[0]);
+                sweep = Math.toDegrees(angles[2]);
+            }
+        }
+
+        return new ArcFootprint(cylinder.getCenter(), radii[0] / globeRadius, radii[1] / globeRadius, start, sweep);
+    }
+
+    protected Footprint makePolyArcFootprint(PolyArc polyArc)
+    {
+        List<LatLon> locations = polyArc.getLocationList();
+        if (locations.isEmpty())
+            return null;
+
+        // The footprint is an arc about the first location, clockwise from the left azimuth to the right azimuth,
+        // joined to the remaining locations in counter-clockwise order.
+        double[] angles = polyArc.computeAngles();
+        double radius = polyArc.getRadius() / this.globe.getEquatorialRadius();
+        int slices = Math.max((int) Math.ceil(ARC_SLICES * angles[2] / (2 * Math.PI)), 2);
+
+        LatLon first = locations.get(0);
+        List<LatLon> boundary = new ArrayList<LatLon>(slices + locations.size());
+        for (int i = 0; i <= slices; i++)
+        {
+            boundary.add(LatLon.greatCircleEndPosition(first, angles[0] + angles[2] * i / slices, radius));
+        }
+
+        List<LatLon> others = locations.subList(1, locations.size());
+        if (others.size() > 1 && computeSignedArea(locations) < 0)
+        {
+            others = new ArrayList<LatLon>(others);
+            Collections.reverse(others);
+        }
+        boundary.addAll(others);
+
+        return new PolygonFootprint(boundary);
+    }
+
+    protected Footprint makeBoxFootprint(Box box)
+    {
+        LatLon[] locations = box.getLocations();
+        double[] widths = box.getWidths();
+        double globeRadius = this.globe.getEquatorialRadius();
+
+        double[] begin = toVector(locations[0].getLatitude().degrees, locations[0].getLongitude().degrees);
+        double[] end = toVector(locations[1].getLatitude().degrees, locations[1].getLongitude().degrees);
+        if (angleBetween(begin, end) == 0 || widths[0] + widths[1] <= 0)
+            return null;
+
+        return new CorridorFootprint(begin, end, widths[0] / globeRadius, widths[1] / globeRadius, false);
+    }
+
+    protected Footprint makeOrbitFootprint(Orbit orbit)
+    {
+        LatLon[] locations = orbit.getLocations();
+        double radius = orbit.getWidth() / 2 / this.globe.getEquatorialRadius();
+        if (radius <= 0)
+            return null;
+
+        double[] begin = toVector(locations[0].getLatitude().degrees, locations[0].getLongitude().degrees);
+        double[] end = toVector(locations[1].getLatitude().degrees, locations[1].getLongitude().degrees);
+        if (angleBetween(begin, end) == 0)
+            return new ArcFootprint(locations[0], 0, radius, 0, 360);
+
+        // Left and right orbits are offset by their radius to the left or right of the line between their locations.
+        double offset = Orbit.OrbitType.LEFT.equals(orbit.getOrbitType()) ? radius
+            : Orbit.OrbitType.RIGHT.equals(orbit.getOrbitType()) ? -radius : 0;
+        if (offset != 0)
+        {
+            double[] normal = normalize(cross(begin, end));
+            begin = offset(begin, normal, offset);
+            end = offset(end, normal, offset);
+        }
+
+        return new CorridorFootprint(begin, end, radius, radius, true);
+    }
+
+    //**************************************************************//
+    //********************  Geometry Utilities  ********************//
+    //**************************************************************//
+
+    protected static double normalizeDegrees(double degrees)
+    {
+        if (degrees >= -180 && degrees <= 180)
+            return degrees;
+
+        degrees -= 360 * Math.floor((degrees + 180) / 360);
+        return degrees;
+    }
+
+    protected static boolean polygonContains(double[] vertices, double latitude, double longitude)
+    {
+        boolean inside = false;
+        int n = vertices.length;
+        for (int i = 0, j = n - 2; i < n; j = i, i += 2)
+        {
+            double yi = vertices[i];
+            double xi = vertices[i + 1];
+            double yj = vertices[j];
+            double xj = vertices[j + 1];
+
+            if ((yi > latitude) != (yj > latitude)
+                && longitude < xi + (latitude - yi) * (xj - xi) / (yj - yi))
+                inside = !inside;
+        }
+
+        return inside;
+    }
+
+    protected static double computeSignedArea(List<? extends LatLon> locations)
+    {
+        double reference = locations.get(0).getLongitude().degrees;
+        double area = 0;
+        int n = locations.size();
+        for (int i = 0; i < n; i++)
+        {
+            LatLon a = locations.get(i);
+            LatLon b = locations.get((i + 1) % n);
+            double xa = normalizeDegrees(a.getLongitude().degrees - reference);
+            double xb = normalizeDegrees(b.getLongitude().degrees - reference);
+            area += xa * b.getLatitude().degrees - xb * a.getLatitude().degrees;
+        }
+
+        return area / 2;
+    }
+
+    protected static double greatCircleDistance(double lat1, double lat2, double dLon)
+    {
+        double a = Math.sin((lat2 - lat1) / 2);
+        double b = Math.sin(dLon / 2);
+        double h = a * a + Math.cos(lat1) * Math.cos(lat2) * b * b;
+
+        return 2 * Math.asin(Math.min(1, Math.sqrt(h)));
+    }
+
+    protected static double[] toVector(double latitude, double longitude)
+    {
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        double cosLat = Math.cos(lat);
+
+        return new double[] {cosLat * Math.cos(lon), cosLat * Math.sin(lon), Math.sin(lat)};
+    }
+
+    protected static double[] offset(double[] point, double[] normal, double angle)
+    {
+        double c = Math.cos(angle);
+        double s = Math.sin(angle);
+
+        return new double[] {c * point[0] + s * normal[0], c * point[1] + s * normal[1], c * point[2] + s * normal[2]};
+    }
+
+    protected static double dot(double[] a, double[] b)
+    {
+        return a[0] * b[0] + a[1] * b[1] + a[2] * b[2];
+    }
+
+    protected static double[] cross(double[] a, double[] b)
+    {
+        return new double[] {a[1] * b[2] - a[2] * b[1], a[2] * b[0] - a[0] * b[2], a[0] * b[1] - a[1] * b[0]};
+    }
+
+    protected static double[] normalize(double[] a)
+    {
+        double length = Math.sqrt(dot(a, a));
+        return new double[] {a[0] / length, a[1] / length, a[2] / length};
+    }
+
+    protected static double angleBetween(double[] a, double[] b)
+    {
+        double[] c = cross(a, b);
+        return Math.atan2(Math.sqrt(dot(c, c)), dot(a, b));
+    }
+
+    //**************************************************************//
+    //********************  Task Execution  ************************//
+    //**************************************************************//
+
+    protected interface TaskBody
+    {
+        void run(int task, int numTasks);
+    }
+
+    protected void execute(final int numTasks, final TaskBody body)
+    {
+        if (numTasks <= 1)
+        {
+            if (numTasks == 1)
+                body.run(0, 1);
+            return;
+        }
+
+        ExecutorService executor = getQueryExecutor();
+        List<Future<?>> futures = new ArrayList<Future<?>>(numTasks);
+
+        try
+        {
+            for (int i = 0; i < numTasks; i++)
+            {
+                final int task = i;
+                futures.add(executor.submit(new Callable<Object>()
+                {
+                    public Object call() throws Exception
+                    {
+                        body.run(task, numTasks);
+                        return null;
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures)
+            {
+                future.get();
+            }
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+
+            throw new WWRuntimeException(e.getCause());
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new WWRuntimeException(e);
+        }
+        finally
+        {
+            // The executor is shared, so stop only this query's tasks if the query failed.
+            for (Future<?> future : futures)
+            {
+                future.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Returns the executor running the tasks of batch queries, creating it if necessary. The executor's threads are
+     * daemon threads and are discarded after being idle for a minute.
+     *
+     * @return the executor shared by all indexes.
+     */
+    protected static synchronized ExecutorService getQueryExecutor()
+    {
+        if (queryExecutor == null)
+        {
+            queryExecutor = Executors.newCachedThreadPool(new ThreadFactory()
+            {
+                public Thread newThread(Runnable runnable)
+                {
+                    Thread thread = new Thread(runnable);
+                    thread.setDaemon(true);
+                    thread.setName("Airspace Index Query");
+                    return thread;
+                }
+            });
+        }
+
+        return queryExecutor;
+    }
+}
@@ -16,6 +16,11 @@ import java.util.logging.Level;
 
 /**
  * Performs threaded retrieval of data.
+ * <p/>
+ * Retrievers whose {@link AVKey#RETRIEVAL_PREFETCH} value is <code>Boolean.TRUE</code> retrieve data that is expected to
+ * be needed soon but is not needed now. They run only after all other pending retrievers, are refused while the queue
+ * is more than half full, and are limited to {@link AVKey#RETRIEVAL_PREFETCH_LIMIT} pending at once. A request for the
+ * same data made while a prefetch is pending replaces the prefetch.
  *
  * @author Tom Gaskins
  * @version $Id: BasicRetrievalService.java 11710 2009-06-17 22:48:37Z tgaskins $
@@ -28,6 +33,7 @@ public final class BasicRetrievalService extends WWObjectImpl
     private static final int DEFAULT_POOL_SIZE = 5;
     private static final long DEFAULT_STALE_REQUEST_LIMIT = 30000; // milliseconds
     private static final int DEFAULT_TIME_PRIORITY_GRANULARITY = 500; // milliseconds
+    private static final int DEFAULT_PREFETCH_LIMIT = 4;
 
     private static final String RUNNING_THREAD_NAME_PREFIX = Logging.getMessage(
         "BasicRetrievalService.RunningThreadNamePrefix");
@@ -37,6 +43,7 @@ public final class BasicRetrievalService extends WWObjectImpl
     private RetrievalExecutor executor; // thread pool for running retrievers
     private ConcurrentLinkedQueue<RetrievalTask> activeTasks; // tasks currently allocated a thread
     private int queueSize; // maximum queue size
+    private int prefetchLimit; // maximum number of pending prefetch retrievers
 
     /**
      * Encapsulates a single threaded retrieval as a {@link java.util.concurrent.FutureTask}.
@@ -46,12 +53,14 @@ public final class BasicRetrievalService extends WWObjectImpl
     {
         private Retriever retriever;
         private double priority; // retrieval secondary priority (primary priority is submit time)
+        private boolean prefetch; // prefetches run after all other tasks
 
         private RetrievalTask(Retriever retriever, double priority)
         {
             super(retriever);
             this.retriever = retriever;
             this.priority = priority;
+            this.prefetch = Boolean.TRUE.equals(retriever.getValue(AVKey.RETRIEVAL_PREFETCH));
         }
 
         public double getPriority()
@@ -87,6 +96,9 @@ public final class BasicRetrievalService extends WWObjectImpl
                 throw new IllegalArgumentException(msg);
             }
 
+            if (this.prefetch != that.prefetch)
+                return this.prefetch ? 1 : -1;
+
             if (this.priority > 0 && that.priority > 0) // only secondary priority used if either is negative
             {
                 // Requests submitted within different time-granularity periods are ordered exclusive of their
@@ -279,6 +291,7 @@ public final class BasicRetrievalService extends WWObjectImpl
     {
         Integer poolSize = Configuration.getIntegerValue(AVKey.RETRIEVAL_POOL_SIZE, DEFAULT_POOL_SIZE);
         this.queueSize = Configuration.getIntegerValue(AVKey.RETRIEVAL_QUEUE_SIZE, DEFAULT_QUEUE_SIZE);
+        this.prefetchLimit = Configuration.getIntegerValue(AVKey.RETRIEVAL_PREFETCH_LIMIT, DEFAULT_PREFETCH_LIMIT);
 
         // this.executor runs the retrievers, each in their own thread
         this.executor = new RetrievalExecutor(poolSize, this.queueSize);
@@ -351,6 +364,16 @@ public final class BasicRetrievalService extends WWObjectImpl
         RetrievalTask task = new RetrievalTask(retriever, priority);
         retriever.setSubmitTime(System.currentTimeMillis());
 
+        if (task.prefetch && !this.isPrefetchAvailable())
+        {
+            Logging.logger().finer(Logging.getMessage("BasicRetrievalService.ResourceRejected", retriever.getName()));
+            return null;
+        }
+
+        // A request for data whose prefetch is still queued takes the prefetch's place.
+        if (!task.prefetch)
+            this.removeQueuedPrefetch(task);
+
         // Do not queue duplicates.
         if (this.activeTasks.contains(task) || this.executor.getQueue().contains(task))
             return null;
@@ -405,6 +428,39 @@ public final class BasicRetrievalService extends WWObjectImpl
 //            && !WorldWind.getNetworkStatus().isNetworkUnavailable();
     }
 
+    private boolean isPrefetchAvailable()
+    {
+        if (this.executor.getQueue().size() > this.queueSize / 2)
+            return false;
+
+        int numPrefetches = 0;
+        for (RetrievalTask task : this.activeTasks)
+        {
+            if (task.prefetch)
+                numPrefetches++;
+        }
+        for (Runnable runnable : this.executor.getQueue())
+        {
+            if (((RetrievalTask) runnable).prefetch)
+                numPrefetches++;
+        }
+
+        return numPrefetches < this.prefetchLimit;
+    }
+
+    private void removeQueuedPrefetch(RetrievalTask task)
+    {
+        for (Runnable runnable : this.executor.getQueue())
+        {
+            RetrievalTask queuedTask = (RetrievalTask) runnable;
+            if (queuedTask.prefetch && queuedTask.equals(task))
+            {
+                this.executor.remove(queuedTask);
+                return;
+            }
+        }
+    }
+
     public int getNumRetrieversPending()
     {
         // Could use same method to determine active tasks as hasRetrievers() above, but this method only advisory.
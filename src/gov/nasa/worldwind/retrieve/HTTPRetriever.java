@@ -13,6 +13,11 @@ import java.nio.ByteBuffer;
 import java.util.logging.Level;
 
 /**
+ * Retrieves resources over HTTP. A retriever may make its request conditional on the resource having changed since a
+ * previous retrieval, by specifying the previous retrieval's validators: its <code>Last-Modified</code> time and its
+ * <code>ETag</code> entity tag. When the server responds that the resource has not changed, the retrieval succeeds
+ * without content and {@link #isNotModified()} returns true.
+ *
  * @author Tom Gaskins
  * @version $Id: HTTPRetriever.java 2471 2007-07-31 21:50:57Z tgaskins $
  */
@@ -20,6 +25,10 @@ public class HTTPRetriever extends URLRetriever
 {
     private int responseCode;
     private String responseMessage;
+    private long ifModifiedSince;
+    private String ifNoneMatch;
+    private long lastModified;
+    private String entityTag;
 
     public HTTPRetriever(URL url, RetrievalPostProcessor postProcessor)
     {
@@ -36,6 +45,82 @@ public class HTTPRetriever extends URLRetriever
         return this.responseMessage;
     }
 
+    /**
+     * Indicates whether the server responded that the resource has not changed since the time or entity tag specified
+     * by {@link #setIfModifiedSince(long)} or {@link #setIfNoneMatch(String)}.
+     *
+     * @return true if the resource has not been modified, otherwise false.
+     */
+    public boolean isNotModified()
+    {
+        return this.responseCode == HttpURLConnection.HTTP_NOT_MODIFIED;
+    }
+
+    public long getIfModifiedSince()
+    {
+        return this.ifModifiedSince;
+    }
+
+    /**
+     * Specifies that the resource is to be retrieved only if it has been modified since a specified time, typically the
+     * <code>Last-Modified</code> time of a previous retrieval.
+     *
+     * @param ifModifiedSince the time, in milliseconds since the epoch, or 0 to retrieve the resource unconditionally.
+     */
+    public void setIfModifiedSince(long ifModifiedSince)
+    {
+        this.ifModifiedSince = ifModifiedSince;
+    }
+
+    public String getIfNoneMatch()
+    {
+        return this.ifNoneMatch;
+    }
+
+    /**
+     * Specifies that the resource is to be retrieved only if its entity tag differs from a specified one, typically
+     * the <code>ETag</code> of a previous retrieval.
+     *
+     * @param ifNoneMatch the entity tag, or null to retrieve the resource unconditionally.
+     */
+    public void setIfNoneMatch(String ifNoneMatch)
+    {
+        this.ifNoneMatch = ifNoneMatch;
+    }
+
+    /**
+     * Returns the <code>Last-Modified</code> time of the retrieved resource.
+     *
+     * @return the time, in milliseconds since the epoch, or 0 if the server did not specify it.
+     */
+    public long getLastModified()
+    {
+        return this.lastModified;
+    }
+
+    /**
+     * Returns the <code>ETag</code> entity tag of the retrieved resource.
+     *
+     * @return the entity tag, or null if the server did not specify it.
+     */
+    public String getEntityTag()
+    {
+        return this.entityTag;
+    }
+
+    @Override
+    protected URLConnection openConnection() throws java.io.IOException
+    {
+        URLConnection connection = super.openConnection();
+
+        if (this.ifModifiedSince > 0)
+            connection.setIfModifiedSince(this.ifModifiedSince);
+        if (this.ifNoneMatch != null)
+            connection.setRequestProperty("If-None-Match", this.ifNoneMatch);
+
+        return connection;
+    }
+
     protected ByteBuffer doRead(URLConnection connection) throws Exception
     {
         if (connection == null)
@@ -48,6 +133,8 @@ public class HTTPRetriever extends URLRetriever
         HttpURLConnection htpc = (HttpURLConnection) connection;
         this.responseCode = htpc.getResponseCode();
         this.responseMessage = htpc.getResponseMessage();
+        this.lastModified = htpc.getLastModified();
+        this.entityTag = htpc.getHeaderField("ETag");
         String contentType = connection.getContentType();
 
         Logging.logger().log(Level.FINE, "HTTPRetriever.ResponseInfo", new Object[] {this.responseCode,
@@ -11,19 +11,26 @@ import gov.nasa.worldwind.*;
 import gov.nasa.worldwind.avlist.*;
 import gov.nasa.worldwind.cache.FileStore;
 import gov.nasa.worldwind.geom.*;
-import gov.nasa.worldwind.globes.ElevationModel;
+import gov.nasa.worldwind.globes.*;
 import gov.nasa.worldwind.util.*;
 import org.w3c.dom.Element;
 
 import javax.xml.xpath.XPath;
-import java.util.List;
+import java.util.*;
 
 /**
  * @author tag
  * @version $Id: AbstractElevationModel.java 13695 2010-09-02 18:54:27Z tgaskins $
  */
-abstract public class AbstractElevationModel extends WWObjectImpl implements ElevationModel
+abstract public class AbstractElevationModel extends WWObjectImpl implements ElevationModel, ElevationChangeTracker
 {
+    /** The size, in degrees, of the cells in which elevation change epochs are recorded. */
+    protected static final double CHANGE_EPOCH_CELL_SIZE = 1;
+    protected static final int NUM_CHANGE_EPOCH_ROWS = (int) Math.ceil(180 / CHANGE_EPOCH_CELL_SIZE);
+    protected static final int NUM_CHANGE_EPOCH_COLS = (int) Math.ceil(360 / CHANGE_EPOCH_CELL_SIZE);
+    /** Changes and queries spanning more cells than this are treated as spanning the entire globe. */
+    protected static final int MAX_CHANGE_EPOCH_CELLS = 1024;
+
     private FileStore dataFileStore = WorldWind.getDataFileStore();
     protected double missingDataFlag = -Double.MAX_VALUE;
     protected double missingDataValue = 0;
@@ -32,6 +39,12 @@ abstract public class AbstractElevationModel extends WWObjectImpl implements Ele
     private boolean networkRetrievalEnabled = true;
     private long expiryTime = 0;
 
+    private final Object changeEpochLock = new Object();
+    private long changeEpoch; // the epoch of the most recent change anywhere
+    private long globalChangeEpoch; // the epoch of the most recent change affecting the entire globe
+    private final Map<Integer, Long> cellChangeEpochs = new HashMap<Integer, Long>();
+    private long removedComponentEpochs; // the sum of the change epochs of the wrapped models that were removed
+
     public void dispose()
     {
     }
@@ -75,6 +88,156 @@ abstract public class AbstractElevationModel extends WWObjectImpl implements Ele
         this.expiryTime = expiryTime;
     }
 
+    public long getChangeEpoch(Sector sector)
+    {
+        return this.getOwnChangeEpoch(sector);
+    }
+
+    /**
+     * Returns the change epoch of a sector as marked by this model's calls to {@link
+     * #markElevationsChanged(gov.nasa.worldwind.geom.Sector)}, excluding the changes of any models this model wraps.
+     *
+     * @param sector the sector of interest. May be null, to indicate the entire globe.
+     *
+     * @return the sector's change epoch.
+     */
+    protected long getOwnChangeEpoch(Sector sector)
+    {
+        synchronized (this.changeEpochLock)
+        {
+            if (sector == null || this.changeEpoch == this.globalChangeEpoch)
+                return this.changeEpoch;
+
+            int[] cells = this.computeChangeEpochCells(sector);
+            if (cells == null)
+                return this.changeEpoch;
+
+            long epoch = this.globalChangeEpoch;
+            for (int row = cells[0]; row <= cells[1]; row++)
+            {
+                for (int col = cells[2]; col <= cells[3]; col++)
+                {
+                    Long cellEpoch = this.cellChangeEpochs.get(row * NUM_CHANGE_EPOCH_COLS + col);
+                    if (cellEpoch != null && cellEpoch > epoch)
+                        epoch = cellEpoch;
+                }
+            }
+
+            return epoch;
+        }
+    }
+
+    /**
+     * Advances the change epoch of a sector. Subclasses call this whenever the elevations they provide within a sector
+     * change, such as when a new elevation tile becomes available.
+     *
+     * @param sector the sector whose elevations changed. May be null, to indicate the entire globe.
+     *
+     * @see #getChangeEpoch(gov.nasa.worldwind.geom.Sector)
+     */
+    protected void markElevationsChanged(Sector sector)
+    {
+        synchronized (this.changeEpochLock)
+        {
+            long epoch = ++this.changeEpoch;
+
+            int[] cells = sector != null ? this.computeChangeEpochCells(sector) : null;
+            if (cells == null)
+            {
+                this.globalChangeEpoch = epoch;
+                this.cellChangeEpochs.clear(); // every cell epoch is now older than the global epoch
+                return;
+            }
+
+            for (int row = cells[0]; row <= cells[1]; row++)
+            {
+                for (int col = cells[2]; col <= cells[3]; col++)
+                {
+                    this.cellChangeEpochs.put(row * NUM_CHANGE_EPOCH_COLS + col, epoch);
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes the change epoch of a sector for a model whose elevations come from other models, such as a compound
+     * model. The epoch is the sum of this model's own epoch, the wrapped models' epochs, and the epochs of the wrapped
+     * models that were removed, as recorded by {@link #markComponentRemoved(gov.nasa.worldwind.globes.ElevationModel)}.
+     * Counting the removed models' epochs keeps the sum from decreasing when a model is removed.
+     *
+     * @param sector          the sector of interest. May be null, to indicate the entire globe.
+     * @param componentEpochs the sum of the wrapped models' change epochs for the sector.
+     *
+     * @return the sector's change epoch.
+     *
+     * @see #markElevationsChanged(gov.nasa.worldwind.geom.Sector)
+     */
+    protected long computeCompositeChangeEpoch(Sector sector, long componentEpochs)
+    {
+        // Changes to this model itself, such as a change of its set of wrapped models, are marked in this model's own
+        // epochs.
+        long ownEpoch = this.getOwnChangeEpoch(sector);
+
+        synchronized (this.changeEpochLock)
+        {
+            return ownEpoch + this.removedComponentEpochs + componentEpochs;
+        }
+    }
+
+    /**
+     * Records the removal of a wrapped model, so that the epochs computed by {@link #computeCompositeChangeEpoch(Sector,
+     * long)} do not decrease. Subclasses call this before removing a wrapped model, and mark the change with {@link
+     * #markElevationsChanged(gov.nasa.worldwind.geom.Sector)} after removing it.
+     *
+     * @param model the wrapped model being removed. May be null, in which case this does nothing.
+     */
+    protected void markComponentRemoved(ElevationModel model)
+    {
+        if (!(model instanceof ElevationChangeTracker))
+            return;
+
+        // The model's epoch for the entire globe is at least its epoch for any sector.
+        long epoch = ((ElevationChangeTracker) model).getChangeEpoch(null);
+
+        synchronized (this.changeEpochLock)
+        {
+            this.removedComponentEpochs += epoch;
+        }
+    }
+
+    /**
+     * Computes the range of change epoch cells covering a sector.
+     *
+     * @param sector the sector.
+     *
+     * @return the minimum row, maximum row, minimum column and maximum column of the cells, or null if the sector
+     *         covers more than {@link #MAX_CHANGE_EPOCH_CELLS} cells.
+     */
+    protected int[] computeChangeEpochCells(Sector sector)
+    {
+        int minRow = this.computeChangeEpochRow(sector.getMinLatitude().degrees);
+        int maxRow = this.computeChangeEpochRow(sector.getMaxLatitude().degrees);
+        int minCol = this.computeChangeEpochColumn(sector.getMinLongitude().degrees);
+        int maxCol = this.computeChangeEpochColumn(sector.getMaxLongitude().degrees);
+
+        if ((maxRow - minRow + 1) * (maxCol - minCol + 1) > MAX_CHANGE_EPOCH_CELLS)
+            return null;
+
+        return new int[] {minRow, maxRow, minCol, maxCol};
+    }
+
+    protected int computeChangeEpochRow(double latitude)
+    {
+        int row = (int) Math.floor((latitude + 90) / CHANGE_EPOCH_CELL_SIZE);
+        return Math.max(0, Math.min(row, NUM_CHANGE_EPOCH_ROWS - 1));
+    }
+
+    protected int computeChangeEpochColumn(double longitude)
+    {
+        int col = (int) Math.floor((longitude + 180) / CHANGE_EPOCH_CELL_SIZE);
+        return Math.max(0, Math.min(col, NUM_CHANGE_EPOCH_COLS - 1));
+    }
+
     public double getMissingDataSignal()
     {
         return missingDataFlag;
@@ -13,6 +13,7 @@ import gov.nasa.worldwind.cache.*;
 import gov.nasa.worldwind.event.BulkRetrievalListener;
 import gov.nasa.worldwind.exception.WWRuntimeException;
 import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.ElevationPrefetcher;
 import gov.nasa.worldwind.ogc.wms.WMSCapabilities;
 import gov.nasa.worldwind.retrieve.*;
 import gov.nasa.worldwind.util.*;
@@ -51,7 +52,7 @@ import java.util.concurrent.*;
  * @author Tom Gaskins
  * @version $Id: BasicElevationModel.java 14040 2010-10-25 10:38:33Z garakl $
  */
-public class BasicElevationModel extends AbstractElevationModel implements BulkRetrievable
+public class BasicElevationModel extends AbstractElevationModel implements BulkRetrievable, ElevationPrefetcher
 {
     private final LevelSet levels;
     private final double minElevation;
@@ -72,6 +73,10 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
     protected static final int RESOURCE_ID_OGC_CAPABILITIES = 1;
     protected static final int DEFAULT_MAX_RESOURCE_ATTEMPTS = 3;
     protected static final int DEFAULT_MIN_RESOURCE_CHECK_INTERVAL = (int) 6e5; // 10 minutes
+    protected static final int MAX_PREFETCH_REQUESTS = 4; // per call to prefetchElevations
+    // Initialization deferred until first use.
+    private volatile boolean initializationDeferred;
+    private String deferredExtremesFileName;
 
     public BasicElevationModel(AVList params)
     {
@@ -120,9 +125,16 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
         if (s != null)
             this.setPixelType(s);
 
+        boolean deferInitialization = DataConfigurationUtils.isDeferredInitialization(params);
+
         s = params.getStringValue(AVKey.ELEVATION_EXTREMES_FILE);
         if (s != null)
-            this.loadExtremeElevations(s);
+        {
+            if (deferInitialization)
+                this.deferredExtremesFileName = s;
+            else
+                this.loadExtremeElevations(s);
+        }
 
         // Set some fallback values if not already set.
         setFallbacks(params);
@@ -134,10 +146,10 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
 
         // If any resources should be retrieved for this ElevationModel, start a task to retrieve those resources, and
         // initialize this ElevationModel once those resources are retrieved.
-        if (this.isRetrieveResources())
-        {
+        if (deferInitialization)
+            this.initializationDeferred = true;
+        else if (this.isRetrieveResources())
             this.startResourceRetrieval();
-        }
     }
 
     public BasicElevationModel(Document dom, AVList params)
@@ -395,15 +407,82 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
         WorldWind.getTaskService().addTask(request);
     }
 
+    /**
+     * Requests the tiles covering a sector at the level appropriate to a resolution, in anticipation of their use. At
+     * most {@link #MAX_PREFETCH_REQUESTS} tiles are requested per call, and none when the task service is full. Tiles
+     * that are not in the file store are retrieved with retrievers marked as prefetches, which the retrieval service
+     * runs after the retrievals of elevations needed now.
+     *
+     * @param sector           the sector of interest.
+     * @param targetResolution the desired horizontal resolution, in radians, of the elevations.
+     *
+     * @throws IllegalArgumentException if the sector is null.
+     */
+    public void prefetchElevations(Sector sector, double targetResolution)
+    {
+        if (sector == null)
+        {
+            String msg = Logging.getMessage("nullValue.SectorIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        this.completeDeferredInitialization();
+
+        sector = sector.intersection(this.levels.getSector());
+        if (sector == null)
+            return;
+
+        Level targetLevel = this.getTargetLevel(sector, targetResolution);
+        if (targetLevel == null)
+            return;
+
+        LatLon delta = targetLevel.getTileDelta();
+        LatLon origin = this.levels.getTileOrigin();
+        final int nwRow = Tile.computeRow(delta.getLatitude(), sector.getMaxLatitude(), origin.getLatitude());
+        final int nwCol = Tile.computeColumn(delta.getLongitude(), sector.getMinLongitude(), origin.getLongitude());
+        final int seRow = Tile.computeRow(delta.getLatitude(), sector.getMinLatitude(), origin.getLatitude());
+        final int seCol = Tile.computeColumn(delta.getLongitude(), sector.getMaxLongitude(), origin.getLongitude());
+
+        int numRequests = 0;
+        for (int row = seRow; row <= nwRow; row++)
+        {
+            for (int col = nwCol; col <= seCol; col++)
+            {
+                if (numRequests >= MAX_PREFETCH_REQUESTS || WorldWind.getTaskService().isFull())
+                    return;
+
+                TileKey key = new TileKey(targetLevel.getLevelNumber(), row, col, targetLevel.getCacheName());
+                if (this.areElevationsInMemory(key) || this.getLevels().isResourceAbsent(key))
+                    continue;
+
+                this.prefetchTile(key);
+                numRequests++;
+            }
+        }
+    }
+
+    protected void prefetchTile(TileKey key)
+    {
+        WorldWind.getTaskService().addTask(new RequestTask(key, this, true));
+    }
+
     protected static class RequestTask implements Runnable
     {
         protected final BasicElevationModel elevationModel;
         protected final TileKey tileKey;
+        protected final boolean prefetch;
 
         protected RequestTask(TileKey tileKey, BasicElevationModel elevationModel)
+        {
+            this(tileKey, elevationModel, false);
+        }
+
+        protected RequestTask(TileKey tileKey, BasicElevationModel elevationModel, boolean prefetch)
         {
             this.elevationModel = elevationModel;
             this.tileKey = tileKey;
+            this.prefetch = prefetch;
         }
 
         public final void run()
@@ -435,7 +514,16 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
                     }
                 }
 
-                this.elevationModel.downloadElevations(tile);
+                if (this.prefetch)
+                {
+                    DownloadPostProcessor postProcessor = new DownloadPostProcessor(tile, this.elevationModel);
+                    postProcessor.setPrefetch(true);
+                    this.elevationModel.downloadElevations(tile, postProcessor);
+                }
+                else
+                {
+                    this.elevationModel.downloadElevations(tile);
+                }
             }
             catch (IOException e)
             {
@@ -505,6 +593,8 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
             this.levelZeroTiles.put(tile.getTileKey(), tile);
         else
             this.getMemoryCache().add(tile.getTileKey(), tile, elevations.getSizeInBytes());
+
+        this.markElevationsChanged(tile.getSector());
     }
 
     protected boolean areElevationsInMemory(TileKey key)
@@ -735,6 +825,8 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
         avList.setValue(AVKey.FILE_NAME, tile.getPath());
 
         Retriever retriever = retrieverFactory.createRetriever(avList, postProcessor);
+        if (retriever != null && postProcessor != null && postProcessor.isPrefetch())
+            retriever.setValue(AVKey.RETRIEVAL_PREFETCH, Boolean.TRUE);
 
         WorldWind.getLocalRetrievalService().runRetriever(retriever, tile.getPriority());
     }
@@ -772,6 +864,8 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
         URLRetriever retriever = new HTTPRetriever(url, postProcessor);
         if (WorldWind.getRetrievalService().contains(retriever))
             return;
+        if (postProcessor.isPrefetch())
+            retriever.setValue(AVKey.RETRIEVAL_PREFETCH, Boolean.TRUE);
 
         WorldWind.getRetrievalService().runRetriever(retriever, 0d);
     }
@@ -781,6 +875,7 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
         protected final Tile tile;
         protected final BasicElevationModel elevationModel;
         protected final FileStore fileStore;
+        protected boolean prefetch;
 
         public DownloadPostProcessor(Tile tile, BasicElevationModel em)
         {
@@ -802,6 +897,21 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
             return this.fileStore != null ? this.fileStore : this.elevationModel.getDataFileStore();
         }
 
+        /**
+         * Indicates whether the retrieval is a prefetch of elevations that are not yet needed.
+         *
+         * @return true if the retrieval is a prefetch, otherwise false.
+         */
+        public boolean isPrefetch()
+        {
+            return this.prefetch;
+        }
+
+        public void setPrefetch(boolean prefetch)
+        {
+            this.prefetch = prefetch;
+        }
+
         @Override
         protected boolean overwriteExistingFile()
         {
@@ -1092,6 +1202,8 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
             throw new IllegalArgumentException(msg);
         }
 
+        this.completeDeferredInitialization();
+
         Level targetLevel = this.getTargetLevel(sector, targetResolution);
         if (targetLevel == null)
             return Double.MAX_VALUE;
@@ -1205,6 +1317,8 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
             throw new IllegalArgumentException(msg);
         }
 
+        this.completeDeferredInitialization();
+
         if (this.extremesLevel < 0 || this.extremes == null)
             return new double[] {this.getMinElevation(), this.getMaxElevation()};
 
@@ -1247,6 +1361,8 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
             throw new IllegalArgumentException(message);
         }
 
+        this.completeDeferredInitialization();
+
         try
         {
             double[] extremes = (double[]) this.getExtremesLookupCache().getObject(sector);
@@ -1284,6 +1400,9 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
             throw new IllegalArgumentException(message);
         }
 
+        // An explicitly loaded file replaces any file whose loading was deferred.
+        this.deferredExtremesFileName = null;
+
         InputStream is = null;
         try
         {
@@ -1784,9 +1903,10 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
         if (this.absentResources.isResourceAbsent(RESOURCE_ID_OGC_CAPABILITIES))
             return null;
 
-        // Get the service's OGC Capabilities resource from the session cache, or initiate a retrieval to fetch it in
-        // a separate thread. SessionCacheUtils.getOrRetrieveSessionCapabilities() returns null if it initiated a
-        // retrieval, or if the OGC Capabilities URL is unavailable.
+        // Get the service's OGC Capabilities resource from the session cache or the file store, or initiate a
+        // retrieval to fetch it in a separate thread. SessionCacheUtils.getOrRetrieveSessionCapabilities() returns
+        // null if it initiated a retrieval and has no stored copy, or if the OGC Capabilities URL is unavailable. A
+        // stored copy is returned immediately while a retrieval checks the server's copy for changes.
         //
         // Note that we use the URL's String representation as the cache key. We cannot use the URL itself, because
         // the cache invokes the methods Object.hashCode() and Object.equals() on the cache key. URL's implementations
@@ -1797,8 +1917,7 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
             caps = SessionCacheUtils.getOrRetrieveSessionCapabilities(url, WorldWind.getSessionCache(),
                 url.toString(), this.absentResources, RESOURCE_ID_OGC_CAPABILITIES, null, null);
         else
-            caps = SessionCacheUtils.getSessionCapabilities(WorldWind.getSessionCache(), url.toString(),
-                url.toString());
+            caps = SessionCacheUtils.getCachedCapabilities(url, WorldWind.getSessionCache(), url.toString());
 
         // The OGC Capabilities resource retrieval is either currently running in another thread, or has failed. In
         // either case, return null indicating that that the retrieval was not successful, and we should try again
@@ -1914,6 +2033,33 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
         }
     }
 
+    /**
+     * Completes the initialization deferred when this ElevationModel was constructed, if any: loads the extreme
+     * elevations file and starts retrieving non-tile resources. This is invoked when elevations or extreme elevations
+     * are first requested, and does nothing after its first invocation. See {@link
+     * gov.nasa.worldwind.util.DataConfigurationUtils#isDeferredInitialization(AVList)}.
+     */
+    protected void completeDeferredInitialization()
+    {
+        if (!this.initializationDeferred)
+            return;
+
+        synchronized (this)
+        {
+            if (!this.initializationDeferred)
+                return;
+
+            String extremesFileName = this.deferredExtremesFileName;
+            if (extremesFileName != null)
+                this.loadExtremeElevations(extremesFileName);
+
+            if (this.isRetrieveResources())
+                this.startResourceRetrieval();
+
+            this.initializationDeferred = false;
+        }
+    }
+
     /**
      * Returns a Runnable task which retrieves any non-tile resources associated with a specified ElevationModel in it's
      * run method. This task is used by the ElevationModel to schedule periodic resource checks. If the task's run
@@ -8,7 +8,8 @@ All Rights Reserved.
 package gov.nasa.worldwind.terrain;
 
 import gov.nasa.worldwind.geom.*;
-import gov.nasa.worldwind.globes.ElevationModel;
+import gov.nasa.worldwind.globes.*;
+import gov.nasa.worldwind.util.Logging;
 
 import java.util.List;
 
@@ -22,7 +23,7 @@ import java.util.List;
  * @author tag
  * @version $Id: BathymetryFilterElevationModel.java 13695 2010-09-02 18:54:27Z tgaskins $
  */
-public class BathymetryFilterElevationModel extends AbstractElevationModel
+public class BathymetryFilterElevationModel extends AbstractElevationModel implements ElevationPrefetcher
 {
     private ElevationModel sourceModel;
     private double threshold = 0d;
@@ -72,6 +73,36 @@ public class BathymetryFilterElevationModel extends AbstractElevationModel
     public void setThreshold(double threshold)
     {
         this.threshold = threshold;
+        this.markElevationsChanged(null);
+    }
+
+    /**
+     * Returns the change epoch of a sector. The epoch advances when the source model's elevations change within the
+     * sector, and when this model's threshold changes.
+     *
+     * @param sector the sector of interest. May be null, to indicate the entire globe.
+     *
+     * @return the sector's change epoch.
+     */
+    public long getChangeEpoch(Sector sector)
+    {
+        long sourceEpoch = this.sourceModel instanceof ElevationChangeTracker
+            ? ((ElevationChangeTracker) this.sourceModel).getChangeEpoch(sector) : 0;
+
+        return this.computeCompositeChangeEpoch(sector, sourceEpoch);
+    }
+
+    public void prefetchElevations(Sector sector, double targetResolution)
+    {
+        if (sector == null)
+        {
+            String msg = Logging.getMessage("nullValue.SectorIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (this.sourceModel instanceof ElevationPrefetcher)
+            ((ElevationPrefetcher) this.sourceModel).prefetchElevations(sector, targetResolution);
     }
 
     public double getMaxElevation()
@@ -7,7 +7,7 @@ All Rights Reserved.
 package gov.nasa.worldwind.terrain;
 
 import gov.nasa.worldwind.geom.*;
-import gov.nasa.worldwind.globes.ElevationModel;
+import gov.nasa.worldwind.globes.*;
 import gov.nasa.worldwind.util.Logging;
 
 import java.util.*;
@@ -17,7 +17,7 @@ import java.util.concurrent.CopyOnWriteArrayList;
  * @author tag
  * @version $Id: CompoundElevationModel.java 13922 2010-10-02 07:28:07Z tgaskins $
  */
-public class CompoundElevationModel extends AbstractElevationModel
+public class CompoundElevationModel extends AbstractElevationModel implements ElevationPrefetcher
 {
     protected CopyOnWriteArrayList<ElevationModel> elevationModels = new CopyOnWriteArrayList<ElevationModel>();
 
@@ -75,6 +75,7 @@ public class CompoundElevationModel extends AbstractElevationModel
         }
 
         this.elevationModels.add(em);
+        this.markElevationsChanged(null);
     }
 
     public void addElevationModel(int index, ElevationModel em)
@@ -87,6 +88,7 @@ public class CompoundElevationModel extends AbstractElevationModel
         }
 
         this.elevationModels.add(index, em); // the list's add method will throw exception for invalid index
+        this.markElevationsChanged(null);
     }
 
     public void removeElevationModel(ElevationModel em)
@@ -104,7 +106,10 @@ public class CompoundElevationModel extends AbstractElevationModel
                 ((CompoundElevationModel) child).removeElevationModel(em);
         }
 
+        if (this.elevationModels.contains(em))
+            this.markComponentRemoved(em);
         this.elevationModels.remove(em);
+        this.markElevationsChanged(null);
     }
 
     public void removeElevationModel(int index)
@@ -116,7 +121,9 @@ public class CompoundElevationModel extends AbstractElevationModel
             throw new IllegalArgumentException(msg);
         }
 
+        this.markComponentRemoved(this.elevationModels.get(index));
         this.elevationModels.remove(index);
+        this.markElevationsChanged(null);
     }
 
     public void setElevationModel(int index, ElevationModel em)
@@ -135,7 +142,46 @@ public class CompoundElevationModel extends AbstractElevationModel
             throw new IllegalArgumentException(msg);
         }
 
+        this.markComponentRemoved(this.elevationModels.get(index));
         this.elevationModels.set(index, em);
+        this.markElevationsChanged(null);
+    }
+
+    /**
+     * Returns the change epoch of a sector. The epoch advances when the elevations of any contained model change within
+     * the sector, and when models are added to or removed from this compound model.
+     *
+     * @param sector the sector of interest. May be null, to indicate the entire globe.
+     *
+     * @return the sector's change epoch.
+     */
+    public long getChangeEpoch(Sector sector)
+    {
+        long childEpochs = 0;
+
+        for (ElevationModel em : this.elevationModels)
+        {
+            if (em instanceof ElevationChangeTracker)
+                childEpochs += ((ElevationChangeTracker) em).getChangeEpoch(sector);
+        }
+
+        return this.computeCompositeChangeEpoch(sector, childEpochs);
+    }
+
+    public void prefetchElevations(Sector sector, double targetResolution)
+    {
+        if (sector == null)
+        {
+            String msg = Logging.getMessage("nullValue.SectorIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        for (ElevationModel em : this.elevationModels)
+        {
+            if (em instanceof ElevationPrefetcher && em.intersects(sector) != -1)
+                ((ElevationPrefetcher) em).prefetchElevations(sector, targetResolution);
+        }
     }
 
     public List<ElevationModel> getElevationModels()
@@ -17,6 +17,7 @@ import gov.nasa.worldwind.util.*;
 import java.awt.*;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.*;
 
 /**
  * Provides operations on the best available terrain. Operations such as line/terrain intersection and surface point
@@ -76,14 +77,23 @@ public class HighResolutionTerrain extends WWObjectImpl implements Terrain
         }
     }
 
+    /**
+     * The number of values describing one segment in the coordinate arrays passed to {@link
+     * #intersect(double[], gov.nasa.worldwind.geom.Intersection[][])}: the latitude and longitude in degrees and the
+     * altitude in meters of the segment's first position, followed by the same for its second position.
+     */
+    public static final int SEGMENT_STRIDE = 6;
+
     protected static final int DEFAULT_DENSITY = 3;
     protected static final long DEFAULT_CACHE_CAPACITY = (long) 20e6; // about 34,000 RenderInfos at a density of 20
+    protected static final int MIN_SEGMENTS_PER_TASK = 256;
 
     // User-specified fields.
     protected Globe globe;
     protected Sector sector;
     protected double verticalExaggeration = 1;
     protected Long timeout;
+    protected int numThreads = Runtime.getRuntime().availableProcessors();
 
     // Internal fields.
     protected int density = DEFAULT_DENSITY;
@@ -96,6 +106,9 @@ public class HighResolutionTerrain extends WWObjectImpl implements Terrain
     protected MemoryCache geometryCache;
     protected ThreadLocal<Long> startTime = new ThreadLocal<Long>();
 
+    /** The daemon threads shared by all instances' batch intersection operations. Created on first use. */
+    protected static ExecutorService intersectionExecutor;
+
     /**
      * Constructs a terrain object for a specified globe.
      *
@@ -259,6 +272,30 @@ public class HighResolutionTerrain extends WWObjectImpl implements Terrain
         this.geometryCache.setCapacity(Math.max(size, (long) 1e6));
     }
 
+    /**
+     * Indicates the number of threads used by batch intersection operations.
+     *
+     * @return the number of threads. The default is the number of available processors.
+     *
+     * @see #intersect(double[], gov.nasa.worldwind.geom.Intersection[][])
+     */
+    public int getNumThreads()
+    {
+        return this.numThreads;
+    }
+
+    /**
+     * Specifies the number of threads used by batch intersection operations.
+     *
+     * @param numThreads the number of threads. Values less than 1 are clamped to 1.
+     *
+     * @see #intersect(double[], gov.nasa.worldwind.geom.Intersection[][])
+     */
+    public void setNumThreads(int numThreads)
+    {
+        this.numThreads = Math.max(numThreads, 1);
+    }
+
     public Vec4 getSurfacePoint(Position position)
     {
         return this.getSurfacePoint(position.getLatitude(), position.getLongitude(), position.getAltitude());
@@ -407,6 +444,167 @@ public class HighResolutionTerrain extends WWObjectImpl implements Terrain
         }
     }
 
+    /**
+     * Computes the intersections of many line segments with the terrain. Each segment is specified by two positions
+     * packed into a coordinate array, {@link #SEGMENT_STRIDE} values per segment. For each segment the distance from its
+     * first position to the nearest terrain intersection between its two positions is returned.
+     * <p/>
+     * The terrain tiles needed by the batch are created once and shared by all the segments passing near them, and
+     * the segments are divided among {@link #getNumThreads()} threads. All threads share this instance's geometry
+     * cache.
+     * <p/>
+     * This operation fails with a {@link gov.nasa.worldwind.exception.WWTimeoutException} if a timeout has been
+     * specified and it is exceeded during the operation.
+     *
+     * @param segments      the segment coordinates: for each segment the latitude, longitude and altitude of its first
+     *                      position followed by those of its second position. Latitudes and longitudes are in degrees,
+     *                      and altitudes are in meters above the terrain.
+     * @param intersections an array in which to return the intersections of each segment, sorted by distance from the
+     *                      segment's first position. The entry for a segment that does not intersect the terrain is
+     *                      set to null. May be null, in which case only distances are computed.
+     *
+     * @return the distance, in meters, from each segment's first position to its first intersection with the terrain,
+     *         or -1 if the segment does not intersect the terrain or either of its positions is outside this
+     *         instance's sector.
+     *
+     * @throws IllegalArgumentException if the segment array is null or its length is not a multiple of {@link
+     *                                  #SEGMENT_STRIDE}, or if the intersections array is non-null and shorter than
+     *                                  the number of segments.
+     * @throws gov.nasa.worldwind.exception.WWTimeoutException
+     *                                  if the current timeout is exceeded while retrieving terrain data.
+     * @throws WWRuntimeException       if the operation is interrupted.
+     * @see #setTimeout(Long)
+     */
+    public double[] intersect(final double[] segments, final Intersection[][] intersections)
+    {
+        if (segments == null)
+        {
+            String msg = Logging.getMessage("nullValue.ArrayIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (segments.length % SEGMENT_STRIDE != 0)
+        {
+            String msg = Logging.getMessage("generic.ArrayInvalidLength", segments.length);
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        final int numSegments = segments.length / SEGMENT_STRIDE;
+        if (intersections != null && intersections.length < numSegments)
+        {
+            String msg = Logging.getMessage("generic.ArrayInvalidLength", intersections.length);
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        final double[] distances = new double[numSegments];
+        final Map<Long, RectTile> tiles = new ConcurrentHashMap<Long, RectTile>();
+        final long batchStartTime = System.currentTimeMillis();
+
+        int numTasks = Math.min(this.getNumThreads(), (numSegments + MIN_SEGMENTS_PER_TASK - 1) / MIN_SEGMENTS_PER_TASK);
+        if (numTasks <= 1)
+        {
+            try
+            {
+                this.startTime.set(batchStartTime);
+                this.intersectSegments(segments, 0, numSegments, tiles, distances, intersections);
+            }
+            catch (InterruptedException e)
+            {
+                throw new WWRuntimeException(e);
+            }
+            finally
+            {
+                this.startTime.set(null); // signals that no operation is active
+            }
+
+            return distances;
+        }
+
+        ExecutorService executor = getIntersectionExecutor();
+        int segmentsPerTask = (numSegments + numTasks - 1) / numTasks;
+        List<Future<?>> futures = new ArrayList<Future<?>>(numTasks);
+
+        try
+        {
+            for (int first = 0; first < numSegments; first += segmentsPerTask)
+            {
+                final int firstSegment = first;
+                final int lastSegment = Math.min(first + segmentsPerTask, numSegments);
+                futures.add(executor.submit(new Callable<Object>()
+                {
+                    public Object call() throws Exception
+                    {
+                        try
+                        {
+                            startTime.set(batchStartTime);
+                            intersectSegments(segments, firstSegment, lastSegment, tiles, distances, intersections);
+                            return null;
+                        }
+                        finally
+                        {
+                            startTime.set(null);
+                        }
+                    }
+                }));
+            }
+
+            for (Future<?> future : futures)
+            {
+                future.get();
+            }
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+
+            throw new WWRuntimeException(e.getCause());
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new WWRuntimeException(e);
+        }
+        finally
+        {
+            // The executor is shared, so stop only this batch's tasks if the batch failed.
+            for (Future<?> future : futures)
+            {
+                future.cancel(true);
+            }
+        }
+
+        return distances;
+    }
+
+    /**
+     * Returns the executor running the tasks of batch intersection operations, creating it if necessary. The executor's
+     * threads are daemon threads and are discarded after being idle for a minute.
+     *
+     * @return the executor shared by all terrain instances.
+     */
+    protected static synchronized ExecutorService getIntersectionExecutor()
+    {
+        if (intersectionExecutor == null)
+        {
+            intersectionExecutor = Executors.newCachedThreadPool(new ThreadFactory()
+            {
+                public Thread newThread(Runnable runnable)
+                {
+                    Thread thread = new Thread(runnable);
+                    thread.setDaemon(true);
+                    thread.setName("Terrain Intersector");
+                    return thread;
+                }
+            });
+        }
+
+        return intersectionExecutor;
+    }
+
     public List<Sector> getIntersectionTiles(Position pA, Position pB)
     {
         List<RectTile> tiles = this.getIntersectingTiles(pA, pB);
@@ -549,6 +747,22 @@ public class HighResolutionTerrain extends WWObjectImpl implements Terrain
         return (int) (s * (double) this.numCols);
     }
 
+    /** Computes the row index of this terrain's sector corresponding to a specified latitude in degrees. */
+    protected int computeRow(double latitude)
+    {
+        double s = (latitude - this.sector.getMinLatitude().degrees) / this.sector.getDeltaLatDegrees();
+
+        return (int) (s * (double) this.numRows);
+    }
+
+    /** Computes the column index of this terrain's sector corresponding to a specified longitude in degrees. */
+    protected int computeColumn(double longitude)
+    {
+        double s = (longitude - this.sector.getMinLongitude().degrees) / this.sector.getDeltaLonDegrees();
+
+        return (int) (s * (double) this.numCols);
+    }
+
     /**
      * Computes intersections of a line with the terrain.
      *
@@ -641,38 +855,214 @@ public class HighResolutionTerrain extends WWObjectImpl implements Terrain
      */
     protected List<RectTile> getIntersectingTiles(LatLon pA, LatLon pB)
     {
-        int rowA = this.computeRow(this.sector, pA.getLatitude());
-        int colA = this.computeColumn(this.sector, pA.getLongitude());
-        int rowB = this.computeRow(this.sector, pB.getLatitude());
-        int colB = this.computeColumn(this.sector, pB.getLongitude());
+        long[] keys = this.getIntersectingTileKeys(pA.getLatitude().degrees, pA.getLongitude().degrees,
+            pB.getLatitude().degrees, pB.getLongitude().degrees);
+        if (keys == null)
+            return null;
+
+        List<RectTile> tiles = new ArrayList<RectTile>(keys.length);
+        for (long key : keys)
+        {
+            tiles.add(this.createTile((int) (key / this.numCols), (int) (key % this.numCols)));
+        }
+
+        return tiles;
+    }
+
+    /**
+     * Determines the keys of the terrain tiles intersected by a specified line. A tile's key is <code>row * numCols +
+     * col</code>. The tiles along the line and their four neighbors are included, and each tile is included once.
+     *
+     * @param latA the latitude of the line's first position, in degrees.
+     * @param lonA the longitude of the line's first position, in degrees.
+     * @param latB the latitude of the line's second position, in degrees.
+     * @param lonB the longitude of the line's second position, in degrees.
+     *
+     * @return the sorted keys of the tiles that likely intersect the line, or null if there are none.
+     */
+    protected long[] getIntersectingTileKeys(double latA, double lonA, double latB, double lonB)
+    {
+        int rowA = this.computeRow(latA);
+        int colA = this.computeColumn(lonA);
+        int rowB = this.computeRow(latB);
+        int colB = this.computeColumn(lonB);
 
         List<Point> cells = WWMath.bresenham(colA, rowA, colB, rowB);
         if (cells == null || cells.size() == 0)
             return null;
 
-        List<RectTile> tiles = new ArrayList<RectTile>(3 * cells.size());
+        // Consecutive cells share neighbors, so collect all candidates and then remove the duplicates.
+        long[] keys = new long[5 * cells.size()];
+        int numKeys = 0;
         for (Point cell : cells)
         {
-            RectTile centerCell = this.createTile(cell.y, cell.x);
-
-            RectTile upperCell = this.createTile(cell.y + 1, cell.x);
-            RectTile lowerCell = this.createTile(cell.y - 1, cell.x);
-            RectTile leftCell = this.createTile(cell.y, cell.x - 1);
-            RectTile rightCell = this.createTile(cell.y, cell.x + 1);
-
-            if (centerCell != null)
-                tiles.add(centerCell);
-            if (upperCell != null)
-                tiles.add(upperCell);
-            if (lowerCell != null)
-                tiles.add(lowerCell);
-            if (leftCell != null)
-                tiles.add(leftCell);
-            if (rightCell != null)
-                tiles.add(rightCell);
+            numKeys = this.addTileKey(cell.y, cell.x, keys, numKeys);
+            numKeys = this.addTileKey(cell.y + 1, cell.x, keys, numKeys);
+            numKeys = this.addTileKey(cell.y - 1, cell.x, keys, numKeys);
+            numKeys = this.addTileKey(cell.y, cell.x - 1, keys, numKeys);
+            numKeys = this.addTileKey(cell.y, cell.x + 1, keys, numKeys);
+        }
+
+        if (numKeys == 0)
+            return null;
+
+        Arrays.sort(keys, 0, numKeys);
+
+        int numUnique = 1;
+        for (int i = 1; i < numKeys; i++)
+        {
+            if (keys[i] != keys[numUnique - 1])
+                keys[numUnique++] = keys[i];
+        }
+
+        return Arrays.copyOf(keys, numUnique);
+    }
+
+    protected int addTileKey(int row, int col, long[] keys, int numKeys)
+    {
+        if (row < 0 || col < 0 || row >= this.numRows || col >= this.numCols)
+            return numKeys;
+
+        keys[numKeys] = (long) row * this.numCols + col;
+        return numKeys + 1;
+    }
+
+    /**
+     * Returns the tile for a specified key, creating it and its geometry if it has not yet been used by the current
+     * batch.
+     *
+     * @param key   the tile's key.
+     * @param tiles the tiles used by the current batch.
+     *
+     * @return the tile for the key.
+     *
+     * @throws InterruptedException if the operation is interrupted.
+     */
+    protected RectTile getBatchTile(long key, Map<Long, RectTile> tiles) throws InterruptedException
+    {
+        RectTile tile = tiles.get(key);
+        if (tile == null)
+        {
+            // Two threads may occasionally create the same tile. Its geometry comes from the shared cache, so the only
+            // cost is the duplicate tile object.
+            tile = this.createTile((int) (key / this.numCols), (int) (key % this.numCols));
+            this.makeVerts(tile);
+            tiles.put(key, tile);
+        }
+
+        return tile;
+    }
+
+    /**
+     * Computes the intersections of a range of segments of a batch with the terrain.
+     *
+     * @param segments      the batch's segment coordinates.
+     * @param firstSegment  the first segment to intersect.
+     * @param lastSegment   one past the last segment to intersect.
+     * @param tiles         the tiles used by the batch, shared by all ranges of the batch.
+     * @param distances     the array in which to return the distance to each segment's first intersection.
+     * @param intersections the array in which to return each segment's intersections. May be null.
+     *
+     * @throws InterruptedException if the operation is interrupted.
+     */
+    protected void intersectSegments(double[] segments, int firstSegment, int lastSegment, Map<Long, RectTile> tiles,
+        double[] distances, Intersection[][] intersections) throws InterruptedException
+    {
+        List<Intersection> hits = intersections != null ? new ArrayList<Intersection>() : null;
+        List<Double> hitDistances = intersections != null ? new ArrayList<Double>() : null;
+
+        for (int n = firstSegment; n < lastSegment; n++)
+        {
+            if (Thread.currentThread().isInterrupted())
+                throw new InterruptedException();
+
+            distances[n] = -1;
+            if (intersections != null)
+                intersections[n] = null;
+
+            int i = n * SEGMENT_STRIDE;
+            double latA = segments[i], lonA = segments[i + 1], altA = segments[i + 2];
+            double latB = segments[i + 3], lonB = segments[i + 4], altB = segments[i + 5];
+
+            if (!this.sector.containsDegrees(latA, lonA) || !this.sector.containsDegrees(latB, lonB))
+                continue;
+
+            if (latA == latB && lonA == lonB)
+                continue;
+
+            Vec4 ptA = this.getBatchSurfacePoint(latA, lonA, altA, tiles);
+            Vec4 ptB = this.getBatchSurfacePoint(latB, lonB, altB, tiles);
+            if (ptA == null || ptB == null)
+                continue;
+
+            double length = ptA.distanceTo3(ptB);
+            Line line = new Line(ptA, ptB.subtract3(ptA).normalize3());
+
+            long[] keys = this.getIntersectingTileKeys(latA, lonA, latB, lonB);
+            if (keys == null)
+                continue;
+
+            double nearest = Double.MAX_VALUE;
+            for (long key : keys)
+            {
+                RectTile tile = this.getBatchTile(key, tiles);
+                if (tile.ri == null || !tile.extent.intersects(line))
+                    continue;
+
+                double d = this.intersect(tile, line, length, hits, hitDistances);
+                if (d >= 0 && d < nearest)
+                    nearest = d;
+            }
+
+            if (nearest == Double.MAX_VALUE)
+                continue;
+
+            distances[n] = nearest;
+
+            if (intersections != null)
+            {
+                intersections[n] = this.sortByDistance(hits, hitDistances);
+                hits.clear();
+                hitDistances.clear();
+            }
+        }
+    }
+
+    protected Vec4 getBatchSurfacePoint(double latitude, double longitude, double metersOffset,
+        Map<Long, RectTile> tiles) throws InterruptedException
+    {
+        int row = Math.min(this.computeRow(latitude), this.numRows - 1);
+        int col = Math.min(this.computeColumn(longitude), this.numCols - 1);
+
+        RectTile tile = this.getBatchTile((long) row * this.numCols + col, tiles);
+
+        return this.getSurfacePoint(tile, Angle.fromDegrees(latitude), Angle.fromDegrees(longitude), metersOffset);
+    }
+
+    protected Intersection[] sortByDistance(List<Intersection> hits, List<Double> hitDistances)
+    {
+        Integer[] order = new Integer[hits.size()];
+        for (int i = 0; i < order.length; i++)
+        {
+            order[i] = i;
+        }
+
+        final List<Double> distances = hitDistances;
+        Arrays.sort(order, new Comparator<Integer>()
+        {
+            public int compare(Integer i1, Integer i2)
+            {
+                return Double.compare(distances.get(i1), distances.get(i2));
+            }
+        });
+
+        Intersection[] sorted = new Intersection[order.length];
+        for (int i = 0; i < order.length; i++)
+        {
+            sorted[i] = hits.get(order[i]);
         }
 
-        return tiles.size() > 0 ? tiles : null;
+        return sorted;
     }
 
     /**
@@ -1097,6 +1487,133 @@ public class HighResolutionTerrain extends WWObjectImpl implements Terrain
         return hits;
     }
 
+    /**
+     * Computes the intersections of a line segment with a tile without creating intermediate points. The segment
+     * starts at the line's origin and extends <code>length</code> meters along its direction.
+     *
+     * @param tile          the tile, whose geometry must already be computed.
+     * @param line          the line, whose direction must be a unit vector.
+     * @param length        the segment's length, in meters.
+     * @param hits          a list to which the intersections are added. May be null.
+     * @param hitDistances  a list to which the distance of each intersection is added. May be null if hits is null.
+     *
+     * @return the distance to the nearest intersection within the segment, or -1 if there is none.
+     */
+    protected double intersect(RectTile tile, Line line, double length, List<Intersection> hits,
+        List<Double> hitDistances)
+    {
+        // Work in the tile's coordinates relative to its reference center, so the vertices need not be translated.
+        Vec4 origin = line.getOrigin();
+        Vec4 dir = line.getDirection();
+        double ox = origin.x - tile.ri.referenceCenter.x;
+        double oy = origin.y - tile.ri.referenceCenter.y;
+        double oz = origin.z - tile.ri.referenceCenter.z;
+
+        int n = tile.density + 1;
+        float[] coords = tile.ri.vertices;
+        double nearest = -1;
+
+        for (int j = 0; j < n - 1; j++)
+        {
+            for (int i = 0; i < n - 1; i++)
+            {
+                int a = (j * n + i) * 3;
+                int b = a + 3;
+                int c = b + n * 3;
+                int d = c - 3;
+
+                double t = intersectTriangle(ox, oy, oz, dir.x, dir.y, dir.z, coords, a, b, c);
+                if (t >= 0 && t <= length)
+                {
+                    if (nearest < 0 || t < nearest)
+                        nearest = t;
+                    if (hits != null)
+                    {
+                        hits.add(new Intersection(line.getPointAt(t), false));
+                        hitDistances.add(t);
+                    }
+                }
+
+                t = intersectTriangle(ox, oy, oz, dir.x, dir.y, dir.z, coords, a, c, d);
+                if (t >= 0 && t <= length)
+                {
+                    if (nearest < 0 || t < nearest)
+                        nearest = t;
+                    if (hits != null)
+                    {
+                        hits.add(new Intersection(line.getPointAt(t), false));
+                        hitDistances.add(t);
+                    }
+                }
+            }
+        }
+
+        return nearest;
+    }
+
+    /**
+     * Computes the distance along a ray to its intersection with a triangle, using the Moller-Trumbore algorithm. See
+     * {@link Triangle#intersect(gov.nasa.worldwind.geom.Line, double, double, double, double, double, double, double,
+     * double, double)}.
+     *
+     * @param ox     the X coordinate of the ray's origin.
+     * @param oy     the Y coordinate of the ray's origin.
+     * @param oz     the Z coordinate of the ray's origin.
+     * @param dx     the X component of the ray's direction.
+     * @param dy     the Y component of the ray's direction.
+     * @param dz     the Z component of the ray's direction.
+     * @param coords the vertex coordinates.
+     * @param a      the index in <code>coords</code> of the triangle's first vertex.
+     * @param b      the index in <code>coords</code> of the triangle's second vertex.
+     * @param c      the index in <code>coords</code> of the triangle's third vertex.
+     *
+     * @return the distance along the ray to the intersection, in units of the direction's length, or -1 if the ray
+     *         does not intersect the triangle.
+     */
+    protected static double intersectTriangle(double ox, double oy, double oz, double dx, double dy, double dz,
+        float[] coords, int a, int b, int c)
+    {
+        double vax = coords[a], vay = coords[a + 1], vaz = coords[a + 2];
+
+        double edge1x = coords[b] - vax;
+        double edge1y = coords[b + 1] - vay;
+        double edge1z = coords[b + 2] - vaz;
+
+        double edge2x = coords[c] - vax;
+        double edge2y = coords[c + 1] - vay;
+        double edge2z = coords[c + 2] - vaz;
+
+        double pvecx = (dy * edge2z) - (dz * edge2y);
+        double pvecy = (dz * edge2x) - (dx * edge2z);
+        double pvecz = (dx * edge2y) - (dy * edge2x);
+
+        double det = edge1x * pvecx + edge1y * pvecy + edge1z * pvecz;
+        if (det > -1e-7 && det < 1e-7) // the ray lies in the plane of the triangle
+            return -1;
+
+        double detInv = 1d / det;
+
+        double tvecx = ox - vax;
+        double tvecy = oy - vay;
+        double tvecz = oz - vaz;
+
+        double u = detInv * (tvecx * pvecx + tvecy * pvecy + tvecz * pvecz);
+        if (u < 0 || u > 1)
+            return -1;
+
+        double qvecx = (tvecy * edge1z) - (tvecz * edge1y);
+        double qvecy = (tvecz * edge1x) - (tvecx * edge1z);
+        double qvecz = (tvecx * edge1y) - (tvecy * edge1x);
+
+        double v = detInv * (dx * qvecx + dy * qvecy + dz * qvecz);
+        if (v < 0 || u + v > 1)
+            return -1;
+
+        double t = detInv * (edge2x * qvecx + edge2y * qvecy + edge2z * qvecz);
+
+        return t >= 0 ? t : -1;
+    }
+
     /**
      * Computes the buffer of indices forming a tile.
      *
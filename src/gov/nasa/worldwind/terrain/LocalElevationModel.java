@@ -7,24 +7,40 @@ All Rights Reserved.
 package gov.nasa.worldwind.terrain;
 
 import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.data.BufferWrapperRaster;
 import gov.nasa.worldwind.exception.WWRuntimeException;
+import gov.nasa.worldwind.formats.dted.DTED;
 import gov.nasa.worldwind.formats.worldfile.WorldFile;
 import gov.nasa.worldwind.geom.*;
 import gov.nasa.worldwind.util.*;
 
 import java.io.*;
 import java.nio.ByteBuffer;
-import java.util.List;
+import java.util.*;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
+ * An elevation model backed by elevation files on the local file system. Elevation files are memory mapped rather than
+ * read onto the heap, and are located through a grid index over their sectors, so that the cost of a query does not
+ * grow with the number of files. Consecutive queries falling in the same file skip the index altogether. {@link
+ * #getElevations(double[], int, double[])} provides a query path for packed locations which creates no objects per
+ * location.
+ *
  * @author tag
  * @version $Id: LocalElevationModel.java 13113 2010-02-10 06:19:45Z tgaskins $
  */
 public class LocalElevationModel extends AbstractElevationModel
 {
+    /** The maximum number of cells of the tile index grid. */
+    protected static final int MAX_INDEX_CELLS = 1 << 20;
+
     protected double[] extremeElevations = null;
     protected CopyOnWriteArrayList<LocalTile> tiles = new CopyOnWriteArrayList<LocalTile>();
+    // The index is rebuilt on demand when tiles have been added since it was built.
+    protected volatile TileIndex tileIndex;
+    // The tile containing the most recent lookup. Only tiles whose interior no earlier tile overlaps are kept here, since
+    // for those the tile containing a location inside it is also the first one in the tile list containing it.
+    protected volatile TileIndex.Entry lastTile;
 
     public double getMinElevation()
     {
@@ -51,14 +67,19 @@ public class LocalElevationModel extends AbstractElevationModel
         double min = Double.MAX_VALUE;
         double max = -min;
 
-        for (LocalTile tile : this.tiles)
+        TileIndex.Entry[] cell = this.getTileIndex().getCell(latitude.radians, longitude.radians);
+        if (cell != null)
         {
-            if (tile.sector.contains(latitude, longitude))
+            for (TileIndex.Entry entry : cell)
             {
-                if (tile.minElevation < min)
-                    min = tile.minElevation;
-                if (tile.maxElevation > max)
-                    max = tile.maxElevation;
+                LocalTile tile = entry.tile;
+                if (tile.sector.containsRadians(latitude.radians, longitude.radians))
+                {
+                    if (tile.minElevation < min)
+                        min = tile.minElevation;
+                    if (tile.maxElevation > max)
+                        max = tile.maxElevation;
+                }
             }
         }
 
@@ -82,7 +103,7 @@ public class LocalElevationModel extends AbstractElevationModel
         double min = Double.MAX_VALUE;
         double max = -min;
 
-        for (LocalTile tile : this.tiles)
+        for (LocalTile tile : this.getTileIndex().getTiles(sector))
         {
             if (tile.sector.intersects(sector))
             {
@@ -102,7 +123,7 @@ public class LocalElevationModel extends AbstractElevationModel
     {
         double res = Double.MAX_VALUE;
 
-        for (LocalTile tile : tiles)
+        for (LocalTile tile : this.getTileIndex().getTiles(sector))
         {
             if (!sector.intersects(tile.sector))
                 continue;
@@ -124,12 +145,11 @@ public class LocalElevationModel extends AbstractElevationModel
             throw new IllegalArgumentException(msg);
         }
 
-        if (!this.contains(latitude, longitude))
+        LocalTile tile = this.findTile(latitude.radians, longitude.radians);
+        if (tile == null)
             return this.missingDataFlag;
 
-        Double e = this.lookupElevation(latitude.radians, longitude.radians);
-
-        return e != null ? e : this.getExtremeElevations(latitude, longitude)[0];
+        return this.lookupElevation(tile, latitude.radians, longitude.radians);
     }
 
     public double getElevations(Sector sector, List<? extends LatLon> latlons, double targetResolution, double[] buffer)
@@ -183,25 +203,121 @@ public class LocalElevationModel extends AbstractElevationModel
             if (ll == null)
                 continue;
 
-            // If an elevation at the given location is available, write that elevation to the destination buffer.
-            // If an elevation is not available but the location is within the elevation model's coverage, write the
-            // elevation models extreme elevation at the location. Do nothing if the location is not within the
-            // elevation model's coverage.
-            Double e = this.lookupElevation(ll.getLatitude().radians, ll.getLongitude().radians);
-            if (e != null && e != this.missingDataFlag)
-                buffer[i] = e;
-            else if (this.contains(ll.getLatitude(), ll.getLongitude()))
-            {
-                if (e == null)
-                    buffer[i] = this.getExtremeElevations(sector)[0];
-                else if (mapMissingData && e == this.getMissingDataSignal())
-                    buffer[i] = this.getMissingDataReplacement();
-            }
+            this.getElevation(ll.getLatitude().radians, ll.getLongitude().radians, buffer, i, mapMissingData);
         }
 
         return this.getBestResolution(sector);
     }
 
+    /**
+     * Returns the elevations at a packed array of locations. This is equivalent to {@link #getElevations(Sector,
+     * java.util.List, double, double[])} at the model's best resolution, but takes locations as consecutive
+     * (latitude, longitude) pairs in degrees and creates no objects per location. Missing data is replaced by the
+     * model's missing data replacement value.
+     *
+     * @param locations the locations, as (latitude, longitude) pairs in degrees.
+     * @param count     the number of locations.
+     * @param buffer    the array in which to write the elevations. Elements corresponding to locations outside the
+     *                  model's coverage are not modified.
+     *
+     * @return the number of locations within the model's coverage.
+     *
+     * @throws IllegalArgumentException if either array is null, if <code>count</code> is negative or if either array
+     *                                  is too short.
+     */
+    public int getElevations(double[] locations, int count, double[] buffer)
+    {
+        return this.doGetElevations(locations, count, buffer, true);
+    }
+
+    /**
+     * Returns the elevations at a packed array of locations, without replacing missing data. See {@link
+     * #getElevations(double[], int, double[])}.
+     *
+     * @param locations the locations, as (latitude, longitude) pairs in degrees.
+     * @param count     the number of locations.
+     * @param buffer    the array in which to write the elevations. Elements corresponding to locations outside the
+     *                  model's coverage are not modified.
+     *
+     * @return the number of locations within the model's coverage.
+     *
+     * @throws IllegalArgumentException if either array is null, if <code>count</code> is negative or if either array
+     *                                  is too short.
+     */
+    public int getUnmappedElevations(double[] locations, int count, double[] buffer)
+    {
+        return this.doGetElevations(locations, count, buffer, false);
+    }
+
+    protected int doGetElevations(double[] locations, int count, double[] buffer, boolean mapMissingData)
+    {
+        if (locations == null)
+        {
+            String msg = Logging.getMessage("nullValue.LocationsListIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (buffer == null)
+        {
+            String msg = Logging.getMessage("nullValue.ElevationsBufferIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (count < 0 || locations.length < 2 * count)
+        {
+            String msg = Logging.getMessage("generic.ArrayInvalidLength", locations.length);
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (buffer.length < count)
+        {
+            String msg = Logging.getMessage("ElevationModel.ElevationsBufferTooSmall", count);
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        int numCovered = 0;
+        for (int i = 0; i < count; i++)
+        {
+            if (this.getElevation(Math.toRadians(locations[2 * i]), Math.toRadians(locations[2 * i + 1]), buffer, i,
+                mapMissingData))
+                numCovered++;
+        }
+
+        return numCovered;
+    }
+
+    /**
+     * Writes the elevation at a location to an array element. The element is not modified if the location is outside
+     * the model's coverage, or if the elevation is missing and <code>mapMissingData</code> is false.
+     *
+     * @param latRadians     the location's latitude in radians.
+     * @param lonRadians     the location's longitude in radians.
+     * @param buffer         the array in which to write the elevation.
+     * @param index          the index of the element to write.
+     * @param mapMissingData true if a missing elevation is written as the missing data replacement value.
+     *
+     * @return true if the location is within the model's coverage, otherwise false.
+     */
+    protected boolean getElevation(double latRadians, double lonRadians, double[] buffer, int index,
+        boolean mapMissingData)
+    {
+        LocalTile tile = this.findTile(latRadians, lonRadians);
+        if (tile == null)
+            return false;
+
+        double e = this.lookupElevation(tile, latRadians, lonRadians);
+        if (e != this.missingDataFlag)
+            buffer[index] = e;
+        else if (mapMissingData)
+            buffer[index] = this.getMissingDataReplacement();
+
+        return true;
+    }
+
     public void addElevations(String filePath, Sector sector, int width, int height) throws IOException
     {
         if (filePath == null)
@@ -254,12 +370,12 @@ public class LocalElevationModel extends AbstractElevationModel
             AVList bufferParams = new AVListImpl();
             bufferParams.setValue(AVKey.DATA_TYPE, pixelType);
             bufferParams.setValue(AVKey.BYTE_ORDER, byteOrder);
-            ByteBuffer byteBuffer = WWIO.readFileToBuffer(file);
+            // Map the file rather than reading it, so that the elevations stay off the heap and only the pages
+            // queried are resident.
+            ByteBuffer byteBuffer = WWIO.mapFile(file);
             BufferWrapper buffer = BufferWrapper.wrap(byteBuffer, bufferParams);
 
-            LocalTile tile = new LocalTile(sector, tileMissingDataFlag, width, height, buffer);
-            this.tiles.add(tile);
-            this.adjustMinMax(tile);
+            this.addTile(new LocalTile(sector, tileMissingDataFlag, width, height, buffer));
         }
         catch (IOException e)
         {
@@ -293,11 +409,49 @@ public class LocalElevationModel extends AbstractElevationModel
             return; // TODO: throw exception and log message
         }
 
-        this.addElevationsFromWorldFiles(filePath);
+        if (isDTEDSuffix(suffix))
+            this.addElevationsFromDTED(filePath);
+        else
+            this.addElevationsFromWorldFiles(filePath);
 
         // TODO: determine and react to other formats
     }
 
+    protected static boolean isDTEDSuffix(String suffix)
+    {
+        return "dt0".equalsIgnoreCase(suffix) || "dt1".equalsIgnoreCase(suffix) || "dt2".equalsIgnoreCase(suffix);
+    }
+
+    protected void addElevationsFromDTED(String filePath) throws IOException
+    {
+        try
+        {
+            BufferWrapperRaster raster = (BufferWrapperRaster) DTED.read(new File(filePath), null, false);
+
+            // DTED posts lie on the cell's one degree boundaries, but the raster's sector extends half a post beyond
+            // them. Local tiles expect the sector to span the posts themselves.
+            double halfPixelWidth = (Double) raster.getValue(AVKey.PIXEL_WIDTH) / 2d;
+            double halfPixelHeight = (Double) raster.getValue(AVKey.PIXEL_HEIGHT) / 2d;
+            Sector sector = raster.getSector();
+            sector = Sector.fromDegrees(
+                sector.getMinLatitude().degrees + halfPixelHeight, sector.getMaxLatitude().degrees - halfPixelHeight,
+                sector.getMinLongitude().degrees + halfPixelWidth, sector.getMaxLongitude().degrees - halfPixelWidth);
+
+            Double tileMissingDataFlag = AVListImpl.getDoubleValue(raster, AVKey.MISSING_DATA_SIGNAL);
+            if (tileMissingDataFlag == null)
+                tileMissingDataFlag = this.getMissingDataSignal();
+
+            this.addTile(new LocalTile(sector, tileMissingDataFlag, raster.getWidth(), raster.getHeight(),
+                raster.getBuffer()));
+        }
+        catch (IOException e)
+        {
+            String message = Logging.getMessage("ElevationModel.ExceptionReadingElevationFile", filePath);
+            Logging.logger().severe(message);
+            throw e;
+        }
+    }
+
     protected void addElevationsFromWorldFiles(String filePath) throws IOException
     {
         int size[];
@@ -339,11 +493,18 @@ public class LocalElevationModel extends AbstractElevationModel
         this.addElevations(filePath, sector, size[0], size[1]);
     }
 
+    protected void addTile(LocalTile tile)
+    {
+        this.tiles.add(tile);
+        this.adjustMinMax(tile);
+        this.markElevationsChanged(tile.sector);
+    }
+
     public int intersects(Sector sector)
     {
         boolean intersects = false;
 
-        for (LocalTile tile : this.tiles)
+        for (LocalTile tile : this.getTileIndex().getTiles(sector))
         {
             if (tile.sector.contains(sector))
                 return 0;
@@ -357,13 +518,7 @@ public class LocalElevationModel extends AbstractElevationModel
 
     public boolean contains(Angle latitude, Angle longitude)
     {
-        for (LocalTile tile : this.tiles)
-        {
-            if (tile.sector.contains(latitude, longitude))
-                return true;
-        }
-
-        return false;
+        return this.findTile(latitude.radians, longitude.radians) != null;
     }
 
     protected void adjustMinMax(LocalTile tile)
@@ -403,6 +558,20 @@ public class LocalElevationModel extends AbstractElevationModel
         if (tile == null)
             return null;
 
+        return this.lookupElevation(tile, latRadians, lonRadians);
+    }
+
+    /**
+     * Interpolates the elevation at a location within a tile.
+     *
+     * @param tile       the tile containing the location.
+     * @param latRadians the location's latitude in radians.
+     * @param lonRadians the location's longitude in radians.
+     *
+     * @return the elevation, or the model's missing data signal if the tile has no data at the location.
+     */
+    protected double lookupElevation(LocalTile tile, final double latRadians, final double lonRadians)
+    {
         final double sectorDeltaLat = tile.sector.getDeltaLat().radians;
         final double sectorDeltaLon = tile.sector.getDeltaLon().radians;
         final double dLat = tile.sector.getMaxLatitude().radians - latRadians;
@@ -442,15 +611,298 @@ public class LocalElevationModel extends AbstractElevationModel
 
     protected LocalTile findTile(final double latRadians, final double lonRadians)
     {
-        for (LocalTile tile : this.tiles)
+        // Locations on the last tile's edges may be shared with an earlier tile, so are resolved by the index.
+        TileIndex.Entry last = this.lastTile;
+        if (last != null && isInside(last.tile.sector, latRadians, lonRadians))
+            return last.tile;
+
+        TileIndex.Entry[] cell = this.getTileIndex().getCell(latRadians, lonRadians);
+        if (cell == null)
+            return null;
+
+        // The cell lists its tiles in the order they were added, so the first one containing the location is the one
+        // a search of the tile list would find.
+        for (TileIndex.Entry entry : cell)
         {
-            if (tile.sector.containsRadians(latRadians, lonRadians))
-                return tile;
+            if (entry.tile.sector.containsRadians(latRadians, lonRadians))
+            {
+                if (entry.exclusive)
+                    this.lastTile = entry;
+                return entry.tile;
+            }
         }
 
         return null;
     }
 
+    /**
+     * Indicates whether a location is inside a sector and not on its edges.
+     *
+     * @param sector     the sector.
+     * @param latRadians the location's latitude in radians.
+     * @param lonRadians the location's longitude in radians.
+     *
+     * @return true if the location is strictly inside the sector, otherwise false.
+     */
+    protected static boolean isInside(Sector sector, double latRadians, double lonRadians)
+    {
+        return latRadians > sector.getMinLatitude().radians && latRadians < sector.getMaxLatitude().radians
+            && lonRadians > sector.getMinLongitude().radians && lonRadians < sector.getMaxLongitude().radians;
+    }
+
+    /**
+     * Indicates whether the interiors of two sectors intersect. Unlike {@link Sector#intersects(Sector)}, sectors
+     * sharing only an edge or a corner do not.
+     *
+     * @param a the first sector.
+     * @param b the second sector.
+     *
+     * @return true if the sectors' interiors intersect, otherwise false.
+     */
+    protected static boolean interiorsIntersect(Sector a, Sector b)
+    {
+        return a.getMinLatitude().radians < b.getMaxLatitude().radians
+            && b.getMinLatitude().radians < a.getMaxLatitude().radians
+            && a.getMinLongitude().radians < b.getMaxLongitude().radians
+            && b.getMinLongitude().radians < a.getMaxLongitude().radians;
+    }
+
+    /**
+     * Returns the index of the model's tiles, building it if tiles have been added since it was last built.
+     *
+     * @return the tile index.
+     */
+    protected TileIndex getTileIndex()
+    {
+        TileIndex index = this.tileIndex;
+        if (index != null && index.size() == this.tiles.size())
+            return index;
+
+        synchronized (this)
+        {
+            index = this.tileIndex;
+            // Tiles are only ever added, so a change in their count means the index is out of date.
+            if (index == null || index.size() != this.tiles.size())
+            {
+                index = new TileIndex(new ArrayList<LocalTile>(this.tiles));
+                this.tileIndex = index;
+                this.lastTile = null;
+            }
+
+            return index;
+        }
+    }
+
+    /**
+     * A uniform grid over the sectors of a list of tiles. Each cell lists the tiles overlapping it, in the order of the
+     * tile list. The cell size is the median tile size, so that a cell holds few tiles whatever the tile count.
+     */
+    protected static class TileIndex
+    {
+        protected static class Entry
+        {
+            protected final LocalTile tile;
+            // True if no tile earlier in the tile list overlaps this tile's interior.
+            protected final boolean exclusive;
+
+            public Entry(LocalTile tile, boolean exclusive)
+            {
+                this.tile = tile;
+                this.exclusive = exclusive;
+            }
+        }
+
+        protected final int size;
+        protected final double minLat;
+        protected final double minLon;
+        protected final double cellSize;
+        protected final int numRows;
+        protected final int numCols;
+        protected final Entry[][] cells;
+
+        public TileIndex(List<LocalTile> tiles)
+        {
+            this.size = tiles.size();
+
+            if (tiles.isEmpty())
+            {
+                this.minLat = this.minLon = 0;
+                this.cellSize = 1;
+                this.numRows = this.numCols = 0;
+                this.cells = new Entry[0][];
+                return;
+            }
+
+            Sector extent = null;
+            double[] sizes = new double[tiles.size()];
+            for (int i = 0; i < tiles.size(); i++)
+            {
+                Sector sector = tiles.get(i).sector;
+                extent = Sector.union(extent, sector);
+                sizes[i] = Math.max(sector.getDeltaLatRadians(), sector.getDeltaLonRadians());
+            }
+
+            Arrays.sort(sizes);
+            double size = Math.max(sizes[sizes.length / 2], 1e-9);
+            // Enlarge the cells if the extent would otherwise need too many of them.
+            double numCells = Math.ceil(extent.getDeltaLatRadians() / size) * Math.ceil(
+                extent.getDeltaLonRadians() / size);
+            if (numCells > MAX_INDEX_CELLS)
+                size *= Math.sqrt(numCells / MAX_INDEX_CELLS);
+
+            this.minLat = extent.getMinLatitude().radians;
+            this.minLon = extent.getMinLongitude().radians;
+            this.cellSize = size;
+            this.numRows = Math.max((int) Math.ceil(extent.getDeltaLatRadians() / size), 1);
+            this.numCols = Math.max((int) Math.ceil(extent.getDeltaLonRadians() / size), 1);
+
+            List<List<Entry>> lists = new ArrayList<List<Entry>>(this.numRows * this.numCols);
+            for (int i = 0; i < this.numRows * this.numCols; i++)
+            {
+                lists.add(null);
+            }
+
+            for (LocalTile tile : tiles)
+            {
+                int[] range = this.getCellRange(tile.sector);
+
+                // A tile overlapped by an earlier tile shares a cell with it. Tiles sharing only an edge do not overlap.
+                boolean exclusive = true;
+                for (int row = range[0]; row <= range[1] && exclusive; row++)
+                {
+                    for (int col = range[2]; col <= range[3] && exclusive; col++)
+                    {
+                        List<Entry> list = lists.get(row * this.numCols + col);
+                        if (list == null)
+                            continue;
+
+                        for (Entry entry : list)
+                        {
+                            if (interiorsIntersect(entry.tile.sector, tile.sector))
+                            {
+                                exclusive = false;
+                                break;
+                            }
+                        }
+                    }
+                }
+
+                Entry entry = new Entry(tile, exclusive);
+                for (int row = range[0]; row <= range[1]; row++)
+                {
+                    for (int col = range[2]; col <= range[3]; col++)
+                    {
+                        int i = row * this.numCols + col;
+                        if (lists.get(i) == null)
+                            lists.set(i, new ArrayList<Entry>(2));
+                        lists.get(i).add(entry);
+                    }
+                }
+            }
+
+            this.cells = new Entry[lists.size()][];
+            for (int i = 0; i < lists.size(); i++)
+            {
+                List<Entry> list = lists.get(i);
+                if (list != null)
+                    this.cells[i] = list.toArray(new Entry[list.size()]);
+            }
+        }
+
+        /**
+         * Returns the number of tiles indexed.
+         *
+         * @return the number of tiles.
+         */
+        public int size()
+        {
+            return this.size;
+        }
+
+        /**
+         * Returns the tiles in the cell containing a location.
+         *
+         * @param latRadians the location's latitude in radians.
+         * @param lonRadians the location's longitude in radians.
+         *
+         * @return the cell's tiles, or null if no tile overlaps the cell or the location is outside the index.
+         */
+        public Entry[] getCell(double latRadians, double lonRadians)
+        {
+            if (this.numRows == 0)
+                return null;
+
+            double row = Math.floor((latRadians - this.minLat) / this.cellSize);
+            double col = Math.floor((lonRadians - this.minLon) / this.cellSize);
+
+            // A location on the extent's maximum edge falls just beyond the last cell.
+            if (row == this.numRows)
+                row--;
+            if (col == this.numCols)
+                col--;
+
+            if (row < 0 || row >= this.numRows || col < 0 || col >= this.numCols)
+                return null;
+
+            return this.cells[(int) row * this.numCols + (int) col];
+        }
+
+        /**
+         * Returns the tiles in the cells overlapping a sector. The tiles are candidates: they need not overlap the
+         * sector itself.
+         *
+         * @param sector the sector of interest.
+         *
+         * @return the candidate tiles, each listed once.
+         */
+        public Collection<LocalTile> getTiles(Sector sector)
+        {
+            if (this.numRows == 0)
+                return Collections.emptyList();
+
+            int[] range = this.getCellRange(sector);
+            if (range[0] > range[1] || range[2] > range[3])
+                return Collections.emptyList();
+
+            Set<LocalTile> tiles = new LinkedHashSet<LocalTile>();
+            for (int row = range[0]; row <= range[1]; row++)
+            {
+                for (int col = range[2]; col <= range[3]; col++)
+                {
+                    Entry[] cell = this.cells[row * this.numCols + col];
+                    if (cell == null)
+                        continue;
+
+                    for (Entry entry : cell)
+                    {
+                        tiles.add(entry.tile);
+                    }
+                }
+            }
+
+            return tiles;
+        }
+
+        // Returns the first and last rows and columns of the cells overlapping a sector, clamped to the grid.
+        protected int[] getCellRange(Sector sector)
+        {
+            return new int[] {
+                this.clamp((int) Math.floor((sector.getMinLatitude().radians - this.minLat) / this.cellSize),
+                    this.numRows),
+                this.clamp((int) Math.floor((sector.getMaxLatitude().radians - this.minLat) / this.cellSize),
+                    this.numRows),
+                this.clamp((int) Math.floor((sector.getMinLongitude().radians - this.minLon) / this.cellSize),
+                    this.numCols),
+                this.clamp((int) Math.floor((sector.getMaxLongitude().radians - this.minLon) / this.cellSize),
+                    this.numCols)};
+        }
+
+        protected int clamp(int i, int n)
+        {
+            return i < 0 ? 0 : (i >= n ? n - 1 : i);
+        }
+    }
+
     protected static class LocalTile
     {
         protected final Sector sector;
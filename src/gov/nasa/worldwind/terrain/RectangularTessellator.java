@@ -12,10 +12,11 @@ import gov.nasa.worldwind.*;
 import gov.nasa.worldwind.avlist.AVKey;
 import gov.nasa.worldwind.cache.*;
 import gov.nasa.worldwind.geom.*;
-import gov.nasa.worldwind.globes.Globe;
+import gov.nasa.worldwind.globes.*;
 import gov.nasa.worldwind.pick.*;
 import gov.nasa.worldwind.render.*;
 import gov.nasa.worldwind.util.*;
+import gov.nasa.worldwind.view.ViewMotionPredictor;
 
 import javax.media.opengl.*;
 import java.awt.*;
@@ -326,9 +327,44 @@ public class RectangularTessellator extends WWObjectImpl implements Tessellator
             this.makeVerts(dc, (RectTile) tile);
         }
 
+        this.prefetchElevations(dc);
+
         return this.currentTiles;
     }
 
+    /**
+     * Requests the elevations the tessellator will need if the view follows the path predicted by the draw context's
+     * {@link gov.nasa.worldwind.view.ViewMotionPredictor}. For each predicted position, the elevation model prefetches
+     * the region a view at that position would show, at the resolution of the tiles {@link #needToSplit(DrawContext,
+     * RectTile)} would select beneath the eye.
+     *
+     * @param dc the current draw context.
+     */
+    protected void prefetchElevations(DrawContext dc)
+    {
+        if (!(dc instanceof ViewMotionPredictorHolder))
+            return;
+        if (!(dc.getGlobe().getElevationModel() instanceof ElevationPrefetcher))
+            return;
+
+        ViewMotionPredictor predictor = ((ViewMotionPredictorHolder) dc).getViewMotionPredictor();
+        if (predictor == null || !predictor.hasPrediction())
+            return;
+
+        ElevationModel elevationModel = dc.getGlobe().getElevationModel();
+        double radius = dc.getGlobe().getRadius();
+        for (Position position : predictor.getPredictedPositions())
+        {
+            Sector footprint = ViewMotionPredictor.computeFootprint(position, dc.getView().getFieldOfView(), radius);
+
+            // A tile is used when its cell size is at most the eye distance divided by 10^target, see needToSplit.
+            double target = DEFAULT_LOG10_RESOLUTION_TARGET + elevationModel.getDetailHint(footprint);
+            double resolution = Math.max(position.getElevation(), 1) / (Math.pow(10, target) * radius);
+
+            ((ElevationPrefetcher) elevationModel).prefetchElevations(footprint, resolution);
+        }
+    }
+
     protected ArrayList<RectTile> createTopLevelTiles(DrawContext dc)
     {
         ArrayList<RectTile> tops =
@@ -516,14 +552,17 @@ public class RectangularTessellator extends WWObjectImpl implements Tessellator
         double[] elevations = new double[latlons.size()];
         dc.getGlobe().getElevations(tile.sector, latlons, tile.getResolution(), elevations);
 
-        int iv = 0;
         double verticalExaggeration = dc.getVerticalExaggeration();
         Double exaggeratedMinElevation = makeSkirts ? globe.getMinElevation() * verticalExaggeration : null;
 
         LatLon centroid = tile.sector.getCentroid();
         Vec4 refCenter = globe.computePointFromPosition(centroid.getLatitude(), centroid.getLongitude(), 0d);
 
+        // Pack the vertex positions and convert them to model coordinates in one pass, rather than creating a point
+        // per vertex.
+        double[] positions = new double[numVertices * 3];
         int ie = 0;
+        int ip = 0;
         Iterator<LatLon> latLonIter = latlons.iterator();
         for (int j = 0; j <= density + 2; j++)
         {
@@ -537,11 +576,26 @@ public class RectangularTessellator extends WWObjectImpl implements Tessellator
                     (j == 0 || j >= tile.density + 2 || i == 0 || i >= tile.density + 2))
                     elevation = exaggeratedMinElevation;
 
-                Vec4 p = globe.computePointFromPosition(latlon.getLatitude(), latlon.getLongitude(), elevation);
-                verts.put(iv++, p.x - refCenter.x).put(iv++, p.y - refCenter.y).put(iv++, p.z - refCenter.z);
+                positions[ip++] = latlon.getLatitude().degrees;
+                positions[ip++] = latlon.getLongitude().degrees;
+                positions[ip++] = elevation;
             }
         }
 
+        verts.rewind();
+        if (globe instanceof BulkPositionConverter)
+        {
+            ((BulkPositionConverter) globe).computePointsFromPositions(positions, numVertices, refCenter, verts);
+        }
+        else
+        {
+            for (ip = 0; ip < positions.length; ip += 3)
+            {
+                Vec4 p = globe.computePointFromPosition(Angle.fromDegrees(positions[ip]),
+                    Angle.fromDegrees(positions[ip + 1]), positions[ip + 2]);
+                verts.put(p.x - refCenter.x).put(p.y - refCenter.y).put(p.z - refCenter.z);
+            }
+        }
         verts.rewind();
 
         Integer bufferIdVertices = null;
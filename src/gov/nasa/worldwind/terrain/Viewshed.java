@@ -0,0 +1,635 @@
+/*
+Copyright (C) 2001, 2010 United States Government
+as represented by the Administrator of the
+National Aeronautics and Space Administration.
+All Rights Reserved.
+*/
+
+package gov.nasa.worldwind.terrain;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.data.*;
+import gov.nasa.worldwind.exception.*;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.Globe;
+import gov.nasa.worldwind.util.Logging;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Computes viewsheds: the regions of terrain visible from one or more observers. The terrain is sampled once onto a
+ * regular grid of elevations covering a specified sector, and the grid is shared by every ray of every observer.
+ * Visibility from an observer is computed with a radial sweep: a ray is cast from the observer's grid cell to every
+ * cell on the perimeter of the observer's region, and each cell a ray passes through is visible if its line of sight
+ * slope is not below the steepest terrain slope the ray has crossed so far. Observers are processed concurrently.
+ * <p/>
+ * The result of a viewshed computation is a {@link DataRaster} with one 16 bit integer per grid cell, holding the
+ * number of observers that can see that cell. For a single observer the values are 0 (hidden) and 1 (visible).
+ * <p/>
+ * Observer and target heights are specified in meters above the terrain. The drop of distant terrain below the
+ * observer's horizontal due to the curvature of the globe is accounted for by default, reduced by atmospheric
+ * refraction according to the refraction coefficient. See {@link #setApplyEarthCurvature(boolean)} and {@link
+ * #setRefractionCoefficient(double)}.
+ * <p/>
+ * Because the best available elevations may not be available when the grid is sampled, sampling blocks while the data
+ * is retrieved from either the local disk cache or a remote server, as with {@link HighResolutionTerrain}. A timeout
+ * may be specified to limit the time allowed for retrieving data.
+ *
+ * @version $Id$
+ */
+public class Viewshed
+{
+    /** The default refraction coefficient, a standard value for visible light in a normal atmosphere. */
+    public static final double DEFAULT_REFRACTION_COEFFICIENT = 0.13;
+
+    /** Holds the visibility of the cells within one observer's region of the grid. */
+    protected static class ObserverVisibility
+    {
+        protected final int minRow;
+        protected final int minCol;
+        protected final int numRows;
+        protected final int numCols;
+        protected final boolean[] visible;
+
+        public ObserverVisibility(int minRow, int minCol, int numRows, int numCols)
+        {
+            this.minRow = minRow;
+            this.minCol = minCol;
+            this.numRows = numRows;
+            this.numCols = numCols;
+            this.visible = new boolean[numRows * numCols];
+        }
+    }
+
+    // User-specified fields.
+    protected final Globe globe;
+    protected final Sector sector;
+    protected final int width;
+    protected final int height;
+    protected Double targetResolution;
+    protected Long timeout;
+    protected boolean applyEarthCurvature = true;
+    protected double refractionCoefficient = DEFAULT_REFRACTION_COEFFICIENT;
+    protected double targetHeight;
+    protected int numThreads = Runtime.getRuntime().availableProcessors();
+
+    // Internal fields.
+    protected final double cellDeltaLat; // degrees
+    protected final double cellDeltaLon; // degrees
+    protected final double radius; // meters
+    protected double[] elevations;
+
+    /**
+     * Constructs a viewshed for a grid of cells covering a sector of a globe. The terrain elevation of each cell is the
+     * elevation at its center.
+     *
+     * @param globe  the globe whose terrain determines visibility.
+     * @param sector the sector covered by the grid.
+     * @param width  the number of grid columns.
+     * @param height the number of grid rows.
+     *
+     * @throws IllegalArgumentException if the globe or sector is null, or the width or height is less than 1.
+     */
+    public Viewshed(Globe globe, Sector sector, int width, int height)
+    {
+        if (globe == null)
+        {
+            String msg = Logging.getMessage("nullValue.GlobeIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (sector == null)
+        {
+            String msg = Logging.getMessage("nullValue.SectorIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (width < 1)
+        {
+            String msg = Logging.getMessage("generic.InvalidWidth", width);
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (height < 1)
+        {
+            String msg = Logging.getMessage("generic.InvalidHeight", height);
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        this.globe = globe;
+        this.sector = sector;
+        this.width = width;
+        this.height = height;
+
+        this.cellDeltaLat = sector.getDeltaLatDegrees() / height;
+        this.cellDeltaLon = sector.getDeltaLonDegrees() / width;
+        this.radius = globe.getRadiusAt(sector.getCentroid());
+    }
+
+    public Globe getGlobe()
+    {
+        return this.globe;
+    }
+
+    public Sector getSector()
+    {
+        return this.sector;
+    }
+
+    public int getWidth()
+    {
+        return this.width;
+    }
+
+    public int getHeight()
+    {
+        return this.height;
+    }
+
+    /**
+     * Indicates the resolution at which terrain elevations are sampled.
+     *
+     * @return the target resolution, in meters, or null to indicate the resolution of the grid.
+     */
+    public synchronized Double getTargetResolution()
+    {
+        return this.targetResolution;
+    }
+
+    /**
+     * Specifies the resolution at which terrain elevations are sampled. Changing the resolution causes the elevations
+     * to be sampled again by the next viewshed computation.
+     *
+     * @param targetResolution the target resolution, in meters, or null to sample at the resolution of the grid.
+     */
+    public synchronized void setTargetResolution(Double targetResolution)
+    {
+        this.targetResolution = targetResolution;
+        this.elevations = null;
+    }
+
+    /**
+     * Indicates the current timeout for sampling terrain elevations.
+     *
+     * @return the current timeout, in milliseconds. May be null.
+     *
+     * @see #setTimeout(Long)
+     */
+    public synchronized Long getTimeout()
+    {
+        return this.timeout;
+    }
+
+    /**
+     * Specifies the maximum amount of time allowed for retrieval of the terrain data needed to sample the elevation
+     * grid. Viewshed computations throw a {@link WWTimeoutException} if the timeout is exceeded.
+     *
+     * @param timeout the number of milliseconds to wait. May be null, to indicate no limit.
+     */
+    public synchronized void setTimeout(Long timeout)
+    {
+        this.timeout = timeout;
+    }
+
+    /**
+     * Indicates whether the curvature of the globe is applied to distant terrain.
+     *
+     * @return true if earth curvature is applied, otherwise false. The default is true.
+     */
+    public boolean isApplyEarthCurvature()
+    {
+        return this.applyEarthCurvature;
+    }
+
+    /**
+     * Specifies whether the curvature of the globe is applied to distant terrain. When applied, terrain at a distance
+     * <code>d</code> from the observer is lowered by <code>d * d * (1 - k) / (2 * R)</code>, where <code>k</code> is
+     * the refraction coefficient and <code>R</code> is the globe's radius.
+     *
+     * @param applyEarthCurvature true to apply earth curvature, otherwise false.
+     */
+    public void setApplyEarthCurvature(boolean applyEarthCurvature)
+    {
+        this.applyEarthCurvature = applyEarthCurvature;
+    }
+
+    /**
+     * Indicates the coefficient of atmospheric refraction used to reduce the effect of earth curvature.
+     *
+     * @return the refraction coefficient. The default is {@link #DEFAULT_REFRACTION_COEFFICIENT}.
+     */
+    public double getRefractionCoefficient()
+    {
+        return this.refractionCoefficient;
+    }
+
+    /**
+     * Specifies the coefficient of atmospheric refraction used to reduce the effect of earth curvature. A value of 0
+     * ignores refraction.
+     *
+     * @param refractionCoefficient the refraction coefficient.
+     */
+    public void setRefractionCoefficient(double refractionCoefficient)
+    {
+        this.refractionCoefficient = refractionCoefficient;
+    }
+
+    /**
+     * Indicates the height above the terrain of the points whose visibility is computed.
+     *
+     * @return the target height, in meters. The default is 0.
+     */
+    public double getTargetHeight()
+    {
+        return this.targetHeight;
+    }
+
+    /**
+     * Specifies the height above the terrain of the points whose visibility is computed. A cell is visible if an
+     * object of this height standing at the cell's center can be seen by an observer.
+     *
+     * @param targetHeight the target height, in meters.
+     */
+    public void setTargetHeight(double targetHeight)
+    {
+        this.targetHeight = targetHeight;
+    }
+
+    /**
+     * Indicates the number of threads used to process observers.
+     *
+     * @return the number of threads. The default is the number of available processors.
+     */
+    public int getNumThreads()
+    {
+        return this.numThreads;
+    }
+
+    /**
+     * Specifies the number of threads used to process observers.
+     *
+     * @param numThreads the number of threads. Values less than 1 are clamped to 1.
+     */
+    public void setNumThreads(int numThreads)
+    {
+        this.numThreads = Math.max(numThreads, 1);
+    }
+
+    /**
+     * Computes the cells of the grid visible from a single observer.
+     *
+     * @param observer  the observer's location. Its altitude is the observer's height above the terrain, in meters.
+     * @param maxRadius the maximum distance from the observer considered, in meters. Values less than or equal to 0
+     *                  indicate the entire grid.
+     *
+     * @return a raster whose cells are 1 where visible from the observer and 0 elsewhere.
+     *
+     * @throws IllegalArgumentException if the observer is null.
+     * @throws WWTimeoutException       if the current timeout is exceeded while retrieving terrain data.
+     * @throws WWRuntimeException       if the operation is interrupted.
+     */
+    public DataRaster computeViewshed(Position observer, double maxRadius)
+    {
+        if (observer == null)
+        {
+            String msg = Logging.getMessage("nullValue.PositionIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        return this.computeViewshed(Arrays.asList(observer), maxRadius);
+    }
+
+    /**
+     * Computes the cells of the grid visible from each of a collection of observers, and counts for each cell the
+     * number of observers that see it. Observers outside the grid's sector are ignored.
+     *
+     * @param observers the observers' locations. The altitude of each is the observer's height above the terrain, in
+     *                  meters.
+     * @param maxRadius the maximum distance from each observer considered, in meters. Values less than or equal to 0
+     *                  indicate the entire grid.
+     *
+     * @return a raster whose cells hold the number of observers that see them.
+     *
+     * @throws IllegalArgumentException if the observers iterable is null.
+     * @throws WWTimeoutException       if the current timeout is exceeded while retrieving terrain data.
+     * @throws WWRuntimeException       if the operation is interrupted.
+     */
+    public DataRaster computeViewshed(Iterable<? extends Position> observers, final double maxRadius)
+    {
+        if (observers == null)
+        {
+            String msg = Logging.getMessage("nullValue.IterableIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        final double[] elevations = this.getElevations();
+        final int[] counts = new int[this.width * this.height];
+
+        List<Position> positions = new ArrayList<Position>();
+        for (Position observer : observers)
+        {
+            if (observer != null && this.sector.contains(observer))
+                positions.add(observer);
+        }
+
+        int numThreads = Math.min(this.getNumThreads(), positions.size());
+        if (numThreads <= 1)
+        {
+            for (Position observer : positions)
+            {
+                this.addVisibility(this.computeVisibility(observer, maxRadius, elevations), counts);
+            }
+        }
+        else
+        {
+            ExecutorService executor = Executors.newFixedThreadPool(numThreads, new ThreadFactory()
+            {
+                public Thread newThread(Runnable runnable)
+                {
+                    Thread thread = new Thread(runnable);
+                    thread.setDaemon(true);
+                    thread.setName("Viewshed");
+                    return thread;
+                }
+            });
+
+            try
+            {
+                List<Future<?>> futures = new ArrayList<Future<?>>(positions.size());
+                for (final Position observer : positions)
+                {
+                    futures.add(executor.submit(new Runnable()
+                    {
+                        public void run()
+                        {
+                            ObserverVisibility visibility = computeVisibility(observer, maxRadius, elevations);
+                            synchronized (counts)
+                            {
+                                addVisibility(visibility, counts);
+                            }
+                        }
+                    }));
+                }
+
+                for (Future<?> future : futures)
+                {
+                    this.waitForObserver(future);
+                }
+            }
+            finally
+            {
+                executor.shutdownNow();
+            }
+        }
+
+        return this.createRaster(counts);
+    }
+
+    /**
+     * Returns the elevations of the grid cells, in row major order starting at the grid's northwest corner. The
+     * elevations are sampled from the globe the first time they're needed and retained for subsequent computations.
+     *
+     * @return the elevations of the grid cells, in meters.
+     *
+     * @throws WWTimeoutException if the current timeout is exceeded while retrieving terrain data.
+     * @throws WWRuntimeException if the operation is interrupted.
+     */
+    public synchronized double[] getElevations()
+    {
+        if (this.elevations == null)
+        {
+            try
+            {
+                this.elevations = this.sampleElevations();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                String msg = Logging.getMessage("Viewshed.ComputationInterrupted");
+                Logging.logger().severe(msg);
+                throw new WWRuntimeException(msg, e);
+            }
+        }
+
+        return this.elevations;
+    }
+
+    /** Discards the sampled elevations, causing them to be sampled again by the next viewshed computation. */
+    public synchronized void invalidateElevations()
+    {
+        this.elevations = null;
+    }
+
+    protected double[] sampleElevations() throws InterruptedException
+    {
+        double resolution = this.targetResolution != null ? this.targetResolution / this.radius
+            : Math.toRadians(Math.min(this.cellDeltaLat, this.cellDeltaLon));
+        // Never wait for resolution finer than the elevation model can provide.
+        resolution = Math.max(resolution, this.globe.getElevationModel().getBestResolution(this.sector));
+
+        long startTime = System.currentTimeMillis();
+        double[] grid = new double[this.width * this.height];
+        double[] rowElevations = new double[this.width];
+        List<LatLon> rowLocations = new ArrayList<LatLon>(this.width);
+
+        // Sample one row at a time to limit the number of locations held at once.
+        for (int row = 0; row < this.height; row++)
+        {
+            double lat = this.getCellLatitude(row);
+            rowLocations.clear();
+            for (int col = 0; col < this.width; col++)
+            {
+                rowLocations.add(LatLon.fromDegrees(lat, this.getCellLongitude(col)));
+            }
+
+            Sector rowSector = Sector.fromDegrees(lat - this.cellDeltaLat / 2, lat + this.cellDeltaLat / 2,
+                this.sector.getMinLongitude().degrees, this.sector.getMaxLongitude().degrees);
+
+            while (this.globe.getElevations(rowSector, rowLocations, resolution, rowElevations) > resolution)
+            {
+                // Give the system a chance to retrieve data from the disk cache or the server. Also catches interrupts
+                // and throws interrupt exceptions.
+                Thread.sleep(5);
+
+                Long timeout = this.getTimeout();
+                if (timeout != null && System.currentTimeMillis() - startTime > timeout)
+                {
+                    String msg = Logging.getMessage("Viewshed.ElevationsTimedOut", timeout);
+                    Logging.logger().warning(msg);
+                    throw new WWTimeoutException(msg);
+                }
+            }
+
+            System.arraycopy(rowElevations, 0, grid, row * this.width, this.width);
+        }
+
+        return grid;
+    }
+
+    protected double getCellLatitude(int row)
+    {
+        return this.sector.getMaxLatitude().degrees - (row + 0.5) * this.cellDeltaLat;
+    }
+
+    protected double getCellLongitude(int col)
+    {
+        return this.sector.getMinLongitude().degrees + (col + 0.5) * this.cellDeltaLon;
+    }
+
+    /**
+     * Computes the visibility of the cells around an observer by casting rays from the observer's cell to each cell on
+     * the perimeter of the observer's region. The rays pass through every cell of the region, so each cell's slope is
+     * compared against the steepest slope between it and the observer without re-sampling the terrain.
+     *
+     * @param observer   the observer's location and height above the terrain.
+     * @param maxRadius  the maximum distance considered, in meters, or a value less than or equal to 0 to indicate the
+     *                   entire grid.
+     * @param elevations the grid elevations.
+     *
+     * @return the visibility of the cells within the observer's region.
+     */
+    protected ObserverVisibility computeVisibility(Position observer, double maxRadius, double[] elevations)
+    {
+        int obsRow = Math.min((int) ((this.sector.getMaxLatitude().degrees - observer.getLatitude().degrees)
+            / this.cellDeltaLat), this.height - 1);
+        int obsCol = Math.min((int) ((observer.getLongitude().degrees - this.sector.getMinLongitude().degrees)
+            / this.cellDeltaLon), this.width - 1);
+
+        // Distances are measured in the observer's local tangent plane. Over the distances viewsheds are computed for
+        // the convergence of meridians across the region is negligible.
+        double cellHeight = Math.toRadians(this.cellDeltaLat) * this.radius;
+        double cellWidth = Math.toRadians(this.cellDeltaLon) * this.radius
+            * Math.cos(Math.toRadians(this.getCellLatitude(obsRow)));
+        cellWidth = Math.max(cellWidth, 1e-6);
+
+        int minRow = 0, maxRow = this.height - 1, minCol = 0, maxCol = this.width - 1;
+        if (maxRadius > 0)
+        {
+            int rowRadius = (int) Math.ceil(maxRadius / cellHeight);
+            int colRadius = (int) Math.min(Math.ceil(maxRadius / cellWidth), this.width);
+            minRow = Math.max(obsRow - rowRadius, 0);
+            maxRow = Math.min(obsRow + rowRadius, this.height - 1);
+            minCol = Math.max(obsCol - colRadius, 0);
+            maxCol = Math.min(obsCol + colRadius, this.width - 1);
+        }
+
+        ObserverVisibility visibility = new ObserverVisibility(minRow, minCol, maxRow - minRow + 1,
+            maxCol - minCol + 1);
+        visibility.visible[(obsRow - minRow) * visibility.numCols + (obsCol - minCol)] = true;
+
+        double eye = elevations[obsRow * this.width + obsCol] + observer.getAltitude();
+        double curvature = this.isApplyEarthCurvature() ? (1 - this.getRefractionCoefficient()) / (2 * this.radius)
+            : 0;
+        double maxDistance = maxRadius > 0 ? maxRadius : Double.MAX_VALUE;
+
+        for (int col = minCol; col <= maxCol; col++)
+        {
+            this.castRay(visibility, elevations, obsRow, obsCol, minRow, col, eye, cellWidth, cellHeight, curvature,
+                maxDistance);
+            this.castRay(visibility, elevations, obsRow, obsCol, maxRow, col, eye, cellWidth, cellHeight, curvature,
+                maxDistance);
+        }
+
+        for (int row = minRow + 1; row < maxRow; row++)
+        {
+            this.castRay(visibility, elevations, obsRow, obsCol, row, minCol, eye, cellWidth, cellHeight, curvature,
+                maxDistance);
+            this.castRay(visibility, elevations, obsRow, obsCol, row, maxCol, eye, cellWidth, cellHeight, curvature,
+                maxDistance);
+        }
+
+        return visibility;
+    }
+
+    protected void castRay(ObserverVisibility visibility, double[] elevations, int obsRow, int obsCol, int endRow,
+        int endCol, double eye, double cellWidth, double cellHeight, double curvature, double maxDistance)
+    {
+        int dRow = endRow - obsRow;
+        int dCol = endCol - obsCol;
+        int numSteps = Math.max(Math.abs(dRow), Math.abs(dCol));
+        double maxSlope = Double.NEGATIVE_INFINITY;
+
+        for (int step = 1; step <= numSteps; step++)
+        {
+            int row = obsRow + (int) Math.floor(dRow * (double) step / numSteps + 0.5);
+            int col = obsCol + (int) Math.floor(dCol * (double) step / numSteps + 0.5);
+
+            double dx = (col - obsCol) * cellWidth;
+            double dy = (row - obsRow) * cellHeight;
+            double distance = Math.sqrt(dx * dx + dy * dy);
+            if (distance > maxDistance)
+                break;
+
+            double z = elevations[row * this.width + col] - curvature * distance * distance - eye;
+            if ((z + this.targetHeight) / distance >= maxSlope)
+                visibility.visible[(row - visibility.minRow) * visibility.numCols + (col - visibility.minCol)] = true;
+
+            double slope = z / distance;
+            if (slope > maxSlope)
+                maxSlope = slope;
+        }
+    }
+
+    protected void addVisibility(ObserverVisibility visibility, int[] counts)
+    {
+        for (int r = 0; r < visibility.numRows; r++)
+        {
+            int src = r * visibility.numCols;
+            int dst = (visibility.minRow + r) * this.width + visibility.minCol;
+            for (int c = 0; c < visibility.numCols; c++)
+            {
+                if (visibility.visible[src + c])
+                    counts[dst + c]++;
+            }
+        }
+    }
+
+    protected DataRaster createRaster(int[] counts)
+    {
+        AVList params = new AVListImpl();
+        params.setValue(AVKey.DATA_TYPE, AVKey.INT16);
+        params.setValue(AVKey.BYTE_ORDER, AVKey.BIG_ENDIAN);
+
+        ByteBufferRaster raster = new ByteBufferRaster(this.width, this.height, this.sector, params);
+        for (int row = 0; row < this.height; row++)
+        {
+            for (int col = 0; col < this.width; col++)
+            {
+                raster.setDoubleAtPosition(row, col, Math.min(counts[row * this.width + col], Short.MAX_VALUE));
+            }
+        }
+
+        return raster;
+    }
+
+    protected void waitForObserver(Future<?> future)
+    {
+        try
+        {
+            future.get();
+        }
+        catch (ExecutionException e)
+        {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+
+            String msg = Logging.getMessage("Viewshed.ComputationFailed", e.getCause());
+            Logging.logger().severe(msg);
+            throw new WWRuntimeException(msg, e.getCause());
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            String msg = Logging.getMessage("Viewshed.ComputationInterrupted");
+            Logging.logger().severe(msg);
+            throw new WWRuntimeException(msg, e);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+Copyright (C) 2001, 2010 United States Government
+as represented by the Administrator of the
+National Aeronautics and Space Administration.
+All Rights Reserved.
+*/
+package gov.nasa.worldwind.tracks;
+
+import gov.nasa.worldwind.geom.Position;
+
+/**
+ * An immutable snapshot of the state of an object reported by a {@link PositionFeed}: its most recent position, and the
+ * time, course and speed reported with it.
+ *
+ * @version $Id$
+ */
+public class MovingObject
+{
+    protected final String id;
+    protected final Position position;
+    protected final long time;
+    protected final double course;
+    protected final double speed;
+    protected final long numUpdates;
+
+    /**
+     * Creates a moving object snapshot.
+     *
+     * @param id         the object's identifier.
+     * @param position   the object's position.
+     * @param time       the time of the position, in milliseconds since January 1, 1970 UTC, or {@link
+     *                   TrackStore#TIME_UNKNOWN}.
+     * @param course     the object's course over ground, in degrees clockwise from north, or NaN if unknown.
+     * @param speed      the object's speed over ground, in meters per second, or NaN if unknown.
+     * @param numUpdates the number of position reports received for the object.
+     */
+    public MovingObject(String id, Position position, long time, double course, double speed, long numUpdates)
+    {
+        this.id = id;
+        this.position = position;
+        this.time = time;
+        this.course = course;
+        this.speed = speed;
+        this.numUpdates = numUpdates;
+    }
+
+    public String getId()
+    {
+        return this.id;
+    }
+
+    public Position getPosition()
+    {
+        return this.position;
+    }
+
+    /**
+     * Returns the time of this object's position.
+     *
+     * @return the time, in milliseconds since January 1, 1970 UTC, or {@link TrackStore#TIME_UNKNOWN}.
+     */
+    public long getTime()
+    {
+        return this.time;
+    }
+
+    /**
+     * Returns this object's course over ground.
+     *
+     * @return the course, in degrees clockwise from north, or NaN if unknown.
+     */
+    public double getCourse()
+    {
+        return this.course;
+    }
+
+    /**
+     * Returns this object's speed over ground.
+     *
+     * @return the speed, in meters per second, or NaN if unknown.
+     */
+    public double getSpeed()
+    {
+        return this.speed;
+    }
+
+    /**
+     * Returns the number of position reports received for this object, including the one this snapshot reflects.
+     *
+     * @return the number of position reports.
+     */
+    public long getNumUpdates()
+    {
+        return this.numUpdates;
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.id + " " + this.position;
+    }
+}
@@ -0,0 +1,1005 @@
+/*
+Copyright (C) 2001, 2010 United States Government
+as represented by the Administrator of the
+National Aeronautics and Space Administration.
+All Rights Reserved.
+*/
+package gov.nasa.worldwind.tracks;
+
+import gov.nasa.worldwind.event.*;
+import gov.nasa.worldwind.geom.Position;
+import gov.nasa.worldwind.util.*;
+
+import javax.swing.event.EventListenerList;
+import java.io.*;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Ingests a live stream of position reports, such as the output of a GPS receiver or a vehicle tracking service, and
+ * maintains the latest state of each reported object.
+ * <p/>
+ * A feed reads lines from a socket, see {@link #connect(String, int)}, from any input stream such as a pipe, see
+ * {@link #start(java.io.InputStream)}, or from recorded lines replayed through a loopback pipe, see {@link
+ * #replay(java.util.List, long)}. Two kinds of lines are understood: <ul> <li>NMEA 0183 GGA and RMC sentences from
+ * any talker. These describe a single object, identified by the feed's name. Sentences whose checksum doesn't match are
+ * rejected.</li> <li>Comma separated values of the form <code>id,latitude,longitude[,elevation[,time]]</code>, with
+ * latitude and longitude in decimal degrees, elevation in meters, and time either in milliseconds since January 1,
+ * 1970 UTC or in ISO 8601 form.</li> </ul> Other lines are ignored. Lines are parsed in place, without creating
+ * intermediate strings or objects.
+ * <p/>
+ * Reports are coalesced: the feed keeps the most recent report for each object, and publishes the changed objects at
+ * most once per update interval, see {@link #setUpdateInterval(long)}. Each publication updates the feed's objects, see
+ * {@link #getObjects()}, and sends a single {@link PositionFeedEvent} to the feed's listeners listing every object that
+ * changed. Listeners are called on the feed's publishing thread; listeners that modify Swing components or layers
+ * displayed by a {@link gov.nasa.worldwind.WorldWindow} should hand the changes to the event dispatch thread.
+ * <p/>
+ * NMEA GGA sentences report only the time of day. Their date is taken from the most recent RMC sentence, or, if no RMC
+ * sentence has been received, is the current UTC date.
+ *
+ * @version $Id$
+ */
+public class PositionFeed
+{
+    /** The default minimum time between publications, in milliseconds. */
+    public static final long DEFAULT_UPDATE_INTERVAL = 100;
+    /** The time {@link #stop()} waits for each of the feed's threads to end, in milliseconds. */
+    public static final long STOP_TIMEOUT = 5000;
+
+    protected static final int MAX_LINE_LENGTH = 1024;
+    protected static final int MAX_FIELDS = 32;
+    protected static final long MILLIS_PER_DAY = 86400000L;
+    protected static final double KNOTS_TO_METERS_PER_SECOND = 1852d / 3600d;
+    protected static final Charset CHARSET = Charset.forName("ISO-8859-1");
+    protected static final double[] POWERS_OF_TEN = new double[16];
+
+    static
+    {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++)
+        {
+            POWERS_OF_TEN[i] = 10 * POWERS_OF_TEN[i - 1];
+        }
+    }
+
+    /** The latest report for one object, updated in place as reports arrive. */
+    protected static class Report
+    {
+        protected final String id;
+        protected double latitude;
+        protected double longitude;
+        protected double elevation;
+        protected long time = TrackStore.TIME_UNKNOWN;
+        protected double course = Double.NaN;
+        protected double speed = Double.NaN;
+        protected long numUpdates;
+        protected boolean changed;
+
+        public Report(String id)
+        {
+            this.id = id;
+        }
+
+        public MovingObject toMovingObject()
+        {
+            return new MovingObject(this.id, Position.fromDegrees(this.latitude, this.longitude, this.elevation),
+                this.time, this.course, this.speed, this.numUpdates);
+        }
+    }
+
+    protected final String name;
+    protected volatile long updateInterval = DEFAULT_UPDATE_INTERVAL;
+    protected final EventListenerList listeners = new EventListenerList();
+    protected final Map<String, MovingObject> objects = new ConcurrentHashMap<String, MovingObject>();
+
+    // Reports received since the last publication. Guarded by the lock.
+    protected final Object lock = new Object();
+    protected final HashMap<String, Report> reports = new HashMap<String, Report>();
+    protected final ArrayList<Report> changedReports = new ArrayList<Report>();
+    protected int numPendingReports;
+    protected long lastPublishTime;
+    protected boolean readerDone;
+
+    protected InputStream stream;
+    protected Socket socket;
+    protected Thread readerThread;
+    protected Thread publisherThread;
+    protected volatile boolean running;
+    protected volatile long numLines;
+    protected volatile long numRejectedLines;
+
+    // Parsing state, used only by the reader thread.
+    protected final int[] fieldStarts = new int[MAX_FIELDS];
+    protected final int[] fieldEnds = new int[MAX_FIELDS];
+    protected int numFields;
+    protected long nmeaDate = TrackStore.TIME_UNKNOWN; // midnight UTC of the most recent RMC date
+    protected String lastId;
+
+    /**
+     * Creates a feed.
+     *
+     * @param name the feed's name. NMEA reports are attributed to an object with this identifier.
+     *
+     * @throws IllegalArgumentException if the name is null.
+     */
+    public PositionFeed(String name)
+    {
+        if (name == null)
+        {
+            String message = Logging.getMessage("nullValue.NameIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.name = name;
+    }
+
+    public String getName()
+    {
+        return this.name;
+    }
+
+    /**
+     * Indicates the minimum time between publications of changed objects.
+     *
+     * @return the update interval, in milliseconds.
+     */
+    public long getUpdateInterval()
+    {
+        return this.updateInterval;
+    }
+
+    /**
+     * Specifies the minimum time between publications of changed objects. Reports received within the interval are
+     * coalesced into one publication. The default is {@link #DEFAULT_UPDATE_INTERVAL}.
+     *
+     * @param updateInterval the update interval, in milliseconds.
+     *
+     * @throws IllegalArgumentException if the interval is negative.
+     */
+    public void setUpdateInterval(long updateInterval)
+    {
+        if (updateInterval < 0)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", updateInterval);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.updateInterval = updateInterval;
+    }
+
+    public void addPositionFeedListener(PositionFeedListener listener)
+    {
+        this.listeners.add(PositionFeedListener.class, listener);
+    }
+
+    public void removePositionFeedListener(PositionFeedListener listener)
+    {
+        this.listeners.remove(PositionFeedListener.class, listener);
+    }
+
+    /**
+     * Returns the latest published state of an object.
+     *
+     * @param id the object's identifier.
+     *
+     * @return the object's state, or null if no report for the object has been published.
+     */
+    public MovingObject getObject(String id)
+    {
+        return id != null ? this.objects.get(id) : null;
+    }
+
+    /**
+     * Returns the latest published state of every object reported by this feed.
+     *
+     * @return an unmodifiable, live view of the feed's objects.
+     */
+    public Collection<MovingObject> getObjects()
+    {
+        return Collections.unmodifiableCollection(this.objects.values());
+    }
+
+    /**
+     * Returns the number of lines read by this feed, including rejected lines.
+     *
+     * @return the number of lines read.
+     */
+    public long getNumLines()
+    {
+        return this.numLines;
+    }
+
+    /**
+     * Returns the number of lines that were rejected because they could not be parsed or failed their checksum.
+     *
+     * @return the number of rejected lines.
+     */
+    public long getNumRejectedLines()
+    {
+        return this.numRejectedLines;
+    }
+
+    public boolean isRunning()
+    {
+        return this.running;
+    }
+
+    /**
+     * Connects to a position server and starts reading reports from it.
+     *
+     * @param host the server's host name.
+     * @param port the server's port.
+     *
+     * @throws IllegalArgumentException if the host is null.
+     * @throws IllegalStateException    if the feed is already running.
+     * @throws IOException              if the connection cannot be established.
+     */
+    public void connect(String host, int port) throws IOException
+    {
+        if (host == null)
+        {
+            String message = Logging.getMessage("nullValue.HostIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        Socket s = new Socket(host, port);
+        try
+        {
+            this.start(s.getInputStream());
+        }
+        catch (RuntimeException e)
+        {
+            s.close();
+            throw e;
+        }
+
+        synchronized (this)
+        {
+            this.socket = s;
+        }
+    }
+
+    /**
+     * Starts reading reports from a stream. The stream is read on a separate thread until it ends or the feed is
+     * stopped, and is closed when reading ends.
+     *
+     * @param stream the stream to read.
+     *
+     * @throws IllegalArgumentException if the stream is null.
+     * @throws IllegalStateException    if the feed is already running.
+     */
+    public synchronized void start(final InputStream stream)
+    {
+        if (stream == null)
+        {
+            String message = Logging.getMessage("nullValue.InputStreamIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (this.running || (this.publisherThread != null && this.publisherThread.isAlive()))
+        {
+            String message = Logging.getMessage("generic.ServiceAlreadyRunning", this.name);
+            Logging.logger().severe(message);
+            throw new IllegalStateException(message);
+        }
+
+        this.stream = stream;
+        this.running = true;
+        synchronized (this.lock)
+        {
+            this.readerDone = false;
+        }
+
+        this.readerThread = new Thread(new Runnable()
+        {
+            public void run()
+            {
+                read(stream);
+            }
+        }, Logging.getMessage("PositionFeed.ReaderThreadName") + this.name);
+        this.readerThread.setDaemon(true);
+
+        this.publisherThread = new Thread(new Runnable()
+        {
+            public void run()
+            {
+                publish();
+            }
+        }, Logging.getMessage("PositionFeed.PublisherThreadName") + this.name);
+        this.publisherThread.setDaemon(true);
+
+        this.publisherThread.start();
+        this.readerThread.start();
+    }
+
+    /**
+     * Starts replaying recorded lines, such as an NMEA log or a file of comma separated values. The lines are written
+     * to a loopback pipe on a separate thread and are read and published exactly as lines from a live stream. The feed
+     * stops after the last line has been read, or when {@link #stop()} is called.
+     *
+     * @param lines        the lines to replay, without line terminators.
+     * @param lineInterval the time to wait between lines, in milliseconds. Zero replays the lines as fast as the feed
+     *                     reads them.
+     *
+     * @throws IllegalArgumentException if the lines are null or the interval is negative.
+     * @throws IllegalStateException    if the feed is already running.
+     * @throws IOException              if the loopback pipe cannot be created.
+     */
+    public void replay(final List<String> lines, final long lineInterval) throws IOException
+    {
+        if (lines == null)
+        {
+            String message = Logging.getMessage("nullValue.ListIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (lineInterval < 0)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", lineInterval);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        final PipedOutputStream out = new PipedOutputStream();
+        this.start(new PipedInputStream(out, MAX_LINE_LENGTH));
+
+        Thread writer = new Thread(new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    for (String line : lines)
+                    {
+                        if (!running)
+                            break;
+
+                        out.write((line + "\r\n").getBytes(CHARSET));
+                        out.flush();
+
+                        if (lineInterval > 0)
+                            Thread.sleep(lineInterval);
+                    }
+                }
+                catch (IOException e)
+                {
+                    // Stopping the feed closes the pipe, which ends the replay.
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                }
+                finally
+                {
+                    WWIO.closeStream(out, name);
+                }
+            }
+        }, Logging.getMessage("PositionFeed.ReplayThreadName") + this.name);
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Stops reading reports and closes the feed's stream or connection. Reports received before the feed is stopped
+     * are published before this method returns. Closing a stream does not end a blocked read on every kind of stream,
+     * so this method waits at most {@link #STOP_TIMEOUT} for the feed's threads to end, and abandons a reader thread
+     * that is still blocked.
+     */
+    public void stop()
+    {
+        Thread reader;
+        Thread publisher;
+        synchronized (this)
+        {
+            this.running = false;
+            WWIO.closeStream(this.stream, this.name);
+            this.stream = null;
+            if (this.socket != null)
+            {
+                try
+                {
+                    this.socket.close();
+                }
+                catch (IOException e)
+                {
+                    String message = Logging.getMessage("generic.ExceptionClosingStream", this.name);
+                    Logging.logger().log(java.util.logging.Level.WARNING, message, e);
+                }
+                this.socket = null;
+            }
+            reader = this.readerThread;
+            publisher = this.publisherThread;
+        }
+
+        try
+        {
+            if (reader != null && reader != Thread.currentThread())
+            {
+                reader.join(STOP_TIMEOUT);
+                if (reader.isAlive())
+                {
+                    Logging.logger().warning(Logging.getMessage("PositionFeed.ReaderDidNotStop", this.name));
+                    reader.interrupt();
+                    synchronized (this)
+                    {
+                        if (this.readerThread == reader)
+                            this.readerThread = null;
+                    }
+
+                    // Release the publisher, which otherwise waits for the reader to finish.
+                    synchronized (this.lock)
+                    {
+                        this.readerDone = true;
+                        this.lock.notifyAll();
+                    }
+                }
+            }
+
+            if (publisher != null && publisher != Thread.currentThread())
+                publisher.join(STOP_TIMEOUT);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        this.publishChanges();
+    }
+
+    /**
+     * Reads lines from a stream until the stream ends or the feed is stopped.
+     *
+     * @param stream the stream to read.
+     */
+    protected void read(InputStream stream)
+    {
+        byte[] buffer = new byte[8192];
+        byte[] line = new byte[MAX_LINE_LENGTH];
+        int length = 0;
+        boolean overflow = false;
+
+        try
+        {
+            int n;
+            while (this.running && (n = stream.read(buffer)) >= 0)
+            {
+                for (int i = 0; i < n; i++)
+                {
+                    byte b = buffer[i];
+                    if (b == '\n' || b == '\r')
+                    {
+                        if (length > 0)
+                            this.readLine(line, length, overflow);
+                        length = 0;
+                        overflow = false;
+                    }
+                    else if (length < line.length)
+                    {
+                        line[length++] = b;
+                    }
+                    else
+                    {
+                        overflow = true;
+                    }
+                }
+            }
+
+            if (length > 0)
+                this.readLine(line, length, overflow);
+        }
+        catch (IOException e)
+        {
+            // Closing the stream to stop the feed interrupts the read, which is not an error.
+            if (this.running)
+            {
+                String message = Logging.getMessage("generic.ExceptionAttemptingToReadFrom", this.name);
+                Logging.logger().log(java.util.logging.Level.WARNING, message, e);
+            }
+        }
+        finally
+        {
+            this.running = false;
+            synchronized (this.lock)
+            {
+                this.readerDone = true;
+                this.lock.notifyAll();
+            }
+
+            WWIO.closeStream(stream, this.name);
+        }
+    }
+
+    protected void readLine(byte[] line, int length, boolean overflow)
+    {
+        this.numLines++;
+
+        boolean accepted;
+        if (overflow)
+            accepted = false;
+        else if (line[0] == '$')
+            accepted = this.parseNmea(line, length);
+        else
+            accepted = this.parseCsv(line, length);
+
+        if (!accepted)
+            this.numRejectedLines++;
+    }
+
+    /**
+     * Publishes changed objects at most once per update interval, until the reader is done and every report has been
+     * published.
+     */
+    protected void publish()
+    {
+        try
+        {
+            while (true)
+            {
+                synchronized (this.lock)
+                {
+                    while (this.changedReports.isEmpty() && !this.readerDone)
+                    {
+                        this.lock.wait();
+                    }
+
+                    if (this.changedReports.isEmpty())
+                        return;
+
+                    // Wait out the update interval, unless the reader finishes first.
+                    long delay = this.lastPublishTime + this.updateInterval - System.currentTimeMillis();
+                    if (delay > 0 && !this.readerDone)
+                        this.lock.wait(delay);
+                }
+
+                this.publishChanges();
+            }
+        }
+        catch (InterruptedException e)
+        {
+            this.publishChanges();
+        }
+    }
+
+    /** Publishes the objects changed since the last publication, and notifies the feed's listeners. */
+    protected void publishChanges()
+    {
+        List<MovingObject> changed;
+        int numReports;
+
+        synchronized (this.lock)
+        {
+            if (this.changedReports.isEmpty())
+                return;
+
+            changed = new ArrayList<MovingObject>(this.changedReports.size());
+            for (Report report : this.changedReports)
+            {
+                MovingObject object = report.toMovingObject();
+                changed.add(object);
+                this.objects.put(object.getId(), object);
+                report.changed = false;
+            }
+
+            numReports = this.numPendingReports;
+            this.changedReports.clear();
+            this.numPendingReports = 0;
+            this.lastPublishTime = System.currentTimeMillis();
+        }
+
+        PositionFeedEvent event = new PositionFeedEvent(this, changed, numReports);
+        for (PositionFeedListener listener : this.listeners.getListeners(PositionFeedListener.class))
+        {
+            try
+            {
+                listener.objectsChanged(event);
+            }
+            catch (Exception e)
+            {
+                String message = Logging.getMessage("PositionFeed.ExceptionInListener", this.name);
+                Logging.logger().log(java.util.logging.Level.SEVERE, message, e);
+            }
+        }
+    }
+
+    /**
+     * Records a report for an object.
+     *
+     * @param id        the object's identifier.
+     * @param latitude  the object's latitude, in degrees.
+     * @param longitude the object's longitude, in degrees.
+     * @param elevation the object's elevation, in meters, or NaN to keep the previously reported elevation.
+     * @param time      the report's time, or {@link TrackStore#TIME_UNKNOWN}.
+     * @param course    the object's course, in degrees, or NaN to keep the previously reported course.
+     * @param speed     the object's speed, in meters per second, or NaN to keep the previously reported speed.
+     */
+    protected void report(String id, double latitude, double longitude, double elevation, long time, double course,
+        double speed)
+    {
+        synchronized (this.lock)
+        {
+            Report report = this.reports.get(id);
+            if (report == null)
+            {
+                report = new Report(id);
+                this.reports.put(id, report);
+            }
+
+            report.latitude = latitude;
+            report.longitude = longitude;
+            if (!Double.isNaN(elevation))
+                report.elevation = elevation;
+            report.time = time;
+            if (!Double.isNaN(course))
+                report.course = course;
+            if (!Double.isNaN(speed))
+                report.speed = speed;
+            report.numUpdates++;
+
+            this.numPendingReports++;
+            if (!report.changed)
+            {
+                report.changed = true;
+                this.changedReports.add(report);
+                if (this.changedReports.size() == 1)
+                    this.lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Parses an NMEA sentence, and records the report of GGA and RMC sentences.
+     *
+     * @param line   the sentence, starting with '$'.
+     * @param length the sentence's length.
+     *
+     * @return false if the sentence is malformed or fails its checksum, otherwise true.
+     */
+    protected boolean parseNmea(byte[] line, int length)
+    {
+        // Verify the checksum, if the sentence has one.
+        int end = length;
+        int checksum = 0;
+        for (int i = 1; i < length; i++)
+        {
+            if (line[i] == '*')
+            {
+                end = i;
+                break;
+            }
+            checksum ^= line[i];
+        }
+
+        if (end < length)
+        {
+            if (end + 3 > length)
+                return false;
+
+            int hi = Character.digit(line[end + 1], 16);
+            int lo = Character.digit(line[end + 2], 16);
+            if (hi < 0 || lo < 0 || (hi << 4 | lo) != checksum)
+                return false;
+        }
+
+        this.splitFields(line, 1, end);
+
+        // The address field is a two character talker identifier followed by the sentence type.
+        int addressStart = this.fieldStarts[0];
+        int addressLength = this.fieldEnds[0] - addressStart;
+        if (addressLength != 5)
+            return false;
+
+        byte t0 = line[addressStart + 2];
+        byte t1 = line[addressStart + 3];
+        byte t2 = line[addressStart + 4];
+
+        if (t0 == 'G' && t1 == 'G' && t2 == 'A')
+            return this.parseGGA(line);
+        else if (t0 == 'R' && t1 == 'M' && t2 == 'C')
+            return this.parseRMC(line);
+
+        return true; // ignore other sentences
+    }
+
+    protected boolean parseGGA(byte[] line)
+    {
+        if (this.numFields < 10)
+            return false;
+
+        // A fix quality of zero indicates that the fix is not valid.
+        if (this.parseNumber(line, 6) == 0)
+            return true;
+
+        double latitude = this.parseNmeaAngle(line, 2, 3, 'S');
+        double longitude = this.parseNmeaAngle(line, 4, 5, 'W');
+        if (Double.isNaN(latitude) || Double.isNaN(longitude))
+            return false;
+
+        double elevation = this.parseNumber(line, 9);
+        if (this.numFields > 11 && !Double.isNaN(elevation))
+        {
+            double geoidHeight = this.parseNumber(line, 11);
+            if (!Double.isNaN(geoidHeight))
+                elevation += geoidHeight;
+        }
+
+        long time = this.computeTime(this.parseNmeaTimeOfDay(line, 1), this.nmeaDate);
+
+        this.report(this.name, latitude, longitude, elevation, time, Double.NaN, Double.NaN);
+        return true;
+    }
+
+    protected boolean parseRMC(byte[] line)
+    {
+        if (this.numFields < 10)
+            return false;
+
+        long timeOfDay = this.parseNmeaTimeOfDay(line, 1);
+
+        double date = this.parseNumber(line, 9);
+        if (!Double.isNaN(date))
+        {
+            int ddmmyy = (int) date;
+            int year = ddmmyy % 100;
+            this.nmeaDate = TrackStore.daysSinceEpoch(year < 80 ? 2000 + year : 1900 + year, (ddmmyy / 100) % 100,
+                ddmmyy / 10000) * MILLIS_PER_DAY;
+        }
+
+        // A status of 'V' indicates that the fix is not valid.
+        if (this.fieldEnds[2] > this.fieldStarts[2] && line[this.fieldStarts[2]] != 'A')
+            return true;
+
+        double latitude = this.parseNmeaAngle(line, 3, 4, 'S');
+        double longitude = this.parseNmeaAngle(line, 5, 6, 'W');
+        if (Double.isNaN(latitude) || Double.isNaN(longitude))
+            return false;
+
+        double speed = this.parseNumber(line, 7) * KNOTS_TO_METERS_PER_SECOND;
+        double course = this.parseNumber(line, 8);
+
+        this.report(this.name, latitude, longitude, Double.NaN, this.computeTime(timeOfDay, this.nmeaDate), course,
+            speed);
+        return true;
+    }
+
+    /**
+     * Parses a line of comma separated values, and records its report.
+     *
+     * @param line   the line.
+     * @param length the line's length.
+     *
+     * @return false if the line is malformed, otherwise true.
+     */
+    protected boolean parseCsv(byte[] line, int length)
+    {
+        this.splitFields(line, 0, length);
+        if (this.numFields < 3)
+            return false;
+
+        double latitude = this.parseNumber(line, 1);
+        double longitude = this.parseNumber(line, 2);
+        if (Double.isNaN(latitude) || Double.isNaN(longitude))
+            return false;
+
+        double elevation = this.numFields > 3 ? this.parseNumber(line, 3) : Double.NaN;
+
+        long time = TrackStore.TIME_UNKNOWN;
+        if (this.numFields > 4 && this.fieldEnds[4] > this.fieldStarts[4])
+        {
+            double millis = this.parseNumber(line, 4);
+            if (!Double.isNaN(millis))
+                time = (long) millis;
+            else
+                time = TrackStore.parseTime(this.fieldString(line, 4));
+        }
+
+        this.report(this.parseId(line), latitude, longitude, elevation, time, Double.NaN, Double.NaN);
+        return true;
+    }
+
+    /** Returns the identifier in the first field, reusing the previous identifier's string when it's unchanged. */
+    protected String parseId(byte[] line)
+    {
+        int start = this.fieldStarts[0];
+        int end = this.fieldEnds[0];
+        while (start < end && line[start] == ' ')
+        {
+            start++;
+        }
+        while (end > start && line[end - 1] == ' ')
+        {
+            end--;
+        }
+
+        if (start == end)
+            return this.name;
+
+        String id = this.lastId;
+        if (id != null && id.length() == end - start)
+        {
+            boolean same = true;
+            for (int i = start; same && i < end; i++)
+            {
+                same = id.charAt(i - start) == (char) (line[i] & 0xff);
+            }
+
+            if (same)
+                return id;
+        }
+
+        this.lastId = new String(line, start, end - start, CHARSET);
+        return this.lastId;
+    }
+
+    protected void splitFields(byte[] line, int start, int end)
+    {
+        this.numFields = 0;
+        this.fieldStarts[0] = start;
+        for (int i = start; i < end && this.numFields < MAX_FIELDS - 1; i++)
+        {
+            if (line[i] == ',')
+            {
+                this.fieldEnds[this.numFields++] = i;
+                this.fieldStarts[this.numFields] = i + 1;
+            }
+        }
+        this.fieldEnds[this.numFields++] = end;
+    }
+
+    protected String fieldString(byte[] line, int field)
+    {
+        return new String(line, this.fieldStarts[field], this.fieldEnds[field] - this.fieldStarts[field], CHARSET);
+    }
+
+    /**
+     * Parses a decimal number in a field without creating intermediate objects. Numbers with up to fifteen
+     * significant digits are parsed exactly; other forms fall back to {@link Double#parseDouble(String)}.
+     *
+     * @param line  the line.
+     * @param field the field's index.
+     *
+     * @return the number, or NaN if the field is empty, missing or not a number.
+     */
+    protected double parseNumber(byte[] line, int field)
+    {
+        if (field >= this.numFields)
+            return Double.NaN;
+
+        int i = this.fieldStarts[field];
+        int end = this.fieldEnds[field];
+        while (i < end && line[i] == ' ')
+        {
+            i++;
+        }
+        while (end > i && line[end - 1] == ' ')
+        {
+            end--;
+        }
+
+        if (i == end)
+            return Double.NaN;
+
+        boolean negative = false;
+        if (line[i] == '-' || line[i] == '+')
+            negative = line[i++] == '-';
+
+        long mantissa = 0;
+        int numDigits = 0;
+        int scale = 0;
+        boolean fraction = false;
+        boolean anyDigits = false;
+        for (; i < end; i++)
+        {
+            byte b = line[i];
+            if (b >= '0' && b <= '9')
+            {
+                anyDigits = true;
+                if (mantissa == 0 && b == '0' && !fraction)
+                    continue; // leading zero
+
+                if (numDigits == 15)
+                    return this.parseNumberSlowly(line, field);
+
+                mantissa = 10 * mantissa + (b - '0');
+                if (mantissa != 0)
+                    numDigits++;
+                if (fraction)
+                    scale++;
+            }
+            else if (b == '.' && !fraction)
+            {
+                fraction = true;
+            }
+            else
+            {
+                return this.parseNumberSlowly(line, field);
+            }
+        }
+
+        if (!anyDigits)
+            return Double.NaN; // a sign or decimal point alone
+
+        if (scale >= POWERS_OF_TEN.length)
+            return this.parseNumberSlowly(line, field);
+
+        double value = mantissa / POWERS_OF_TEN[scale];
+        return negative ? -value : value;
+    }
+
+    protected double parseNumberSlowly(byte[] line, int field)
+    {
+        try
+        {
+            return Double.parseDouble(this.fieldString(line, field).trim());
+        }
+        catch (NumberFormatException e)
+        {
+            return Double.NaN;
+        }
+    }
+
+    /** Parses an NMEA angle of the form [d]ddmm.mmmm and its hemisphere field. */
+    protected double parseNmeaAngle(byte[] line, int angleField, int hemisphereField, char negativeHemisphere)
+    {
+        double value = this.parseNumber(line, angleField);
+        if (Double.isNaN(value))
+            return Double.NaN;
+
+        double degrees = Math.floor(value / 100);
+        double angle = degrees + (value - 100 * degrees) / 60;
+
+        if (hemisphereField < this.numFields && this.fieldEnds[hemisphereField] > this.fieldStarts[hemisphereField]
+            && line[this.fieldStarts[hemisphereField]] == negativeHemisphere)
+            angle = -angle;
+
+        return angle;
+    }
+
+    /** Parses an NMEA time of day of the form hhmmss.ss to milliseconds since midnight. */
+    protected long parseNmeaTimeOfDay(byte[] line, int field)
+    {
+        double value = this.parseNumber(line, field);
+        if (Double.isNaN(value))
+            return TrackStore.TIME_UNKNOWN;
+
+        int hhmm = (int) (value / 100);
+        double seconds = value - 100 * hhmm;
+
+        return (hhmm / 100 * 60 + hhmm % 100) * 60000L + Math.round(seconds * 1000);
+    }
+
+    /**
+     * Combines an NMEA time of day with a date. If the date is unknown, the current UTC date is used, adjusted by a day
+     * when the time of day and the current time are on opposite sides of midnight.
+     *
+     * @param timeOfDay the time of day, in milliseconds since midnight.
+     * @param date      midnight of the date, in milliseconds since January 1, 1970 UTC, or {@link
+     *                  TrackStore#TIME_UNKNOWN}.
+     *
+     * @return the time, in milliseconds since January 1, 1970 UTC, or {@link TrackStore#TIME_UNKNOWN} if the time of
+     *         day is unknown.
+     */
+    protected long computeTime(long timeOfDay, long date)
+    {
+        if (timeOfDay == TrackStore.TIME_UNKNOWN)
+            return TrackStore.TIME_UNKNOWN;
+
+        if (date != TrackStore.TIME_UNKNOWN)
+            return date + timeOfDay;
+
+        long now = System.currentTimeMillis();
+        long time = now - now % MILLIS_PER_DAY + timeOfDay;
+        if (time > now + MILLIS_PER_DAY / 2)
+            time -= MILLIS_PER_DAY;
+        else if (time < now - MILLIS_PER_DAY / 2)
+            time += MILLIS_PER_DAY;
+
+        return time;
+    }
+}
@@ -0,0 +1,808 @@
+/*
+Copyright (C) 2001, 2010 United States Government
+as represented by the Administrator of the
+National Aeronautics and Space Administration.
+All Rights Reserved.
+*/
+package gov.nasa.worldwind.tracks;
+
+import gov.nasa.worldwind.exception.WWRuntimeException;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.util.Logging;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.regex.*;
+
+/**
+ * An append-only store of track points that keeps latitude, longitude, elevation and time in primitive columns rather
+ * than in one object per point. Points are stored in fixed size chunks, each holding one column per attribute. Chunks
+ * live on the heap, or in a memory mapped file when the store is created with a backing file, in which case the
+ * operating system pages points in and out as they're used.
+ * <p/>
+ * Points are appended to the current segment of the current track, see {@link #beginTrack(String)} and {@link
+ * #beginSegment()}. The NMEA, CSV and GPX readers append to a store as they parse when one is attached to them, so
+ * large data sets can be ingested without creating per point objects. The store maintains a coarse index of the
+ * bounding sector and time span of each block of consecutive points, which {@link #selectPoints(Sector, long, long)}
+ * uses to skip blocks that cannot match a query.
+ * <p/>
+ * The store exposes its contents through the {@link Track}, {@link TrackSegment} and {@link TrackPoint} interfaces by
+ * way of views, see {@link #getTracks()}. The views read and write through to the columns, and create point objects
+ * only as they're requested.
+ * <p/>
+ * Points are appended by one thread at a time. Any number of threads may read points and run queries while points are
+ * appended; readers see every point appended before they read {@link #getNumPoints()}.
+ *
+ * @version $Id$
+ */
+public class TrackStore
+{
+    /** The time of points whose time is not known. */
+    public static final long TIME_UNKNOWN = Long.MIN_VALUE;
+
+    protected static final int CHUNK_SHIFT = 16;
+    protected static final int CHUNK_SIZE = 1 << CHUNK_SHIFT; // points per chunk
+    protected static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    protected static final int BLOCK_SHIFT = 8;
+    protected static final int BLOCK_SIZE = 1 << BLOCK_SHIFT; // points per index block
+    protected static final int BLOCK_MASK = BLOCK_SIZE - 1;
+
+    // Chunk columns, in order. Each column holds CHUNK_SIZE 8-byte values.
+    protected static final int LATITUDE = 0;
+    protected static final int LONGITUDE = 1;
+    protected static final int ELEVATION = 2;
+    protected static final int TIME = 3;
+    protected static final int NUM_COLUMNS = 4;
+    protected static final int COLUMN_BYTES = CHUNK_SIZE * 8;
+    protected static final int CHUNK_BYTES = NUM_COLUMNS * COLUMN_BYTES;
+
+    protected static final Pattern ISO_TIME_PATTERN = Pattern.compile(
+        "(\\d{4})-(\\d{2})-(\\d{2})[T ](\\d{2}):(\\d{2}):(\\d{2})(\\.\\d+)?(Z|([+-])(\\d{2}):?(\\d{2}))?");
+
+    protected final File file;
+    protected final RandomAccessFile raf;
+
+    // Published after the points they describe are written; readers read numPoints first.
+    protected volatile ByteBuffer[] chunks = new ByteBuffer[0];
+    protected volatile double[] blockSectors = new double[0]; // minLat, maxLat, minLon, maxLon per block
+    protected volatile long[] blockTimes = new long[0]; // minTime, maxTime per block
+    protected volatile int numPoints;
+
+    // Track and segment structure. Guarded by this store's lock.
+    protected int[] segmentStarts = new int[16];
+    protected int[] segmentTracks = new int[16];
+    protected int numSegments;
+    protected int[] trackFirstSegments = new int[16];
+    protected String[] trackNames = new String[16];
+    protected int numTracks;
+
+    /** Creates a store that keeps its points on the heap. */
+    public TrackStore()
+    {
+        this.file = null;
+        this.raf = null;
+    }
+
+    /**
+     * Creates a store that keeps its points in a memory mapped file. The file's existing contents are discarded. The
+     * file holds only the point columns; the track structure is kept in memory.
+     *
+     * @param file the backing file.
+     *
+     * @throws IllegalArgumentException if the file is null.
+     * @throws IOException              if the file cannot be opened for writing.
+     */
+    public TrackStore(File file) throws IOException
+    {
+        if (file == null)
+        {
+            String message = Logging.getMessage("nullValue.FileIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.file = file;
+        this.raf = new RandomAccessFile(file, "rw");
+        this.raf.setLength(0);
+    }
+
+    /**
+     * Returns the file backing this store.
+     *
+     * @return the backing file, or null if the store keeps its points on the heap.
+     */
+    public File getFile()
+    {
+        return this.file;
+    }
+
+    /**
+     * Closes the file backing this store, if any. Mapped points remain readable until the store is garbage collected,
+     * but no more points may be appended.
+     */
+    public synchronized void close()
+    {
+        if (this.raf == null)
+            return;
+
+        try
+        {
+            this.raf.close();
+        }
+        catch (IOException e)
+        {
+            String message = Logging.getMessage("generic.ExceptionClosingStream", this.file);
+            Logging.logger().log(java.util.logging.Level.WARNING, message, e);
+        }
+    }
+
+    /**
+     * Starts a new track. Subsequent points are appended to the track's first segment.
+     *
+     * @param name the track's name. May be null.
+     */
+    public synchronized void beginTrack(String name)
+    {
+        if (this.numTracks == this.trackFirstSegments.length)
+        {
+            this.trackFirstSegments = Arrays.copyOf(this.trackFirstSegments, 2 * this.numTracks);
+            this.trackNames = Arrays.copyOf(this.trackNames, 2 * this.numTracks);
+        }
+
+        this.trackFirstSegments[this.numTracks] = this.numSegments;
+        this.trackNames[this.numTracks] = name;
+        this.numTracks++;
+    }
+
+    /** Starts a new segment in the current track. A track is started if there is none. */
+    public synchronized void beginSegment()
+    {
+        if (this.numTracks == 0)
+            this.beginTrack(null);
+
+        if (this.numSegments == this.segmentStarts.length)
+        {
+            this.segmentStarts = Arrays.copyOf(this.segmentStarts, 2 * this.numSegments);
+            this.segmentTracks = Arrays.copyOf(this.segmentTracks, 2 * this.numSegments);
+        }
+
+        this.segmentStarts[this.numSegments] = this.numPoints;
+        this.segmentTracks[this.numSegments] = this.numTracks - 1;
+        this.numSegments++;
+    }
+
+    /**
+     * Appends a point to the current segment of the current track. A track and segment are started if there are
+     * none.
+     *
+     * @param latitude  the point's latitude, in degrees.
+     * @param longitude the point's longitude, in degrees.
+     * @param elevation the point's elevation, in meters.
+     * @param time      the point's time, in milliseconds since January 1, 1970 UTC, or {@link #TIME_UNKNOWN}.
+     *
+     * @throws WWRuntimeException if the store's backing file cannot be extended.
+     */
+    public synchronized void append(double latitude, double longitude, double elevation, long time)
+    {
+        if (this.numSegments == 0 || this.segmentTracks[this.numSegments - 1] != this.numTracks - 1)
+            this.beginSegment();
+
+        int index = this.numPoints;
+        int chunkIndex = index >> CHUNK_SHIFT;
+        if (chunkIndex == this.chunks.length)
+            this.addChunk();
+
+        ByteBuffer chunk = this.chunks[chunkIndex];
+        int offset = (index & CHUNK_MASK) << 3;
+        chunk.putDouble(LATITUDE * COLUMN_BYTES + offset, latitude);
+        chunk.putDouble(LONGITUDE * COLUMN_BYTES + offset, longitude);
+        chunk.putDouble(ELEVATION * COLUMN_BYTES + offset, elevation);
+        chunk.putLong(TIME * COLUMN_BYTES + offset, time);
+
+        this.addToIndex(index, latitude, longitude, time);
+
+        this.numPoints = index + 1;
+    }
+
+    /**
+     * Returns the number of points in this store.
+     *
+     * @return the number of points.
+     */
+    public int getNumPoints()
+    {
+        return this.numPoints;
+    }
+
+    public double getLatitude(int index)
+    {
+        return this.getChunk(index).getDouble(LATITUDE * COLUMN_BYTES + ((index & CHUNK_MASK) << 3));
+    }
+
+    public double getLongitude(int index)
+    {
+        return this.getChunk(index).getDouble(LONGITUDE * COLUMN_BYTES + ((index & CHUNK_MASK) << 3));
+    }
+
+    public double getElevation(int index)
+    {
+        return this.getChunk(index).getDouble(ELEVATION * COLUMN_BYTES + ((index & CHUNK_MASK) << 3));
+    }
+
+    /**
+     * Returns the time of a point.
+     *
+     * @param index the point's index.
+     *
+     * @return the point's time, in milliseconds since January 1, 1970 UTC, or {@link #TIME_UNKNOWN}.
+     *
+     * @throws IllegalArgumentException if the index is out of range.
+     */
+    public long getTime(int index)
+    {
+        return this.getChunk(index).getLong(TIME * COLUMN_BYTES + ((index & CHUNK_MASK) << 3));
+    }
+
+    public Position getPosition(int index)
+    {
+        return Position.fromDegrees(this.getLatitude(index), this.getLongitude(index), this.getElevation(index));
+    }
+
+    /**
+     * Replaces the location and elevation of a point. The point's index entry is widened to include the new location.
+     *
+     * @param index     the point's index.
+     * @param latitude  the point's new latitude, in degrees.
+     * @param longitude the point's new longitude, in degrees.
+     * @param elevation the point's new elevation, in meters.
+     *
+     * @throws IllegalArgumentException if the index is out of range.
+     */
+    public synchronized void setPosition(int index, double latitude, double longitude, double elevation)
+    {
+        ByteBuffer chunk = this.getChunk(index);
+        int offset = (index & CHUNK_MASK) << 3;
+        chunk.putDouble(LATITUDE * COLUMN_BYTES + offset, latitude);
+        chunk.putDouble(LONGITUDE * COLUMN_BYTES + offset, longitude);
+        chunk.putDouble(ELEVATION * COLUMN_BYTES + offset, elevation);
+
+        this.addToIndex(index, latitude, longitude, this.getTime(index));
+    }
+
+    /**
+     * Replaces the time of a point. The point's index entry is widened to include the new time.
+     *
+     * @param index the point's index.
+     * @param time  the point's new time, in milliseconds since January 1, 1970 UTC, or {@link #TIME_UNKNOWN}.
+     *
+     * @throws IllegalArgumentException if the index is out of range.
+     */
+    public synchronized void setTime(int index, long time)
+    {
+        this.getChunk(index).putLong(TIME * COLUMN_BYTES + ((index & CHUNK_MASK) << 3), time);
+        this.addToIndex(index, this.getLatitude(index), this.getLongitude(index), time);
+    }
+
+    public synchronized int getNumTracks()
+    {
+        return this.numTracks;
+    }
+
+    public synchronized String getTrackName(int trackIndex)
+    {
+        this.checkTrackIndex(trackIndex);
+        return this.trackNames[trackIndex];
+    }
+
+    public synchronized void setTrackName(int trackIndex, String name)
+    {
+        this.checkTrackIndex(trackIndex);
+        this.trackNames[trackIndex] = name;
+    }
+
+    public synchronized int getNumSegments()
+    {
+        return this.numSegments;
+    }
+
+    /**
+     * Returns the index of the track containing a point.
+     *
+     * @param index the point's index.
+     *
+     * @return the index of the point's track.
+     *
+     * @throws IllegalArgumentException if the index is out of range.
+     */
+    public synchronized int getTrackIndex(int index)
+    {
+        return this.segmentTracks[this.getSegmentIndex(index)];
+    }
+
+    /**
+     * Returns the index of the segment containing a point.
+     *
+     * @param index the point's index.
+     *
+     * @return the index of the point's segment.
+     *
+     * @throws IllegalArgumentException if the index is out of range.
+     */
+    public synchronized int getSegmentIndex(int index)
+    {
+        this.checkPointIndex(index);
+
+        // Empty segments share their start with the following segment, so find the last segment starting at or
+        // before the point.
+        int low = 0;
+        int high = this.numSegments - 1;
+        while (low < high)
+        {
+            int mid = (low + high + 1) >>> 1;
+            if (this.segmentStarts[mid] <= index)
+                low = mid;
+            else
+                high = mid - 1;
+        }
+
+        return low;
+    }
+
+    /**
+     * Returns views of this store's tracks. The list grows as tracks are added to the store.
+     *
+     * @return a list of this store's tracks.
+     */
+    public List<Track> getTracks()
+    {
+        return new AbstractList<Track>()
+        {
+            public Track get(int trackIndex)
+            {
+                TrackStore.this.checkTrackIndex(trackIndex);
+                return new TrackView(trackIndex);
+            }
+
+            public int size()
+            {
+                return TrackStore.this.getNumTracks();
+            }
+        };
+    }
+
+    /**
+     * Returns an iterator over the positions of all points in this store, in the order they were appended.
+     *
+     * @return an iterator over this store's positions.
+     */
+    public Iterator<Position> getTrackPositionIterator()
+    {
+        return new Iterator<Position>()
+        {
+            private int index = 0;
+
+            public boolean hasNext()
+            {
+                return this.index < TrackStore.this.getNumPoints();
+            }
+
+            public Position next()
+            {
+                if (!this.hasNext())
+                {
+                    String msg = Logging.getMessage("TrackPointIterator.NoMoreTrackPoints");
+                    Logging.logger().severe(msg);
+                    throw new NoSuchElementException(msg);
+                }
+
+                return TrackStore.this.getPosition(this.index++);
+            }
+
+            public void remove()
+            {
+                String msg = Logging.getMessage("TrackPointIterator.RemoveNotSupported");
+                Logging.logger().severe(msg);
+                throw new UnsupportedOperationException(msg);
+            }
+        };
+    }
+
+    /**
+     * Returns the indices of the points that lie within a sector and a time window. Blocks of points whose bounding
+     * sector or time span don't intersect the query are skipped without reading their points. Points whose time is
+     * {@link #TIME_UNKNOWN} match only queries whose start time is <code>TIME_UNKNOWN</code>.
+     *
+     * @param sector    the sector to search. May be null, in which case points are selected by time only.
+     * @param startTime the start of the time window, inclusive, in milliseconds since January 1, 1970 UTC. Specify
+     *                  {@link #TIME_UNKNOWN} or <code>Long.MIN_VALUE</code> for an unbounded start.
+     * @param endTime   the end of the time window, inclusive. Specify <code>Long.MAX_VALUE</code> for an unbounded
+     *                  end.
+     *
+     * @return the indices of the matching points, in increasing order.
+     */
+    public int[] selectPoints(Sector sector, long startTime, long endTime)
+    {
+        // Read the point count before the index, so the index describes at least as many points.
+        int n = this.numPoints;
+        double[] sectors = this.blockSectors;
+        long[] times = this.blockTimes;
+        int numCompleteBlocks = n >> BLOCK_SHIFT;
+
+        double minLat = sector != null ? sector.getMinLatitude().degrees : -Double.MAX_VALUE;
+        double maxLat = sector != null ? sector.getMaxLatitude().degrees : Double.MAX_VALUE;
+        double minLon = sector != null ? sector.getMinLongitude().degrees : -Double.MAX_VALUE;
+        double maxLon = sector != null ? sector.getMaxLongitude().degrees : Double.MAX_VALUE;
+
+        int[] result = new int[64];
+        int numResults = 0;
+
+        for (int block = 0; block << BLOCK_SHIFT < n; block++)
+        {
+            // The last block may still be growing, so its index entry is not used.
+            if (block < numCompleteBlocks)
+            {
+                int b = 4 * block;
+                if (sectors[b] > maxLat || sectors[b + 1] < minLat || sectors[b + 2] > maxLon
+                    || sectors[b + 3] < minLon)
+                    continue;
+                if (times[2 * block] > endTime || times[2 * block + 1] < startTime)
+                    continue;
+            }
+
+            int end = Math.min(n, (block + 1) << BLOCK_SHIFT);
+            for (int i = block << BLOCK_SHIFT; i < end; i++)
+            {
+                ByteBuffer chunk = this.chunks[i >> CHUNK_SHIFT];
+                int offset = (i & CHUNK_MASK) << 3;
+
+                long time = chunk.getLong(TIME * COLUMN_BYTES + offset);
+                if (time < startTime || time > endTime)
+                    continue;
+
+                double lat = chunk.getDouble(LATITUDE * COLUMN_BYTES + offset);
+                double lon = chunk.getDouble(LONGITUDE * COLUMN_BYTES + offset);
+                if (lat < minLat || lat > maxLat || lon < minLon || lon > maxLon)
+                    continue;
+
+                if (numResults == result.length)
+                    result = Arrays.copyOf(result, 2 * numResults);
+                result[numResults++] = i;
+            }
+        }
+
+        return Arrays.copyOf(result, numResults);
+    }
+
+    /**
+     * Converts an ISO 8601 time, such as those in GPX files, to milliseconds since January 1, 1970 UTC. Times without
+     * a time zone are interpreted as UTC.
+     *
+     * @param time the time string, for example "2009-05-27T00:53:36Z" or "2009-05-27T02:53:36.250+02:00".
+     *
+     * @return the time in milliseconds, or {@link #TIME_UNKNOWN} if the string is null or not an ISO 8601 time.
+     */
+    public static long parseTime(String time)
+    {
+        if (time == null)
+            return TIME_UNKNOWN;
+
+        Matcher m = ISO_TIME_PATTERN.matcher(time.trim());
+        if (!m.matches())
+            return TIME_UNKNOWN;
+
+        long days = daysSinceEpoch(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)),
+            Integer.parseInt(m.group(3)));
+        long seconds = days * 86400L + Integer.parseInt(m.group(4)) * 3600L + Integer.parseInt(m.group(5)) * 60L
+            + Integer.parseInt(m.group(6));
+        long millis = seconds * 1000L;
+
+        if (m.group(7) != null)
+            millis += Math.round(Double.parseDouble(m.group(7)) * 1000d);
+
+        if (m.group(9) != null)
+        {
+            long zoneOffset = (Integer.parseInt(m.group(10)) * 60L + Integer.parseInt(m.group(11))) * 60000L;
+            millis += "+".equals(m.group(9)) ? -zoneOffset : zoneOffset;
+        }
+
+        return millis;
+    }
+
+    /**
+     * Formats a time as an ISO 8601 UTC time.
+     *
+     * @param time the time, in milliseconds since January 1, 1970 UTC.
+     *
+     * @return the formatted time, or null if the time is {@link #TIME_UNKNOWN}.
+     */
+    public static String formatTime(long time)
+    {
+        if (time == TIME_UNKNOWN)
+            return null;
+
+        String pattern = (time % 1000 == 0) ? "yyyy-MM-dd'T'HH:mm:ss'Z'" : "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'";
+        java.text.SimpleDateFormat format = new java.text.SimpleDateFormat(pattern);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+
+        return format.format(new Date(time));
+    }
+
+    /**
+     * Computes the number of days from January 1, 1970 to a date in the proleptic Gregorian calendar.
+     *
+     * @param year  the year, such as 2009.
+     * @param month the month, from 1 for January to 12 for December.
+     * @param day   the day of the month, starting at 1.
+     *
+     * @return the number of days since January 1, 1970, negative for earlier dates.
+     */
+    public static long daysSinceEpoch(int year, int month, int day)
+    {
+        year -= month <= 2 ? 1 : 0;
+        long era = (year >= 0 ? year : year - 399) / 400;
+        long yearOfEra = year - era * 400;
+        long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    protected ByteBuffer getChunk(int index)
+    {
+        this.checkPointIndex(index);
+        return this.chunks[index >> CHUNK_SHIFT];
+    }
+
+    protected void checkPointIndex(int index)
+    {
+        if (index < 0 || index >= this.numPoints)
+        {
+            String message = Logging.getMessage("generic.indexOutOfRange", index);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    protected synchronized void checkTrackIndex(int trackIndex)
+    {
+        if (trackIndex < 0 || trackIndex >= this.numTracks)
+        {
+            String message = Logging.getMessage("generic.indexOutOfRange", trackIndex);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    protected void addChunk()
+    {
+        ByteBuffer chunk;
+        if (this.raf != null)
+        {
+            try
+            {
+                long position = (long) this.chunks.length * CHUNK_BYTES;
+                chunk = this.raf.getChannel().map(FileChannel.MapMode.READ_WRITE, position, CHUNK_BYTES);
+            }
+            catch (IOException e)
+            {
+                String message = Logging.getMessage("generic.ExceptionAttemptingToWriteTo", this.file);
+                Logging.logger().log(java.util.logging.Level.SEVERE, message, e);
+                throw new WWRuntimeException(message, e);
+            }
+        }
+        else
+        {
+            chunk = ByteBuffer.allocate(CHUNK_BYTES);
+        }
+
+        ByteBuffer[] newChunks = Arrays.copyOf(this.chunks, this.chunks.length + 1);
+        newChunks[newChunks.length - 1] = chunk.order(ByteOrder.nativeOrder());
+        this.chunks = newChunks;
+    }
+
+    protected void addToIndex(int index, double latitude, double longitude, long time)
+    {
+        int block = index >> BLOCK_SHIFT;
+        if (4 * block >= this.blockSectors.length)
+        {
+            // Copy the index before publishing it, so readers never see a partially copied index.
+            int numBlocks = Math.max(16, 2 * block);
+            this.blockSectors = Arrays.copyOf(this.blockSectors, 4 * numBlocks);
+            this.blockTimes = Arrays.copyOf(this.blockTimes, 2 * numBlocks);
+        }
+
+        double[] sectors = this.blockSectors;
+        long[] times = this.blockTimes;
+        int b = 4 * block;
+
+        if ((index & BLOCK_MASK) == 0 && index == this.numPoints)
+        {
+            sectors[b] = sectors[b + 1] = latitude;
+            sectors[b + 2] = sectors[b + 3] = longitude;
+            times[2 * block] = times[2 * block + 1] = time;
+        }
+        else
+        {
+            sectors[b] = Math.min(sectors[b], latitude);
+            sectors[b + 1] = Math.max(sectors[b + 1], latitude);
+            sectors[b + 2] = Math.min(sectors[b + 2], longitude);
+            sectors[b + 3] = Math.max(sectors[b + 3], longitude);
+            times[2 * block] = Math.min(times[2 * block], time);
+            times[2 * block + 1] = Math.max(times[2 * block + 1], time);
+        }
+    }
+
+    protected synchronized int getSegmentStart(int segmentIndex)
+    {
+        return this.segmentStarts[segmentIndex];
+    }
+
+    protected synchronized int getSegmentEnd(int segmentIndex)
+    {
+        return segmentIndex + 1 < this.numSegments ? this.segmentStarts[segmentIndex + 1] : this.numPoints;
+    }
+
+    protected synchronized int getTrackFirstSegment(int trackIndex)
+    {
+        return this.trackFirstSegments[trackIndex];
+    }
+
+    protected synchronized int getTrackEndSegment(int trackIndex)
+    {
+        return trackIndex + 1 < this.numTracks ? this.trackFirstSegments[trackIndex + 1] : this.numSegments;
+    }
+
+    /** A view of one of the store's tracks. */
+    protected class TrackView implements Track
+    {
+        protected final int trackIndex;
+
+        public TrackView(int trackIndex)
+        {
+            this.trackIndex = trackIndex;
+        }
+
+        public List<TrackSegment> getSegments()
+        {
+            return new AbstractList<TrackSegment>()
+            {
+                public TrackSegment get(int index)
+                {
+                    if (index < 0 || index >= this.size())
+                    {
+                        String message = Logging.getMessage("generic.indexOutOfRange", index);
+                        Logging.logger().severe(message);
+                        throw new IndexOutOfBoundsException(message);
+                    }
+
+                    return new SegmentView(getTrackFirstSegment(trackIndex) + index);
+                }
+
+                public int size()
+                {
+                    return getTrackEndSegment(trackIndex) - getTrackFirstSegment(trackIndex);
+                }
+            };
+        }
+
+        public String getName()
+        {
+            return getTrackName(this.trackIndex);
+        }
+
+        public int getNumPoints()
+        {
+            int firstSegment = getTrackFirstSegment(this.trackIndex);
+            int endSegment = getTrackEndSegment(this.trackIndex);
+            if (firstSegment == endSegment)
+                return 0;
+
+            return getSegmentEnd(endSegment - 1) - getSegmentStart(firstSegment);
+        }
+    }
+
+    /** A view of one of the store's segments. */
+    protected class SegmentView implements TrackSegment
+    {
+        protected final int segmentIndex;
+
+        public SegmentView(int segmentIndex)
+        {
+            this.segmentIndex = segmentIndex;
+        }
+
+        public List<TrackPoint> getPoints()
+        {
+            return new AbstractList<TrackPoint>()
+            {
+                public TrackPoint get(int index)
+                {
+                    if (index < 0 || index >= this.size())
+                    {
+                        String message = Logging.getMessage("generic.indexOutOfRange", index);
+                        Logging.logger().severe(message);
+                        throw new IndexOutOfBoundsException(message);
+                    }
+
+                    return new PointView(getSegmentStart(segmentIndex) + index);
+                }
+
+                public int size()
+                {
+                    return getSegmentEnd(segmentIndex) - getSegmentStart(segmentIndex);
+                }
+            };
+        }
+    }
+
+    /** A view of one of the store's points. Setting the point's attributes writes them to the store. */
+    protected class PointView implements TrackPoint
+    {
+        protected final int index;
+
+        public PointView(int index)
+        {
+            this.index = index;
+        }
+
+        public double getLatitude()
+        {
+            return TrackStore.this.getLatitude(this.index);
+        }
+
+        public void setLatitude(double latitude)
+        {
+            TrackStore.this.setPosition(this.index, latitude, this.getLongitude(), this.getElevation());
+        }
+
+        public double getLongitude()
+        {
+            return TrackStore.this.getLongitude(this.index);
+        }
+
+        public void setLongitude(double longitude)
+        {
+            TrackStore.this.setPosition(this.index, this.getLatitude(), longitude, this.getElevation());
+        }
+
+        public double getElevation()
+        {
+            return TrackStore.this.getElevation(this.index);
+        }
+
+        public void setElevation(double elevation)
+        {
+            TrackStore.this.setPosition(this.index, this.getLatitude(), this.getLongitude(), elevation);
+        }
+
+        public String getTime()
+        {
+            return formatTime(TrackStore.this.getTime(this.index));
+        }
+
+        public void setTime(String time)
+        {
+            TrackStore.this.setTime(this.index, parseTime(time));
+        }
+
+        public Position getPosition()
+        {
+            return TrackStore.this.getPosition(this.index);
+        }
+
+        public void setPosition(Position position)
+        {
+            if (position == null)
+            {
+                String msg = Logging.getMessage("nullValue.PositionIsNull");
+                Logging.logger().severe(msg);
+                throw new IllegalArgumentException(msg);
+            }
+
+            TrackStore.this.setPosition(this.index, position.getLatitude().degrees, position.getLongitude().degrees,
+                position.getElevation());
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+Copyright (C) 2001, 2010 United States Government
+as represented by the Administrator of the
+National Aeronautics and Space Administration.
+All Rights Reserved.
+*/
+package gov.nasa.worldwind.util;
+
+import gov.nasa.worldwind.cache.*;
+import gov.nasa.worldwind.retrieve.*;
+
+import java.beans.PropertyChangeListener;
+import java.net.URL;
+
+/**
+ * A {@link SessionCacheRetrievalPostProcessor} for OGC Capabilities documents. In addition to placing a retrieved
+ * document in the session cache, this writes it to a file store with the validators the server returned, so that later
+ * sessions can use the stored copy without waiting on the network. See {@link
+ * SessionCacheUtils#getCachedCapabilities(java.net.URL, gov.nasa.worldwind.cache.SessionCache, Object)}.
+ * <p/>
+ * When the retrieval was conditional on the stored copy having changed and the server responds that it has not, the
+ * retrieval is considered successful and the session cache and file store are left unchanged.
+ *
+ * @version $Id$
+ */
+public class CapabilitiesRetrievalPostProcessor extends SessionCacheRetrievalPostProcessor
+{
+    private final URL url;
+    private final FileStore fileStore;
+
+    /**
+     * Constructs a CapabilitiesRetrievalPostProcessor with a specified cache, cache key and file store, and an optional
+     * property listener and property name.
+     *
+     * @param url                the URL of the Capabilities document.
+     * @param cache              cache that receives the retrieved data.
+     * @param cacheKey           cache key to place the retrieved data under.
+     * @param fileStore          file store that receives the retrieved data.
+     * @param absentResourceList the absent resource list to update.
+     * @param resourceID         the resource ID to use in the absent resource list.
+     * @param propertyListener   property listener to notify when the data is available. Can be null.
+     * @param propertyName       property name to use for the property event when the data is available. Can be null.
+     *
+     * @throws IllegalArgumentException if any of the url, cache, cache key or file store are null.
+     */
+    public CapabilitiesRetrievalPostProcessor(URL url, SessionCache cache, Object cacheKey, FileStore fileStore,
+        AbsentResourceList absentResourceList, long resourceID, PropertyChangeListener propertyListener,
+        String propertyName)
+    {
+        super(cache, cacheKey, absentResourceList, resourceID, propertyListener, propertyName);
+
+        if (url == null)
+        {
+            String message = Logging.getMessage("nullValue.URLIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (fileStore == null)
+        {
+            String message = Logging.getMessage("nullValue.FileStoreIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.url = url;
+        this.fileStore = fileStore;
+    }
+
+    /**
+     * Returns the URL of the Capabilities document.
+     *
+     * @return the document URL.
+     */
+    public final URL getURL()
+    {
+        return this.url;
+    }
+
+    /**
+     * Returns the file store that receives the retrieved data.
+     *
+     * @return the file store for the retrieved data.
+     */
+    public final FileStore getFileStore()
+    {
+        return this.fileStore;
+    }
+
+    @Override
+    protected void onRetrievalSuceeded(Retriever retriever)
+    {
+        if (isNotModified(retriever))
+        {
+            this.getAbsentResourceList().unmarkResourceAbsent(this.getResourceID());
+            return;
+        }
+
+        super.onRetrievalSuceeded(retriever);
+
+        long lastModified = 0;
+        String entityTag = null;
+        if (retriever instanceof HTTPRetriever)
+        {
+            lastModified = ((HTTPRetriever) retriever).getLastModified();
+            entityTag = ((HTTPRetriever) retriever).getEntityTag();
+        }
+
+        SessionCacheUtils.writeCapabilitiesFile(this.url, this.fileStore, retriever.getBuffer(), lastModified,
+            entityTag);
+    }
+
+    @Override
+    protected String validate(Retriever retriever)
+    {
+        if (isNotModified(retriever) && retriever.getState().equals(Retriever.RETRIEVER_STATE_SUCCESSFUL))
+            return null;
+
+        return super.validate(retriever);
+    }
+
+    protected static boolean isNotModified(Retriever retriever)
+    {
+        return retriever instanceof HTTPRetriever && ((HTTPRetriever) retriever).isNotModified();
+    }
+}
@@ -5,6 +5,7 @@ All Rights Reserved.
 */
 package gov.nasa.worldwind.util;
 
+import gov.nasa.worldwind.Configuration;
 import gov.nasa.worldwind.avlist.*;
 import gov.nasa.worldwind.cache.FileStore;
 import gov.nasa.worldwind.exception.WWRuntimeException;
@@ -405,6 +406,32 @@ public class DataConfigurationUtils
         return Executors.newSingleThreadScheduledExecutor(threadFactory);
     }
 
+    /**
+     * Indicates whether a World Wind component should defer its expensive initialization, such as reading data files
+     * or starting non-tile resource retrieval, until it is first used. The value of {@link
+     * AVKey#DEFERRED_INITIALIZATION} in the specified parameters is used if it is present, otherwise the value in
+     * {@link gov.nasa.worldwind.Configuration} is used. Deferral is disabled by default.
+     *
+     * @param params the component's configuration parameters, may be <code>null</code>.
+     *
+     * @return <code>true</code> if the component should defer its initialization, and <code>false</code> otherwise.
+     */
+    public static boolean isDeferredInitialization(AVList params)
+    {
+        Object o = params != null ? params.getValue(AVKey.DEFERRED_INITIALIZATION) : null;
+        if (o instanceof Boolean)
+            return (Boolean) o;
+
+        if (o != null)
+        {
+            Boolean b = WWUtil.convertStringToBoolean(o.toString());
+            if (b != null)
+                return b;
+        }
+
+        return Configuration.getBooleanValue(AVKey.DEFERRED_INITIALIZATION, false);
+    }
+
     //**************************************************************//
     //********************  WMS Common Configuration  **************//
     //**************************************************************//
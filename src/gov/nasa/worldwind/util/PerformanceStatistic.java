@@ -19,9 +19,13 @@ public class PerformanceStatistic implements Comparable<PerformanceStatistic>
     public static final String TERRAIN_TILE_COUNT = "gov.nasa.worldwind.perfstat.TerrainTileCount";
     public static final String MEMORY_CACHE = "gov.nasa.worldwind.perfstat.MemoryCache";
     public static final String PICK_TIME = "gov.nasa.worldwind.perfstat.PickTime";
+    public static final String RASTER_SERVER = "gov.nasa.worldwind.perfstat.RasterServer";
+    public static final String STARTUP_TIME = "gov.nasa.worldwind.perfstat.StartupTime";
     public static final String JVM_HEAP = "gov.nasa.worldwind.perfstat.JvmHeap";
     public static final String JVM_HEAP_USED = "gov.nasa.worldwind.perfstat.JvmHeapUsed";
     public static final String TEXTURE_CACHE = "gov.nasa.worldwind.perfstat.TextureCache";
+    public static final String TEXTURE_TRANSCODE = "gov.nasa.worldwind.perfstat.TextureTranscode";
+    public static final String TEXTURE_UPLOAD = "gov.nasa.worldwind.perfstat.TextureUpload";
 
     public static final Set<String> ALL_STATISTICS_SET = new HashSet<String>(1);
     static
@@ -0,0 +1,475 @@
+/*
+Copyright (C) 2001, 2010 United States Government
+as represented by the Administrator of the
+National Aeronautics and Space Administration.
+All Rights Reserved.
+*/
+
+package gov.nasa.worldwind.util;
+
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import gov.nasa.worldwind.render.DrawContext;
+
+import java.util.Arrays;
+
+/**
+ * A multi-resolution representation of a sequence of positions, such as a track or a path, that allows renderers to
+ * draw only the positions that are visually significant at the current view.
+ * <p/>
+ * Each position is assigned a Douglas-Peucker error: the distance, in meters, by which the line would deviate from the
+ * position if the position were removed when simplifying the line at that tolerance. {@link #select(double)} returns
+ * the positions whose error exceeds a tolerance, which is the Douglas-Peucker simplification of the line at that
+ * tolerance. {@link #computeTolerance(DrawContext, double)} converts a screen-space tolerance in pixels to meters for
+ * the current view.
+ * <p/>
+ * Errors are computed lazily and incrementally. Positions are grouped into blocks of 256, and each block is simplified
+ * independently of the others with its first and last positions fixed. The fixed positions of the blocks form the
+ * next coarser level, which is simplified the same way, until a level fits within a single block. Appending a
+ * position therefore recomputes only the last block of each level, rather than the whole line. Because the blocks at
+ * each level are simplified independently, the errors of block end positions are computed relative to the coarser
+ * level only, which is an approximation of a full Douglas-Peucker simplification.
+ * <p/>
+ * Distances are computed between points on a sphere the size of the WGS84 equatorial radius, so the errors are
+ * independent of the globe the line is eventually drawn on. The first and last positions always have an infinite
+ * error.
+ *
+ * @version $Id$
+ */
+public class PolylineSimplifier
+{
+    protected static final int BLOCK_SHIFT = 8;
+    protected static final int BLOCK_SIZE = 1 << BLOCK_SHIFT; // positions per block
+    protected static final int MAX_LEVELS = 4; // enough levels for Integer.MAX_VALUE positions
+
+    protected int size;
+    protected double[] points = new double[3 * 16]; // x, y, z per position
+    protected double[] errors = new double[16];
+    protected double[] blockErrors = new double[1]; // the maximum interior error of each level zero block
+    // The number of complete blocks at each level whose errors have been computed. Complete blocks never change.
+    protected int[] numCompleteBlocks = new int[MAX_LEVELS];
+    protected int numValidBlockErrors; // the number of leading blockErrors entries known to be current
+    protected boolean dirty;
+
+    // Scratch space for the Douglas-Peucker traversal of one block.
+    protected int[] stack = new int[2 * (BLOCK_SIZE + 2)];
+    protected double[] stackErrors = new double[BLOCK_SIZE + 2];
+
+    // The bounds of the positions, for computing the view dependent tolerance.
+    protected double minLatitude = Double.MAX_VALUE;
+    protected double maxLatitude = -Double.MAX_VALUE;
+    protected double minLongitude = Double.MAX_VALUE;
+    protected double maxLongitude = -Double.MAX_VALUE;
+    protected double minElevation = Double.MAX_VALUE;
+    protected double maxElevation = -Double.MAX_VALUE;
+    protected int boundsVersion;
+    protected Extent extent;
+    protected Globe extentGlobe;
+    protected double extentVerticalExaggeration;
+    protected int extentBoundsVersion = -1;
+
+    /** Creates an empty simplifier. */
+    public PolylineSimplifier()
+    {
+    }
+
+    /**
+     * Creates a simplifier for the specified positions.
+     *
+     * @param positions the positions.
+     *
+     * @throws IllegalArgumentException if the positions are null.
+     */
+    public PolylineSimplifier(Iterable<? extends Position> positions)
+    {
+        this.addAll(positions);
+    }
+
+    /**
+     * Returns the number of positions in the line.
+     *
+     * @return the number of positions.
+     */
+    public synchronized int size()
+    {
+        return this.size;
+    }
+
+    /** Removes all the positions. */
+    public synchronized void clear()
+    {
+        this.size = 0;
+        this.numValidBlockErrors = 0;
+        Arrays.fill(this.numCompleteBlocks, 0);
+        this.minLatitude = this.minLongitude = this.minElevation = Double.MAX_VALUE;
+        this.maxLatitude = this.maxLongitude = this.maxElevation = -Double.MAX_VALUE;
+        this.boundsVersion++;
+        this.dirty = false;
+    }
+
+    /**
+     * Appends a position to the end of the line.
+     *
+     * @param position the position to append.
+     *
+     * @throws IllegalArgumentException if the position is null.
+     */
+    public void add(Position position)
+    {
+        if (position == null)
+        {
+            String message = Logging.getMessage("nullValue.PositionIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.add(position.getLatitude().degrees, position.getLongitude().degrees, position.getElevation());
+    }
+
+    /**
+     * Appends positions to the end of the line.
+     *
+     * @param positions the positions to append.
+     *
+     * @throws IllegalArgumentException if the positions are null.
+     */
+    public void addAll(Iterable<? extends Position> positions)
+    {
+        if (positions == null)
+        {
+            String message = Logging.getMessage("nullValue.PositionsListIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        for (Position position : positions)
+        {
+            this.add(position);
+        }
+    }
+
+    /**
+     * Appends a position to the end of the line.
+     *
+     * @param latitude  the position's latitude, in degrees.
+     * @param longitude the position's longitude, in degrees.
+     * @param elevation the position's elevation, in meters.
+     */
+    public synchronized void add(double latitude, double longitude, double elevation)
+    {
+        if (this.size == this.errors.length)
+        {
+            this.errors = Arrays.copyOf(this.errors, 2 * this.size);
+            this.points = Arrays.copyOf(this.points, 6 * this.size);
+        }
+
+        double lat = Math.toRadians(latitude);
+        double lon = Math.toRadians(longitude);
+        double r = Earth.WGS84_EQUATORIAL_RADIUS + elevation;
+        double cosLat = Math.cos(lat);
+        int i = 3 * this.size;
+        this.points[i] = r * cosLat * Math.sin(lon);
+        this.points[i + 1] = r * Math.sin(lat);
+        this.points[i + 2] = r * cosLat * Math.cos(lon);
+        this.errors[this.size] = Double.POSITIVE_INFINITY;
+        this.size++;
+        this.dirty = true;
+
+        if (latitude < this.minLatitude || latitude > this.maxLatitude || longitude < this.minLongitude
+            || longitude > this.maxLongitude || elevation < this.minElevation || elevation > this.maxElevation)
+        {
+            this.minLatitude = Math.min(this.minLatitude, latitude);
+            this.maxLatitude = Math.max(this.maxLatitude, latitude);
+            this.minLongitude = Math.min(this.minLongitude, longitude);
+            this.maxLongitude = Math.max(this.maxLongitude, longitude);
+            this.minElevation = Math.min(this.minElevation, elevation);
+            this.maxElevation = Math.max(this.maxElevation, elevation);
+            this.boundsVersion++;
+        }
+    }
+
+    /**
+     * Returns the Douglas-Peucker error of a position.
+     *
+     * @param index the position's index.
+     *
+     * @return the position's error, in meters. The error of the first and last positions is infinite.
+     *
+     * @throws IllegalArgumentException if the index is out of range.
+     */
+    public synchronized double getError(int index)
+    {
+        if (index < 0 || index >= this.size)
+        {
+            String message = Logging.getMessage("generic.indexOutOfRange", index);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.update();
+
+        return this.errors[index];
+    }
+
+    /**
+     * Returns the sector bounding the line's positions.
+     *
+     * @return the line's bounding sector, or null if the line has no positions.
+     */
+    public synchronized Sector getSector()
+    {
+        if (this.size == 0)
+            return null;
+
+        return Sector.fromDegrees(this.minLatitude, this.maxLatitude, this.minLongitude, this.maxLongitude);
+    }
+
+    /**
+     * Returns the indices of the positions that must be kept to simplify the line to a specified tolerance. The first
+     * and last positions are always selected.
+     *
+     * @param tolerance the maximum distance, in meters, by which the simplified line may deviate from the positions it
+     *                  omits.
+     *
+     * @return the indices of the selected positions, in increasing order.
+     */
+    public synchronized int[] select(double tolerance)
+    {
+        this.update();
+
+        int[] result = new int[Math.min(this.size, 64)];
+        int numResults = 0;
+
+        for (int block = 0, start = 0; start < this.size; block++, start += BLOCK_SIZE)
+        {
+            int end = Math.min(start + BLOCK_SIZE, this.size);
+            if (numResults + (end - start) > result.length)
+                result = Arrays.copyOf(result, Math.max(2 * result.length, numResults + (end - start)));
+
+            if (this.errors[start] > tolerance)
+                result[numResults++] = start;
+
+            if (this.blockErrors[block] <= tolerance)
+                continue;
+
+            for (int i = start + 1; i < end; i++)
+            {
+                if (this.errors[i] > tolerance)
+                    result[numResults++] = i;
+            }
+        }
+
+        return Arrays.copyOf(result, numResults);
+    }
+
+    /**
+     * Returns the indices of the positions that must be kept to draw the line within a screen-space tolerance in the
+     * current view. See {@link #computeTolerance(DrawContext, double)}.
+     *
+     * @param dc     the current draw context.
+     * @param pixels the maximum screen distance, in pixels, by which the drawn line may deviate from the positions it
+     *               omits.
+     *
+     * @return the indices of the selected positions, in increasing order.
+     *
+     * @throws IllegalArgumentException if the draw context is null.
+     */
+    public int[] select(DrawContext dc, double pixels)
+    {
+        return this.select(this.computeTolerance(dc, pixels));
+    }
+
+    /**
+     * Converts a screen-space tolerance to a distance for the current view. The distance is the size of the specified
+     * number of pixels at the part of the line's bounding box nearest the eye, so the line is never simplified more
+     * than the tolerance allows. The result is rounded down to a power of two, so that the selected positions change
+     * only when the view moves by a significant amount.
+     *
+     * @param dc     the current draw context.
+     * @param pixels the screen-space tolerance, in pixels.
+     *
+     * @return the tolerance, in meters.
+     *
+     * @throws IllegalArgumentException if the draw context is null.
+     */
+    public double computeTolerance(DrawContext dc, double pixels)
+    {
+        if (dc == null)
+        {
+            String message = Logging.getMessage("nullValue.DrawContextIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        Extent extent = this.getExtent(dc);
+        if (extent == null || pixels <= 0)
+            return 0;
+
+        double distance = dc.getView().getEyePoint().distanceTo3(extent.getCenter()) - extent.getRadius();
+        double tolerance = pixels * dc.getView().computePixelSizeAtDistance(Math.max(distance, 1));
+        if (!(tolerance > 0))
+            return 0;
+
+        return Math.pow(2, Math.floor(Math.log(tolerance) / Math.log(2)));
+    }
+
+    protected synchronized Extent getExtent(DrawContext dc)
+    {
+        if (this.size == 0)
+            return null;
+
+        if (this.extent == null || this.extentBoundsVersion != this.boundsVersion || this.extentGlobe != dc.getGlobe()
+            || this.extentVerticalExaggeration != dc.getVerticalExaggeration())
+        {
+            this.extent = Sector.computeBoundingBox(dc.getGlobe(), dc.getVerticalExaggeration(), this.getSector(),
+                this.minElevation, this.maxElevation);
+            this.extentGlobe = dc.getGlobe();
+            this.extentVerticalExaggeration = dc.getVerticalExaggeration();
+            this.extentBoundsVersion = this.boundsVersion;
+        }
+
+        return this.extent;
+    }
+
+    /** Computes the errors of the positions appended since the last update. */
+    protected void update()
+    {
+        if (!this.dirty || this.size == 0)
+            return;
+
+        int last = this.size - 1;
+        int firstChangedBlock = this.numCompleteBlocks[0];
+
+        long stride = 1;
+        for (int level = 0; ; level++)
+        {
+            long blockStride = stride << BLOCK_SHIFT;
+            int numBlocks = (int) (last / blockStride);
+
+            // The coarsest level fits within one block, and is simplified as a whole.
+            if (numBlocks == 0)
+            {
+                this.simplify(0, last, stride);
+                break;
+            }
+
+            for (int block = this.numCompleteBlocks[level]; block < numBlocks; block++)
+            {
+                this.simplify((int) (block * blockStride), (int) ((block + 1) * blockStride), stride);
+            }
+            this.numCompleteBlocks[level] = numBlocks;
+
+            this.simplify((int) (numBlocks * blockStride), last, stride);
+            stride = blockStride;
+        }
+
+        this.errors[0] = Double.POSITIVE_INFINITY;
+        this.errors[last] = Double.POSITIVE_INFINITY;
+
+        // Update the maximum interior error of the level zero blocks that changed.
+        int numBlocks = (last >> BLOCK_SHIFT) + 1;
+        if (this.blockErrors.length < numBlocks)
+            this.blockErrors = Arrays.copyOf(this.blockErrors, Math.max(numBlocks, 2 * this.blockErrors.length));
+
+        for (int block = Math.min(firstChangedBlock, this.numValidBlockErrors); block < numBlocks; block++)
+        {
+            int start = block << BLOCK_SHIFT;
+            int end = Math.min(start + BLOCK_SIZE, this.size);
+            double max = 0;
+            for (int i = start + 1; i < end; i++)
+            {
+                if (this.errors[i] > max)
+                    max = this.errors[i];
+            }
+            this.blockErrors[block] = max;
+        }
+        this.numValidBlockErrors = this.numCompleteBlocks[0];
+
+        this.dirty = false;
+    }
+
+    /**
+     * Computes the Douglas-Peucker errors of the interior positions of a sequence. The sequence consists of the
+     * positions <code>first</code>, <code>first + stride</code>, <code>first + 2 * stride</code>, and so on, followed by
+     * <code>last</code>. The errors of the first and last positions are not changed.
+     *
+     * @param first  the index of the sequence's first position.
+     * @param last   the index of the sequence's last position.
+     * @param stride the distance between consecutive positions of the sequence.
+     */
+    protected void simplify(int first, int last, long stride)
+    {
+        int m = (int) ((last - first + stride - 1) / stride); // the sequence index of the last position
+        if (m < 2)
+            return;
+
+        int top = 0;
+        this.stack[0] = 0;
+        this.stack[1] = m;
+        this.stackErrors[0] = Double.POSITIVE_INFINITY;
+        top++;
+
+        while (top > 0)
+        {
+            top--;
+            int lo = this.stack[2 * top];
+            int hi = this.stack[2 * top + 1];
+            double parentError = this.stackErrors[top];
+            if (hi - lo < 2)
+                continue;
+
+            int a = 3 * (lo == m ? last : first + (int) (lo * stride));
+            int b = 3 * (hi == m ? last : first + (int) (hi * stride));
+
+            int maxIndex = lo + 1;
+            double maxDistance = -1;
+            for (int i = lo + 1; i < hi; i++)
+            {
+                double d = this.distanceToSegment(3 * (first + (int) (i * stride)), a, b);
+                if (d > maxDistance)
+                {
+                    maxDistance = d;
+                    maxIndex = i;
+                }
+            }
+
+            // Limit the error to the parent's, so that selecting by error reproduces the Douglas-Peucker recursion.
+            double error = Math.min(maxDistance, parentError);
+            this.errors[first + (int) (maxIndex * stride)] = error;
+
+            this.stack[2 * top] = lo;
+            this.stack[2 * top + 1] = maxIndex;
+            this.stackErrors[top] = error;
+            top++;
+            this.stack[2 * top] = maxIndex;
+            this.stack[2 * top + 1] = hi;
+            this.stackErrors[top] = error;
+            top++;
+        }
+    }
+
+    /** Computes the distance from a point to a segment, given the offsets of the points in the point array. */
+    protected double distanceToSegment(int p, int a, int b)
+    {
+        double[] pts = this.points;
+        double abx = pts[b] - pts[a];
+        double aby = pts[b + 1] - pts[a + 1];
+        double abz = pts[b + 2] - pts[a + 2];
+        double apx = pts[p] - pts[a];
+        double apy = pts[p + 1] - pts[a + 1];
+        double apz = pts[p + 2] - pts[a + 2];
+
+        double lengthSquared = abx * abx + aby * aby + abz * abz;
+        double t = lengthSquared > 0 ? (apx * abx + apy * aby + apz * abz) / lengthSquared : 0;
+        if (t < 0)
+            t = 0;
+        else if (t > 1)
+            t = 1;
+
+        double dx = apx - t * abx;
+        double dy = apy - t * aby;
+        double dz = apz - t * abz;
+
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+}
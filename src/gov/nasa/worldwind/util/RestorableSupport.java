@@ -33,6 +33,12 @@ import java.util.*;
  * existing XML document string. Callers can then add state by name and value, and query state by name.
  * RestorableSupport provides convenience methods for addding and querying state values as Strings, Integers, Doubles,
  * and Booleans.
+ * <p/>
+ * In addition to the XML document string, the state document can be written to and read from a stream in any of the
+ * formats {@link #FORMAT_XML}, {@link #FORMAT_JSON} and {@link #FORMAT_BINARY}, selected per call. The JSON and binary
+ * formats are smaller and faster to read and write than XML, and are intended for large documents such as those
+ * holding many shapes or airspaces. Every format preserves the names, values and nesting of the state objects; values
+ * escaped as CDATA sections are restored from JSON and binary as ordinary text content.
  *
  * @author dcollins
  * @version $Id: RestorableSupport.java 12963 2009-12-24 09:54:34Z tgaskins $
@@ -231,6 +237,628 @@ public class RestorableSupport
         return getStateAsXml();
     }
 
+    /*************************************************************************************************************/
+    /** Streaming encodings of the state document. **/
+    /*************************************************************************************************************/
+
+    /** Identifies the XML encoding of a state document, as returned by {@link #getStateAsXml()}. */
+    public static final String FORMAT_XML = "gov.nasa.worldwind.util.RestorableSupport.FormatXML";
+    /**
+     * Identifies the JSON encoding of a state document. The document element is a JSON object with the fields
+     * <code>documentElement</code> and <code>stateObjects</code>. Each state object is a JSON object with the fields
+     * <code>name</code>, <code>value</code> and <code>stateObjects</code>, each present only when the state object has
+     * one, and a <code>tag</code> field when the state object's tag name is not "stateObject".
+     */
+    public static final String FORMAT_JSON = "gov.nasa.worldwind.util.RestorableSupport.FormatJSON";
+    /**
+     * Identifies the compact binary encoding of a state document. Tag names and state object names are written once
+     * and referred to by index thereafter, so documents holding many state objects of the same kind, such as a
+     * collection of shapes or airspaces, are considerably smaller and faster to read than their XML encoding.
+     */
+    public static final String FORMAT_BINARY = "gov.nasa.worldwind.util.RestorableSupport.FormatBinary";
+
+    private static final int BINARY_MAGIC_NUMBER = 0x57575253; // "WWRS"
+    private static final int BINARY_VERSION = 1;
+    private static final int BINARY_HAS_NAME = 0x01;
+    private static final int BINARY_HAS_VALUE = 0x02;
+
+    private static final String JSON_DOCUMENT_ELEMENT = "documentElement";
+    private static final String JSON_STATE_OBJECTS = "stateObjects";
+    private static final String JSON_TAG = "tag";
+    private static final String JSON_NAME = "name";
+    private static final String JSON_VALUE = "value";
+
+    /**
+     * Writes this RestorableSupport's current set of state objects to a stream in a specified format. The state
+     * objects are written as the document is traversed, without first building the entire encoding in memory. The
+     * stream is flushed but not closed.
+     *
+     * @param outputStream the stream to receive the state document.
+     * @param format       the encoding to write, one of {@link #FORMAT_XML}, {@link #FORMAT_JSON} or {@link
+     *                     #FORMAT_BINARY}.
+     *
+     * @throws IllegalArgumentException if the stream is null, or the format is null or not recognized.
+     * @throws java.io.IOException      if an error occurs while writing to the stream.
+     */
+    public void writeState(java.io.OutputStream outputStream, String format) throws java.io.IOException
+    {
+        if (outputStream == null)
+        {
+            String message = Logging.getMessage("nullValue.OutputStreamIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+        if (format == null)
+        {
+            String message = Logging.getMessage("nullValue.Format");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (FORMAT_XML.equals(format))
+            this.writeXml(outputStream);
+        else if (FORMAT_JSON.equals(format))
+            this.writeJson(outputStream);
+        else if (FORMAT_BINARY.equals(format))
+            this.writeBinary(outputStream);
+        else
+        {
+            String message = Logging.getMessage("RestorableSupport.UnrecognizedFormat", format);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    /**
+     * Returns this RestorableSupport's current set of state objects encoded in a specified format.
+     *
+     * @param format the encoding to produce, one of {@link #FORMAT_XML}, {@link #FORMAT_JSON} or {@link
+     *               #FORMAT_BINARY}.
+     *
+     * @return the encoded state document.
+     *
+     * @throws IllegalArgumentException if the format is null or not recognized.
+     */
+    public byte[] getStateAsBytes(String format)
+    {
+        java.io.ByteArrayOutputStream outputStream = new java.io.ByteArrayOutputStream();
+        try
+        {
+            this.writeState(outputStream, format);
+        }
+        catch (java.io.IOException e)
+        {
+            // A ByteArrayOutputStream does not throw IOException.
+            String message = Logging.getMessage("RestorableSupport.ExceptionWritingState", format);
+            Logging.logger().log(java.util.logging.Level.SEVERE, message, e);
+            throw new IllegalStateException(message, e);
+        }
+
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Creates a new RestorableSupport with the contents of a state document read from a stream in a specified format.
+     * The document is read as a stream of state objects, without first reading the entire encoding into memory. The
+     * stream is not closed.
+     *
+     * @param inputStream the stream containing the state document.
+     * @param format      the encoding of the document, one of {@link #FORMAT_XML}, {@link #FORMAT_JSON} or {@link
+     *                    #FORMAT_BINARY}.
+     *
+     * @return a new RestorableSupport instance with the specified state.
+     *
+     * @throws IllegalArgumentException if the stream is null, the format is null or not recognized, or the stream
+     *                                  does not contain a well formed document of the specified format.
+     * @throws java.io.IOException      if an error occurs while reading from the stream.
+     */
+    public static RestorableSupport parse(java.io.InputStream inputStream, String format) throws java.io.IOException
+    {
+        if (inputStream == null)
+        {
+            String message = Logging.getMessage("nullValue.InputStreamIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+        if (format == null)
+        {
+            String message = Logging.getMessage("nullValue.Format");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (FORMAT_XML.equals(format))
+            return parseXml(inputStream);
+        else if (FORMAT_JSON.equals(format))
+            return parseJson(inputStream);
+        else if (FORMAT_BINARY.equals(format))
+            return parseBinary(inputStream);
+
+        String message = Logging.getMessage("RestorableSupport.UnrecognizedFormat", format);
+        Logging.logger().severe(message);
+        throw new IllegalArgumentException(message);
+    }
+
+    /**
+     * Creates a new RestorableSupport with the contents of a state document encoded in a specified format.
+     *
+     * @param state  the encoded state document.
+     * @param format the encoding of the document, one of {@link #FORMAT_XML}, {@link #FORMAT_JSON} or {@link
+     *               #FORMAT_BINARY}.
+     *
+     * @return a new RestorableSupport instance with the specified state.
+     *
+     * @throws IllegalArgumentException if the state is null, the format is null or not recognized, or the state is
+     *                                  not a well formed document of the specified format.
+     */
+    public static RestorableSupport parse(byte[] state, String format)
+    {
+        if (state == null)
+        {
+            String message = Logging.getMessage("nullValue.ArrayIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        try
+        {
+            return parse(new java.io.ByteArrayInputStream(state), format);
+        }
+        catch (java.io.IOException e)
+        {
+            String message = Logging.getMessage("RestorableSupport.ExceptionParsingState", format);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message, e);
+        }
+    }
+
+    private static org.w3c.dom.Document newDocument()
+    {
+        try
+        {
+            return javax.xml.parsers.DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        }
+        catch (javax.xml.parsers.ParserConfigurationException e)
+        {
+            String message = Logging.getMessage("generic.ExceptionCreatingParser");
+            Logging.logger().severe(message);
+            throw new IllegalStateException(message, e);
+        }
+    }
+
+    private static String getElementValue(org.w3c.dom.Element elem, boolean hasChildElements)
+    {
+        // Concatenate the element's own text and CDATA content, excluding that of nested state objects.
+        StringBuilder sb = null;
+        for (org.w3c.dom.Node node = elem.getFirstChild(); node != null; node = node.getNextSibling())
+        {
+            if (node instanceof org.w3c.dom.Text)
+            {
+                if (sb == null)
+                    sb = new StringBuilder();
+                sb.append(((org.w3c.dom.Text) node).getData());
+            }
+        }
+
+        if (sb == null || sb.length() == 0)
+            return null;
+
+        // Whitespace between nested state objects is formatting, not a value.
+        String value = sb.toString();
+        return (hasChildElements && value.trim().length() == 0) ? null : value;
+    }
+
+    private static boolean hasChildElements(org.w3c.dom.Element elem)
+    {
+        for (org.w3c.dom.Node node = elem.getFirstChild(); node != null; node = node.getNextSibling())
+        {
+            if (node instanceof org.w3c.dom.Element)
+                return true;
+        }
+
+        return false;
+    }
+
+    private static int countChildElements(org.w3c.dom.Element elem)
+    {
+        int count = 0;
+        for (org.w3c.dom.Node node = elem.getFirstChild(); node != null; node = node.getNextSibling())
+        {
+            if (node instanceof org.w3c.dom.Element)
+                count++;
+        }
+
+        return count;
+    }
+
+    private static org.w3c.dom.Element appendElement(org.w3c.dom.Document doc, org.w3c.dom.Node parent, String tag,
+        String name, String value)
+    {
+        org.w3c.dom.Element elem = doc.createElement(tag);
+        if (name != null)
+            elem.setAttribute("name", name);
+        if (value != null)
+            elem.appendChild(doc.createTextNode(value));
+        parent.appendChild(elem);
+
+        return elem;
+    }
+
+    //**************************************************************//
+    //********************  XML  ***********************************//
+    //**************************************************************//
+
+    private void writeXml(java.io.OutputStream outputStream) throws java.io.IOException
+    {
+        try
+        {
+            javax.xml.transform.Transformer transformer =
+                javax.xml.transform.TransformerFactory.newInstance().newTransformer();
+            transformer.transform(
+                new javax.xml.transform.dom.DOMSource(this.doc),
+                new javax.xml.transform.stream.StreamResult(outputStream));
+            outputStream.flush();
+        }
+        catch (javax.xml.transform.TransformerException e)
+        {
+            String message = Logging.getMessage("generic.ExceptionWritingXml");
+            Logging.logger().severe(message);
+            throw new java.io.IOException(message);
+        }
+    }
+
+    private static RestorableSupport parseXml(java.io.InputStream inputStream) throws java.io.IOException
+    {
+        try
+        {
+            javax.xml.parsers.DocumentBuilder docBuilder =
+                javax.xml.parsers.DocumentBuilderFactory.newInstance().newDocumentBuilder();
+            // Prevent the parser from closing the caller's stream.
+            return new RestorableSupport(docBuilder.parse(new java.io.FilterInputStream(inputStream)
+            {
+                @Override
+                public void close()
+                {
+                }
+            }));
+        }
+        catch (org.xml.sax.SAXException e)
+        {
+            String message = Logging.getMessage("RestorableSupport.ExceptionParsingState", FORMAT_XML);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message, e);
+        }
+        catch (javax.xml.parsers.ParserConfigurationException e)
+        {
+            String message = Logging.getMessage("generic.ExceptionCreatingParser");
+            Logging.logger().severe(message);
+            throw new IllegalStateException(message, e);
+        }
+    }
+
+    //**************************************************************//
+    //********************  JSON  **********************************//
+    //**************************************************************//
+
+    private static org.codehaus.jackson.JsonFactory createJsonFactory()
+    {
+        org.codehaus.jackson.JsonFactory factory = new org.codehaus.jackson.JsonFactory();
+        // The caller owns the stream.
+        factory.disable(org.codehaus.jackson.JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        factory.disable(org.codehaus.jackson.JsonParser.Feature.AUTO_CLOSE_SOURCE);
+        return factory;
+    }
+
+    private void writeJson(java.io.OutputStream outputStream) throws java.io.IOException
+    {
+        org.codehaus.jackson.JsonGenerator generator = createJsonFactory().createJsonGenerator(outputStream,
+            org.codehaus.jackson.JsonEncoding.UTF8);
+        try
+        {
+            org.w3c.dom.Element root = this.getDocumentElement();
+            generator.writeStartObject();
+            generator.writeStringField(JSON_DOCUMENT_ELEMENT, root.getTagName());
+            this.writeJsonStateObjects(generator, root);
+            generator.writeEndObject();
+        }
+        finally
+        {
+            generator.close();
+        }
+    }
+
+    private void writeJsonStateObjects(org.codehaus.jackson.JsonGenerator generator, org.w3c.dom.Element parent)
+        throws java.io.IOException
+    {
+        if (!hasChildElements(parent))
+            return;
+
+        generator.writeArrayFieldStart(JSON_STATE_OBJECTS);
+        for (org.w3c.dom.Node node = parent.getFirstChild(); node != null; node = node.getNextSibling())
+        {
+            if (!(node instanceof org.w3c.dom.Element))
+                continue;
+
+            org.w3c.dom.Element elem = (org.w3c.dom.Element) node;
+            boolean hasChildElements = hasChildElements(elem);
+            String value = getElementValue(elem, hasChildElements);
+
+            generator.writeStartObject();
+            if (!DEFAULT_STATE_OBJECT_TAG_NAME.equals(elem.getTagName()))
+                generator.writeStringField(JSON_TAG, elem.getTagName());
+            if (elem.hasAttribute("name"))
+                generator.writeStringField(JSON_NAME, elem.getAttribute("name"));
+            if (value != null)
+                generator.writeStringField(JSON_VALUE, value);
+            if (hasChildElements)
+                this.writeJsonStateObjects(generator, elem);
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+
+    private static RestorableSupport parseJson(java.io.InputStream inputStream) throws java.io.IOException
+    {
+        org.codehaus.jackson.JsonParser parser = createJsonFactory().createJsonParser(inputStream);
+        try
+        {
+            if (parser.nextToken() != org.codehaus.jackson.JsonToken.START_OBJECT)
+                throw new org.codehaus.jackson.JsonParseException(JSON_DOCUMENT_ELEMENT, parser.getCurrentLocation());
+
+            org.w3c.dom.Document doc = newDocument();
+            org.w3c.dom.Element root = null;
+            // The document element's name precedes its state objects when written by writeJson, but is not required
+            // to. Collect state objects beneath a temporary element until the name is known.
+            org.w3c.dom.Element content = doc.createElement(DEFAULT_DOCUMENT_ELEMENT_TAG_NAME);
+
+            while (parser.nextToken() == org.codehaus.jackson.JsonToken.FIELD_NAME)
+            {
+                String field = parser.getCurrentName();
+                org.codehaus.jackson.JsonToken token = parser.nextToken();
+                if (JSON_DOCUMENT_ELEMENT.equals(field) && token == org.codehaus.jackson.JsonToken.VALUE_STRING)
+                    root = doc.createElement(parser.getText());
+                else if (JSON_STATE_OBJECTS.equals(field) && token == org.codehaus.jackson.JsonToken.START_ARRAY)
+                    parseJsonStateObjects(parser, doc, content);
+                else
+                    parser.skipChildren();
+            }
+
+            if (root == null)
+                root = content;
+            else
+                while (content.getFirstChild() != null)
+                {
+                    root.appendChild(content.getFirstChild());
+                }
+
+            doc.appendChild(root);
+            return new RestorableSupport(doc);
+        }
+        catch (org.codehaus.jackson.JsonParseException e)
+        {
+            String message = Logging.getMessage("RestorableSupport.ExceptionParsingState", FORMAT_JSON);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message, e);
+        }
+        catch (org.w3c.dom.DOMException e)
+        {
+            String message = Logging.getMessage("RestorableSupport.ExceptionParsingState", FORMAT_JSON);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message, e);
+        }
+        finally
+        {
+            parser.close();
+        }
+    }
+
+    private static void parseJsonStateObjects(org.codehaus.jackson.JsonParser parser, org.w3c.dom.Document doc,
+        org.w3c.dom.Element parent) throws java.io.IOException
+    {
+        org.codehaus.jackson.JsonToken token;
+        while ((token = parser.nextToken()) == org.codehaus.jackson.JsonToken.START_OBJECT)
+        {
+            org.w3c.dom.Element elem = doc.createElement(DEFAULT_STATE_OBJECT_TAG_NAME);
+            String tag = null;
+
+            while (parser.nextToken() == org.codehaus.jackson.JsonToken.FIELD_NAME)
+            {
+                String field = parser.getCurrentName();
+                org.codehaus.jackson.JsonToken valueToken = parser.nextToken();
+                if (JSON_TAG.equals(field) && valueToken == org.codehaus.jackson.JsonToken.VALUE_STRING)
+                    tag = parser.getText();
+                else if (JSON_NAME.equals(field) && valueToken == org.codehaus.jackson.JsonToken.VALUE_STRING)
+                    elem.setAttribute("name", parser.getText());
+                else if (JSON_VALUE.equals(field) && valueToken == org.codehaus.jackson.JsonToken.VALUE_STRING)
+                    elem.insertBefore(doc.createTextNode(parser.getText()), elem.getFirstChild());
+                else if (JSON_STATE_OBJECTS.equals(field) && valueToken == org.codehaus.jackson.JsonToken.START_ARRAY)
+                    parseJsonStateObjects(parser, doc, elem);
+                else
+                    parser.skipChildren();
+            }
+
+            if (tag != null && !tag.equals(DEFAULT_STATE_OBJECT_TAG_NAME))
+                elem = (org.w3c.dom.Element) doc.renameNode(elem, null, tag);
+
+            parent.appendChild(elem);
+        }
+
+        if (token != org.codehaus.jackson.JsonToken.END_ARRAY)
+            throw new org.codehaus.jackson.JsonParseException(JSON_STATE_OBJECTS, parser.getCurrentLocation());
+    }
+
+    //**************************************************************//
+    //********************  Binary  ********************************//
+    //**************************************************************//
+
+    private void writeBinary(java.io.OutputStream outputStream) throws java.io.IOException
+    {
+        java.io.DataOutputStream out = new java.io.DataOutputStream(new java.io.BufferedOutputStream(outputStream));
+        HashMap<String, Integer> stringTable = new HashMap<String, Integer>();
+
+        org.w3c.dom.Element root = this.getDocumentElement();
+        out.writeInt(BINARY_MAGIC_NUMBER);
+        out.writeByte(BINARY_VERSION);
+        writeBinaryString(out, root.getTagName());
+        this.writeBinaryStateObjects(out, root, stringTable);
+        out.flush();
+    }
+
+    private void writeBinaryStateObjects(java.io.DataOutputStream out, org.w3c.dom.Element parent,
+        Map<String, Integer> stringTable) throws java.io.IOException
+    {
+        writeVarInt(out, countChildElements(parent));
+        for (org.w3c.dom.Node node = parent.getFirstChild(); node != null; node = node.getNextSibling())
+        {
+            if (!(node instanceof org.w3c.dom.Element))
+                continue;
+
+            org.w3c.dom.Element elem = (org.w3c.dom.Element) node;
+            boolean hasChildElements = hasChildElements(elem);
+            String value = getElementValue(elem, hasChildElements);
+            boolean hasName = elem.hasAttribute("name");
+
+            writeBinaryTableString(out, elem.getTagName(), stringTable);
+            out.writeByte((hasName ? BINARY_HAS_NAME : 0) | (value != null ? BINARY_HAS_VALUE : 0));
+            if (hasName)
+                writeBinaryTableString(out, elem.getAttribute("name"), stringTable);
+            if (value != null)
+                writeBinaryString(out, value);
+            this.writeBinaryStateObjects(out, elem, stringTable);
+        }
+    }
+
+    private static RestorableSupport parseBinary(java.io.InputStream inputStream) throws java.io.IOException
+    {
+        java.io.DataInputStream in = new java.io.DataInputStream(inputStream);
+        try
+        {
+            if (in.readInt() != BINARY_MAGIC_NUMBER || in.readUnsignedByte() > BINARY_VERSION)
+                throw new java.io.StreamCorruptedException(FORMAT_BINARY);
+
+            org.w3c.dom.Document doc = newDocument();
+            org.w3c.dom.Element root = doc.createElement(readBinaryString(in));
+            doc.appendChild(root);
+            parseBinaryStateObjects(in, doc, root, new ArrayList<String>());
+
+            return new RestorableSupport(doc);
+        }
+        catch (java.io.StreamCorruptedException e)
+        {
+            String message = Logging.getMessage("RestorableSupport.ExceptionParsingState", FORMAT_BINARY);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message, e);
+        }
+        catch (java.io.EOFException e)
+        {
+            String message = Logging.getMessage("RestorableSupport.ExceptionParsingState", FORMAT_BINARY);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message, e);
+        }
+        catch (org.w3c.dom.DOMException e)
+        {
+            String message = Logging.getMessage("RestorableSupport.ExceptionParsingState", FORMAT_BINARY);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message, e);
+        }
+    }
+
+    private static void parseBinaryStateObjects(java.io.DataInputStream in, org.w3c.dom.Document doc,
+        org.w3c.dom.Element parent, java.util.List<String> stringTable) throws java.io.IOException
+    {
+        int count = readVarInt(in);
+        for (int i = 0; i < count; i++)
+        {
+            String tag = readBinaryTableString(in, stringTable);
+            int flags = in.readUnsignedByte();
+            String name = (flags & BINARY_HAS_NAME) != 0 ? readBinaryTableString(in, stringTable) : null;
+            String value = (flags & BINARY_HAS_VALUE) != 0 ? readBinaryString(in) : null;
+
+            org.w3c.dom.Element elem = appendElement(doc, parent, tag, name, value);
+            parseBinaryStateObjects(in, doc, elem, stringTable);
+        }
+    }
+
+    // Strings that recur throughout a document, tag names and state object names, are written in full the first time
+    // they occur and as a one-based index into the table of previously written strings thereafter. Zero introduces a
+    // new string.
+
+    private static void writeBinaryTableString(java.io.DataOutputStream out, String s, Map<String, Integer> table)
+        throws java.io.IOException
+    {
+        Integer index = table.get(s);
+        if (index != null)
+        {
+            writeVarInt(out, index + 1);
+            return;
+        }
+
+        table.put(s, table.size());
+        writeVarInt(out, 0);
+        writeBinaryString(out, s);
+    }
+
+    private static String readBinaryTableString(java.io.DataInputStream in, java.util.List<String> table)
+        throws java.io.IOException
+    {
+        int index = readVarInt(in);
+        if (index == 0)
+        {
+            String s = readBinaryString(in);
+            table.add(s);
+            return s;
+        }
+
+        if (index > table.size())
+            throw new java.io.StreamCorruptedException(FORMAT_BINARY);
+
+        return table.get(index - 1);
+    }
+
+    private static void writeBinaryString(java.io.DataOutputStream out, String s) throws java.io.IOException
+    {
+        // DataOutputStream.writeUTF is limited to 64K bytes, which nested state documents can exceed.
+        byte[] bytes = s.getBytes("UTF-8");
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readBinaryString(java.io.DataInputStream in) throws java.io.IOException
+    {
+        byte[] bytes = new byte[readVarInt(in)];
+        in.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+
+    private static void writeVarInt(java.io.DataOutputStream out, int value) throws java.io.IOException
+    {
+        // Seven bits per byte, least significant group first. The high bit marks that more bytes follow.
+        while ((value & ~0x7F) != 0)
+        {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(java.io.DataInputStream in) throws java.io.IOException
+    {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7)
+        {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+            {
+                if (value < 0)
+                    break;
+                return value;
+            }
+        }
+
+        throw new java.io.StreamCorruptedException(FORMAT_BINARY);
+    }
+
     /**
      * An interface to the <code>stateObject</code> elements in an XML state document, as defined by {@link
      * gov.nasa.worldwind.util.RestorableSupport}. The <code>name</code> and simple String <code>value</code> of a
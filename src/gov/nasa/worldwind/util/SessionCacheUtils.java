@@ -5,20 +5,37 @@ All Rights Reserved.
 package gov.nasa.worldwind.util;
 
 import gov.nasa.worldwind.WorldWind;
-import gov.nasa.worldwind.cache.SessionCache;
+import gov.nasa.worldwind.cache.*;
 import gov.nasa.worldwind.ogc.wms.WMSCapabilities;
 import gov.nasa.worldwind.retrieve.*;
 
 import java.beans.PropertyChangeListener;
+import java.io.*;
+import java.util.Properties;
+import java.util.zip.GZIPInputStream;
 
 /**
  * A collection of utility methods for retrieving and managing data in the {@link SessionCache}.
+ * <p/>
+ * Capabilities documents are also kept in the data file store, compressed, together with the validators the server
+ * returned for them, so that a session can start from the stored copy without waiting on the network. A stored copy is
+ * used once per session; when it is used, the document is retrieved again in the background on condition that the
+ * server's copy has changed.
  *
  * @author dcollins
  * @version $Id: SessionCacheUtils.java 13323 2010-04-21 04:59:20Z tgaskins $
  */
 public class SessionCacheUtils
 {
+    protected static final String CAPABILITIES_CACHE_PATH = "Capabilities";
+    protected static final String CAPABILITIES_FILE_SUFFIX = ".xml.gz";
+    protected static final String VALIDATORS_FILE_SUFFIX = ".properties";
+    protected static final String VALIDATOR_URL = "url";
+    protected static final String VALIDATOR_LAST_MODIFIED = "lastModified";
+    protected static final String VALIDATOR_ENTITY_TAG = "entityTag";
+
+    protected static final Object capabilitiesFileLock = new Object();
+
     /**
      * Asynchronously retrieves the contents of a specified {@link java.net.URL}. If successful, this places the URL
      * contents in a specified session cache with a specified key. This either marks the resource as available or
@@ -172,9 +189,282 @@ public class SessionCacheUtils
         if (caps != null)
             return caps;
 
-        retrieveSessionData(url, cache, cacheKey, absentResourceList, resourceID, propertyListener, propertyName);
+        // Start from the copy in the file store, if any, and check in the background whether the server's copy has
+        // changed since it was stored.
+        caps = getFileStoreCapabilities(url, cache, cacheKey);
 
-        return null;
+        retrieveSessionCapabilities(url, cache, cacheKey, absentResourceList, resourceID, propertyListener,
+            propertyName, caps != null);
+
+        return caps;
+    }
+
+    /**
+     * Returns the {@link WMSCapabilities} document for a specified URL from a session cache, or if the session cache
+     * does not contain it, from the data file store. A document read from the file store is placed in the session
+     * cache. This does not access the network.
+     *
+     * @param url      the URL of the Capabilities document.
+     * @param cache    the session cache.
+     * @param cacheKey the key to identify the object in the session cache.
+     *
+     * @return the Capabilities document, or null if neither the session cache nor the file store contain it.
+     *
+     * @throws IllegalArgumentException if either the url, cache or cache key are null.
+     */
+    public static WMSCapabilities getCachedCapabilities(java.net.URL url, SessionCache cache, Object cacheKey)
+    {
+        if (url == null)
+        {
+            String message = Logging.getMessage("nullValue.URLIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        WMSCapabilities caps = getSessionCapabilities(cache, cacheKey, url.toString());
+        if (caps != null)
+            return caps;
+
+        return getFileStoreCapabilities(url, cache, cacheKey);
+    }
+
+    /**
+     * Asynchronously retrieves the Capabilities document at a specified URL. If successful, this places the document in
+     * a specified session cache with a specified key, and writes it to the data file store. If requested, the retrieval
+     * is made conditional on the document having changed since it was written to the file store, in which case an
+     * unchanged document is neither placed in the session cache nor written again.
+     *
+     * @param url                the URL of the Capabilities document.
+     * @param cache              the cache which receives the retrieved document.
+     * @param cacheKey           the cache key which identifies where the retrieved document is placed in the session
+     *                           cache.
+     * @param absentResourceList the absent resource list to update.
+     * @param resourceID         the resource ID to use in the absent resource list.
+     * @param propertyListener   the property change listener which is fired when the retrieved data is available.
+     * @param propertyName       the property name to fire when retrieved data is available.
+     * @param conditional        true to retrieve the document only if it has changed since it was stored.
+     *
+     * @throws IllegalArgumentException if any of the url, cache, or cache key are null.
+     */
+    public static void retrieveSessionCapabilities(java.net.URL url, SessionCache cache, Object cacheKey,
+        AbsentResourceList absentResourceList, long resourceID, PropertyChangeListener propertyListener,
+        String propertyName, boolean conditional)
+    {
+        if (url == null)
+        {
+            String message = Logging.getMessage("nullValue.URLIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (WorldWind.getNetworkStatus().isHostUnavailable(url))
+        {
+            absentResourceList.markResourceAbsent(resourceID);
+            return;
+        }
+
+        FileStore fileStore = WorldWind.getDataFileStore();
+        CapabilitiesRetrievalPostProcessor postProcessor = new CapabilitiesRetrievalPostProcessor(url, cache,
+            cacheKey, fileStore, absentResourceList, resourceID, propertyListener, propertyName);
+        postProcessor.setName(url.toString());
+
+        Retriever retriever = URLRetriever.createRetriever(url, postProcessor);
+        if (retriever == null)
+        {
+            String message = Logging.getMessage("generic.UnrecognizedProtocol", url.getProtocol());
+            Logging.logger().severe(message);
+            return;
+        }
+
+        if (conditional && retriever instanceof HTTPRetriever)
+        {
+            Properties validators = readCapabilitiesValidators(url, fileStore);
+            if (validators != null)
+            {
+                HTTPRetriever httpRetriever = (HTTPRetriever) retriever;
+                httpRetriever.setIfNoneMatch(validators.getProperty(VALIDATOR_ENTITY_TAG));
+                Long lastModified = WWUtil.convertStringToLong(validators.getProperty(VALIDATOR_LAST_MODIFIED, ""));
+                if (lastModified != null)
+                    httpRetriever.setIfModifiedSince(lastModified);
+            }
+        }
+
+        WorldWind.getRetrievalService().runRetriever(retriever);
+    }
+
+    /**
+     * Returns the path of the file store file holding the Capabilities document for a specified URL. The path is
+     * formed from the URL's host and a hash of the entire URL, including its query; the URL itself is recorded with
+     * the document's validators, and is compared when the document is read.
+     *
+     * @param url the URL of the Capabilities document.
+     *
+     * @return the path of the document's file, relative to the file store.
+     */
+    public static String getCapabilitiesFilePath(java.net.URL url)
+    {
+        if (url == null)
+        {
+            String message = Logging.getMessage("nullValue.URLIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        return makeCapabilitiesCachePath(url, CAPABILITIES_FILE_SUFFIX);
+    }
+
+    protected static String makeCapabilitiesCachePath(java.net.URL url, String suffix)
+    {
+        String fileName = Integer.toHexString(url.toString().hashCode()) + suffix;
+        return WWIO.formPath(CAPABILITIES_CACHE_PATH, WWIO.replaceIllegalFileNameCharacters(url.getHost()), fileName);
+    }
+
+    /**
+     * Writes a Capabilities document and its validators to a file store. The document is compressed.
+     *
+     * @param url          the URL of the Capabilities document.
+     * @param fileStore    the file store.
+     * @param buffer       the document's contents.
+     * @param lastModified the document's <code>Last-Modified</code> time, or 0 if it is not known.
+     * @param entityTag    the document's <code>ETag</code>, or null if it is not known.
+     *
+     * @return true if the document was written, otherwise false.
+     */
+    public static boolean writeCapabilitiesFile(java.net.URL url, FileStore fileStore, java.nio.ByteBuffer buffer,
+        long lastModified, String entityTag)
+    {
+        String path = getCapabilitiesFilePath(url);
+
+        synchronized (capabilitiesFileLock)
+        {
+            OutputStream validatorsStream = null;
+            try
+            {
+                File file = fileStore.newFile(path);
+                File validatorsFile = fileStore.newFile(makeCapabilitiesCachePath(url, VALIDATORS_FILE_SUFFIX));
+                if (file == null || validatorsFile == null)
+                    return false;
+
+                buffer.rewind();
+                WWIO.saveBufferToGZipFile(buffer, file);
+                buffer.rewind();
+
+                Properties validators = new Properties();
+                validators.setProperty(VALIDATOR_URL, url.toString());
+                validators.setProperty(VALIDATOR_LAST_MODIFIED, Long.toString(lastModified));
+                if (entityTag != null)
+                    validators.setProperty(VALIDATOR_ENTITY_TAG, entityTag);
+
+                validatorsStream = new FileOutputStream(validatorsFile);
+                validators.store(validatorsStream, null);
+
+                return true;
+            }
+            catch (IOException e)
+            {
+                String message = Logging.getMessage("generic.ExceptionAttemptingToWriteTo", path);
+                Logging.logger().log(java.util.logging.Level.SEVERE, message, e);
+            }
+            finally
+            {
+                WWIO.closeStream(validatorsStream, path);
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Reads the Capabilities document for a specified URL from the data file store, and places it in a session cache.
+     *
+     * @param url      the URL of the Capabilities document.
+     * @param cache    the session cache.
+     * @param cacheKey the key to identify the object in the session cache.
+     *
+     * @return the Capabilities document, or null if the file store does not contain it or it cannot be parsed.
+     */
+    protected static WMSCapabilities getFileStoreCapabilities(java.net.URL url, SessionCache cache, Object cacheKey)
+    {
+        FileStore fileStore = WorldWind.getDataFileStore();
+        if (readCapabilitiesValidators(url, fileStore) == null)
+            return null;
+
+        String path = getCapabilitiesFilePath(url);
+        java.net.URL fileURL = fileStore.findFile(path, false);
+        if (fileURL == null)
+            return null;
+
+        // Hold the lock only while reading the compressed bytes, so that a slow parse does not block writers and other
+        // readers.
+        java.nio.ByteBuffer buffer;
+        synchronized (capabilitiesFileLock)
+        {
+            try
+            {
+                buffer = WWIO.readURLContentToBuffer(fileURL);
+            }
+            catch (IOException e)
+            {
+                String message = Logging.getMessage("generic.ExceptionAttemptingToReadFile", fileURL);
+                Logging.logger().log(java.util.logging.Level.SEVERE, message, e);
+                return null;
+            }
+        }
+
+        WMSCapabilities caps;
+        InputStream inputStream = null;
+        try
+        {
+            inputStream = new GZIPInputStream(WWIO.getInputStreamFromByteBuffer(buffer));
+            caps = parseCapabilities(inputStream, url.toString());
+        }
+        catch (IOException e)
+        {
+            String message = Logging.getMessage("generic.ExceptionAttemptingToReadFile", fileURL);
+            Logging.logger().log(java.util.logging.Level.SEVERE, message, e);
+            caps = null;
+        }
+        finally
+        {
+            WWIO.closeStream(inputStream, path);
+        }
+
+        if (caps != null)
+            cache.put(cacheKey, caps);
+
+        return caps;
+    }
+
+    protected static Properties readCapabilitiesValidators(java.net.URL url, FileStore fileStore)
+    {
+        String path = makeCapabilitiesCachePath(url, VALIDATORS_FILE_SUFFIX);
+        java.net.URL validatorsURL = fileStore.findFile(path, false);
+        if (validatorsURL == null)
+            return null;
+
+        synchronized (capabilitiesFileLock)
+        {
+            InputStream inputStream = null;
+            try
+            {
+                inputStream = validatorsURL.openStream();
+                Properties validators = new Properties();
+                validators.load(inputStream);
+
+                // The file name is a hash of the URL, so the recorded URL must match.
+                return url.toString().equals(validators.getProperty(VALIDATOR_URL)) ? validators : null;
+            }
+            catch (Exception e)
+            {
+                String message = Logging.getMessage("generic.ExceptionAttemptingToReadFile", validatorsURL);
+                Logging.logger().log(java.util.logging.Level.SEVERE, message, e);
+                return null;
+            }
+            finally
+            {
+                WWIO.closeStream(inputStream, path);
+            }
+        }
     }
 
     protected static WMSCapabilities parseCapabilities(Object source, String name)
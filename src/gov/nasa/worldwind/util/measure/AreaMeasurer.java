@@ -1,10 +1,14 @@
 package gov.nasa.worldwind.util.measure;
 
+import gov.nasa.worldwind.exception.WWRuntimeException;
 import gov.nasa.worldwind.geom.*;
 import gov.nasa.worldwind.globes.Globe;
 import gov.nasa.worldwind.util.*;
 
-import java.util.ArrayList;
+import java.beans.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.Level;
 
 /**
  * Utility class to compute approximations of projected and surface (terrain following) area on a globe.
@@ -21,6 +25,18 @@ import java.util.ArrayList;
  * grid. Cells which center is inside the path  have their area estimated and summed according to the overall slope
  * at the cell south-west corner.</p>
  *
+ * <p>The sampling grid is aligned with the south-west corner of the path bounding sector and its cell size only changes
+ * in discrete steps, so the surface area of each cell is cached and reused as long as the path keeps about the same
+ * size and south-west corner. Moving one position of the path then only requires sampling the cells that were not
+ * already inside the path. Cells sampled before the terrain elevations are available at the grid resolution are not
+ * cached, and are sampled again by the next computation. The terrain elevations of each grid row are retrieved with one
+ * query, and rows are sampled in parallel on a shared pool of worker threads.</p>
+ *
+ * <p>When {@link #setComputeInBackground(boolean)} is set, {@link #getSurfaceArea(Globe)} does not wait for the
+ * sampling to complete. It returns an estimate in which the cells not yet sampled count for their flat area, and
+ * notifies the listeners registered with {@link #addPropertyChangeListener(PropertyChangeListener)} as the estimate
+ * improves and when the sampling completes.</p>
+ *
  * @author Patrick Murris
  * @version $Id: AreaMeasurer.java 12467 2009-08-17 19:59:10Z dcollins $
  * @see MeasureTool
@@ -28,14 +44,28 @@ import java.util.ArrayList;
  */
 public class AreaMeasurer extends LengthMeasurer implements MeasurableArea
 {
+    /** Fired while sampling in the background, with the current surface area estimate as new value. */
+    public static final String EVENT_SURFACE_AREA_PROGRESS = "AreaMeasurer.SurfaceAreaProgress";
+    /** Fired when sampling in the background completes, with the surface area as new value. */
+    public static final String EVENT_SURFACE_AREA_COMPLETE = "AreaMeasurer.SurfaceAreaComplete";
+
     private static final double DEFAULT_AREA_SAMPLING_STEPS = 32; // sampling grid max rows or cols
+    private static final double MIN_SAMPLING_STEP_RADIANS = 1e-9; // keeps grid row and column numbers within int range
+    private static final int TASKS_PER_THREAD = 4; // number of sampling tasks per worker thread
+
+    protected static ThreadPoolExecutor executor; // shared by all measurers, created on first use
 
     private ArrayList<? extends Position> subdividedPositions;
-    private Cell[][] sectorCells;
-    private Double[][] sectorElevations;
     private double areaTerrainSamplingSteps = DEFAULT_AREA_SAMPLING_STEPS;
-    protected double surfaceArea = -1;
+    protected volatile double surfaceArea = -1;
     protected double projectedArea = -1;
+    protected boolean computeInBackground = false;
+    protected final PropertyChangeSupport changeSupport = new PropertyChangeSupport(this);
+    protected volatile long version; // incremented each time the cached values are cleared
+    protected SamplingGrid cellGrid; // grid of the cached cell areas
+    protected Globe cellGlobe; // globe the cached cell areas were computed on
+    protected ConcurrentHashMap<Long, Double> cellAreas; // cached cell surface areas keyed by grid row and column
+    protected SurfaceAreaSampling sampling; // latest background sampling
 
     public AreaMeasurer()
     {
@@ -46,24 +76,14 @@ public class AreaMeasurer extends LengthMeasurer implements MeasurableArea
         super(positions);
     }
 
-    protected void clearCachedValues()
+    protected synchronized void clearCachedValues()
     {
         super.clearCachedValues();
         this.subdividedPositions = null;
         this.projectedArea = -1;
         this.surfaceArea = -1;
-    }
-
-    public void setPositions(ArrayList<? extends Position> positions)
-    {
-        Sector oldSector = getBoundingSector();
-        super.setPositions(positions); // will call clearCachedData()
-
-        if (getBoundingSector() == null || !getBoundingSector().equals(oldSector))
-        {
-            this.sectorCells = null;
-            this.sectorElevations = null;
-        }
+        // Cancels any sampling in progress. The cell areas cache is kept since the new path may share the same grid.
+        this.version++;
     }
 
     /**
@@ -82,7 +102,7 @@ public class AreaMeasurer extends LengthMeasurer implements MeasurableArea
      * @param steps the sampling grid maximum number of rows or columns.
      * @throws IllegalArgumentException if steps is less then one.
      */
-    public void setAreaTerrainSamplingSteps(double steps)
+    public synchronized void setAreaTerrainSamplingSteps(double steps)
     {
         if (steps < 1)
         {
@@ -96,12 +116,44 @@ public class AreaMeasurer extends LengthMeasurer implements MeasurableArea
             this.areaTerrainSamplingSteps = steps;
             this.surfaceArea = -1;
             this.projectedArea = -1;
-            // Invalidate cached data
-            this.sectorCells = null;
-            this.sectorElevations = null;
+            this.version++;
         }
     }
 
+    /**
+     * Indicates whether terrain following surface area is sampled in the background.
+     *
+     * @return true if surface area is sampled in the background, false if {@link #getSurfaceArea(Globe)} waits for
+     *         the sampling to complete.
+     */
+    public boolean isComputeInBackground()
+    {
+        return this.computeInBackground;
+    }
+
+    /**
+     * Specifies whether terrain following surface area is sampled in the background. When true, {@link
+     * #getSurfaceArea(Globe)} returns immediately with an estimate of the surface area until the sampling completes,
+     * and {@link #EVENT_SURFACE_AREA_PROGRESS} and {@link #EVENT_SURFACE_AREA_COMPLETE} property change events are
+     * fired from the worker threads as the sampling progresses. The default is false.
+     *
+     * @param computeInBackground true to sample surface area in the background.
+     */
+    public void setComputeInBackground(boolean computeInBackground)
+    {
+        this.computeInBackground = computeInBackground;
+    }
+
+    public void addPropertyChangeListener(PropertyChangeListener listener)
+    {
+        this.changeSupport.addPropertyChangeListener(listener);
+    }
+
+    public void removePropertyChangeListener(PropertyChangeListener listener)
+    {
+        this.changeSupport.removePropertyChangeListener(listener);
+    }
+
     /**
      * Get the surface area approximation for the current path or shape.
      *
@@ -117,7 +169,7 @@ public class AreaMeasurer extends LengthMeasurer implements MeasurableArea
         return this.isFollowTerrain() ? getSurfaceArea(globe) : getProjectedArea(globe);
     }
 
-    public double getSurfaceArea(Globe globe)
+    public synchronized double getSurfaceArea(Globe globe)
     {
         if (globe == null)
         {
@@ -126,10 +178,23 @@ public class AreaMeasurer extends LengthMeasurer implements MeasurableArea
             throw new IllegalArgumentException(message);
         }
 
-        if (this.surfaceArea < 0)
+        if (this.surfaceArea >= 0 || getBoundingSector() == null || !this.isClosedShape())
+            return this.surfaceArea;
+
+        if (!this.isComputeInBackground())
+        {
             this.surfaceArea = this.computeSurfaceAreaSampling(globe, this.areaTerrainSamplingSteps);
+            return this.surfaceArea;
+        }
 
-        return this.surfaceArea;
+        if (this.sampling == null || this.sampling.version != this.version || this.sampling.globe != globe)
+        {
+            this.sampling = this.createSurfaceAreaSampling(globe, this.areaTerrainSamplingSteps);
+            this.startSurfaceAreaSampling(this.sampling);
+        }
+
+        // The sampling may have completed already.
+        return this.surfaceArea >= 0 ? this.surfaceArea : this.sampling.estimate;
     }
 
     public double getProjectedArea(Globe globe)
@@ -187,19 +252,6 @@ public class AreaMeasurer extends LengthMeasurer implements MeasurableArea
 
     // *** Computing area ******************************************************************
 
-    protected class Cell
-    {
-        Sector sector;
-        double projectedArea, surfaceArea;
-
-        public Cell(Sector sector, double projected, double surface)
-        {
-            this.sector = sector;
-            this.projectedArea = projected;
-            this.surfaceArea = surface;
-        }
-    }
-
     // *** Projected area ***
 
     // Tessellate the path in lat-lon space, then sum each triangle area.
@@ -210,8 +262,7 @@ public class AreaMeasurer extends LengthMeasurer implements MeasurableArea
         {
             // Subdivide long segments if needed
             if (this.subdividedPositions == null)
-                this.subdividedPositions = subdividePositions(globe, getPositions(), getMaxSegmentLength()
-                        , isFollowTerrain(), getPathType());
+                this.subdividedPositions = this.subdivideOutline(globe);
             // First: tessellate polygon
             int verticesCount = this.subdividedPositions.size() - 1; // trim last pos which is same as first
             float[] verts = new float[verticesCount * 3];
@@ -260,85 +311,453 @@ public class AreaMeasurer extends LengthMeasurer implements MeasurableArea
         return area;
     }
 
+    // Subdivide long segments of the path outline. Both area computations only use the outline latitude and longitude,
+    // so the outline does not follow the terrain.
+    protected ArrayList<? extends Position> subdivideOutline(Globe globe)
+    {
+        return subdividePositions(globe, getPositions(), getMaxSegmentLength(), false, getPathType());
+    }
+
     // *** Surface area - terrain following ***
 
-    // Sample the path bounding sector with square cells which area are approximated according to the surface normal at
-    // the cell south-west corner.
+    // Sample the path with square cells which area are approximated according to the surface normal at the cell
+    // south-west corner. Waits for all the cells to be sampled.
     protected double computeSurfaceAreaSampling(Globe globe, double steps)
     {
         Sector sector = getBoundingSector();
         if (sector != null && this.isClosedShape())
         {
-            // Subdivide long segments if needed
-            if (this.subdividedPositions == null)
-                this.subdividedPositions = subdividePositions(globe, getPositions(), getMaxSegmentLength(),
-                        true, getPathType());
+            final SurfaceAreaSampling sampling = this.createSurfaceAreaSampling(globe, steps);
+            final int numTasks = sampling.getNumTasks();
+            if (numTasks == 1)
+            {
+                sampling.sampleRows(0, 1);
+            }
+            else if (numTasks > 1)
+            {
+                List<Future<?>> futures = new ArrayList<Future<?>>(numTasks);
+                try
+                {
+                    for (int i = 0; i < numTasks; i++)
+                    {
+                        final int task = i;
+                        futures.add(getExecutor().submit(new Callable<Object>()
+                        {
+                            public Object call() throws Exception
+                            {
+                                sampling.sampleRows(task, numTasks);
+                                return null;
+                            }
+                        }));
+                    }
+
+                    for (Future<?> future : futures)
+                    {
+                        future.get();
+                    }
+                }
+                catch (ExecutionException e)
+                {
+                    if (e.getCause() instanceof RuntimeException)
+                        throw (RuntimeException) e.getCause();
+
+                    throw new WWRuntimeException(e.getCause());
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    throw new WWRuntimeException(e);
+                }
+                finally
+                {
+                    for (Future<?> future : futures)
+                    {
+                        future.cancel(true);
+                    }
+                }
+            }
+
+            return sampling.computeArea();
+        }
+        return -1;
+    }
+
+    // Prepare the sampling of the current path, reusing the cached cell areas if the sampling grid did not change.
+    protected SurfaceAreaSampling createSurfaceAreaSampling(Globe globe, double steps)
+    {
+        if (this.subdividedPositions == null)
+            this.subdividedPositions = this.subdivideOutline(globe);
+
+        SamplingGrid grid = new SamplingGrid(getBoundingSector(), steps);
+        if (this.cellAreas == null || !grid.equals(this.cellGrid) || globe != this.cellGlobe)
+        {
+            // Create a new map rather than clearing the current one, which may still be filled by a previous sampling.
+            this.cellAreas = new ConcurrentHashMap<Long, Double>();
+            this.cellGrid = grid;
+            this.cellGlobe = globe;
+        }
 
-            // Sample the bounding sector with cells about the same length in side - squares
+        return new SurfaceAreaSampling(globe, grid, this.cellAreas, this.subdividedPositions, this.version);
+    }
+
+    // Submit the sampling tasks to the worker threads, or complete the sampling right away if all cells are cached.
+    // Called with this measurer locked.
+    protected void startSurfaceAreaSampling(final SurfaceAreaSampling sampling)
+    {
+        int numTasks = sampling.getNumTasks();
+        if (numTasks == 0)
+        {
+            this.surfaceArea = sampling.estimate;
+            return;
+        }
+
+        for (int i = 0; i < numTasks; i++)
+        {
+            final int task = i;
+            final int count = numTasks;
+            getExecutor().execute(new Runnable()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        sampling.sampleRows(task, count);
+                    }
+                    catch (Throwable t)
+                    {
+                        String message = Logging.getMessage("AreaMeasurer.ExceptionComputingSurfaceArea");
+                        Logging.logger().log(Level.SEVERE, message, t);
+                    }
+                    finally
+                    {
+                        sampling.taskCompleted();
+                    }
+                }
+            });
+        }
+    }
+
+    protected static synchronized ThreadPoolExecutor getExecutor()
+    {
+        if (executor == null)
+        {
+            int numThreads = Runtime.getRuntime().availableProcessors();
+            executor = new ThreadPoolExecutor(numThreads, numThreads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory()
+            {
+                public Thread newThread(Runnable runnable)
+                {
+                    Thread thread = new Thread(runnable);
+                    thread.setDaemon(true);
+                    thread.setName("Area Measurer");
+                    return thread;
+                }
+            });
+            executor.allowCoreThreadTimeOut(true);
+        }
+
+        return executor;
+    }
+
+    /**
+     * A sampling grid aligned with the south-west corner of a sector. Its latitude step is a power of the fourth root of
+     * two radians, and its longitude step is the latitude step scaled by a power of the fourth root of two to keep cells
+     * about square at the sector latitude. Paths of about the same size and with the same south-west corner therefore
+     * share the same grid.
+     */
+    protected static class SamplingGrid
+    {
+        protected final double minLatRadians;
+        protected final double minLonRadians;
+        protected final int latLevel;
+        protected final int lonLevel;
+        protected final double latStepRadians;
+        protected final double lonStepRadians;
+
+        public SamplingGrid(Sector sector, double steps)
+        {
+            this.minLatRadians = sector.getMinLatitude().radians;
+            this.minLonRadians = sector.getMinLongitude().radians;
+
+            // Sample the bounding sector with cells about the same length in side - squares, using at least the
+            // requested number of rows.
             double stepRadians = Math.max(sector.getDeltaLatRadians() / steps, sector.getDeltaLonRadians() / steps);
-            int latSteps = (int)Math.round(sector.getDeltaLatRadians() / stepRadians);
-            int lonSteps = (int)Math.round(sector.getDeltaLonRadians() / stepRadians
-                    * Math.cos(sector.getCentroid().getLatitude().radians));
-            double latStepRadians = sector.getDeltaLatRadians() / latSteps;
-            double lonStepRadians = sector.getDeltaLonRadians() / lonSteps;
+            stepRadians = Math.max(stepRadians, MIN_SAMPLING_STEP_RADIANS);
+            this.latLevel = (int) Math.floor(4 * Math.log(stepRadians) / Math.log(2));
+            this.latStepRadians = Math.pow(2, this.latLevel / 4d);
 
-            if (this.sectorCells == null)
-                this.sectorCells = new Cell[latSteps][lonSteps];
-            if (this.sectorElevations == null)
-                this.sectorElevations = new Double[latSteps + 1][lonSteps + 1];
+            double cosLat = Math.max(Math.cos(sector.getCentroid().getLatitude().radians), 1e-3);
+            this.lonLevel = (int) Math.round(4 * Math.log(1 / cosLat) / Math.log(2));
+            this.lonStepRadians = this.latStepRadians * Math.pow(2, this.lonLevel / 4d);
+        }
 
-            double area = 0;
-            for (int i = 0; i < latSteps; i++)
+        public int getRow(double latRadians)
+        {
+            return (int) Math.floor((latRadians - this.minLatRadians) / this.latStepRadians);
+        }
+
+        public int getColumn(double lonRadians)
+        {
+            return (int) Math.floor((lonRadians - this.minLonRadians) / this.lonStepRadians);
+        }
+
+        public double getLatitude(double row)
+        {
+            return this.minLatRadians + row * this.latStepRadians;
+        }
+
+        public double getLongitude(double column)
+        {
+            return this.minLonRadians + column * this.lonStepRadians;
+        }
+
+        public long getCellKey(int row, int column)
+        {
+            return ((long) row << 32) | (column & 0xFFFFFFFFL);
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+                return true;
+            if (o == null || getClass() != o.getClass())
+                return false;
+
+            SamplingGrid that = (SamplingGrid) o;
+            return this.minLatRadians == that.minLatRadians && this.minLonRadians == that.minLonRadians
+                && this.latLevel == that.latLevel && this.lonLevel == that.lonLevel;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            long bits = Double.doubleToLongBits(this.minLatRadians) * 31 + Double.doubleToLongBits(this.minLonRadians);
+            return 31 * (31 * (int) (bits ^ (bits >>> 32)) + this.latLevel) + this.lonLevel;
+        }
+    }
+
+    /** The cells of one sampling grid row which center is inside the path. */
+    protected static class SamplingRow
+    {
+        protected final int row;
+        protected final int[] columns;
+        protected final double cellWidth;
+        protected final double cellHeight;
+
+        public SamplingRow(int row, int[] columns, double cellWidth, double cellHeight)
+        {
+            this.row = row;
+            this.columns = columns;
+            this.cellWidth = cellWidth;
+            this.cellHeight = cellHeight;
+        }
+    }
+
+    /**
+     * One surface area computation. Rows containing cells not yet in the cell areas cache are split among a number of
+     * tasks, each of which can be run on its own thread.
+     */
+    protected class SurfaceAreaSampling
+    {
+        protected final Globe globe;
+        protected final SamplingGrid grid;
+        protected final Map<Long, Double> cellAreas;
+        // Areas of the cells sampled before the elevations were available at the grid resolution, not cached
+        protected final Map<Long, Double> provisionalCellAreas = new ConcurrentHashMap<Long, Double>();
+        protected final long version;
+        protected final List<SamplingRow> rows = new ArrayList<SamplingRow>();
+        protected final List<SamplingRow> pendingRows = new ArrayList<SamplingRow>();
+        protected int pendingTasks;
+        protected volatile double estimate;
+
+        public SurfaceAreaSampling(Globe globe, SamplingGrid grid, Map<Long, Double> cellAreas,
+            List<? extends LatLon> outline, long version)
+        {
+            this.globe = globe;
+            this.grid = grid;
+            this.cellAreas = cellAreas;
+            this.version = version;
+
+            this.selectCells(outline);
+            this.pendingTasks = this.getNumTasks();
+            this.estimate = this.computeArea();
+        }
+
+        // Select the cells which center is inside the outline, row by row. The outline edges crossing each row center
+        // latitude are sorted by longitude, and a cell center is inside if an odd number of crossings lie east of it,
+        // as in WWMath.isLocationInside().
+        protected void selectCells(List<? extends LatLon> outline)
+        {
+            Sector sector = Sector.boundingSector(outline);
+            int minRow = this.grid.getRow(sector.getMinLatitude().radians);
+            int maxRow = this.grid.getRow(sector.getMaxLatitude().radians);
+
+            double[] crossings = new double[outline.size()];
+            for (int row = minRow; row <= maxRow; row++)
             {
-                double lat = sector.getMinLatitude().radians + latStepRadians * i;
-                // Compute this latitude row cells area
-                double radius = globe.getRadiusAt(Angle.fromRadians(lat + latStepRadians / 2),
-                        sector.getCentroid().getLongitude());
-                double cellWidth = lonStepRadians * radius * Math.cos(lat + latStepRadians / 2);
-                double cellHeight = latStepRadians * radius;
-                double cellArea = cellWidth * cellHeight;
-
-                for (int j = 0; j < lonSteps; j++)
+                double lat = this.grid.getLatitude(row + 0.5);
+                int numCrossings = 0;
+                for (int i = 1; i < outline.size(); i++)
                 {
-                    double lon = sector.getMinLongitude().radians + lonStepRadians * j;
-                    Sector cellSector = Sector.fromRadians(lat, lat + latStepRadians, lon, lon + lonStepRadians);
-                    // Select cells which center is inside the shape
-                    if (WWMath.isLocationInside(cellSector.getCentroid(), this.subdividedPositions))
+                    double lat1 = outline.get(i - 1).getLatitude().radians;
+                    double lat2 = outline.get(i).getLatitude().radians;
+                    if ((lat2 <= lat && lat < lat1) || (lat1 <= lat && lat < lat2))
                     {
-                        Cell cell = this.sectorCells[i][j];
-                        if (cell == null || cell.surfaceArea == -1)
-                        {
-                            // Compute suface area using terrain normal in SW corner
-                            // Corners elevation
-                            double eleSW = sectorElevations[i][j] != null ? sectorElevations[i][j]
-                                    : globe.getElevation(Angle.fromRadians(lat), Angle.fromRadians(lon));
-                            double eleSE = sectorElevations[i][j + 1] != null ? sectorElevations[i][j + 1]
-                                    : globe.getElevation(Angle.fromRadians(lat), Angle.fromRadians(lon + lonStepRadians));
-                            double eleNW = sectorElevations[i + 1][j] != null ? sectorElevations[i + 1][j]
-                                    : globe.getElevation(Angle.fromRadians(lat + latStepRadians), Angle.fromRadians(lon));
-                            // Cache elevations
-                            sectorElevations[i][j] = eleSW;
-                            sectorElevations[i][j + 1] = eleSE;
-                            sectorElevations[i + 1][j] = eleNW;
-                            // Compute normal
-                            Vec4 vx = new Vec4(cellWidth, 0, eleSE - eleSW).normalize3();
-                            Vec4 vy = new Vec4(0, cellHeight, eleNW - eleSW).normalize3();
-                            Vec4 normalSW = vx.cross3(vy).normalize3(); // point toward positive Z
-                            // Compute slope factor
-                            double tan = Math.tan(Vec4.UNIT_Z.angleBetween3(normalSW).radians);
-                            double slopeFactor = Math.sqrt(1 + tan * tan);
-                            // Create and cache cell
-                            cell = new Cell(cellSector, cellArea, cellArea * slopeFactor);
-                            this.sectorCells[i][j] = cell;
-                        }
-                        // Add cell area
-                        area += cell.surfaceArea;
+                        double lon1 = outline.get(i - 1).getLongitude().radians;
+                        double lon2 = outline.get(i).getLongitude().radians;
+                        crossings[numCrossings++] = (lon1 - lon2) * (lat - lat2) / (lat1 - lat2) + lon2;
+                    }
+                }
+                if (numCrossings == 0)
+                    continue;
+
+                Arrays.sort(crossings, 0, numCrossings);
+                int minColumn = this.grid.getColumn(crossings[0]);
+                int maxColumn = this.grid.getColumn(crossings[numCrossings - 1]);
+
+                int[] columns = new int[maxColumn - minColumn + 1];
+                int numColumns = 0;
+                boolean pending = false;
+                int west = 0; // number of crossings west of the cell center
+                for (int column = minColumn; column <= maxColumn; column++)
+                {
+                    double lon = this.grid.getLongitude(column + 0.5);
+                    while (west < numCrossings && crossings[west] <= lon)
+                    {
+                        west++;
+                    }
+                    if ((numCrossings - west) % 2 == 1)
+                    {
+                        columns[numColumns++] = column;
+                        pending |= !this.cellAreas.containsKey(this.grid.getCellKey(row, column));
                     }
                 }
+                if (numColumns == 0)
+                    continue;
+
+                double radius = this.globe.getRadiusAt(Angle.fromRadians(lat),
+                    Angle.fromRadians(this.grid.getLongitude(columns[0] + 0.5)));
+                SamplingRow samplingRow = new SamplingRow(row, Arrays.copyOf(columns, numColumns),
+                    this.grid.lonStepRadians * radius * Math.cos(lat), this.grid.latStepRadians * radius);
+                this.rows.add(samplingRow);
+                if (pending)
+                    this.pendingRows.add(samplingRow);
+            }
+        }
+
+        public int getNumTasks()
+        {
+            return Math.min(this.pendingRows.size(), getExecutor().getMaximumPoolSize() * TASKS_PER_THREAD);
+        }
+
+        // Sample the pending rows assigned to a task, unless the measurer positions or settings change meanwhile.
+        public void sampleRows(int task, int numTasks)
+        {
+            for (int i = task; i < this.pendingRows.size(); i += numTasks)
+            {
+                if (this.isCancelled())
+                    return;
+
+                this.sampleRow(this.pendingRows.get(i));
+            }
+        }
+
+        // Compute the surface area of the row cells not yet cached. The elevations of the cells south-west, south-east
+        // and north-west corners are retrieved with a single query. The areas are cached only if the elevations were
+        // retrieved at the grid resolution, or at the best resolution the elevation model has.
+        protected void sampleRow(SamplingRow row)
+        {
+            int[] columns = new int[row.columns.length];
+            int numColumns = 0;
+            for (int column : row.columns)
+            {
+                if (!this.cellAreas.containsKey(this.grid.getCellKey(row.row, column)))
+                    columns[numColumns++] = column;
+            }
+            if (numColumns == 0)
+                return;
+
+            double minLat = this.grid.getLatitude(row.row);
+            double maxLat = Math.min(minLat + this.grid.latStepRadians, Math.PI / 2);
+            double minLon = this.grid.getLongitude(columns[0]);
+            double maxLon = this.grid.getLongitude(columns[numColumns - 1] + 1);
+
+            ArrayList<LatLon> corners = new ArrayList<LatLon>(numColumns * 3);
+            for (int i = 0; i < numColumns; i++)
+            {
+                double lon = this.grid.getLongitude(columns[i]);
+                corners.add(LatLon.fromRadians(minLat, lon));
+                corners.add(LatLon.fromRadians(minLat, lon + this.grid.lonStepRadians));
+                corners.add(LatLon.fromRadians(maxLat, lon));
+            }
+            Sector sector = Sector.fromRadians(minLat, maxLat, minLon, maxLon);
+            double[] elevations = new double[corners.size()];
+            double resolution = this.globe.getElevations(sector, corners, this.grid.latStepRadians, elevations);
+
+            double targetResolution = this.grid.latStepRadians;
+            if (this.globe.getElevationModel() != null)
+                targetResolution = Math.max(targetResolution, this.globe.getElevationModel().getBestResolution(sector));
+            Map<Long, Double> areas = resolution <= targetResolution ? this.cellAreas : this.provisionalCellAreas;
+
+            double cellArea = row.cellWidth * row.cellHeight;
+            for (int i = 0; i < numColumns; i++)
+            {
+                // The slope factor is the inverse cosine of the angle between the cell normal and the vertical.
+                double eleSW = elevations[i * 3];
+                double dx = (elevations[i * 3 + 1] - eleSW) / row.cellWidth;
+                double dy = (elevations[i * 3 + 2] - eleSW) / row.cellHeight;
+                double slopeFactor = Math.sqrt(1 + dx * dx + dy * dy);
+                areas.put(this.grid.getCellKey(row.row, columns[i]), cellArea * slopeFactor);
+            }
+        }
+
+        // Sum the cells area. Cells not yet sampled count for their flat area.
+        public double computeArea()
+        {
+            double area = 0;
+            for (SamplingRow row : this.rows)
+            {
+                double cellArea = row.cellWidth * row.cellHeight;
+                for (int column : row.columns)
+                {
+                    long key = this.grid.getCellKey(row.row, column);
+                    Double surfaceArea = this.cellAreas.get(key);
+                    if (surfaceArea == null)
+                        surfaceArea = this.provisionalCellAreas.get(key);
+                    area += surfaceArea != null ? surfaceArea : cellArea;
+                }
             }
             return area;
         }
-        return -1;
+
+        public boolean isCancelled()
+        {
+            return this.version != AreaMeasurer.this.version;
+        }
+
+        // Update the estimate when a background task completes, and notify the listeners.
+        public synchronized void taskCompleted()
+        {
+            if (this.isCancelled())
+                return;
+
+            this.estimate = this.computeArea();
+            if (--this.pendingTasks > 0)
+            {
+                changeSupport.firePropertyChange(EVENT_SURFACE_AREA_PROGRESS, null, this.estimate);
+                return;
+            }
+
+            synchronized (AreaMeasurer.this)
+            {
+                if (this.isCancelled())
+                    return;
+
+                surfaceArea = this.estimate;
+            }
+            changeSupport.firePropertyChange(EVENT_SURFACE_AREA_COMPLETE, null, this.estimate);
+        }
     }
 
 // Below code is an attempt at computing the surface area using geometry.
@@ -345,10 +345,7 @@ public class LengthMeasurer implements MeasurableLength
         ArrayList<Position> newPositions = new ArrayList<Position>();
         // Add first position
         Position pos1 = positions.get(start);
-        if (followTerrain)
-            newPositions.add(new Position(pos1, globe.getElevation(pos1.getLatitude(), pos1.getLongitude())));
-        else
-            newPositions.add(pos1);
+        newPositions.add(pos1);
         for(int i = 1; i < count; i++)
         {
             Position pos2 = positions.get(start + i);
@@ -388,25 +385,45 @@ public class LengthMeasurer implements MeasurableLength
                         destLatLon = LatLon.greatCircleEndPosition(pos1, segmentAzimuth.radians,
                                 s * segmentDistance.radians);
                     }
-                    // Set elevation
-                    double elevation;
-                    if (followTerrain)
-                        elevation = globe.getElevation(destLatLon.getLatitude(), destLatLon.getLongitude());
-                    else
-                        elevation = pos1.getElevation() * (1 - s) + pos2.getElevation() * s;
+                    // Set elevation - terrain elevations are set once all positions are known
+                    double elevation = pos1.getElevation() * (1 - s) + pos2.getElevation() * s;
                     // Add new position
                     newPositions.add(new Position(destLatLon, elevation));
                 }
             }
             // Finally add the segment end position
-            if (followTerrain)
-                newPositions.add(new Position(pos2, globe.getElevation(pos2.getLatitude(), pos2.getLongitude())));
-            else
-                newPositions.add(pos2);
+            newPositions.add(pos2);
             // Prepare for next segment
             pos1 = pos2;
         }
+
+        if (followTerrain)
+            setTerrainElevations(globe, newPositions, maxLength);
+
         return newPositions;
     }
 
+    /**
+     * Set the elevation of each position in a list to the terrain elevation, using a single elevation query for the
+     * whole list.
+     *
+     * @param globe the globe to draw elevations from.
+     * @param positions the positions to update.
+     * @param resolution the distance between positions, in meters, used to select the terrain resolution.
+     */
+    protected static void setTerrainElevations(Globe globe, ArrayList<Position> positions, double resolution)
+    {
+        if (positions.size() == 0)
+            return;
+
+        double[] elevations = new double[positions.size()];
+        globe.getElevations(Sector.boundingSector(positions), positions, resolution / globe.getEquatorialRadius(),
+            elevations);
+
+        for (int i = 0; i < positions.size(); i++)
+        {
+            positions.set(i, new Position(positions.get(i), elevations[i]));
+        }
+    }
+
 }
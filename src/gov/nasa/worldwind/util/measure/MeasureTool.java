@@ -14,8 +14,10 @@ import gov.nasa.worldwind.layers.RenderableLayer;
 import gov.nasa.worldwind.render.*;
 import gov.nasa.worldwind.util.*;
 
+import javax.swing.SwingUtilities;
 import java.awt.*;
 import java.awt.geom.*;
+import java.beans.*;
 import java.util.*;
 import java.util.List;
 
@@ -132,6 +134,9 @@ public class MeasureTool extends AVListImpl implements Disposable
     protected Polyline line;
     protected SurfaceShape surfaceShape;
     protected ScreenAnnotation annotation;
+    protected Position annotationPosition;
+    protected AreaMeasurer areaMeasurer; // samples the shape terrain following area in the background
+    protected ArrayList<LatLon> areaMeasurerLocations;
 
     protected Color lineColor = Color.YELLOW;
     protected Color fillColor = new Color(.6f, .6f, .4f, .5f);
@@ -989,11 +994,72 @@ public class MeasureTool extends AVListImpl implements Disposable
         Globe globe = this.wwd.getModel().getGlobe();
 
         if (this.surfaceShape != null)
-            return this.surfaceShape.getArea(globe, this.followTerrain);
+            return this.followTerrain ? this.getSurfaceArea(globe) : this.surfaceShape.getArea(globe, false);
 
         return -1;
     }
 
+    // Terrain following area is sampled in the background so as not to hold the event dispatch thread. Until the
+    // sampling completes, the returned area is an estimate.
+    protected double getSurfaceArea(Globe globe)
+    {
+        ArrayList<LatLon> locations = new ArrayList<LatLon>();
+        Iterable<? extends LatLon> iterable = this.surfaceShape.getLocations(globe);
+        if (iterable != null)
+        {
+            for (LatLon ll : iterable)
+            {
+                locations.add(ll);
+            }
+
+            if (locations.size() > 1 && !locations.get(0).equals(locations.get(locations.size() - 1)))
+                locations.add(locations.get(0));
+        }
+
+        if (this.areaMeasurer == null)
+            this.areaMeasurer = this.createAreaMeasurer();
+
+        // Only update the measurer when the shape changed, since updating cancels any sampling in progress.
+        if (!locations.equals(this.areaMeasurerLocations))
+        {
+            this.areaMeasurer.setPositions(locations, 0);
+            this.areaMeasurerLocations = locations;
+        }
+
+        return this.areaMeasurer.getSurfaceArea(globe);
+    }
+
+    protected AreaMeasurer createAreaMeasurer()
+    {
+        AreaMeasurer measurer = new AreaMeasurer();
+        measurer.setFollowTerrain(true);
+        measurer.setComputeInBackground(true);
+        measurer.addPropertyChangeListener(new PropertyChangeListener()
+        {
+            public void propertyChange(PropertyChangeEvent event)
+            {
+                // Sampling events are fired from the measurer worker threads.
+                SwingUtilities.invokeLater(new Runnable()
+                {
+                    public void run()
+                    {
+                        surfaceAreaChanged();
+                    }
+                });
+            }
+        });
+        return measurer;
+    }
+
+    protected void surfaceAreaChanged()
+    {
+        if (this.annotation.getAttributes().isVisible() && this.annotationPosition != null)
+            this.updateAnnotation(this.annotationPosition);
+
+        this.firePropertyChange(EVENT_METRIC_CHANGED, null, null);
+        this.wwd.redraw();
+    }
+
     public double getWidth()
     {
         if (this.shapeRectangle != null)
@@ -2098,6 +2164,8 @@ public class MeasureTool extends AVListImpl implements Disposable
 
     public void updateAnnotation(Position pos)
     {
+        this.annotationPosition = pos;
+
         if (pos == null)
         {
             this.annotation.getAttributes().setVisible(false);
@@ -18,6 +18,10 @@ import gov.nasa.worldwind.util.*;
  */
 public class ViewElevationAnimator extends DoubleAnimator
 {
+    protected static final int MAX_SMOOTHING = 1;
+    protected static final double ZOOM_START = 0.0;
+    protected static final double ZOOM_STOP = 1.0;
+
     protected double midZoom;
     protected boolean useMidZoom = true;
     protected double trueEndZoom;
@@ -70,34 +74,50 @@ public class ViewElevationAnimator extends DoubleAnimator
      */
     public void set(double interpolant)
     {
-        final int MAX_SMOOTHING = 1;
-        final double ZOOM_START = 0.0;
-        final double ZOOM_STOP = 1.0;
         if (interpolant >= 1.0)
             this.stop();
-        double  zoomInterpolant;
 
+        if (this.useMidZoom)
+        {
+            this.propertyAccessor.setDouble(this.computeZoom(interpolant));
+        }
+        else
+        {
+            double zoomInterpolant = AnimationSupport.basicInterpolant(interpolant, ZOOM_START, ZOOM_STOP,
+                MAX_SMOOTHING);
+            super.set(zoomInterpolant);
+        }
+    }
 
+    /**
+     * Computes the zoom for the given interpolant, without setting it.
+     * @param interpolant A value between 0 and 1.
+     * @return the zoom at the interpolant.
+     */
+    public double computeZoom(double interpolant)
+    {
         if (this.useMidZoom)
         {
-            double value;
-            zoomInterpolant = this.zoomInterpolant(interpolant, ZOOM_START, ZOOM_STOP, MAX_SMOOTHING);
+            double zoomInterpolant = this.zoomInterpolant(interpolant, ZOOM_START, ZOOM_STOP, MAX_SMOOTHING);
             if (interpolant <= .5)
-            {
-                value = nextDouble(zoomInterpolant, this.begin, this.end);
-            }
+                return nextDouble(zoomInterpolant, this.begin, this.end);
             else
-            {
-                value = nextDouble(zoomInterpolant, this.end, this.trueEndZoom);
-            }
-            this.propertyAccessor.setDouble(value);
+                return nextDouble(zoomInterpolant, this.end, this.trueEndZoom);
         }
         else
         {
-            zoomInterpolant = AnimationSupport.basicInterpolant(interpolant, ZOOM_START, ZOOM_STOP, MAX_SMOOTHING);
-            super.set(zoomInterpolant);
+            double zoomInterpolant = AnimationSupport.basicInterpolant(interpolant, ZOOM_START, ZOOM_STOP,
+                MAX_SMOOTHING);
+            return nextDouble(zoomInterpolant, this.begin, this.end);
         }
+    }
+
+    public Double predictDouble(long timeMillis, int numSteps)
+    {
+        if (!(this.interpolator instanceof ScheduledInterpolator))
+            return null;
 
+        return this.computeZoom(((ScheduledInterpolator) this.interpolator).getInterpolant(timeMillis));
     }
 
     private double zoomInterpolant(double interpolant, double startInterpolant, double stopInterpolant,
@@ -0,0 +1,389 @@
+/*
+Copyright (C) 2001, 2010 United States Government
+as represented by the Administrator of the
+National Aeronautics and Space Administration.
+All Rights Reserved.
+*/
+package gov.nasa.worldwind.view;
+
+import gov.nasa.worldwind.View;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.Earth;
+import gov.nasa.worldwind.util.Logging;
+import gov.nasa.worldwind.view.orbit.*;
+
+import java.util.*;
+
+/**
+ * Predicts where a view will be in the near future, so that the data it will show can be requested before it becomes
+ * visible. The predictor is updated once per frame with the view's center location and eye altitude. When the view is
+ * animating, such as during an {@link FlyToOrbitViewAnimator} flight or a smoothed pan in response to user input, the
+ * predicted positions follow the animation's own timeline over the look-ahead time. Otherwise the predictor extrapolates
+ * the view's recent motion over its look-ahead time. A view that is not moving has no predicted positions.
+ * <p/>
+ * Predicted positions are ordered from nearest to farthest in time. A position's elevation is the predicted eye
+ * altitude in meters. {@link #computeFootprint(gov.nasa.worldwind.geom.Position, gov.nasa.worldwind.geom.Angle,
+ * double)} and {@link #computeTexelSize(gov.nasa.worldwind.geom.Position, gov.nasa.worldwind.geom.Angle, int, double)}
+ * estimate the region and resolution a view at a predicted position would show.
+ * <p/>
+ * The predictor does not access OpenGL and may be exercised without a window. It is used by the rendering thread of one
+ * window and is not thread safe.
+ *
+ * @version $Id$
+ */
+public class ViewMotionPredictor
+{
+    /** The default look-ahead time, in milliseconds. */
+    public static final long DEFAULT_LOOK_AHEAD_MILLIS = 1500;
+    /** The default number of predicted positions. */
+    public static final int DEFAULT_NUM_PREDICTIONS = 3;
+
+    // Samples further apart than this are not used to estimate the view's velocity.
+    protected static final long MAX_SAMPLE_INTERVAL = 500; // milliseconds
+    // The frame interval assumed until one is measured.
+    protected static final double DEFAULT_FRAME_INTERVAL = 16; // milliseconds
+    // The weight of the newest sample in the smoothed velocity.
+    protected static final double VELOCITY_SMOOTHING = 0.5;
+    // Motion over the look-ahead time smaller than this fraction of the eye altitude is not considered movement.
+    protected static final double MIN_MOTION = 0.05;
+
+    protected long lookAheadMillis = DEFAULT_LOOK_AHEAD_MILLIS;
+    protected int numPredictions = DEFAULT_NUM_PREDICTIONS;
+    protected long lastTime = -1;
+    protected double lastLatitude;
+    protected double lastLongitude;
+    protected double lastAltitude;
+    // Smoothed rates of change, in degrees per millisecond and meters per millisecond.
+    protected double latitudeRate;
+    protected double longitudeRate;
+    protected double altitudeRate;
+    // Smoothed interval between updates, in milliseconds.
+    protected double frameInterval = DEFAULT_FRAME_INTERVAL;
+    protected List<Position> predictedPositions = new ArrayList<Position>();
+
+    public long getLookAheadMillis()
+    {
+        return this.lookAheadMillis;
+    }
+
+    /**
+     * Specifies how far into the future the predictor extrapolates the view's motion.
+     *
+     * @param lookAheadMillis the look-ahead time, in milliseconds.
+     *
+     * @throws IllegalArgumentException if the time is less than 1.
+     */
+    public void setLookAheadMillis(long lookAheadMillis)
+    {
+        if (lookAheadMillis < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "lookAheadMillis < 1");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.lookAheadMillis = lookAheadMillis;
+    }
+
+    public int getNumPredictions()
+    {
+        return this.numPredictions;
+    }
+
+    /**
+     * Specifies the number of positions predicted along the view's path.
+     *
+     * @param numPredictions the number of predicted positions.
+     *
+     * @throws IllegalArgumentException if the number is less than 1.
+     */
+    public void setNumPredictions(int numPredictions)
+    {
+        if (numPredictions < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "numPredictions < 1");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.numPredictions = numPredictions;
+    }
+
+    /**
+     * Indicates whether the predictor has predicted positions, which is the case when the view is moving or animating
+     * towards a target.
+     *
+     * @return true if the predictor has predicted positions, otherwise false.
+     */
+    public boolean hasPrediction()
+    {
+        return !this.predictedPositions.isEmpty();
+    }
+
+    /**
+     * Returns the positions predicted by the last update, from nearest to farthest in time. The elevation of each
+     * position is the predicted eye altitude.
+     *
+     * @return the predicted positions. The list is empty if the view is not moving.
+     */
+    public List<Position> getPredictedPositions()
+    {
+        return Collections.unmodifiableList(this.predictedPositions);
+    }
+
+    /**
+     * Updates the prediction with a view's current state. The view's center location is its center position if it is
+     * an {@link OrbitView}, otherwise its eye location. The view's animation is predicted by its input handler if that
+     * is an {@link OrbitViewInputHandler}; see {@link #predictAnimatedPath(long, OrbitView, OrbitViewInputHandler,
+     * LatLon, double)}.
+     *
+     * @param timeMillis the time of the view's state, in milliseconds.
+     * @param view       the view.
+     *
+     * @throws IllegalArgumentException if the view is null.
+     */
+    public void update(long timeMillis, View view)
+    {
+        if (view == null)
+        {
+            String message = Logging.getMessage("nullValue.ViewIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        Position eyePosition = view.getEyePosition();
+        if (eyePosition == null)
+            return;
+
+        LatLon center = eyePosition;
+        double altitude = eyePosition.getElevation();
+        List<Position> animatedPath = null;
+
+        if (view instanceof OrbitView)
+        {
+            OrbitView orbitView = (OrbitView) view;
+            if (orbitView.getCenterPosition() != null)
+                center = orbitView.getCenterPosition();
+
+            if (view.getViewInputHandler() instanceof OrbitViewInputHandler)
+            {
+                animatedPath = this.predictAnimatedPath(timeMillis, orbitView,
+                    (OrbitViewInputHandler) view.getViewInputHandler(), center, altitude);
+            }
+        }
+
+        this.update(timeMillis, center, altitude, animatedPath);
+    }
+
+    /**
+     * Updates the prediction with a view's current center location and eye altitude, and the positions its animation
+     * will reach, if any.
+     *
+     * @param timeMillis   the time of the view's state, in milliseconds.
+     * @param center       the view's center location.
+     * @param altitude     the view's eye altitude, in meters.
+     * @param animatedPath the positions the view's animation will reach at the times given by {@link
+     *                     #getPredictionTime(int)}, from nearest to farthest in time, or null if the view is not
+     *                     animating. The elevation of each position is the eye altitude.
+     *
+     * @throws IllegalArgumentException if the center is null.
+     */
+    public void update(long timeMillis, LatLon center, double altitude, List<? extends Position> animatedPath)
+    {
+        if (center == null)
+        {
+            String message = Logging.getMessage("nullValue.LatLonIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        double latitude = center.getLatitude().degrees;
+        double longitude = center.getLongitude().degrees;
+        long interval = timeMillis - this.lastTime;
+
+        if (this.lastTime >= 0 && interval > 0 && interval <= MAX_SAMPLE_INTERVAL)
+        {
+            double latitudeRate = (latitude - this.lastLatitude) / interval;
+            double longitudeRate = normalizeLongitude(longitude - this.lastLongitude) / interval;
+            double altitudeRate = (altitude - this.lastAltitude) / interval;
+
+            this.latitudeRate += VELOCITY_SMOOTHING * (latitudeRate - this.latitudeRate);
+            this.longitudeRate += VELOCITY_SMOOTHING * (longitudeRate - this.longitudeRate);
+            this.altitudeRate += VELOCITY_SMOOTHING * (altitudeRate - this.altitudeRate);
+            this.frameInterval += VELOCITY_SMOOTHING * (interval - this.frameInterval);
+        }
+        else if (interval != 0)
+        {
+            // The first sample, or the first after a pause: the view's velocity is unknown.
+            this.latitudeRate = 0;
+            this.longitudeRate = 0;
+            this.altitudeRate = 0;
+        }
+
+        this.lastTime = timeMillis;
+        this.lastLatitude = latitude;
+        this.lastLongitude = longitude;
+        this.lastAltitude = altitude;
+
+        this.predictedPositions.clear();
+        if (animatedPath != null && !animatedPath.isEmpty())
+            this.predictedPositions.addAll(animatedPath);
+        else if (this.isMoving(altitude))
+            this.predictExtrapolatedPath(latitude, longitude, altitude);
+    }
+
+    /**
+     * Returns how far into the future a predicted position lies. The predicted positions are evenly spaced over the
+     * look-ahead time.
+     *
+     * @param index the index of the predicted position, from 1 to the number of predictions.
+     *
+     * @return the time of the predicted position relative to the view's current state, in milliseconds.
+     */
+    public long getPredictionTime(int index)
+    {
+        return this.lookAheadMillis * index / this.numPredictions;
+    }
+
+    /**
+     * Predicts the positions of an animating orbit view along its animators' timelines, at the times given by {@link
+     * #getPredictionTime(int)}. Smoothed animations advance once per frame, so they are advanced by the number of
+     * frames expected at the measured frame interval. The predicted eye altitude scales the current eye altitude by the
+     * predicted zoom, which holds for a constant pitch.
+     *
+     * @param timeMillis   the time of the view's state, in milliseconds.
+     * @param view         the view.
+     * @param inputHandler the view's input handler, which holds its animators.
+     * @param center       the view's center location.
+     * @param altitude     the view's eye altitude, in meters.
+     *
+     * @return the predicted positions, or null if the view is not animating.
+     */
+    protected List<Position> predictAnimatedPath(long timeMillis, OrbitView view, OrbitViewInputHandler inputHandler,
+        LatLon center, double altitude)
+    {
+        List<Position> positions = new ArrayList<Position>(this.numPredictions);
+
+        for (int i = 1; i <= this.numPredictions; i++)
+        {
+            long time = this.getPredictionTime(i);
+            int numFrames = (int) Math.ceil(time / this.frameInterval);
+
+            Position predictedCenter = inputHandler.predictCenterPosition(timeMillis + time, numFrames);
+            Double predictedZoom = inputHandler.predictZoom(timeMillis + time, numFrames);
+            if (predictedCenter == null && predictedZoom == null)
+                return null;
+
+            double predictedAltitude = altitude;
+            if (predictedZoom != null && view.getZoom() > 0)
+                predictedAltitude = altitude * predictedZoom / view.getZoom();
+
+            positions.add(new Position(predictedCenter != null ? predictedCenter : center, predictedAltitude));
+        }
+
+        return positions;
+    }
+
+    protected boolean isMoving(double altitude)
+    {
+        double t = this.lookAheadMillis;
+        double lonScale = Math.cos(Math.toRadians(this.lastLatitude));
+        double angle = Math.toRadians(Math.hypot(this.latitudeRate * t, this.longitudeRate * t * lonScale));
+        double threshold = MIN_MOTION * Math.max(altitude, 1);
+
+        return angle * Earth.WGS84_EQUATORIAL_RADIUS > threshold || Math.abs(this.altitudeRate * t) > threshold;
+    }
+
+    protected void predictExtrapolatedPath(double latitude, double longitude, double altitude)
+    {
+        for (int i = 1; i <= this.numPredictions; i++)
+        {
+            double t = this.getPredictionTime(i);
+            double lat = Math.max(-90, Math.min(90, latitude + this.latitudeRate * t));
+            double lon = normalizeLongitude(longitude + this.longitudeRate * t);
+            // Limit the predicted descent so that a fast zoom does not predict an eye below the surface.
+            double alt = Math.max(altitude + this.altitudeRate * t, 0.1 * altitude);
+            this.predictedPositions.add(Position.fromDegrees(lat, lon, alt));
+        }
+    }
+
+    protected static double normalizeLongitude(double degrees)
+    {
+        double lon = degrees % 360;
+        return lon > 180 ? lon - 360 : lon < -180 ? 360 + lon : lon;
+    }
+
+    /**
+     * Estimates the region a view shows from a predicted position: a sector centered on the position's location and
+     * extending to either side by the distance a view looking straight down covers across its field of view.
+     *
+     * @param position    the predicted position. Its elevation is the eye altitude, in meters.
+     * @param fieldOfView the view's horizontal field of view.
+     * @param globeRadius the radius of the globe, in meters.
+     *
+     * @return the region shown from the position.
+     *
+     * @throws IllegalArgumentException if the position or field of view is null, or the radius is not positive.
+     */
+    public static Sector computeFootprint(Position position, Angle fieldOfView, double globeRadius)
+    {
+        validateArguments(position, fieldOfView, globeRadius);
+
+        double halfWidth = Math.toDegrees(Math.max(position.getElevation(), 1) * fieldOfView.tanHalfAngle()
+            / globeRadius);
+        halfWidth = Math.min(halfWidth, 90);
+
+        double lat = position.getLatitude().degrees;
+        double lon = position.getLongitude().degrees;
+        double cosLat = Math.cos(Math.toRadians(Math.min(Math.abs(lat) + halfWidth, 89)));
+        double lonHalfWidth = Math.min(halfWidth / cosLat, 180);
+
+        return Sector.fromDegrees(Math.max(lat - halfWidth, -90), Math.min(lat + halfWidth, 90),
+            Math.max(lon - lonHalfWidth, -180), Math.min(lon + lonHalfWidth, 180));
+    }
+
+    /**
+     * Estimates the size of a screen pixel at the center of a view at a predicted position, for a view looking straight
+     * down.
+     *
+     * @param position      the predicted position. Its elevation is the eye altitude, in meters.
+     * @param fieldOfView   the view's horizontal field of view.
+     * @param viewportWidth the width of the view's viewport, in pixels.
+     * @param globeRadius   the radius of the globe, in meters.
+     *
+     * @return the size of a pixel on the globe's surface, in radians.
+     *
+     * @throws IllegalArgumentException if the position or field of view is null, or the radius is not positive.
+     */
+    public static double computeTexelSize(Position position, Angle fieldOfView, int viewportWidth, double globeRadius)
+    {
+        validateArguments(position, fieldOfView, globeRadius);
+
+        return 2 * Math.max(position.getElevation(), 1) * fieldOfView.tanHalfAngle() / Math.max(viewportWidth, 1)
+            / globeRadius;
+    }
+
+    protected static void validateArguments(Position position, Angle fieldOfView, double globeRadius)
+    {
+        if (position == null)
+        {
+            String message = Logging.getMessage("nullValue.PositionIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (fieldOfView == null)
+        {
+            String message = Logging.getMessage("nullValue.AngleIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (globeRadius <= 0)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "globeRadius <= 0");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+    }
+}
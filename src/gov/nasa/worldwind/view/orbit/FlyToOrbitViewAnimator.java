@@ -124,6 +124,37 @@ public class FlyToOrbitViewAnimator extends CompoundAnimator
         }
     }
 
+    /**
+     * Predicts the center position of the flight at a future time, following the flight's schedule.
+     *
+     * @param timeMillis the time of interest, in milliseconds since the epoch.
+     *
+     * @return the predicted center position, or null if the flight is not scheduled.
+     */
+    public Position predictCenterPosition(long timeMillis)
+    {
+        if (!(this.interpolator instanceof ScheduledInterpolator))
+            return null;
+
+        return this.centerAnimator.nextPosition(((ScheduledInterpolator) this.interpolator).getInterpolant(timeMillis));
+    }
+
+    /**
+     * Predicts the zoom of the flight at a future time, following the flight's schedule. The zoom rises and falls again
+     * during flights that fly up to a mid-flight zoom.
+     *
+     * @param timeMillis the time of interest, in milliseconds since the epoch.
+     *
+     * @return the predicted zoom, or null if the flight is not scheduled.
+     */
+    public Double predictZoom(long timeMillis)
+    {
+        if (!(this.interpolator instanceof ScheduledInterpolator))
+            return null;
+
+        return this.zoomAnimator.computeZoom(((ScheduledInterpolator) this.interpolator).getInterpolant(timeMillis));
+    }
+
     public void stop()
     {
         if (endCenterOnSurface)
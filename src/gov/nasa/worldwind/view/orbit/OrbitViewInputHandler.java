@@ -627,6 +627,61 @@ public class OrbitViewInputHandler extends BasicViewInputHandler
         view.firePropertyChange(AVKey.VIEW, null, view);
     }
 
+    /**
+     * Predicts the center position of the view at a future time from the animators moving its center: a flight started
+     * by one of the <code>addPanToAnimator</code> methods, a center animation, or a smoothed pan in response to user
+     * input. Scheduled animations are evaluated at the specified time. Smoothed animations move a fixed fraction of the
+     * remaining distance each frame, and are advanced by the number of frames expected until that time.
+     *
+     * @param timeMillis the time of interest, in milliseconds since the epoch.
+     * @param numFrames  the number of frames expected to be drawn until that time.
+     *
+     * @return the predicted center position, or null if the view's center is not animating.
+     */
+    public Position predictCenterPosition(long timeMillis, int numFrames)
+    {
+        Animator animator = this.gotoAnimControl.get(VIEW_ANIM_PAN);
+        if (animator instanceof FlyToOrbitViewAnimator && animator.hasNext())
+            return ((FlyToOrbitViewAnimator) animator).predictCenterPosition(timeMillis);
+
+        animator = this.gotoAnimControl.get(VIEW_ANIM_CENTER);
+        if (animator instanceof PositionAnimator && animator.hasNext())
+            return ((PositionAnimator) animator).predictPosition(timeMillis, numFrames);
+
+        animator = this.uiAnimControl.get(VIEW_ANIM_CENTER);
+        if (animator instanceof PositionAnimator && animator.hasNext())
+            return ((PositionAnimator) animator).predictPosition(timeMillis, numFrames);
+
+        return null;
+    }
+
+    /**
+     * Predicts the zoom of the view at a future time from the animators changing its zoom: a flight started by one of
+     * the <code>addPanToAnimator</code> methods, a zoom animation, or a smoothed zoom in response to user input. See
+     * {@link #predictCenterPosition(long, int)}.
+     *
+     * @param timeMillis the time of interest, in milliseconds since the epoch.
+     * @param numFrames  the number of frames expected to be drawn until that time.
+     *
+     * @return the predicted zoom, or null if the view's zoom is not animating.
+     */
+    public Double predictZoom(long timeMillis, int numFrames)
+    {
+        Animator animator = this.gotoAnimControl.get(VIEW_ANIM_PAN);
+        if (animator instanceof FlyToOrbitViewAnimator && animator.hasNext())
+            return ((FlyToOrbitViewAnimator) animator).predictZoom(timeMillis);
+
+        animator = this.gotoAnimControl.get(VIEW_ANIM_ZOOM);
+        if (animator instanceof DoubleAnimator && animator.hasNext())
+            return ((DoubleAnimator) animator).predictDouble(timeMillis, numFrames);
+
+        animator = this.uiAnimControl.get(VIEW_ANIM_ZOOM);
+        if (animator instanceof DoubleAnimator && animator.hasNext())
+            return ((DoubleAnimator) animator).predictDouble(timeMillis, numFrames);
+
+        return null;
+    }
+
     protected static Position computeNewPosition(Position position, OrbitViewLimits limits)
     {
         Position newPosition = new Position(
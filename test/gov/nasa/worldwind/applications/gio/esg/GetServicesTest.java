@@ -0,0 +1,179 @@
+/*
+Copyright (C) 2001, 2010 United States Government
+as represented by the Administrator of the
+National Aeronautics and Space Administration.
+All Rights Reserved.
+*/
+package gov.nasa.worldwind.applications.gio.esg;
+
+import com.sun.net.httpserver.*;
+import gov.nasa.worldwind.applications.gio.catalogui.*;
+import gov.nasa.worldwind.applications.gio.csw.*;
+import gov.nasa.worldwind.avlist.*;
+import org.junit.*;
+
+import java.io.*;
+import java.net.*;
+import java.util.*;
+import java.util.regex.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs catalog searches through a {@link CachingCSWConnectionPool} against a stub CSW server holding 5 services, and
+ * checks the requests the server receives when the results are paged, prefetched and cached.
+ *
+ * @version $Id$
+ */
+public class GetServicesTest
+{
+    protected static final int NUM_RECORDS = 5;
+    protected static final int PAGE_SIZE = 2;
+    protected static final long RESPONSE_DELAY = 200L;
+
+    protected HttpServer server;
+    protected CachingCSWConnectionPool connectionPool;
+    /** The start positions of the requests received by the server, in the order received. */
+    protected final List<Integer> requests = Collections.synchronizedList(new ArrayList<Integer>());
+
+    @Before
+    public void setUp() throws Exception
+    {
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.createContext("/csw", new HttpHandler()
+        {
+            public void handle(HttpExchange exchange) throws IOException
+            {
+                handleRequest(exchange);
+            }
+        });
+        this.server.start();
+
+        URL url = new URL("http://127.0.0.1:" + this.server.getAddress().getPort() + "/csw");
+        this.connectionPool = new CachingCSWConnectionPool(new HttpCSWConnectionPool(url));
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.server.stop(0);
+        this.server = null;
+        this.connectionPool = null;
+    }
+
+    @Test
+    public void testResultsArePaged() throws Exception
+    {
+        ResultList resultList = this.search("water");
+
+        assertEquals(NUM_RECORDS, resultList.size());
+        assertEquals(3, this.requests.size());
+    }
+
+    @Test
+    public void testPrefetchedPagesAreNotRequestedAgain() throws Exception
+    {
+        this.search("water");
+
+        // Pages 3 and 5 are prefetched while the preceding page is parsed. The search waits for each prefetch rather
+        // than sending its page's request a second time.
+        List<Integer> startPositions = new ArrayList<Integer>(this.requests);
+        Collections.sort(startPositions);
+        assertEquals(Arrays.asList(1, 3, 5), startPositions);
+    }
+
+    @Test
+    public void testRepeatedSearchIsCached() throws Exception
+    {
+        this.search("water");
+        this.requests.clear();
+
+        // The keyword whitespace differs, but the request XML is the same once the whitespace between elements is
+        // removed.
+        ResultList resultList = this.search("  water ");
+
+        assertEquals(NUM_RECORDS, resultList.size());
+        assertTrue(this.requests.isEmpty());
+    }
+
+    @Test
+    public void testExpiredResponsesAreRequestedAgain() throws Exception
+    {
+        this.search("water");
+        this.requests.clear();
+
+        this.connectionPool.setExpiryTime(0);
+        Thread.sleep(10);
+        ResultList resultList = this.search("water");
+
+        assertEquals(NUM_RECORDS, resultList.size());
+        assertEquals(3, this.requests.size());
+    }
+
+    protected ResultList search(String keywords) throws Exception
+    {
+        AVList params = new AVListImpl();
+        params.setValue(CatalogKey.KEYWORD_TEXT, keywords);
+
+        ResultList resultList = new DefaultResultList();
+        GetServices getServices = new GetServices(params, resultList);
+        getServices.setPageSize(PAGE_SIZE);
+        assertNull(getServices.executeRequest(this.connectionPool));
+
+        return resultList;
+    }
+
+    protected void handleRequest(HttpExchange exchange) throws IOException
+    {
+        Matcher matcher = Pattern.compile("startPosition=\"(\\d+)\"").matcher(readContent(exchange.getRequestBody()));
+        int start = matcher.find() ? Integer.parseInt(matcher.group(1)) : 1;
+        this.requests.add(start);
+
+        // Delay the response so a page's prefetch is still in progress when the search asks for that page.
+        try
+        {
+            Thread.sleep(RESPONSE_DELAY);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        int numReturned = Math.max(0, Math.min(PAGE_SIZE, NUM_RECORDS - start + 1));
+        int nextRecord = start + numReturned > NUM_RECORDS ? 0 : start + numReturned;
+
+        StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version=\"1.0\"?>");
+        sb.append("<csw:GetRecordsResponse xmlns:csw=\"http://www.opengis.net/cat/csw/2.0.2\"");
+        sb.append(" xmlns:rim=\"urn:oasis:names:tc:ebxml-regrep:xsd:rim:3.0\">");
+        sb.append("<csw:SearchStatus timestamp=\"2010-01-01T00:00:00\"/>");
+        sb.append("<csw:SearchResults numberOfRecordsMatched=\"").append(NUM_RECORDS);
+        sb.append("\" numberOfRecordsReturned=\"").append(numReturned);
+        sb.append("\" nextRecord=\"").append(nextRecord).append("\">");
+        for (int i = start; i < start + numReturned; i++)
+        {
+            sb.append("<rim:Service id=\"service").append(i).append("\">");
+            sb.append("<rim:Name><rim:LocalizedString value=\"Service ").append(i).append("\"/></rim:Name>");
+            sb.append("</rim:Service>");
+        }
+        sb.append("</csw:SearchResults></csw:GetRecordsResponse>");
+
+        byte[] content = sb.toString().getBytes("UTF-8");
+        exchange.sendResponseHeaders(200, content.length);
+        exchange.getResponseBody().write(content);
+        exchange.close();
+    }
+
+    protected static String readContent(InputStream is) throws IOException
+    {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int n;
+        while ((n = is.read(buffer)) > 0)
+        {
+            content.write(buffer, 0, n);
+        }
+
+        return content.toString("UTF-8");
+    }
+}
@@ -0,0 +1,214 @@
+/*
+Copyright (C) 2001, 2010 United States Government
+as represented by the Administrator of the
+National Aeronautics and Space Administration.
+All Rights Reserved.
+*/
+package gov.nasa.worldwind.formats.dds;
+
+import org.junit.*;
+
+import java.awt.image.BufferedImage;
+import java.nio.*;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Decodes the output of the DXT compressors and compares it with the source image, and checks that compressing an
+ * image's block rows concurrently produces the same output as compressing them in order.
+ *
+ * @version $Id$
+ */
+public class DXTCompressorTest
+{
+    /** The size of the DDS magic number and header preceding the compressed blocks. */
+    protected static final int HEADER_SIZE = 128;
+    /** The minimum peak signal to noise ratio of the decoded colors, in decibels. */
+    protected static final double MIN_COLOR_PSNR = 34;
+    /**
+     * The minimum peak signal to noise ratio of the decoded DXT3 alpha, in decibels. Quantizing alpha to 4 bits limits
+     * it to about 34 decibels.
+     */
+    protected static final double MIN_ALPHA_PSNR = 33;
+
+    protected DXTCompressionAttributes attributes;
+
+    @Before
+    public void setUp()
+    {
+        this.attributes = new DXTCompressionAttributes();
+        this.attributes.setBuildMipmaps(false);
+        this.attributes.setPremultiplyAlpha(false);
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.attributes = null;
+    }
+
+    @Test
+    public void testDXT1Quality()
+    {
+        BufferedImage image = createImage(1, 256, 256, false);
+        ByteBuffer dds = new DDSCompressor().compressImageDXT1(image, this.attributes);
+
+        int[] decoded = decode(dds, image.getWidth(), image.getHeight(), false);
+        double psnr = computeColorPSNR(image, decoded);
+        assertTrue("Color PSNR " + psnr, psnr >= MIN_COLOR_PSNR);
+    }
+
+    @Test
+    public void testDXT3Quality()
+    {
+        BufferedImage image = createImage(2, 256, 256, true);
+        ByteBuffer dds = new DDSCompressor().compressImageDXT3(image, this.attributes);
+
+        int[] decoded = decode(dds, image.getWidth(), image.getHeight(), true);
+        double psnr = computeColorPSNR(image, decoded);
+        assertTrue("Color PSNR " + psnr, psnr >= MIN_COLOR_PSNR);
+        psnr = computePSNR(image, decoded, 24);
+        assertTrue("Alpha PSNR " + psnr, psnr >= MIN_ALPHA_PSNR);
+    }
+
+    @Test
+    public void testConcurrentOutputMatchesSequential()
+    {
+        BufferedImage image = createImage(3, 512, 512, false);
+        int numRows = image.getHeight() / 4;
+
+        DXT1Compressor dxt1 = new DXT1Compressor();
+        ByteBuffer expected = ByteBuffer.allocate(dxt1.getCompressedSize(image, this.attributes));
+        expected.order(ByteOrder.LITTLE_ENDIAN);
+        dxt1.doCompressBlockRows(image, this.attributes, 0, numRows, expected);
+
+        ByteBuffer actual = ByteBuffer.allocate(expected.capacity());
+        actual.order(ByteOrder.LITTLE_ENDIAN);
+        dxt1.compressImage(image, this.attributes, actual);
+
+        assertEquals(expected.capacity(), actual.position());
+        expected.rewind();
+        actual.rewind();
+        assertEquals(expected, actual);
+
+        DXT3Compressor dxt3 = new DXT3Compressor();
+        expected = ByteBuffer.allocate(dxt3.getCompressedSize(image, this.attributes));
+        expected.order(ByteOrder.LITTLE_ENDIAN);
+        dxt3.doCompressBlockRows(image, this.attributes, 0, numRows, expected);
+
+        actual = ByteBuffer.allocate(expected.capacity());
+        actual.order(ByteOrder.LITTLE_ENDIAN);
+        dxt3.compressImage(image, this.attributes, actual);
+
+        expected.rewind();
+        actual.rewind();
+        assertEquals(expected, actual);
+    }
+
+    /** Creates an image of smooth gradients with noise, optionally with a varying alpha. */
+    protected static BufferedImage createImage(long seed, int width, int height, boolean alpha)
+    {
+        Random random = new Random(seed);
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < height; y++)
+        {
+            for (int x = 0; x < width; x++)
+            {
+                int a = alpha ? (int) (127.5 + 127.5 * Math.sin(x * 0.02 + y * 0.01)) : 255;
+                int r = Math.min((int) (127 + 100 * Math.sin(x * 0.05)) + random.nextInt(16), 255);
+                int g = Math.min((int) (127 + 100 * Math.cos(y * 0.03)) + random.nextInt(16), 255);
+                int b = (x + y) % 256;
+                image.setRGB(x, y, (a << 24) | (r << 16) | (g << 8) | b);
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Decodes the DXT1 or DXT3 blocks of a DDS file without mipmaps.
+     *
+     * @return the decoded pixels, as packed ARGB.
+     */
+    protected static int[] decode(ByteBuffer dds, int width, int height, boolean dxt3)
+    {
+        dds.order(ByteOrder.LITTLE_ENDIAN);
+        dds.position(HEADER_SIZE);
+
+        int[] pixels = new int[width * height];
+        int[] palette = new int[4];
+        for (int by = 0; by < height; by += 4)
+        {
+            for (int bx = 0; bx < width; bx += 4)
+            {
+                long alphas = dxt3 ? dds.getLong() : -1L;
+                int color0 = dds.getShort() & 0xFFFF;
+                int color1 = dds.getShort() & 0xFFFF;
+                int indices = dds.getInt();
+
+                palette[0] = decode565(color0);
+                palette[1] = decode565(color1);
+                if (dxt3 || color0 > color1)
+                {
+                    palette[2] = interpolate(palette[0], palette[1], 2, 1, 3);
+                    palette[3] = interpolate(palette[0], palette[1], 1, 2, 3);
+                }
+                else
+                {
+                    palette[2] = interpolate(palette[0], palette[1], 1, 1, 2);
+                    palette[3] = 0;
+                }
+
+                for (int i = 0; i < 16; i++)
+                {
+                    int color = palette[(indices >>> (2 * i)) & 3];
+                    int alpha = dxt3 ? (int) ((alphas >>> (4 * i)) & 0xF) * 17 : (color == 0 ? 0 : 255);
+                    pixels[(by + i / 4) * width + bx + i % 4] = (alpha << 24) | (color & 0xFFFFFF);
+                }
+            }
+        }
+
+        return pixels;
+    }
+
+    protected static int decode565(int color)
+    {
+        int r = (color >> 11) & 0x1F;
+        int g = (color >> 5) & 0x3F;
+        int b = color & 0x1F;
+        return ((r << 3 | r >> 2) << 16) | ((g << 2 | g >> 4) << 8) | (b << 3 | b >> 2);
+    }
+
+    protected static int interpolate(int c0, int c1, int w0, int w1, int sum)
+    {
+        int color = 0;
+        for (int shift = 0; shift <= 16; shift += 8)
+        {
+            int v = (w0 * ((c0 >> shift) & 0xFF) + w1 * ((c1 >> shift) & 0xFF)) / sum;
+            color |= v << shift;
+        }
+        return color;
+    }
+
+    /** Computes the peak signal to noise ratio of the red, green and blue components of the decoded pixels. */
+    protected static double computeColorPSNR(BufferedImage image, int[] decoded)
+    {
+        return (computePSNR(image, decoded, 16) + computePSNR(image, decoded, 8) + computePSNR(image, decoded, 0)) / 3;
+    }
+
+    /** Computes the peak signal to noise ratio of one 8 bit component of the decoded pixels. */
+    protected static double computePSNR(BufferedImage image, int[] decoded, int shift)
+    {
+        int width = image.getWidth();
+        double sum = 0;
+        for (int i = 0; i < decoded.length; i++)
+        {
+            int source = (image.getRGB(i % width, i / width) >> shift) & 0xFF;
+            int d = source - ((decoded[i] >> shift) & 0xFF);
+            sum += d * d;
+        }
+
+        double mse = sum / decoded.length;
+        return mse > 0 ? 10 * Math.log10(255 * 255 / mse) : Double.POSITIVE_INFINITY;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+Copyright (C) 2001, 2010 United States Government
+as represented by the Administrator of the
+National Aeronautics and Space Administration.
+All Rights Reserved.
+*/
+package gov.nasa.worldwind.formats.nmea;
+
+import gov.nasa.worldwind.tracks.*;
+import org.junit.*;
+
+import java.io.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Reads canned NMEA sentences into a {@link TrackStore}, and checks the stored points against those the reader
+ * collects without a store.
+ *
+ * @version $Id$
+ */
+public class NmeaReaderTest
+{
+    protected static final String GGA_1 = "$GPGGA,123519,4807.038,N,01131.000,E,1,08,0.9,545.4,M,46.9,M,,*47";
+    protected static final String GGA_2 = "$GPGGA,123520.5,4807.040,S,01131.002,W,1,08,0.9,545.6,M,46.9,M,,*47";
+    protected static final String RMC = "$GPRMC,123519,A,4807.038,N,01131.000,E,022.4,084.4,230394,003.1,W*6A";
+
+    // Midnight of March 23, 1994 UTC, in milliseconds since January 1, 1970.
+    protected static final long DATE = 764380800000L;
+
+    protected TrackStore store;
+
+    @Before
+    public void setUp()
+    {
+        this.store = new TrackStore();
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.store.close();
+    }
+
+    @Test
+    public void testStoredPointsMatchCollectedPoints() throws Exception
+    {
+        NmeaReader listReader = new NmeaReader();
+        listReader.readStream(stream(GGA_1, RMC, GGA_2), "list");
+
+        NmeaReader storeReader = new NmeaReader();
+        storeReader.setTrackStore(this.store);
+        storeReader.readStream(stream(GGA_1, RMC, GGA_2), "store");
+
+        assertEquals(0, storeReader.getNumPoints());
+        assertEquals(2, listReader.getNumPoints());
+        assertEquals(2, this.store.getNumPoints());
+
+        for (int i = 0; i < 2; i++)
+        {
+            TrackPoint point = listReader.getPoints().get(i);
+            assertEquals(point.getLatitude(), this.store.getLatitude(i), 1e-12);
+            assertEquals(point.getLongitude(), this.store.getLongitude(i), 1e-12);
+            assertEquals(point.getElevation(), this.store.getElevation(i), 1e-9);
+        }
+    }
+
+    @Test
+    public void testTimesUseTheMostRecentRMCDate() throws Exception
+    {
+        NmeaReader reader = new NmeaReader();
+        reader.setTrackStore(this.store);
+        reader.readStream(stream(GGA_1, RMC, GGA_2), "first");
+
+        // The first point precedes the stream's RMC sentence, so its date is unknown.
+        assertEquals(TrackStore.TIME_UNKNOWN, this.store.getTime(0));
+        assertEquals(DATE + (12 * 3600 + 35 * 60 + 20) * 1000L + 500, this.store.getTime(1));
+        assertEquals("1994-03-23T12:35:20.500Z", TrackStore.formatTime(this.store.getTime(1)));
+
+        // Each stream starts without a date.
+        reader.readStream(stream(GGA_1), "second");
+        assertEquals(3, this.store.getNumPoints());
+        assertEquals(TrackStore.TIME_UNKNOWN, this.store.getTime(2));
+    }
+
+    protected static InputStream stream(String... sentences) throws UnsupportedEncodingException
+    {
+        StringBuilder sb = new StringBuilder();
+        for (String sentence : sentences)
+        {
+            sb.append(sentence).append("\r\n");
+        }
+
+        return new ByteArrayInputStream(sb.toString().getBytes("US-ASCII"));
+    }
+}
@@ -0,0 +1,158 @@
+/*
+Copyright (C) 2001, 2010 United States Government
+as represented by the Administrator of the
+National Aeronautics and Space Administration.
+All Rights Reserved.
+*/
+package gov.nasa.worldwind.render;
+
+import org.junit.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Drives a {@link TextureUploadScheduler} through sequences of frames without OpenGL, and checks which requests it
+ * grants.
+ *
+ * @version $Id$
+ */
+public class TextureUploadSchedulerTest
+{
+    protected static final long MILLIS = 1000000L;
+
+    protected TextureUploadScheduler scheduler;
+
+    @Before
+    public void setUp()
+    {
+        this.scheduler = new TextureUploadScheduler(8, 1000, 8);
+    }
+
+    @Test
+    public void testFirstRequestIsGranted()
+    {
+        assertTrue(this.scheduler.requestUpload(1, "a", 100, 1));
+        assertFalse(this.scheduler.requestUpload(1, "b", 100, 2));
+        assertTrue(this.scheduler.hasDeferredUploads());
+
+        // A key granted earlier in the frame is granted again.
+        assertTrue(this.scheduler.requestUpload(1, "a", 100, 1));
+    }
+
+    @Test
+    public void testDeferredRequestsCarryOver()
+    {
+        this.scheduler.requestUpload(1, "a", 100, 1);
+        this.scheduler.requestUpload(1, "b", 100, 2);
+        this.scheduler.requestUpload(1, "c", 100, 3);
+
+        // The requests refused in frame 1 are granted in frame 2, whatever order they are made in.
+        assertTrue(this.scheduler.requestUpload(2, "c", 100, 3));
+        assertTrue(this.scheduler.requestUpload(2, "b", 100, 2));
+        assertFalse(this.scheduler.hasDeferredUploads());
+
+        // A request neither granted at the start of the frame nor first in the frame waits for the next one.
+        assertFalse(this.scheduler.requestUpload(2, "d", 100, 4));
+        assertTrue(this.scheduler.requestUpload(3, "d", 100, 4));
+    }
+
+    @Test
+    public void testDeferredRequestsAreGrantedInPriorityOrder()
+    {
+        this.scheduler.setMaxUploadsPerFrame(2);
+
+        this.scheduler.requestUpload(1, "first", 100, 0);
+        this.scheduler.requestUpload(1, "far", 100, 30);
+        this.scheduler.requestUpload(1, "near", 100, 10);
+        this.scheduler.requestUpload(1, "middle", 100, 40);
+        // A repeated request keeps the key's most important priority.
+        this.scheduler.requestUpload(1, "middle", 100, 20);
+
+        assertTrue(this.scheduler.requestUpload(2, "near", 100, 10));
+        assertTrue(this.scheduler.requestUpload(2, "middle", 100, 20));
+        assertFalse(this.scheduler.requestUpload(2, "far", 100, 30));
+        assertTrue(this.scheduler.requestUpload(3, "far", 100, 30));
+    }
+
+    @Test
+    public void testByteBudget()
+    {
+        this.scheduler.requestUpload(1, "first", 100, 0);
+        this.scheduler.requestUpload(1, "a", 600, 1);
+        this.scheduler.requestUpload(1, "b", 600, 2);
+        this.scheduler.requestUpload(1, "c", 300, 3);
+
+        // Granting "b" would exceed the 1000 byte budget, so frame 2 grants "a" and stops there.
+        assertTrue(this.scheduler.requestUpload(2, "a", 600, 1));
+        assertFalse(this.scheduler.requestUpload(2, "c", 300, 3));
+        assertFalse(this.scheduler.requestUpload(2, "b", 600, 2));
+        assertTrue(this.scheduler.requestUpload(3, "b", 600, 2));
+    }
+
+    @Test
+    public void testOversizedRequestIsGranted()
+    {
+        this.scheduler.requestUpload(1, "first", 100, 0);
+        this.scheduler.requestUpload(1, "huge", 5000, 1);
+
+        // The most important deferred request is granted even when it exceeds the byte budget by itself.
+        assertTrue(this.scheduler.requestUpload(2, "huge", 5000, 1));
+    }
+
+    @Test
+    public void testTimeBudget()
+    {
+        this.scheduler.requestUpload(1, "first", 100, 0);
+        this.scheduler.requestUpload(1, "a", 100, 1);
+        this.scheduler.requestUpload(1, "b", 100, 2);
+
+        // Once the frame's uploads take the 8 ms time budget, requests granted at the start of the frame are refused.
+        assertTrue(this.scheduler.requestUpload(2, "a", 100, 1));
+        this.scheduler.uploadCompleted(100, 9 * MILLIS);
+        assertFalse(this.scheduler.requestUpload(2, "b", 100, 2));
+
+        // The time budget starts over with each frame.
+        assertTrue(this.scheduler.requestUpload(3, "b", 100, 2));
+    }
+
+    @Test
+    public void testCountBudget()
+    {
+        this.scheduler.setMaxUploadsPerFrame(2);
+
+        this.scheduler.requestUpload(1, "first", 10, 0);
+        for (int i = 0; i < 5; i++)
+        {
+            this.scheduler.requestUpload(1, "tile" + i, 10, i);
+        }
+
+        assertTrue(this.scheduler.requestUpload(2, "tile0", 10, 0));
+        assertTrue(this.scheduler.requestUpload(2, "tile1", 10, 1));
+        assertFalse(this.scheduler.requestUpload(2, "tile2", 10, 2));
+    }
+
+    @Test
+    public void testFirstRequestIsGrantedWhenGrantsAreNotUsed()
+    {
+        this.scheduler.requestUpload(1, "first", 100, 0);
+        this.scheduler.requestUpload(1, "gone", 100, 1);
+
+        // "gone" was granted for frame 2 but is not requested, for example because its tile left the view. The frame
+        // still makes progress with the first request it receives.
+        assertTrue(this.scheduler.requestUpload(2, "new", 100, 2));
+        assertFalse(this.scheduler.requestUpload(2, "other", 100, 3));
+    }
+
+    @Test
+    public void testFirstRequestRespectsByteBudget()
+    {
+        this.scheduler.requestUpload(1, "first", 100, 0);
+        this.scheduler.requestUpload(1, "a", 900, 1);
+
+        // "a" holds 900 bytes of frame 2's budget. A first request for another key that doesn't fit in the remainder is
+        // deferred, and "a" is still granted when it's requested later in the frame.
+        assertFalse(this.scheduler.requestUpload(2, "new", 200, 2));
+        assertTrue(this.scheduler.requestUpload(2, "a", 900, 1));
+        assertTrue(this.scheduler.requestUpload(3, "new", 200, 2));
+    }
+}
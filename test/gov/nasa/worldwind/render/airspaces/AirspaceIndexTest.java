@@ -0,0 +1,123 @@
+/*
+Copyright (C) 2001, 2010 United States Government
+as represented by the Administrator of the
+National Aeronautics and Space Administration.
+All Rights Reserved.
+*/
+package gov.nasa.worldwind.render.airspaces;
+
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import gov.nasa.worldwind.terrain.ZeroElevationModel;
+import org.junit.*;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the conflicts an {@link AirspaceIndex} finds between airspaces on a globe without terrain.
+ *
+ * @version $Id$
+ */
+public class AirspaceIndexTest
+{
+    protected AirspaceIndex index;
+
+    @Before
+    public void setUp()
+    {
+        Globe globe = new EllipsoidalGlobe(Earth.WGS84_EQUATORIAL_RADIUS, Earth.WGS84_POLAR_RADIUS, Earth.WGS84_ES,
+            new ZeroElevationModel());
+        this.index = new AirspaceIndex(globe);
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.index = null;
+    }
+
+    @Test
+    public void testNestedAirspacesConflict()
+    {
+        for (int i = 0; i < 100; i++)
+        {
+            double lat = -40 + 0.8 * i;
+            double lon = -100 + 2 * i;
+
+            // A triangle inside a cylinder, and a cylinder inside a triangle.
+            this.index.addAirspace(this.makeCylinder(lat, lon, 20000));
+            this.index.addAirspace(this.makeTriangle(lat, lon, 0.05));
+            this.index.addAirspace(this.makeCylinder(lat + 0.4, lon + 1, 2000));
+            this.index.addAirspace(this.makeTriangle(lat + 0.4, lon + 1, 0.2));
+        }
+
+        List<AirspaceIndex.Conflict> conflicts = this.index.getConflicts();
+        assertEquals(200, conflicts.size());
+        this.assertPositionsInsideAirspaces(conflicts);
+    }
+
+    @Test
+    public void testCrossingAirspacesConflict()
+    {
+        for (int i = 0; i < 100; i++)
+        {
+            double lat = -40 + 0.8 * i;
+            double lon = -100 + 2 * i;
+
+            // Squares overlapping at a corner, and a triangle crossing the edge of a cylinder.
+            this.index.addAirspace(this.makeSquare(lat, lon, 0.1));
+            this.index.addAirspace(this.makeSquare(lat + 0.05, lon + 0.05, 0.1));
+            this.index.addAirspace(this.makeCylinder(lat + 0.4, lon + 1, 5000));
+            this.index.addAirspace(this.makeTriangle(lat + 0.4, lon + 1.05, 0.05));
+        }
+
+        List<AirspaceIndex.Conflict> conflicts = this.index.getConflicts();
+        assertEquals(200, conflicts.size());
+        this.assertPositionsInsideAirspaces(conflicts);
+    }
+
+    @Test
+    public void testSeparateAirspacesDoNotConflict()
+    {
+        this.index.addAirspace(this.makeCylinder(10, 10, 5000));
+        this.index.addAirspace(this.makeTriangle(10, 10.2, 0.05));
+        this.index.addAirspace(this.makeSquare(10.1, 10.1, 0.05));
+
+        assertTrue(this.index.getConflicts().isEmpty());
+    }
+
+    protected void assertPositionsInsideAirspaces(List<AirspaceIndex.Conflict> conflicts)
+    {
+        for (AirspaceIndex.Conflict conflict : conflicts)
+        {
+            List<Airspace> airspaces = this.index.getAirspacesContaining(conflict.getPosition());
+            assertTrue(conflict.toString(), airspaces.contains(conflict.getAirspace1()));
+            assertTrue(conflict.toString(), airspaces.contains(conflict.getAirspace2()));
+        }
+    }
+
+    protected Airspace makeCylinder(double lat, double lon, double radius)
+    {
+        CappedCylinder cylinder = new CappedCylinder(LatLon.fromDegrees(lat, lon), radius);
+        cylinder.setAltitudes(0, 1000);
+        return cylinder;
+    }
+
+    protected Airspace makeTriangle(double lat, double lon, double size)
+    {
+        Polygon polygon = new Polygon(Arrays.asList(LatLon.fromDegrees(lat - 0.7 * size, lon - 0.6 * size),
+            LatLon.fromDegrees(lat - 0.5 * size, lon + 0.8 * size), LatLon.fromDegrees(lat + size, lon)));
+        polygon.setAltitudes(0, 1000);
+        return polygon;
+    }
+
+    protected Airspace makeSquare(double lat, double lon, double size)
+    {
+        Polygon polygon = new Polygon(Arrays.asList(LatLon.fromDegrees(lat, lon), LatLon.fromDegrees(lat, lon + size),
+            LatLon.fromDegrees(lat + size, lon + size), LatLon.fromDegrees(lat + size, lon)));
+        polygon.setAltitudes(0, 1000);
+        return polygon;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+Copyright (C) 2001, 2010 United States Government
+as represented by the Administrator of the
+National Aeronautics and Space Administration.
+All Rights Reserved.
+*/
+package gov.nasa.worldwind.terrain;
+
+import gov.nasa.worldwind.geom.Sector;
+import org.junit.*;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the change epochs a {@link CompoundElevationModel} reports as its contained models change.
+ *
+ * @version $Id$
+ */
+public class CompoundElevationModelTest
+{
+    protected CompoundElevationModel model;
+    protected ZeroElevationModel first;
+    protected ZeroElevationModel second;
+
+    @Before
+    public void setUp()
+    {
+        this.first = new ZeroElevationModel();
+        this.second = new ZeroElevationModel();
+        this.model = new CompoundElevationModel();
+        this.model.addElevationModel(this.first);
+        this.model.addElevationModel(this.second);
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.model = null;
+        this.first = null;
+        this.second = null;
+    }
+
+    @Test
+    public void testEpochsOfManySectorsAreStable()
+    {
+        List<Sector> sectors = new ArrayList<Sector>();
+        for (int lat = -50; lat < 50; lat++)
+        {
+            for (int lon = 0; lon < 10; lon++)
+            {
+                sectors.add(Sector.fromDegrees(lat, lat + 0.5, lon, lon + 0.5));
+            }
+        }
+
+        long[] epochs = new long[sectors.size()];
+        for (int i = 0; i < sectors.size(); i++)
+        {
+            epochs[i] = this.model.getChangeEpoch(sectors.get(i));
+        }
+
+        // Nothing changed, so querying the sectors again returns the same epochs however many sectors there are.
+        for (int i = 0; i < sectors.size(); i++)
+        {
+            assertEquals(epochs[i], this.model.getChangeEpoch(sectors.get(i)));
+        }
+    }
+
+    @Test
+    public void testEpochAdvancesWhenContainedModelChanges()
+    {
+        Sector changed = Sector.fromDegrees(10, 11, 20, 21);
+        Sector unchanged = Sector.fromDegrees(-40, -39, -60, -59);
+        long changedEpoch = this.model.getChangeEpoch(changed);
+        long unchangedEpoch = this.model.getChangeEpoch(unchanged);
+
+        this.second.markElevationsChanged(changed);
+
+        assertTrue(this.model.getChangeEpoch(changed) > changedEpoch);
+        assertEquals(unchangedEpoch, this.model.getChangeEpoch(unchanged));
+    }
+
+    @Test
+    public void testEpochAdvancesWhenContainedModelIsRemoved()
+    {
+        Sector sector = Sector.fromDegrees(10, 11, 20, 21);
+        for (int i = 0; i < 5; i++)
+        {
+            this.first.markElevationsChanged(sector);
+        }
+        long epoch = this.model.getChangeEpoch(sector);
+
+        // Removing a model whose epochs are large does not decrease the sum of the remaining models' epochs.
+        this.model.removeElevationModel(this.first);
+        long removedEpoch = this.model.getChangeEpoch(sector);
+        assertTrue(removedEpoch > epoch);
+
+        this.model.setElevationModel(0, new ZeroElevationModel());
+        assertTrue(this.model.getChangeEpoch(sector) > removedEpoch);
+    }
+}
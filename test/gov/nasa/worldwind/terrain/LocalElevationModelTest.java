@@ -0,0 +1,112 @@
+/*
+Copyright (C) 2001, 2010 United States Government
+as represented by the Administrator of the
+National Aeronautics and Space Administration.
+All Rights Reserved.
+*/
+package gov.nasa.worldwind.terrain;
+
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.util.BufferWrapper;
+import org.junit.*;
+
+import java.nio.DoubleBuffer;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks how a {@link LocalElevationModel} finds the tile containing a location in a mosaic of abutting tiles.
+ *
+ * @version $Id$
+ */
+public class LocalElevationModelTest
+{
+    protected static final int MOSAIC_SIZE = 40;
+
+    /** Counts the lookups that go through the tile index rather than the last tile found. */
+    protected static class CountingElevationModel extends LocalElevationModel
+    {
+        protected int indexLookups;
+
+        @Override
+        protected TileIndex getTileIndex()
+        {
+            this.indexLookups++;
+            return super.getTileIndex();
+        }
+    }
+
+    protected CountingElevationModel model;
+    protected List<LocalElevationModel.LocalTile> mosaic;
+
+    @Before
+    public void setUp()
+    {
+        this.model = new CountingElevationModel();
+        this.mosaic = new ArrayList<LocalElevationModel.LocalTile>();
+
+        for (int row = 0; row < MOSAIC_SIZE; row++)
+        {
+            for (int col = 0; col < MOSAIC_SIZE; col++)
+            {
+                Sector sector = Sector.fromDegrees(row, row + 1, col, col + 1);
+                BufferWrapper elevations = new BufferWrapper.DoubleBufferWrapper(DoubleBuffer.allocate(4));
+                this.mosaic.add(new LocalElevationModel.LocalTile(sector, -Double.MAX_VALUE, 2, 2, elevations));
+            }
+        }
+
+        this.model.tiles.addAll(this.mosaic);
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.model = null;
+        this.mosaic = null;
+    }
+
+    @Test
+    public void testAbuttingTilesAreExclusive()
+    {
+        Set<LocalElevationModel.TileIndex.Entry> entries = new HashSet<LocalElevationModel.TileIndex.Entry>();
+        for (LocalElevationModel.TileIndex.Entry[] cell : this.model.getTileIndex().cells)
+        {
+            if (cell != null)
+                entries.addAll(Arrays.asList(cell));
+        }
+
+        assertEquals(MOSAIC_SIZE * MOSAIC_SIZE, entries.size());
+        for (LocalElevationModel.TileIndex.Entry entry : entries)
+        {
+            assertTrue(entry.exclusive);
+        }
+    }
+
+    @Test
+    public void testLookupsInTheLastTileSkipTheIndex()
+    {
+        LocalElevationModel.LocalTile tile = this.mosaic.get(5 * MOSAIC_SIZE + 7);
+
+        assertSame(tile, this.model.findTile(Math.toRadians(5.5), Math.toRadians(7.5)));
+        int indexLookups = this.model.indexLookups;
+
+        for (int i = 1; i < 10; i++)
+        {
+            assertSame(tile, this.model.findTile(Math.toRadians(5 + 0.1 * i), Math.toRadians(7 + 0.1 * i)));
+        }
+        assertEquals(indexLookups, this.model.indexLookups);
+    }
+
+    @Test
+    public void testSharedEdgesResolveInListOrder()
+    {
+        LocalElevationModel.LocalTile first = this.mosaic.get(0);
+        LocalElevationModel.LocalTile second = this.mosaic.get(1);
+
+        // The last tile found is the second one, but the edge it shares with the first tile belongs to the first tile,
+        // which is earlier in the tile list.
+        assertSame(second, this.model.findTile(Math.toRadians(0.5), Math.toRadians(1.5)));
+        assertSame(first, this.model.findTile(Math.toRadians(0.5), second.sector.getMinLongitude().radians));
+    }
+}
@@ -0,0 +1,201 @@
+/*
+Copyright (C) 2001, 2010 United States Government
+as represented by the Administrator of the
+National Aeronautics and Space Administration.
+All Rights Reserved.
+*/
+package gov.nasa.worldwind.tracks;
+
+import gov.nasa.worldwind.event.*;
+import org.junit.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Replays canned NMEA sentences and comma separated values through a {@link PositionFeed}'s loopback source, and
+ * checks the change sets the feed publishes.
+ *
+ * @version $Id$
+ */
+public class PositionFeedTest
+{
+    protected static final String FEED_NAME = "gps";
+
+    protected PositionFeed feed;
+    protected List<PositionFeedEvent> events;
+
+    @Before
+    public void setUp()
+    {
+        this.feed = new PositionFeed(FEED_NAME);
+        this.events = Collections.synchronizedList(new ArrayList<PositionFeedEvent>());
+        this.feed.addPositionFeedListener(new PositionFeedListener()
+        {
+            public void objectsChanged(PositionFeedEvent event)
+            {
+                events.add(event);
+            }
+        });
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.feed.stop();
+    }
+
+    @Test
+    public void testReportsAreCoalesced() throws Exception
+    {
+        // A long update interval coalesces everything after the first publication into the final one.
+        this.feed.setUpdateInterval(60000);
+        this.replay(Arrays.asList(
+            "a,10,20,100",
+            "b,11,21",
+            "a,10.5,20.5,110",
+            "b,11.5,21.5",
+            "a,12,-22.25,120,1262304000000",
+            nmea("GPGGA,123519,4807.038,N,01131.000,E,1,08,0.9,545.4,M,46.9,M,,")));
+
+        assertTrue("Too many publications", this.events.size() <= 2);
+
+        int numReports = 0;
+        Set<String> published = new HashSet<String>();
+        for (PositionFeedEvent event : this.events)
+        {
+            Set<String> ids = new HashSet<String>();
+            for (MovingObject object : event.getObjects())
+            {
+                assertTrue("Object published twice in one event", ids.add(object.getId()));
+            }
+
+            assertTrue(event.getNumReports() >= event.getObjects().size());
+            numReports += event.getNumReports();
+            published.addAll(ids);
+        }
+
+        assertEquals(6, numReports);
+        assertEquals(new HashSet<String>(Arrays.asList("a", "b", FEED_NAME)), published);
+
+        MovingObject a = this.feed.getObject("a");
+        assertEquals(12, a.getPosition().getLatitude().degrees, 1e-9);
+        assertEquals(-22.25, a.getPosition().getLongitude().degrees, 1e-9);
+        assertEquals(120, a.getPosition().getElevation(), 1e-9);
+        assertEquals(1262304000000L, a.getTime());
+        assertEquals(3, a.getNumUpdates());
+
+        MovingObject b = this.feed.getObject("b");
+        assertEquals(11.5, b.getPosition().getLatitude().degrees, 1e-9);
+        assertEquals(TrackStore.TIME_UNKNOWN, b.getTime());
+        assertEquals(2, b.getNumUpdates());
+
+        MovingObject gps = this.feed.getObject(FEED_NAME);
+        assertEquals(48 + 7.038 / 60, gps.getPosition().getLatitude().degrees, 1e-9);
+        assertEquals(11 + 31.0 / 60, gps.getPosition().getLongitude().degrees, 1e-9);
+        assertEquals(545.4 + 46.9, gps.getPosition().getElevation(), 1e-9);
+    }
+
+    @Test
+    public void testMalformedLinesAreRejected() throws Exception
+    {
+        this.replay(Arrays.asList(
+            "a,-,5",
+            "b,12,.",
+            "c,+,-",
+            "$GPGGA,123519,4807.038,N,01131.000,E,1,08,0.9,545.4,M,46.9,M,,*00",
+            "d,1,2"));
+
+        assertEquals(5, this.feed.getNumLines());
+        assertEquals(4, this.feed.getNumRejectedLines());
+        assertEquals(1, this.feed.getObjects().size());
+        assertNotNull(this.feed.getObject("d"));
+    }
+
+    @Test
+    public void testRmcDateAppliesToGga() throws Exception
+    {
+        this.replay(Arrays.asList(
+            nmea("GPRMC,123519,A,4807.038,N,01131.000,E,022.4,084.4,150310,003.1,W"),
+            nmea("GPGGA,123520.5,4807.038,N,01131.000,E,1,08,0.9,545.4,M,46.9,M,,")));
+
+        Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        calendar.clear();
+        calendar.set(2010, Calendar.MARCH, 15, 12, 35, 20);
+        long expected = calendar.getTimeInMillis() + 500;
+
+        MovingObject gps = this.feed.getObject(FEED_NAME);
+        assertEquals(expected, gps.getTime());
+        assertEquals(84.4, gps.getCourse(), 1e-9); // the GGA report keeps the course and speed of the RMC report
+        assertEquals(2, gps.getNumUpdates());
+    }
+
+    @Test
+    public void testStopAbandonsBlockedReader() throws Exception
+    {
+        // A stream whose read neither returns nor ends when the stream is closed.
+        final Object never = new Object();
+        final CountDownLatch blocked = new CountDownLatch(1);
+        InputStream stream = new InputStream()
+        {
+            public int read() throws IOException
+            {
+                synchronized (never)
+                {
+                    blocked.countDown();
+                    while (true)
+                    {
+                        try
+                        {
+                            never.wait();
+                        }
+                        catch (InterruptedException e)
+                        {
+                            // ignore, as a blocked native read would
+                        }
+                    }
+                }
+            }
+        };
+
+        this.feed.start(stream);
+        assertTrue(blocked.await(10, TimeUnit.SECONDS));
+
+        long start = System.currentTimeMillis();
+        this.feed.stop();
+
+        assertFalse(this.feed.isRunning());
+        long elapsed = System.currentTimeMillis() - start;
+        assertTrue(elapsed >= PositionFeed.STOP_TIMEOUT && elapsed < 2 * PositionFeed.STOP_TIMEOUT);
+    }
+
+    /** Replays lines through the feed and waits until the feed has read and published all of them. */
+    protected void replay(List<String> lines) throws Exception
+    {
+        this.feed.replay(lines, 0);
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while (this.feed.isRunning() && System.currentTimeMillis() < deadline)
+        {
+            Thread.sleep(10);
+        }
+
+        assertFalse("Replay did not finish", this.feed.isRunning());
+        this.feed.stop(); // waits for the final publication
+    }
+
+    /** Appends the checksum to an NMEA sentence's body. */
+    protected static String nmea(String body)
+    {
+        int checksum = 0;
+        for (int i = 0; i < body.length(); i++)
+        {
+            checksum ^= body.charAt(i);
+        }
+
+        return String.format("$%s*%02X", body, checksum);
+    }
+}